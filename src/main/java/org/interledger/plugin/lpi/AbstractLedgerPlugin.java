@@ -2,6 +2,10 @@ package org.interledger.plugin.lpi;
 
 import org.interledger.InterledgerAddress;
 import org.interledger.plugin.lpi.QueuedMockLedgerPlugin.AsyncLedgerPluginEventEmitter;
+import org.interledger.plugin.lpi.events.EventTrace;
+import org.interledger.plugin.lpi.events.EventTrace.Stage;
+import org.interledger.plugin.lpi.events.EventTraceSampler;
+import org.interledger.plugin.lpi.events.EventTraceSink;
 import org.interledger.plugin.lpi.events.ImmutableLedgerPluginConnectedEvent;
 import org.interledger.plugin.lpi.events.ImmutableLedgerPluginDisconnectedEvent;
 import org.interledger.plugin.lpi.events.ImmutableLedgerPluginErrorEvent;
@@ -13,6 +17,7 @@ import org.interledger.plugin.lpi.events.IncomingTransferRejectedEvent;
 import org.interledger.plugin.lpi.events.LedgerPluginConnectedEvent;
 import org.interledger.plugin.lpi.events.LedgerPluginDisconnectedEvent;
 import org.interledger.plugin.lpi.events.LedgerPluginErrorEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginEvent;
 import org.interledger.plugin.lpi.events.OutgoingMessgeRequestEvent;
 import org.interledger.plugin.lpi.events.OutgoingTransferCancelledEvent;
 import org.interledger.plugin.lpi.events.OutgoingTransferFulfilledEvent;
@@ -20,15 +25,22 @@ import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
 import org.interledger.plugin.lpi.events.OutgoingTransferRejectedEvent;
 import org.interledger.plugin.lpi.exceptions.LedgerPluginNotConnectedException;
 import org.interledger.plugin.lpi.handlers.LedgerPluginEventHandler;
+import org.interledger.plugin.lpi.metrics.LedgerPluginEventType;
+import org.interledger.plugin.lpi.metrics.LedgerPluginMetrics;
+import org.interledger.plugin.lpi.metrics.LedgerPluginOperation;
 
 import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * An abstract implementation of a {@link LedgerPlugin} that does directly connects emitted ledger
@@ -48,8 +60,14 @@ public abstract class AbstractLedgerPlugin<T extends LedgerPluginConfig> impleme
 
   private final Map<UUID, LedgerPluginEventHandler> ledgerEventHandlers = Maps.newConcurrentMap();
 
+  private final LedgerPluginMetrics metrics;
+
   private LedgerPluginEventEmitter ledgerPluginEventEmitter;
 
+  private volatile EventTraceSampler eventTraceSampler = EventTraceSampler.never();
+
+  private volatile EventTraceSink eventTraceSink = EventTraceSink.discard();
+
   private AtomicBoolean connected = new AtomicBoolean(false);
 
   /**
@@ -60,7 +78,10 @@ public abstract class AbstractLedgerPlugin<T extends LedgerPluginConfig> impleme
    */
   protected AbstractLedgerPlugin(final T ledgerPluginConfig) {
     this.ledgerPluginConfig = Objects.requireNonNull(ledgerPluginConfig);
-    this.ledgerPluginEventEmitter = new SyncLedgerPluginEventEmitter(this.ledgerEventHandlers);
+    this.metrics = new LedgerPluginMetrics();
+    this.ledgerPluginEventEmitter =
+        new SyncLedgerPluginEventEmitter(this.ledgerEventHandlers, this.metrics,
+            () -> this.eventTraceSink);
   }
 
   /**
@@ -73,9 +94,28 @@ public abstract class AbstractLedgerPlugin<T extends LedgerPluginConfig> impleme
   protected AbstractLedgerPlugin(
       final T ledgerPluginConfig,
       final LedgerPluginEventEmitter ledgerPluginEventEmitter
+  ) {
+    this(ledgerPluginConfig, ledgerPluginEventEmitter, new LedgerPluginMetrics());
+  }
+
+  /**
+   * Required-args Constructor, for a {@link LedgerPluginEventEmitter} that records the events it
+   * emits in this plugin's {@link LedgerPluginMetrics}.
+   *
+   * @param ledgerPluginConfig       A {@link T} that specified ledger plugin options.
+   * @param ledgerPluginEventEmitter A {@link LedgerPluginEventEmitter} that is used to emit events
+   *                                 from this plugin.
+   * @param metrics                  The {@link LedgerPluginMetrics} that this plugin records its
+   *                                 operations in.
+   */
+  protected AbstractLedgerPlugin(
+      final T ledgerPluginConfig,
+      final LedgerPluginEventEmitter ledgerPluginEventEmitter,
+      final LedgerPluginMetrics metrics
   ) {
     this.ledgerPluginConfig = Objects.requireNonNull(ledgerPluginConfig);
     this.ledgerPluginEventEmitter = Objects.requireNonNull(ledgerPluginEventEmitter);
+    this.metrics = Objects.requireNonNull(metrics);
   }
 
   @Override
@@ -90,14 +130,18 @@ public abstract class AbstractLedgerPlugin<T extends LedgerPluginConfig> impleme
   public final void connect() {
     logger.info("connect: {}", this.getLedgerPluginConfig());
 
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
     try {
       if (!this.isConnected()) {
         this.doConnect();
         this.connected.compareAndSet(DISCONNECTED, CONNECTED);
         this.ledgerPluginEventEmitter.emitEvent(ImmutableLedgerPluginConnectedEvent.builder()
             .ledgerPrefix(this.getLedgerInfo().getLedgerPrefix())
+            .trace(newEventTrace())
             .build());
       }
+      failed = false;
     } catch (Exception e) {
       logger.error(e.getMessage(), e);
 
@@ -105,8 +149,11 @@ public abstract class AbstractLedgerPlugin<T extends LedgerPluginConfig> impleme
       this.ledgerPluginEventEmitter.emitEvent(
           ImmutableLedgerPluginErrorEvent.builder()
               .ledgerPrefix(this.getLedgerInfo().getLedgerPrefix())
+              .trace(newEventTrace())
               .error(e).build()
       );
+    } finally {
+      metrics.recordOperation(LedgerPluginOperation.CONNECT, startNanos, failed);
     }
   }
 
@@ -116,12 +163,20 @@ public abstract class AbstractLedgerPlugin<T extends LedgerPluginConfig> impleme
   public final void disconnect() {
     logger.info("disconnect {}", this.getLedgerPluginConfig());
 
-    if (this.isConnected()) {
-      this.doDisconnect();
-      this.connected.compareAndSet(CONNECTED, DISCONNECTED);
-      this.ledgerPluginEventEmitter.emitEvent(ImmutableLedgerPluginDisconnectedEvent.builder()
-          .ledgerPrefix(this.getLedgerInfo().getLedgerPrefix())
-          .build());
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      if (this.isConnected()) {
+        this.doDisconnect();
+        this.connected.compareAndSet(CONNECTED, DISCONNECTED);
+        this.ledgerPluginEventEmitter.emitEvent(ImmutableLedgerPluginDisconnectedEvent.builder()
+            .ledgerPrefix(this.getLedgerInfo().getLedgerPrefix())
+            .trace(newEventTrace())
+            .build());
+      }
+      failed = false;
+    } finally {
+      metrics.recordOperation(LedgerPluginOperation.DISCONNECT, startNanos, failed);
     }
   }
 
@@ -147,6 +202,7 @@ public abstract class AbstractLedgerPlugin<T extends LedgerPluginConfig> impleme
     Objects.requireNonNull(eventHandler);
 
     final UUID handlerId = UUID.randomUUID();
+    this.metrics.addHandler(handlerId);
     this.ledgerEventHandlers.put(handlerId, eventHandler);
 
     return handlerId;
@@ -155,6 +211,64 @@ public abstract class AbstractLedgerPlugin<T extends LedgerPluginConfig> impleme
   @Override
   public void removeLedgerPluginEventHandler(UUID eventHandlerId) {
     this.ledgerEventHandlers.remove(eventHandlerId);
+    this.metrics.removeHandler(eventHandlerId);
+  }
+
+  /**
+   * The number of event handlers currently added to this plugin.
+   */
+  public int getLedgerPluginEventHandlerCount() {
+    return this.ledgerEventHandlers.size();
+  }
+
+  /**
+   * Accessor for the counters and latencies recorded by this plugin. Events, transfer lifecycles
+   * and handler latencies are recorded by the default, synchronous emitter; a plugin constructed
+   * with its own {@link LedgerPluginEventEmitter} should record them itself, if needed.
+   */
+  public LedgerPluginMetrics getMetrics() {
+    return this.metrics;
+  }
+
+  /**
+   * Trace the events that {@code sampler} chooses as they move through this plugin, passing each
+   * trace to {@code sink} once every handler has returned. Only the default, synchronous emitter
+   * calls the sink itself; a plugin constructed with its own {@link LedgerPluginEventEmitter}
+   * should pass the traces of its events to {@link #getEventTraceSink()} once they are handled,
+   * as {@link QueuedMockLedgerPlugin.TracingSubscriber} does.
+   */
+  public void setEventTracing(final EventTraceSampler sampler, final EventTraceSink sink) {
+    this.eventTraceSampler = Objects.requireNonNull(sampler);
+    this.eventTraceSink = Objects.requireNonNull(sink);
+  }
+
+  /**
+   * Change which of this plugin's events are traced, keeping the current {@link EventTraceSink}.
+   */
+  public void setEventTraceSampler(final EventTraceSampler sampler) {
+    this.eventTraceSampler = Objects.requireNonNull(sampler);
+  }
+
+  /**
+   * The {@link EventTraceSampler} that decides which of this plugin's events are traced.
+   */
+  public EventTraceSampler getEventTraceSampler() {
+    return this.eventTraceSampler;
+  }
+
+  /**
+   * The {@link EventTraceSink} that receives the traces of this plugin's events.
+   */
+  public EventTraceSink getEventTraceSink() {
+    return this.eventTraceSink;
+  }
+
+  /**
+   * Start a trace for an event that this plugin has just been notified of, or is about to raise,
+   * if the current {@link EventTraceSampler} chooses it.
+   */
+  protected Optional<EventTrace> newEventTrace() {
+    return EventTrace.sample(this.eventTraceSampler);
   }
 
   protected T getLedgerPluginConfig() {
@@ -170,11 +284,17 @@ public abstract class AbstractLedgerPlugin<T extends LedgerPluginConfig> impleme
   static class SyncLedgerPluginEventEmitter implements LedgerPluginEventEmitter {
 
     private final Map<UUID, LedgerPluginEventHandler> ledgerEventHandlers;
+    private final LedgerPluginMetrics metrics;
+    private final Supplier<EventTraceSink> eventTraceSink;
 
     public SyncLedgerPluginEventEmitter(
-        final Map<UUID, LedgerPluginEventHandler> ledgerEventHandlers
+        final Map<UUID, LedgerPluginEventHandler> ledgerEventHandlers,
+        final LedgerPluginMetrics metrics,
+        final Supplier<EventTraceSink> eventTraceSink
     ) {
       this.ledgerEventHandlers = Objects.requireNonNull(ledgerEventHandlers);
+      this.metrics = Objects.requireNonNull(metrics);
+      this.eventTraceSink = Objects.requireNonNull(eventTraceSink);
     }
 
     /////////////////
@@ -183,46 +303,51 @@ public abstract class AbstractLedgerPlugin<T extends LedgerPluginConfig> impleme
 
     @Override
     public void emitEvent(final LedgerPluginConnectedEvent event) {
-      this.ledgerEventHandlers.values().stream().forEach(handler -> handler.onConnect(event));
+      dispatch(LedgerPluginEventType.CONNECTED, event, handler -> handler.onConnect(event));
     }
 
     @Override
     public void emitEvent(final LedgerPluginDisconnectedEvent event) {
-      this.ledgerEventHandlers.values().stream().forEach(handler -> handler.onDisconnect(event));
+      dispatch(LedgerPluginEventType.DISCONNECTED, event, handler -> handler.onDisconnect(event));
     }
 
     @Override
     public void emitEvent(final LedgerPluginErrorEvent event) {
-      this.ledgerEventHandlers.values().stream().forEach(handler -> handler.onError(event));
+      dispatch(LedgerPluginEventType.ERROR, event, handler -> handler.onError(event));
     }
 
     @Override
     public void emitEvent(final OutgoingTransferPreparedEvent event) {
-      this.ledgerEventHandlers.values().stream()
-          .forEach(handler -> handler.onTransferPrepared(event));
+      metrics.transferPrepared(event.getTransfer().getTransferId());
+      dispatch(LedgerPluginEventType.OUTGOING_TRANSFER_PREPARED, event,
+          handler -> handler.onTransferPrepared(event));
     }
 
     @Override
     public void emitEvent(final OutgoingTransferFulfilledEvent event) {
-      this.ledgerEventHandlers.values().stream()
-          .forEach(handler -> handler.onTransferFulfilled(event));
+      metrics.transferExecuted(event.getTransfer().getTransferId());
+      dispatch(LedgerPluginEventType.OUTGOING_TRANSFER_FULFILLED, event,
+          handler -> handler.onTransferFulfilled(event));
     }
 
     @Override
     public void emitEvent(final OutgoingTransferRejectedEvent event) {
-      this.ledgerEventHandlers.values().stream()
-          .forEach(handler -> handler.onTransferRejected(event));
+      metrics.transferRejected(event.getTransfer().getTransferId());
+      dispatch(LedgerPluginEventType.OUTGOING_TRANSFER_REJECTED, event,
+          handler -> handler.onTransferRejected(event));
     }
 
     @Override
-    public void emitEvent(OutgoingTransferCancelledEvent event) {
-
+    public void emitEvent(final OutgoingTransferCancelledEvent event) {
+      metrics.transferRejected(event.getTransfer().getTransferId());
+      dispatch(LedgerPluginEventType.OUTGOING_TRANSFER_CANCELLED, event,
+          handler -> handler.onTransferCancelled(event));
     }
 
     @Override
     public void emitEvent(final OutgoingMessgeRequestEvent event) {
-      this.ledgerEventHandlers.values().stream()
-          .forEach(handler -> handler.onMessageRequest(event));
+      dispatch(LedgerPluginEventType.OUTGOING_MESSAGE_REQUEST, event,
+          handler -> handler.onMessageRequest(event));
     }
 
     /////////////////////////////
@@ -231,31 +356,71 @@ public abstract class AbstractLedgerPlugin<T extends LedgerPluginConfig> impleme
 
     @Override
     public void emitEvent(final IncomingTransferPreparedEvent event) {
-      this.ledgerEventHandlers.values().stream()
-          .forEach(handler -> handler.onTransferPrepared(event));
+      metrics.transferPrepared(event.getTransfer().getTransferId());
+      dispatch(LedgerPluginEventType.INCOMING_TRANSFER_PREPARED, event,
+          handler -> handler.onTransferPrepared(event));
     }
 
     @Override
     public void emitEvent(final IncomingTransferFulfilledEvent event) {
-      this.ledgerEventHandlers.values().stream()
-          .forEach(handler -> handler.onTransferFulfilled(event));
+      metrics.transferExecuted(event.getTransfer().getTransferId());
+      dispatch(LedgerPluginEventType.INCOMING_TRANSFER_FULFILLED, event,
+          handler -> handler.onTransferFulfilled(event));
     }
 
     @Override
     public void emitEvent(final IncomingTransferRejectedEvent event) {
-      this.ledgerEventHandlers.values().stream()
-          .forEach(handler -> handler.onTransferRejected(event));
+      metrics.transferRejected(event.getTransfer().getTransferId());
+      dispatch(LedgerPluginEventType.INCOMING_TRANSFER_REJECTED, event,
+          handler -> handler.onTransferRejected(event));
     }
 
     @Override
-    public void emitEvent(IncomingTransferCancelledEvent event) {
-
+    public void emitEvent(final IncomingTransferCancelledEvent event) {
+      metrics.transferRejected(event.getTransfer().getTransferId());
+      dispatch(LedgerPluginEventType.INCOMING_TRANSFER_CANCELLED, event,
+          handler -> handler.onTransferCancelled(event));
     }
 
     @Override
     public void emitEvent(final IncomingMessgeRequestEvent event) {
-      this.ledgerEventHandlers.values().stream()
-          .forEach(handler -> handler.onMessageRequest(event));
+      dispatch(LedgerPluginEventType.INCOMING_MESSAGE_REQUEST, event,
+          handler -> handler.onMessageRequest(event));
+    }
+
+    /**
+     * Pass an event to every handler, timing each one, and deliver its trace, if it has one, once
+     * they have all returned.
+     */
+    private void dispatch(
+        final LedgerPluginEventType eventType, final LedgerPluginEvent event,
+        final Consumer<LedgerPluginEventHandler> action
+    ) {
+      final Optional<EventTrace> trace = event.getTrace();
+      if (trace.isPresent()) {
+        trace.get().mark(Stage.EMIT);
+      }
+      metrics.recordEvent(eventType);
+      if (trace.isPresent()) {
+        trace.get().mark(Stage.HANDLER_START);
+      }
+      try {
+        for (final Entry<UUID, LedgerPluginEventHandler> entry : ledgerEventHandlers.entrySet()) {
+          final long startNanos = System.nanoTime();
+          boolean failed = true;
+          try {
+            action.accept(entry.getValue());
+            failed = false;
+          } finally {
+            metrics.recordHandler(entry.getKey(), startNanos, failed);
+          }
+        }
+      } finally {
+        if (trace.isPresent()) {
+          trace.get().mark(Stage.HANDLER_END);
+          eventTraceSink.get().record(event, trace.get());
+        }
+      }
     }
   }
 }
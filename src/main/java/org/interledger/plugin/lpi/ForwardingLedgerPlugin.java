@@ -0,0 +1,322 @@
+package org.interledger.plugin.lpi;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.ilp.InterledgerProtocolError;
+import org.interledger.plugin.lpi.handlers.LedgerPluginEventHandler;
+import org.interledger.plugin.lpi.metrics.LedgerPluginOperation;
+
+import java.math.BigInteger;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A {@link LedgerPlugin} that forwards every call to another implementation, and lets a subclass
+ * observe the calls that do work on the ledger without repeating the forwarding for each of them.
+ *
+ * {@link #beforeCall} is called before each such call is forwarded, and {@link #afterCall} once it
+ * has returned or thrown, with whatever {@link #beforeCall} returned. {@link #isConnected()},
+ * {@link #getLedgerPluginEventEmitter()} and the handler methods are forwarded as they are, and may
+ * be overridden directly.
+ *
+ * @param <C> The type of whatever a subclass needs to carry from the start of a call to its end.
+ */
+public abstract class ForwardingLedgerPlugin<C> implements LedgerPlugin {
+
+  private final LedgerPlugin delegate;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param delegate The {@link LedgerPlugin} to forward calls to.
+   */
+  protected ForwardingLedgerPlugin(final LedgerPlugin delegate) {
+    this.delegate = Objects.requireNonNull(delegate);
+  }
+
+  public LedgerPlugin getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * Called before a call is forwarded to the wrapped plugin.
+   *
+   * @param operation The {@link LedgerPluginOperation} being called.
+   * @param argument  The {@link Transfer}, {@link Message} or {@link TransferId} that the call was
+   *                  given, or {@code null} if it takes none of those.
+   *
+   * @return Anything that {@link #afterCall} needs, or {@code null}.
+   */
+  protected abstract C beforeCall(LedgerPluginOperation operation, Object argument);
+
+  /**
+   * Called once a call to the wrapped plugin has returned or thrown. This is called from a {@code
+   * finally} block, so it shouldn't throw.
+   *
+   * @param operation  The {@link LedgerPluginOperation} that was called.
+   * @param argument   The argument that was passed to {@link #beforeCall}.
+   * @param context    Whatever {@link #beforeCall} returned.
+   * @param startNanos The value of {@link System#nanoTime()} just before the call was forwarded,
+   *                   so that a subclass can time it without allocating to carry the start time.
+   * @param result     The {@link LedgerResult} that the call returned, or {@code null} if it threw
+   *                   or doesn't return one.
+   * @param thrown     Whatever the call threw, or {@code null} if it returned.
+   */
+  protected abstract void afterCall(
+      LedgerPluginOperation operation, Object argument, C context, long startNanos,
+      LedgerResult result, Throwable thrown
+  );
+
+  @Override
+  public LedgerInfo getLedgerInfo() {
+    final C context = beforeCall(LedgerPluginOperation.GET_LEDGER_INFO, null);
+    final long startNanos = System.nanoTime();
+    Throwable thrown = null;
+    try {
+      return delegate.getLedgerInfo();
+    } catch (Throwable t) {
+      thrown = t;
+      throw t;
+    } finally {
+      afterCall(LedgerPluginOperation.GET_LEDGER_INFO, null, context, startNanos, null, thrown);
+    }
+  }
+
+  @Override
+  public InterledgerAddress getConnectorAccount() {
+    final C context = beforeCall(LedgerPluginOperation.GET_CONNECTOR_ACCOUNT, null);
+    final long startNanos = System.nanoTime();
+    Throwable thrown = null;
+    try {
+      return delegate.getConnectorAccount();
+    } catch (Throwable t) {
+      thrown = t;
+      throw t;
+    } finally {
+      afterCall(LedgerPluginOperation.GET_CONNECTOR_ACCOUNT, null, context, startNanos, null,
+          thrown);
+    }
+  }
+
+  @Override
+  public BigInteger getConnectorBalance() {
+    final C context = beforeCall(LedgerPluginOperation.GET_CONNECTOR_BALANCE, null);
+    final long startNanos = System.nanoTime();
+    Throwable thrown = null;
+    try {
+      return delegate.getConnectorBalance();
+    } catch (Throwable t) {
+      thrown = t;
+      throw t;
+    } finally {
+      afterCall(LedgerPluginOperation.GET_CONNECTOR_BALANCE, null, context, startNanos, null,
+          thrown);
+    }
+  }
+
+  @Override
+  public void connect() {
+    final C context = beforeCall(LedgerPluginOperation.CONNECT, null);
+    final long startNanos = System.nanoTime();
+    Throwable thrown = null;
+    try {
+      delegate.connect();
+    } catch (Throwable t) {
+      thrown = t;
+      throw t;
+    } finally {
+      afterCall(LedgerPluginOperation.CONNECT, null, context, startNanos, null, thrown);
+    }
+  }
+
+  @Override
+  public void disconnect() {
+    final C context = beforeCall(LedgerPluginOperation.DISCONNECT, null);
+    final long startNanos = System.nanoTime();
+    Throwable thrown = null;
+    try {
+      delegate.disconnect();
+    } catch (Throwable t) {
+      thrown = t;
+      throw t;
+    } finally {
+      afterCall(LedgerPluginOperation.DISCONNECT, null, context, startNanos, null, thrown);
+    }
+  }
+
+  @Override
+  public boolean isConnected() {
+    return delegate.isConnected();
+  }
+
+  @Override
+  public Optional<Fulfillment> getFulfillment(final TransferId transferId) {
+    final C context = beforeCall(LedgerPluginOperation.GET_FULFILLMENT, transferId);
+    final long startNanos = System.nanoTime();
+    Throwable thrown = null;
+    try {
+      return delegate.getFulfillment(transferId);
+    } catch (Throwable t) {
+      thrown = t;
+      throw t;
+    } finally {
+      afterCall(LedgerPluginOperation.GET_FULFILLMENT, transferId, context, startNanos, null,
+          thrown);
+    }
+  }
+
+  @Override
+  public void sendTransfer(final Transfer transfer) {
+    final C context = beforeCall(LedgerPluginOperation.SEND_TRANSFER, transfer);
+    final long startNanos = System.nanoTime();
+    Throwable thrown = null;
+    try {
+      delegate.sendTransfer(transfer);
+    } catch (Throwable t) {
+      thrown = t;
+      throw t;
+    } finally {
+      afterCall(LedgerPluginOperation.SEND_TRANSFER, transfer, context, startNanos, null, thrown);
+    }
+  }
+
+  @Override
+  public void sendMessage(final Message message) {
+    final C context = beforeCall(LedgerPluginOperation.SEND_MESSAGE, message);
+    final long startNanos = System.nanoTime();
+    Throwable thrown = null;
+    try {
+      delegate.sendMessage(message);
+    } catch (Throwable t) {
+      thrown = t;
+      throw t;
+    } finally {
+      afterCall(LedgerPluginOperation.SEND_MESSAGE, message, context, startNanos, null, thrown);
+    }
+  }
+
+  @Override
+  public void fulfillCondition(final TransferId transferId, final Fulfillment fulfillment) {
+    final C context = beforeCall(LedgerPluginOperation.FULFILL_CONDITION, transferId);
+    final long startNanos = System.nanoTime();
+    Throwable thrown = null;
+    try {
+      delegate.fulfillCondition(transferId, fulfillment);
+    } catch (Throwable t) {
+      thrown = t;
+      throw t;
+    } finally {
+      afterCall(LedgerPluginOperation.FULFILL_CONDITION, transferId, context, startNanos, null,
+          thrown);
+    }
+  }
+
+  @Override
+  public void rejectIncomingTransfer(
+      final TransferId transferId, final InterledgerProtocolError rejectionReason
+  ) {
+    final C context = beforeCall(LedgerPluginOperation.REJECT_INCOMING_TRANSFER, transferId);
+    final long startNanos = System.nanoTime();
+    Throwable thrown = null;
+    try {
+      delegate.rejectIncomingTransfer(transferId, rejectionReason);
+    } catch (Throwable t) {
+      thrown = t;
+      throw t;
+    } finally {
+      afterCall(LedgerPluginOperation.REJECT_INCOMING_TRANSFER, transferId, context, startNanos,
+          null, thrown);
+    }
+  }
+
+  @Override
+  public LedgerResult trySendTransfer(final Transfer transfer) {
+    final C context = beforeCall(LedgerPluginOperation.SEND_TRANSFER, transfer);
+    final long startNanos = System.nanoTime();
+    LedgerResult result = null;
+    Throwable thrown = null;
+    try {
+      result = delegate.trySendTransfer(transfer);
+      return result;
+    } catch (Throwable t) {
+      thrown = t;
+      throw t;
+    } finally {
+      afterCall(LedgerPluginOperation.SEND_TRANSFER, transfer, context, startNanos, result,
+          thrown);
+    }
+  }
+
+  @Override
+  public LedgerResult trySendMessage(final Message message) {
+    final C context = beforeCall(LedgerPluginOperation.SEND_MESSAGE, message);
+    final long startNanos = System.nanoTime();
+    LedgerResult result = null;
+    Throwable thrown = null;
+    try {
+      result = delegate.trySendMessage(message);
+      return result;
+    } catch (Throwable t) {
+      thrown = t;
+      throw t;
+    } finally {
+      afterCall(LedgerPluginOperation.SEND_MESSAGE, message, context, startNanos, result, thrown);
+    }
+  }
+
+  @Override
+  public LedgerResult tryFulfillCondition(
+      final TransferId transferId, final Fulfillment fulfillment
+  ) {
+    final C context = beforeCall(LedgerPluginOperation.FULFILL_CONDITION, transferId);
+    final long startNanos = System.nanoTime();
+    LedgerResult result = null;
+    Throwable thrown = null;
+    try {
+      result = delegate.tryFulfillCondition(transferId, fulfillment);
+      return result;
+    } catch (Throwable t) {
+      thrown = t;
+      throw t;
+    } finally {
+      afterCall(LedgerPluginOperation.FULFILL_CONDITION, transferId, context, startNanos, result,
+          thrown);
+    }
+  }
+
+  @Override
+  public LedgerResult tryRejectIncomingTransfer(
+      final TransferId transferId, final InterledgerProtocolError rejectionReason
+  ) {
+    final C context = beforeCall(LedgerPluginOperation.REJECT_INCOMING_TRANSFER, transferId);
+    final long startNanos = System.nanoTime();
+    LedgerResult result = null;
+    Throwable thrown = null;
+    try {
+      result = delegate.tryRejectIncomingTransfer(transferId, rejectionReason);
+      return result;
+    } catch (Throwable t) {
+      thrown = t;
+      throw t;
+    } finally {
+      afterCall(LedgerPluginOperation.REJECT_INCOMING_TRANSFER, transferId, context, startNanos,
+          result, thrown);
+    }
+  }
+
+  @Override
+  public UUID addLedgerPluginEventHandler(final LedgerPluginEventHandler eventHandler) {
+    return delegate.addLedgerPluginEventHandler(eventHandler);
+  }
+
+  @Override
+  public void removeLedgerPluginEventHandler(final UUID eventHandlerId) {
+    delegate.removeLedgerPluginEventHandler(eventHandlerId);
+  }
+
+  @Override
+  public LedgerPluginEventEmitter getLedgerPluginEventEmitter() {
+    return delegate.getLedgerPluginEventEmitter();
+  }
+}
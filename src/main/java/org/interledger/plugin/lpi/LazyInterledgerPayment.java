@@ -0,0 +1,154 @@
+package org.interledger.plugin.lpi;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.ilp.InterledgerPayment;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * An {@link InterledgerPayment} that holds the packet's encoded bytes, as read off the wire, and
+ * only decodes them the first time one of its fields is read. The decoded packet is cached, and is
+ * decoded exactly once even if several threads read it at the same time.
+ *
+ * A plugin that receives encoded packets can set one of these as a {@link Transfer}'s or {@link
+ * Message}'s payment packet, so that a packet that is never read is never decoded, and a packet
+ * that is forwarded unchanged can be re-sent using {@link #getEncodedBuffer()} or {@link
+ * #encode(InterledgerPayment, Function)} without being re-encoded.
+ *
+ * The encoded bytes are not copied on construction, so they must not be modified after this object
+ * is created. They are never exposed in a form that can be modified.
+ */
+public final class LazyInterledgerPayment implements InterledgerPayment {
+
+  private final byte[] encoded;
+  private final Function<byte[], InterledgerPayment> decoder;
+
+  private volatile InterledgerPayment decoded;
+
+  private LazyInterledgerPayment(
+      final byte[] encoded, final Function<byte[], InterledgerPayment> decoder
+  ) {
+    this.encoded = Objects.requireNonNull(encoded);
+    this.decoder = Objects.requireNonNull(decoder);
+  }
+
+  /**
+   * Construct a {@link LazyInterledgerPayment}.
+   *
+   * @param encoded The encoded payment packet.
+   * @param decoder Decodes {@code encoded}, typically using an ILP codec. It is called at most
+   *                once.
+   */
+  public static LazyInterledgerPayment of(
+      final byte[] encoded, final Function<byte[], InterledgerPayment> decoder
+  ) {
+    return new LazyInterledgerPayment(encoded, decoder);
+  }
+
+  /**
+   * The encoded form of {@code payment}: a copy of the original bytes if it is a {@link
+   * LazyInterledgerPayment}, or else the result of {@code encoder}. Callers that only need to read
+   * the bytes of a {@link LazyInterledgerPayment} can avoid the copy with {@link
+   * #getEncodedBuffer()}.
+   */
+  public static byte[] encode(
+      final InterledgerPayment payment, final Function<InterledgerPayment, byte[]> encoder
+  ) {
+    Objects.requireNonNull(payment);
+    Objects.requireNonNull(encoder);
+    if (payment instanceof LazyInterledgerPayment) {
+      return ((LazyInterledgerPayment) payment).encoded.clone();
+    }
+    return encoder.apply(payment);
+  }
+
+  /**
+   * A read-only view of the encoded payment packet.
+   */
+  public ByteBuffer getEncodedBuffer() {
+    return ByteBuffer.wrap(encoded).asReadOnlyBuffer();
+  }
+
+  /**
+   * Whether the packet has been decoded yet.
+   */
+  public boolean isDecoded() {
+    return decoded != null;
+  }
+
+  @Override
+  public InterledgerAddress getDestinationAccount() {
+    return decoded().getDestinationAccount();
+  }
+
+  @Override
+  public BigInteger getDestinationAmount() {
+    return decoded().getDestinationAmount();
+  }
+
+  @Override
+  public byte[] getData() {
+    return decoded().getData();
+  }
+
+  private InterledgerPayment decoded() {
+    InterledgerPayment result = decoded;
+    if (result == null) {
+      synchronized (this) {
+        result = decoded;
+        if (result == null) {
+          result = Objects.requireNonNull(decoder.apply(encoded), "decoder returned null");
+          decoded = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * A {@link LazyInterledgerPayment} is equal to any {@link InterledgerPayment} with the same
+   * destination account, destination amount and data. Comparing two {@link
+   * LazyInterledgerPayment}s only compares their encoded bytes, which doesn't require either of
+   * them to be decoded, but comparing one with any other payment decodes it.
+   */
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj instanceof LazyInterledgerPayment) {
+      return Arrays.equals(encoded, ((LazyInterledgerPayment) obj).encoded);
+    }
+    if (!(obj instanceof InterledgerPayment)) {
+      return false;
+    }
+    final InterledgerPayment payment = decoded();
+    final InterledgerPayment other = (InterledgerPayment) obj;
+    return payment.getDestinationAccount().equals(other.getDestinationAccount())
+        && payment.getDestinationAmount().equals(other.getDestinationAmount())
+        && Arrays.equals(payment.getData(), other.getData());
+  }
+
+  /**
+   * Computed from the decoded fields, in the same way as an eagerly decoded {@link
+   * InterledgerPayment}, so this decodes the packet.
+   */
+  @Override
+  public int hashCode() {
+    final InterledgerPayment payment = decoded();
+    int result = payment.getDestinationAccount().hashCode();
+    result = 31 * result + payment.getDestinationAmount().hashCode();
+    result = 31 * result + Arrays.hashCode(payment.getData());
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "LazyInterledgerPayment{" + encoded.length + " bytes"
+        + (isDecoded() ? ", decoded" : "") + "}";
+  }
+}
@@ -241,6 +241,93 @@ public interface LedgerPlugin extends Plugin {
    */
   void rejectIncomingTransfer(TransferId transferId, InterledgerProtocolError rejectionReason);
 
+  /**
+   * Initiates a ledger-local transfer, like {@link #sendTransfer(Transfer)}, but returns the
+   * ledger's rejections instead of throwing them.
+   *
+   * The default implementation wraps {@link #sendTransfer(Transfer)}. Plugins that expect to reject
+   * many transfers should override it so that no exception is created for each rejection.
+   *
+   * @param transfer A {@link Transfer} to prepare on the underlying ledger.
+   *
+   * @return A {@link LedgerResult} describing whether the transfer was prepared.
+   *
+   * @throws LedgerPluginNotConnectedException if the plugin is not connected.
+   */
+  default LedgerResult trySendTransfer(final Transfer transfer) {
+    try {
+      sendTransfer(transfer);
+      return LedgerResult.accepted();
+    } catch (LedgerPluginException e) {
+      return LedgerResult.fromException(e, getLedgerInfo().getLedgerPrefix());
+    }
+  }
+
+  /**
+   * Sends a ledger-local message, like {@link #sendMessage(Message)}, but returns the ledger's
+   * rejections instead of throwing them.
+   *
+   * @param message A {@link Message} to send to the underlying ledger.
+   *
+   * @return A {@link LedgerResult} describing whether the message was sent.
+   *
+   * @throws LedgerPluginNotConnectedException if the plugin is not connected.
+   */
+  default LedgerResult trySendMessage(final Message message) {
+    try {
+      sendMessage(message);
+      return LedgerResult.accepted();
+    } catch (LedgerPluginException e) {
+      return LedgerResult.fromException(e, getLedgerInfo().getLedgerPrefix());
+    }
+  }
+
+  /**
+   * Submit a fulfillment to a ledger, like {@link #fulfillCondition(TransferId, Fulfillment)}, but
+   * return the ledger's rejections instead of throwing them.
+   *
+   * @param transferId  A {@link TransferId} that uniquely identifies the transfer fulfill.
+   * @param fulfillment A {@link Fulfillment} that should fulfill a previously submitted {@link
+   *                    Condition} for the specified {@code transferId}.
+   *
+   * @return A {@link LedgerResult} describing whether the transfer was executed.
+   *
+   * @throws LedgerPluginNotConnectedException if the plugin is not connected.
+   */
+  default LedgerResult tryFulfillCondition(
+      final TransferId transferId, final Fulfillment fulfillment
+  ) {
+    try {
+      fulfillCondition(transferId, fulfillment);
+      return LedgerResult.accepted();
+    } catch (LedgerPluginException e) {
+      return LedgerResult.fromException(e, getLedgerInfo().getLedgerPrefix());
+    }
+  }
+
+  /**
+   * Reject an incoming transfer, like {@link #rejectIncomingTransfer(TransferId,
+   * InterledgerProtocolError)}, but return the ledger's rejections instead of throwing them.
+   *
+   * @param transferId      A {@link TransferId} that uniquely identifies the transfer reject.
+   * @param rejectionReason A {@link InterledgerProtocolError} that provides additional information
+   *                        about the rejection.
+   *
+   * @return A {@link LedgerResult} describing whether the transfer was rejected.
+   *
+   * @throws LedgerPluginNotConnectedException if the plugin is not connected.
+   */
+  default LedgerResult tryRejectIncomingTransfer(
+      final TransferId transferId, final InterledgerProtocolError rejectionReason
+  ) {
+    try {
+      rejectIncomingTransfer(transferId, rejectionReason);
+      return LedgerResult.accepted();
+    } catch (LedgerPluginException e) {
+      return LedgerResult.fromException(e, getLedgerInfo().getLedgerPrefix());
+    }
+  }
+
   /**
    * Add a ledger plugin event handler to this plugin.
    *
@@ -0,0 +1,281 @@
+package org.interledger.plugin.lpi;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.ilp.InterledgerProtocolError;
+import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.exceptions.AccountNotFoundException;
+import org.interledger.plugin.lpi.exceptions.DuplicateTransferIdentifier;
+import org.interledger.plugin.lpi.exceptions.InsufficientBalanceException;
+import org.interledger.plugin.lpi.exceptions.InvalidFulfillmentException;
+import org.interledger.plugin.lpi.exceptions.InvalidMessageException;
+import org.interledger.plugin.lpi.exceptions.InvalidTransferException;
+import org.interledger.plugin.lpi.exceptions.LedgerPluginException;
+import org.interledger.plugin.lpi.exceptions.LedgerPluginNotConnectedException;
+import org.interledger.plugin.lpi.exceptions.MessageNotAcceptedException;
+import org.interledger.plugin.lpi.exceptions.TransferAlreadyFulfilledException;
+import org.interledger.plugin.lpi.exceptions.TransferAlreadyRolledBackException;
+import org.interledger.plugin.lpi.exceptions.TransferNotAcceptedException;
+import org.interledger.plugin.lpi.exceptions.TransferNotFoundException;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * The outcome of a mutating {@link LedgerPlugin} operation, such as {@link
+ * LedgerPlugin#trySendTransfer(Transfer)}.
+ *
+ * A ledger routinely rejects operations, for example when a fulfillment doesn't match its
+ * condition or a transfer has already been rolled back. Returning those rejections as values,
+ * rather than throwing them, means that a busy connector doesn't pay for a stack trace each time.
+ * The exception that the corresponding {@link LedgerPlugin} method would have thrown is only built
+ * if {@link #orElseThrow()} is called.
+ */
+public final class LedgerResult {
+
+  private static final LedgerResult ACCEPTED = new LedgerResult(Outcome.ACCEPTED, null, null);
+  private static final LedgerResult DUPLICATE = new LedgerResult(Outcome.DUPLICATE, null, null);
+
+  private final Outcome outcome;
+  private final InterledgerProtocolError rejectionReason;
+  private final Supplier<? extends LedgerPluginException> exceptionSupplier;
+
+  private LedgerResult(
+      final Outcome outcome, final InterledgerProtocolError rejectionReason,
+      final Supplier<? extends LedgerPluginException> exceptionSupplier
+  ) {
+    this.outcome = outcome;
+    this.rejectionReason = rejectionReason;
+    this.exceptionSupplier = exceptionSupplier;
+  }
+
+  /**
+   * The result of an operation that the ledger accepted.
+   */
+  public static LedgerResult accepted() {
+    return ACCEPTED;
+  }
+
+  /**
+   * The result of an operation that the ledger had already accepted, and so ignored, such as a
+   * transfer that is sent again with identical data.
+   */
+  public static LedgerResult duplicate() {
+    return DUPLICATE;
+  }
+
+  /**
+   * The result of an operation that the ledger rejected.
+   *
+   * @param outcome           The reason that the operation was rejected.
+   * @param rejectionReason   An {@link InterledgerProtocolError} describing the rejection.
+   * @param exceptionSupplier Builds the exception that the operation's exception-throwing variant
+   *                          throws, if it is needed.
+   */
+  public static LedgerResult rejected(
+      final Outcome outcome, final InterledgerProtocolError rejectionReason,
+      final Supplier<? extends LedgerPluginException> exceptionSupplier
+  ) {
+    Objects.requireNonNull(outcome);
+    Objects.requireNonNull(rejectionReason);
+    Objects.requireNonNull(exceptionSupplier);
+    if (outcome == Outcome.ACCEPTED || outcome == Outcome.DUPLICATE) {
+      throw new IllegalArgumentException("A rejection can't be accepted");
+    }
+    return new LedgerResult(outcome, rejectionReason, exceptionSupplier);
+  }
+
+  /**
+   * Convert an exception thrown by a {@link LedgerPlugin} into a rejection. This allows the
+   * result-returning operations to wrap plugins that only implement the exception-throwing ones.
+   *
+   * @param exception    A {@link LedgerPluginException} thrown by a mutating operation.
+   * @param ledgerPrefix The prefix of the ledger that threw {@code exception}.
+   *
+   * @return A rejected {@link LedgerResult} whose {@link #orElseThrow()} throws {@code exception}.
+   *
+   * @throws LedgerPluginException {@code exception} itself, if it isn't one of the outcomes that
+   *                               a ledger is expected to reject an operation with (for example,
+   *                               a {@link LedgerPluginNotConnectedException}).
+   */
+  public static LedgerResult fromException(
+      final LedgerPluginException exception, final InterledgerAddress ledgerPrefix
+  ) {
+    Objects.requireNonNull(exception);
+    Objects.requireNonNull(ledgerPrefix);
+
+    final Outcome outcome;
+    InterledgerProtocolError rejectionReason = null;
+    if (exception instanceof TransferNotAcceptedException) {
+      outcome = Outcome.TRANSFER_NOT_ACCEPTED;
+      rejectionReason = ((TransferNotAcceptedException) exception).getRejectionReason();
+    } else if (exception instanceof InvalidTransferException) {
+      outcome = Outcome.INVALID_TRANSFER;
+      rejectionReason = ((InvalidTransferException) exception).getRejectionReason();
+    } else if (exception instanceof DuplicateTransferIdentifier) {
+      outcome = Outcome.DUPLICATE_TRANSFER_ID;
+    } else if (exception instanceof InsufficientBalanceException) {
+      outcome = Outcome.INSUFFICIENT_BALANCE;
+    } else if (exception instanceof AccountNotFoundException) {
+      outcome = Outcome.ACCOUNT_NOT_FOUND;
+    } else if (exception instanceof TransferNotFoundException) {
+      outcome = Outcome.TRANSFER_NOT_FOUND;
+    } else if (exception instanceof TransferAlreadyRolledBackException) {
+      outcome = Outcome.TRANSFER_ALREADY_ROLLED_BACK;
+    } else if (exception instanceof TransferAlreadyFulfilledException) {
+      outcome = Outcome.TRANSFER_ALREADY_FULFILLED;
+    } else if (exception instanceof InvalidFulfillmentException) {
+      outcome = Outcome.INVALID_FULFILLMENT;
+    } else if (exception instanceof InvalidMessageException) {
+      outcome = Outcome.INVALID_MESSAGE;
+    } else if (exception instanceof MessageNotAcceptedException) {
+      outcome = Outcome.MESSAGE_NOT_ACCEPTED;
+    } else {
+      throw exception;
+    }
+
+    if (rejectionReason == null) {
+      rejectionReason = outcome.rejectionReason(ledgerPrefix);
+    }
+    return new LedgerResult(outcome, rejectionReason, () -> exception);
+  }
+
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * Whether the operation was accepted, either now or, for a {@link Outcome#DUPLICATE}, when it
+   * was first performed.
+   */
+  public boolean isAccepted() {
+    return outcome == Outcome.ACCEPTED || outcome == Outcome.DUPLICATE;
+  }
+
+  /**
+   * Whether the operation repeated one that the ledger had already accepted, and so had no
+   * effect.
+   */
+  public boolean isDuplicate() {
+    return outcome == Outcome.DUPLICATE;
+  }
+
+  /**
+   * The {@link InterledgerProtocolError} that describes why the operation was rejected, or {@link
+   * Optional#empty()} if it was accepted.
+   */
+  public Optional<InterledgerProtocolError> getRejectionReason() {
+    return Optional.ofNullable(rejectionReason);
+  }
+
+  /**
+   * Throw the exception that the exception-throwing variant of the operation throws, if the
+   * operation was rejected.
+   *
+   * @throws LedgerPluginException if the operation was rejected.
+   */
+  public void orElseThrow() {
+    if (exceptionSupplier != null) {
+      throw exceptionSupplier.get();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return rejectionReason == null ? "LedgerResult{" + outcome + "}"
+        : "LedgerResult{" + outcome + ", " + rejectionReason + "}";
+  }
+
+  /**
+   * Whether an operation was accepted, or why it was rejected. Each rejection corresponds to the
+   * exception that the exception-throwing variant of the operation throws.
+   */
+  public enum Outcome {
+    ACCEPTED(null),
+
+    /**
+     * The operation repeated one that had already been accepted, so it was ignored.
+     */
+    DUPLICATE(null),
+
+    /**
+     * Corresponds to {@link TransferNotAcceptedException}.
+     */
+    TRANSFER_NOT_ACCEPTED(ErrorCode.F99_APPLICATION_ERROR),
+
+    /**
+     * Corresponds to {@link InvalidTransferException}.
+     */
+    INVALID_TRANSFER(ErrorCode.F00_BAD_REQUEST),
+
+    /**
+     * Corresponds to {@link DuplicateTransferIdentifier}.
+     */
+    DUPLICATE_TRANSFER_ID(ErrorCode.F00_BAD_REQUEST),
+
+    /**
+     * Corresponds to {@link InsufficientBalanceException}.
+     */
+    INSUFFICIENT_BALANCE(ErrorCode.T04_INSUFFICIENT_LIQUIDITY),
+
+    /**
+     * Corresponds to {@link AccountNotFoundException}.
+     */
+    ACCOUNT_NOT_FOUND(ErrorCode.F02_UNREACHABLE),
+
+    /**
+     * Corresponds to {@link TransferNotFoundException}.
+     */
+    TRANSFER_NOT_FOUND(ErrorCode.F00_BAD_REQUEST),
+
+    /**
+     * Corresponds to {@link TransferAlreadyRolledBackException}.
+     */
+    TRANSFER_ALREADY_ROLLED_BACK(ErrorCode.F00_BAD_REQUEST),
+
+    /**
+     * Corresponds to {@link TransferAlreadyFulfilledException}.
+     */
+    TRANSFER_ALREADY_FULFILLED(ErrorCode.F00_BAD_REQUEST),
+
+    /**
+     * Corresponds to {@link InvalidFulfillmentException}.
+     */
+    INVALID_FULFILLMENT(ErrorCode.F05_WRONG_CONDITION),
+
+    /**
+     * Corresponds to {@link InvalidMessageException}.
+     */
+    INVALID_MESSAGE(ErrorCode.F00_BAD_REQUEST),
+
+    /**
+     * Corresponds to {@link MessageNotAcceptedException}.
+     */
+    MESSAGE_NOT_ACCEPTED(ErrorCode.F99_APPLICATION_ERROR);
+
+    private final ErrorCode errorCode;
+
+    Outcome(final ErrorCode errorCode) {
+      this.errorCode = errorCode;
+    }
+
+    /**
+     * Build the {@link InterledgerProtocolError} that a ledger reports this rejection with, when
+     * there is no more specific error.
+     *
+     * @param ledgerPrefix The prefix of the ledger that rejected the operation.
+     */
+    public InterledgerProtocolError rejectionReason(final InterledgerAddress ledgerPrefix) {
+      Objects.requireNonNull(ledgerPrefix);
+      if (errorCode == null) {
+        throw new IllegalStateException("An accepted operation has no rejection reason");
+      }
+      return InterledgerProtocolError.builder()
+          .triggeredByAddress(ledgerPrefix)
+          .errorCode(errorCode)
+          .triggeredAt(Instant.now())
+          .build();
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package org.interledger.plugin.lpi;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Identifier for {@link Message}.
+ */
+public final class MessageId extends UuidIdentifier implements Comparable<MessageId> {
+
+  private MessageId(final long mostSignificantBits, final long leastSignificantBits) {
+    super(mostSignificantBits, leastSignificantBits);
+  }
+
+  /**
+   * Construct a {@link MessageId} from a {@link UUID}.
+   */
+  public static MessageId of(final UUID value) {
+    Objects.requireNonNull(value);
+    return new MessageId(value.getMostSignificantBits(), value.getLeastSignificantBits());
+  }
+
+  /**
+   * Construct a {@link MessageId} from the two halves of a {@link UUID}.
+   */
+  public static MessageId of(final long mostSignificantBits, final long leastSignificantBits) {
+    return new MessageId(mostSignificantBits, leastSignificantBits);
+  }
+
+  /**
+   * Generate a new, time-ordered {@link MessageId}.
+   *
+   * @see TimeOrderedIdGenerator
+   */
+  public static MessageId next() {
+    return TimeOrderedIdGenerator.getDefault().nextMessageId();
+  }
+
+  @Override
+  public int compareTo(final MessageId other) {
+    return compareBits(other);
+  }
+}
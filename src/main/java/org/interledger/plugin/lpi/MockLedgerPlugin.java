@@ -1,10 +1,14 @@
 package org.interledger.plugin.lpi;
 
 import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.Condition;
 import org.interledger.cryptoconditions.Fulfillment;
 import org.interledger.ilp.InterledgerProtocolError;
 import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.LedgerResult.Outcome;
 import org.interledger.plugin.lpi.MockLedgerPlugin.ExtendedLedgerPluginConfig;
+import org.interledger.plugin.lpi.events.EventTrace;
+import org.interledger.plugin.lpi.events.EventTraceSampler;
 import org.interledger.plugin.lpi.events.ImmutableIncomingMessgeRequestEvent;
 import org.interledger.plugin.lpi.events.ImmutableIncomingTransferCancelledEvent;
 import org.interledger.plugin.lpi.events.ImmutableIncomingTransferFulfilledEvent;
@@ -15,22 +19,43 @@ import org.interledger.plugin.lpi.events.ImmutableOutgoingTransferCancelledEvent
 import org.interledger.plugin.lpi.events.ImmutableOutgoingTransferFulfilledEvent;
 import org.interledger.plugin.lpi.events.ImmutableOutgoingTransferPreparedEvent;
 import org.interledger.plugin.lpi.events.ImmutableOutgoingTransferRejectedEvent;
+import org.interledger.plugin.lpi.exceptions.DuplicateTransferIdentifier;
 import org.interledger.plugin.lpi.exceptions.InvalidFulfillmentException;
 import org.interledger.plugin.lpi.exceptions.InvalidTransferException;
+import org.interledger.plugin.lpi.exceptions.LedgerPluginNotConnectedException;
+import org.interledger.plugin.lpi.exceptions.MessageNotAcceptedException;
 import org.interledger.plugin.lpi.exceptions.TransferAlreadyFulfilledException;
 import org.interledger.plugin.lpi.exceptions.TransferAlreadyRolledBackException;
+import org.interledger.plugin.lpi.exceptions.TransferNotAcceptedException;
 import org.interledger.plugin.lpi.exceptions.TransferNotFoundException;
-
+import org.interledger.plugin.lpi.metrics.LedgerPluginMetrics;
+import org.interledger.plugin.lpi.metrics.LedgerPluginOperation;
+import org.interledger.plugin.lpi.simulation.FaultInjector;
+import org.interledger.plugin.lpi.simulation.FulfillmentVerifier;
+import org.interledger.plugin.lpi.simulation.IdempotencyWindow;
+import org.interledger.plugin.lpi.simulation.IdempotencyWindow.Registration;
+import org.interledger.plugin.lpi.simulation.IdempotencyWindow.Status;
+import org.interledger.plugin.lpi.simulation.IndexedTransferMap;
+import org.interledger.plugin.lpi.simulation.LedgerOperation;
+import org.interledger.plugin.lpi.simulation.SimulationProfile;
+import org.interledger.plugin.lpi.simulation.TransferPage;
+import org.interledger.plugin.lpi.simulation.TransferQuery;
+
+import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import org.immutables.value.Value;
 import org.immutables.value.Value.Default;
 
 import java.math.BigInteger;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 import javax.money.CurrencyUnit;
 
@@ -106,6 +131,27 @@ public class MockLedgerPlugin
     this.simulatedLedger = Objects.requireNonNull(simulatedLedger);
   }
 
+  /**
+   * Required-args Constructor.
+   *
+   * @param ledgerPluginConfig       A {@link ExtendedLedgerPluginConfig} of configuration strings
+   *                                 for this plugin.
+   * @param simulatedLedger          A {@link SimulatedLedger} that is used by this mock plugin.
+   * @param ledgerPluginEventEmitter A {@link LedgerPluginEventEmitter} that records the events it
+   *                                 emits in {@code metrics}.
+   * @param metrics                  The {@link LedgerPluginMetrics} that this plugin records its
+   *                                 operations in.
+   */
+  protected MockLedgerPlugin(
+      final ExtendedLedgerPluginConfig ledgerPluginConfig,
+      final SimulatedLedger simulatedLedger,
+      final LedgerPluginEventEmitter ledgerPluginEventEmitter,
+      final LedgerPluginMetrics metrics
+  ) {
+    super(ledgerPluginConfig, ledgerPluginEventEmitter, metrics);
+    this.simulatedLedger = Objects.requireNonNull(simulatedLedger);
+  }
+
   /**
    * Overridable method that allows implementations to perform additional initialization of this
    * plugin.
@@ -136,6 +182,8 @@ public class MockLedgerPlugin
             .connectorAddress(this.getLedgerPluginConfig().getConnectorAccount())
             .ledgerPluginEventEmitter(this.getLedgerPluginEventEmitter())
             .password(getLedgerPluginConfig().getPassword())
+            // Follows any later change to this plugin's sampler...
+            .eventTraceSampler(() -> getEventTraceSampler().shouldTrace())
             .build()
     );
   }
@@ -157,16 +205,38 @@ public class MockLedgerPlugin
    */
   @Override
   public BigInteger getConnectorBalance() {
-    return BigInteger.TEN;
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      final BigInteger connectorBalance = BigInteger.TEN;
+      failed = false;
+      return connectorBalance;
+    } finally {
+      getMetrics()
+          .recordOperation(LedgerPluginOperation.GET_CONNECTOR_BALANCE, startNanos, failed);
+    }
   }
 
   @Override
   public Optional<Fulfillment> getFulfillment(TransferId transferId) {
-    return this.simulatedLedger.getFulfillment(transferId);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      final Optional<Fulfillment> fulfillment = this.simulatedLedger.getFulfillment(transferId);
+      failed = false;
+      return fulfillment;
+    } finally {
+      getMetrics().recordOperation(LedgerPluginOperation.GET_FULFILLMENT, startNanos, failed);
+    }
   }
 
   @Override
   public void sendTransfer(final Transfer transfer) {
+    trySendTransfer(transfer).orElseThrow();
+  }
+
+  @Override
+  public LedgerResult trySendTransfer(final Transfer transfer) {
     Objects.requireNonNull(transfer);
     if (logger.isDebugEnabled()) {
       logger.debug("sendTransfer: {}", transfer);
@@ -175,11 +245,25 @@ public class MockLedgerPlugin
     // NOTE: For a ledger that might not be able to emit events back to this plugin, the plugin
     // should emit the event on behalf of the ledger.
 
-    this.simulatedLedger.sendTransfer(transfer);
+    final long startNanos = System.nanoTime();
+    LedgerResult result = null;
+    try {
+      result = this.simulatedLedger.trySendTransfer(transfer);
+      return result;
+    } finally {
+      getMetrics().recordOperation(LedgerPluginOperation.SEND_TRANSFER, startNanos, result);
+    }
   }
 
   @Override
   public final void fulfillCondition(final TransferId transferId, final Fulfillment fulfillment) {
+    tryFulfillCondition(transferId, fulfillment).orElseThrow();
+  }
+
+  @Override
+  public final LedgerResult tryFulfillCondition(
+      final TransferId transferId, final Fulfillment fulfillment
+  ) {
     Objects.requireNonNull(transferId);
     Objects.requireNonNull(fulfillment);
 
@@ -188,12 +272,26 @@ public class MockLedgerPlugin
           fulfillment);
     }
 
-    this.simulatedLedger.fulfillCondition(transferId, fulfillment);
+    final long startNanos = System.nanoTime();
+    LedgerResult result = null;
+    try {
+      result = this.simulatedLedger.tryFulfillCondition(transferId, fulfillment);
+      return result;
+    } finally {
+      getMetrics().recordOperation(LedgerPluginOperation.FULFILL_CONDITION, startNanos, result);
+    }
   }
 
   @Override
   public void rejectIncomingTransfer(
       final TransferId transferId, final InterledgerProtocolError rejectionReason
+  ) {
+    tryRejectIncomingTransfer(transferId, rejectionReason).orElseThrow();
+  }
+
+  @Override
+  public LedgerResult tryRejectIncomingTransfer(
+      final TransferId transferId, final InterledgerProtocolError rejectionReason
   ) {
     Objects.requireNonNull(transferId);
     Objects.requireNonNull(rejectionReason);
@@ -203,18 +301,51 @@ public class MockLedgerPlugin
           .debug("rejectIncomingTransfer for transferId: {} and rejectionReason: {}", transferId,
               rejectionReason);
     }
-    this.simulatedLedger.rejectIncomingTransfer(transferId, rejectionReason);
+    final long startNanos = System.nanoTime();
+    LedgerResult result = null;
+    try {
+      result = this.simulatedLedger.tryRejectIncomingTransfer(transferId, rejectionReason);
+      return result;
+    } finally {
+      getMetrics().recordOperation(
+          LedgerPluginOperation.REJECT_INCOMING_TRANSFER, startNanos, result);
+    }
   }
 
   @Override
   public void sendMessage(final Message message) {
+    trySendMessage(message).orElseThrow();
+  }
+
+  @Override
+  public LedgerResult trySendMessage(final Message message) {
     Objects.requireNonNull(message);
 
     if (logger.isDebugEnabled()) {
       logger.debug("sendMessage for message: {}", message);
     }
 
-    this.simulatedLedger.sendMessage(message);
+    final long startNanos = System.nanoTime();
+    LedgerResult result = null;
+    try {
+      result = this.simulatedLedger.trySendMessage(message);
+      return result;
+    } finally {
+      getMetrics().recordOperation(LedgerPluginOperation.SEND_MESSAGE, startNanos, result);
+    }
+  }
+
+  /**
+   * Find the transfers on the underlying ledger that are locked by {@code executionCondition}. This
+   * allows a fulfillment to be matched to its transfer(s) when only the condition is known.
+   *
+   * @param executionCondition The {@link Condition} to look for.
+   *
+   * @return The matching transfers, in no particular order.
+   */
+  public List<Transfer> getTransfersByExecutionCondition(final Condition executionCondition) {
+    Objects.requireNonNull(executionCondition);
+    return this.simulatedLedger.getTransfersByExecutionCondition(executionCondition);
   }
 
   public SimulatedLedger getSimulatedLedger() {
@@ -232,6 +363,53 @@ public class MockLedgerPlugin
       return new Impl(ledgerPluginConfig, password);
     }
 
+    /**
+     * The configuration of a {@link MockLedgerPlugin} that connects to a {@link SimulatedLedger}
+     * described by {@code ledgerInfo}, as {@code connectorAccount}, with the password that the
+     * simulated ledger requires.
+     */
+    static ExtendedLedgerPluginConfig forSimulatedLedger(
+        final LedgerInfo ledgerInfo, final InterledgerAddress connectorAccount
+    ) {
+      Objects.requireNonNull(ledgerInfo);
+      Objects.requireNonNull(connectorAccount);
+
+      return from(new LedgerPluginConfig() {
+        @Override
+        public LedgerPluginTypeId getLedgerPluginTypeId() {
+          return LedgerPluginTypeId.of(PLUGIN_TYPE);
+        }
+
+        @Override
+        public InterledgerAddress getLedgerPrefix() {
+          return ledgerInfo.getLedgerPrefix();
+        }
+
+        @Override
+        public InterledgerAddress getConnectorAccount() {
+          return connectorAccount;
+        }
+
+        @Override
+        public CurrencyUnit getExpectedCurrencyUnit() {
+          return ledgerInfo.getCurrencyUnit();
+        }
+
+        @Override
+        public Map<String, String> getOptions() {
+          return ImmutableMap.of();
+        }
+
+        @Override
+        public String toString() {
+          return "SimulatedLedgerPluginConfig{" +
+              "ledgerPrefix=" + getLedgerPrefix() +
+              ", connectorAccount=" + connectorAccount +
+              '}';
+        }
+      }, SimulatedLedger.PASSWORD);
+    }
+
     /**
      * The password for the connector account on the ledger.
      */
@@ -312,31 +490,87 @@ public class MockLedgerPlugin
    * A simulated ledger (used only for testing and demonstration purposes) that allows for multiple
    * ledger plugins to connect to it using a unique Interledger address.
    *
+   * By default, the ledger answers every request instantly. To simulate a slower or less reliable
+   * ledger, construct it with a {@link SimulationProfile}, which can add latency to each operation
+   * and to the delivery of each event, and can cause operations to fail with the exceptions that a
+   * real ledger plugin would throw.
+   *
    * WARNING: This ledger is not meant for production usage. Among other things, it does not enforce
    * any sort of auth because it is meant for simulation and testing purposes only.
    */
   public static class SimulatedLedger {
 
+    /**
+     * The password that every connection to a simulated ledger must use.
+     */
+    public static final String PASSWORD = "password";
+
+    private static final Duration IDEMPOTENCY_WINDOW = Duration.ofMinutes(5);
+    private static final int IDEMPOTENCY_CAPACITY = 10_000;
+
     // Ordinarily, this would be provided during the connect operation, but for this Mock plugin,
     // it's passed-in because this whole plugin is simulated.
     private final LedgerInfo ledgerInfo;
 
-    // Holds the transfers for this ledger.
-    protected Map<TransferId, TransferHolder> transfers;
+    // Holds the transfers for this ledger, indexed by account.
+    protected IndexedTransferMap transfers;
 
     // Supports multiple connections, but only one per Connector address...
     private Map<InterledgerAddress, SimulatedLedgerPluginConnection> connections;
 
+    // Slows down or fails operations, per the configured simulation profile.
+    private final FaultInjector faultInjector;
+
+    private final FulfillmentVerifier fulfillmentVerifier;
+
+    // Detect transfers and messages that are replayed, e.g. by a client retrying after a reconnect.
+    private final IdempotencyWindow<TransferId, Transfer> transferWindow;
+    private final IdempotencyWindow<MessageId, Message> messageWindow;
+    private final LongAdder duplicateTransfers = new LongAdder();
+
     public SimulatedLedger(final LedgerInfo ledgerInfo) {
+      this(ledgerInfo, SimulationProfile.none());
+    }
+
+    /**
+     * Required-args Constructor.
+     *
+     * @param ledgerInfo        The {@link LedgerInfo} of this ledger.
+     * @param simulationProfile A {@link SimulationProfile} describing the latency and failures that
+     *                          this ledger should exhibit.
+     */
+    public SimulatedLedger(
+        final LedgerInfo ledgerInfo, final SimulationProfile simulationProfile
+    ) {
+      this(ledgerInfo, simulationProfile, new FulfillmentVerifier());
+    }
+
+    /**
+     * Required-args Constructor.
+     *
+     * @param ledgerInfo          The {@link LedgerInfo} of this ledger.
+     * @param simulationProfile   A {@link SimulationProfile} describing the latency and failures
+     *                            that this ledger should exhibit.
+     * @param fulfillmentVerifier The {@link FulfillmentVerifier} used to check fulfillments, which
+     *                            may be shared with other ledgers.
+     */
+    public SimulatedLedger(
+        final LedgerInfo ledgerInfo, final SimulationProfile simulationProfile,
+        final FulfillmentVerifier fulfillmentVerifier
+    ) {
       this.ledgerInfo = Objects.requireNonNull(ledgerInfo);
-      this.transfers = Maps.newConcurrentMap();
+      this.transfers = new IndexedTransferMap();
       this.connections = Maps.newConcurrentMap();
+      this.faultInjector = new FaultInjector(simulationProfile);
+      this.fulfillmentVerifier = Objects.requireNonNull(fulfillmentVerifier);
+      this.transferWindow = newIdempotencyWindow();
+      this.messageWindow = newIdempotencyWindow();
     }
 
     public void connect(final SimulatedLedgerPluginConnection simulatedLedgerPluginConnection) {
       Objects.requireNonNull(simulatedLedgerPluginConnection);
 
-      if (simulatedLedgerPluginConnection.getPassword().equalsIgnoreCase("password")) {
+      if (simulatedLedgerPluginConnection.getPassword().equalsIgnoreCase(PASSWORD)) {
         this.connections.put(
             simulatedLedgerPluginConnection.getConnectorAddress(),
             simulatedLedgerPluginConnection
@@ -364,236 +598,439 @@ public class MockLedgerPlugin
       return connections;
     }
 
+    /**
+     * Find one page of the transfers sent or received by a single account, in the order that they
+     * were prepared.
+     *
+     * @param transferQuery A {@link TransferQuery} describing the transfers to find.
+     *
+     * @return A {@link TransferPage} containing the matching transfers and, if there are more, a
+     *     cursor for the next page.
+     */
+    public TransferPage findTransfers(final TransferQuery transferQuery) {
+      return this.transfers.query(transferQuery);
+    }
+
+    public List<Transfer> getTransfersByExecutionCondition(final Condition executionCondition) {
+      return this.transfers.getByExecutionCondition(executionCondition).stream()
+          .map(TransferHolder::getTransfer)
+          .collect(Collectors.toList());
+    }
+
+    public SimulationProfile getSimulationProfile() {
+      return this.faultInjector.getSimulationProfile();
+    }
+
     public Optional<Fulfillment> getFulfillment(TransferId transferId) {
+      if (faultInjector.delayAndCheckFailure(LedgerOperation.GET_FULFILLMENT)) {
+        throw simulatedDisconnect(LedgerOperation.GET_FULFILLMENT);
+      }
+
       return Optional.ofNullable(this.transfers.get(transferId))
           .map(TransferHolder::getExecutionFulfillment)
           .map(Optional::get);
     }
 
     public void sendTransfer(final Transfer transfer) {
+      trySendTransfer(transfer).orElseThrow();
+    }
+
+    /**
+     * Prepare {@code transfer}, returning any rejection rather than throwing it.
+     */
+    public LedgerResult trySendTransfer(final Transfer transfer) {
+      final InterledgerAddress ledgerPrefix = this.getLedgerInfo().getLedgerPrefix();
+      final TransferId transferId = transfer.getTransferId();
+      if (faultInjector.delayAndCheckFailure(LedgerOperation.SEND_TRANSFER)) {
+        final InterledgerProtocolError rejectionReason = InterledgerProtocolError.builder()
+            .triggeredByAddress(ledgerPrefix)
+            .errorCode(ErrorCode.T02_LEDGER_BUSY)
+            .triggeredAt(Instant.now())
+            .build();
+        return LedgerResult.rejected(Outcome.TRANSFER_NOT_ACCEPTED, rejectionReason,
+            () -> new TransferNotAcceptedException("Simulated ledger fault", ledgerPrefix,
+                transferId, rejectionReason));
+      }
 
       // Don't allow a transfer with matching to/from.
       if (transfer.getSourceAccount().equals(transfer.getDestinationAccount())) {
-        throw new InvalidTransferException(this.getLedgerInfo().getLedgerPrefix(),
-            transfer.getTransferId(),
-            InterledgerProtocolError.builder()
-                .triggeredByAddress(this.getLedgerInfo().getLedgerPrefix())
-                .errorCode(ErrorCode.F00_BAD_REQUEST)
-                .triggeredAt(Instant.now())
-                .build());
-      }
-
-      if (Optional.ofNullable(transfers.get(transfer.getTransferId())).isPresent() == true) {
-        // This transfer has already been prepared, so ignore it.
-        return;
+        final InterledgerProtocolError rejectionReason =
+            Outcome.INVALID_TRANSFER.rejectionReason(ledgerPrefix);
+        return LedgerResult.rejected(Outcome.INVALID_TRANSFER, rejectionReason,
+            () -> new InvalidTransferException(ledgerPrefix, transferId, rejectionReason));
+      }
+
+      final Registration<Transfer> registration =
+          transferWindow.register(transfer.getTransferId(), transfer);
+      final Optional<Transfer> existingTransfer;
+      if (registration.getStatus() == Status.DUPLICATE) {
+        existingTransfer = registration.getPrevious();
       } else {
-        transfers.put(transfer.getTransferId(),
+        // The window may have forgotten the transfer, so the transfer map decides...
+        existingTransfer = Optional.ofNullable(transfers.putIfAbsent(transfer.getTransferId(),
             ImmutableTransferHolder.builder().transfer(transfer).build()
-        );
+        )).map(TransferHolder::getTransfer);
+      }
+
+      if (existingTransfer.isPresent()) {
+        if (existingTransfer.get().equals(transfer)) {
+          // This transfer has already been prepared, so ignore it.
+          duplicateTransfers.increment();
+          return LedgerResult.duplicate();
+        } else {
+          return LedgerResult.rejected(Outcome.DUPLICATE_TRANSFER_ID,
+              Outcome.DUPLICATE_TRANSFER_ID.rejectionReason(ledgerPrefix),
+              () -> new DuplicateTransferIdentifier(
+                  "A different transfer with this identifier has already been prepared",
+                  ledgerPrefix, transferId));
+        }
+      } else {
 
         /////////////////////////
         // Publish an Outgoing Event to any connections that match the sender...
         /////////////////////////
-        this.connections.values().stream()
-            .filter(
-                connection -> connection.getConnectorAddress().equals(transfer.getSourceAccount())
-            )
-            .forEach(connection -> connection.getLedgerPluginEventEmitter().emitEvent(
-                ImmutableOutgoingTransferPreparedEvent.builder().transfer(transfer).build()
-            ));
+        final SimulatedLedgerPluginConnection sender = connectionFor(transfer.getSourceAccount());
+        if (sender != null) {
+          sender.getLedgerPluginEventEmitter().emitEvent(
+              ImmutableOutgoingTransferPreparedEvent.builder()
+                  .transfer(transfer)
+                  .trace(sender.newEventTrace())
+                  .build()
+          );
+        }
 
         /////////////////////////
         // Publish an Incoming Event to any connections that match the recipient...
         /////////////////////////
-        this.connections.values().stream()
-            .filter(
-                connection -> connection.getConnectorAddress()
-                    .equals(transfer.getDestinationAccount())
-            )
-            .forEach(connection -> connection.getLedgerPluginEventEmitter().emitEvent(
-                ImmutableIncomingTransferPreparedEvent.builder().transfer(transfer).build()
-            ));
+        final SimulatedLedgerPluginConnection recipient =
+            connectionFor(transfer.getDestinationAccount());
+        if (recipient != null) {
+          recipient.getLedgerPluginEventEmitter().emitEvent(
+              ImmutableIncomingTransferPreparedEvent.builder()
+                  .transfer(transfer)
+                  .trace(recipient.newEventTrace())
+                  .build()
+          );
+        }
+        return LedgerResult.accepted();
       }
     }
 
     public void fulfillCondition(final TransferId transferId, final Fulfillment fulfillment) {
+      tryFulfillCondition(transferId, fulfillment).orElseThrow();
+    }
+
+    /**
+     * Execute the transfer identified by {@code transferId}, returning any rejection rather than
+     * throwing it.
+     */
+    public LedgerResult tryFulfillCondition(
+        final TransferId transferId, final Fulfillment fulfillment
+    ) {
       Objects.requireNonNull(transferId);
       Objects.requireNonNull(fulfillment);
 
-      // Throw an exception if the transfer is not found...
-      final TransferHolder transferHolder = Optional.ofNullable(this.transfers.get(transferId))
-          .orElseThrow(() -> new TransferNotFoundException(this.getLedgerInfo().getLedgerPrefix(),
-              transferId));
-
-      // Throw an exception if the transfer is already rejected...
-      if (transferHolder.getTransferStatus() == TransferStatus.REJECTED) {
-        throw new TransferAlreadyRolledBackException(this.getLedgerInfo().getLedgerPrefix(),
-            transferId);
+      if (faultInjector.delayAndCheckFailure(LedgerOperation.FULFILL_CONDITION)) {
+        throw simulatedDisconnect(LedgerOperation.FULFILL_CONDITION);
       }
 
-      if (fulfillment.verify(transferHolder.getTransfer().getExecutionCondition(), new byte[0])) {
-        TransferHolder newTransferHolder = ImmutableTransferHolder.builder().from(transferHolder)
-            .executionFulfillment(fulfillment)
-            .transferStatus(TransferStatus.EXECUTED).build();
-        this.transfers.replace(transferId, transferHolder, newTransferHolder);
+      final InterledgerAddress ledgerPrefix = this.getLedgerInfo().getLedgerPrefix();
+      TransferHolder transferHolder;
+      TransferHolder newTransferHolder;
+      do {
+        // Reject the fulfillment if the transfer is not found...
+        transferHolder = this.transfers.get(transferId);
+        if (transferHolder == null) {
+          return LedgerResult.rejected(Outcome.TRANSFER_NOT_FOUND,
+              Outcome.TRANSFER_NOT_FOUND.rejectionReason(ledgerPrefix),
+              () -> new TransferNotFoundException(ledgerPrefix, transferId));
+        }
+
+        // Reject the fulfillment if the transfer is already rejected...
+        if (transferHolder.getTransferStatus() == TransferStatus.REJECTED) {
+          return LedgerResult.rejected(Outcome.TRANSFER_ALREADY_ROLLED_BACK,
+              Outcome.TRANSFER_ALREADY_ROLLED_BACK.rejectionReason(ledgerPrefix),
+              () -> new TransferAlreadyRolledBackException(ledgerPrefix, transferId));
+        }
+
+        if (!fulfillmentVerifier.verify(
+            transferHolder.getTransfer().getExecutionCondition(), fulfillment)) {
+          return LedgerResult.rejected(Outcome.INVALID_FULFILLMENT,
+              Outcome.INVALID_FULFILLMENT.rejectionReason(ledgerPrefix),
+              () -> new InvalidFulfillmentException(ledgerPrefix, transferId, fulfillment));
+        }
+
+        // The transfer was already executed, and its events already published...
+        if (transferHolder.getTransferStatus() == TransferStatus.EXECUTED) {
+          return LedgerResult.duplicate();
+        }
+
+        newTransferHolder = ImmutableTransferHolder.copyOf(transferHolder)
+            .withExecutionFulfillment(fulfillment)
+            .withTransferStatus(TransferStatus.EXECUTED);
+        // Another thread may have resolved the transfer since it was read, so read it again...
+      } while (!this.transfers.replace(transferId, transferHolder, newTransferHolder));
+      final Transfer transfer = newTransferHolder.getTransfer();
 
-        /////////////////////////
-        // Publish an Outgoing Event to any connections that match the sender...
-        /////////////////////////
-        this.connections.values().stream()
-            .filter(
-                connection -> connection.getConnectorAddress()
-                    .equals(newTransferHolder.getTransfer().getSourceAccount())
-            )
-            .forEach(connection -> connection.getLedgerPluginEventEmitter().emitEvent(
-                ImmutableOutgoingTransferFulfilledEvent.builder()
-                    .transfer(newTransferHolder.getTransfer())
-                    .fulfillment(fulfillment)
-                    .build()
-            ));
+      /////////////////////////
+      // Publish an Outgoing Event to any connections that match the sender...
+      /////////////////////////
+      final SimulatedLedgerPluginConnection sender = connectionFor(transfer.getSourceAccount());
+      if (sender != null) {
+        sender.getLedgerPluginEventEmitter().emitEvent(
+            ImmutableOutgoingTransferFulfilledEvent.builder()
+                .transfer(transfer)
+                .fulfillment(fulfillment)
+                .trace(sender.newEventTrace())
+                .build()
+        );
+      }
 
-        /////////////////////////
-        // Publish an Incoming Event to any connections that match the recipient...
-        /////////////////////////
-        this.connections.values().stream()
-            .filter(
-                connection -> connection.getConnectorAddress()
-                    .equals(newTransferHolder.getTransfer().getDestinationAccount())
-            )
-            .forEach(connection -> connection.getLedgerPluginEventEmitter().emitEvent(
-                ImmutableIncomingTransferFulfilledEvent.builder()
-                    .transfer(newTransferHolder.getTransfer())
-                    .fulfillment(fulfillment)
-                    .build()
-            ));
-      } else {
-        throw new InvalidFulfillmentException(this.getLedgerInfo().getLedgerPrefix(), transferId,
-            fulfillment);
+      /////////////////////////
+      // Publish an Incoming Event to any connections that match the recipient...
+      /////////////////////////
+      final SimulatedLedgerPluginConnection recipient =
+          connectionFor(transfer.getDestinationAccount());
+      if (recipient != null) {
+        recipient.getLedgerPluginEventEmitter().emitEvent(
+            ImmutableIncomingTransferFulfilledEvent.builder()
+                .transfer(transfer)
+                .fulfillment(fulfillment)
+                .trace(recipient.newEventTrace())
+                .build()
+        );
       }
+      return LedgerResult.accepted();
     }
 
     public void rejectIncomingTransfer(
         final TransferId transferId, final InterledgerProtocolError rejectionReason
     ) {
+      tryRejectIncomingTransfer(transferId, rejectionReason).orElseThrow();
+    }
 
-      // Throw an exception if the transfer is not found...
-      final TransferHolder transferHolder = Optional.ofNullable(this.transfers.get(transferId))
-          .orElseThrow(() -> new TransferNotFoundException(this.getLedgerInfo().getLedgerPrefix(),
-              transferId));
-
-      // Throw an exception if the transfer is already rejected...
-      if (transferHolder.getTransferStatus() == TransferStatus.EXECUTED) {
-        throw new TransferAlreadyFulfilledException(this.getLedgerInfo().getLedgerPrefix(),
-            transferId);
+    /**
+     * Roll back the transfer identified by {@code transferId}, returning any rejection rather than
+     * throwing it.
+     */
+    public LedgerResult tryRejectIncomingTransfer(
+        final TransferId transferId, final InterledgerProtocolError rejectionReason
+    ) {
+      if (faultInjector.delayAndCheckFailure(LedgerOperation.REJECT_INCOMING_TRANSFER)) {
+        throw simulatedDisconnect(LedgerOperation.REJECT_INCOMING_TRANSFER);
       }
 
-      TransferHolder newTransferHolder = ImmutableTransferHolder.builder().from(transferHolder)
-          .transferStatus(TransferStatus.REJECTED).build();
-      this.transfers.replace(transferId, transferHolder, newTransferHolder);
+      final InterledgerAddress ledgerPrefix = this.getLedgerInfo().getLedgerPrefix();
+      TransferHolder transferHolder;
+      TransferHolder newTransferHolder;
+      do {
+        // Refuse to reject the transfer if it is not found...
+        transferHolder = this.transfers.get(transferId);
+        if (transferHolder == null) {
+          return LedgerResult.rejected(Outcome.TRANSFER_NOT_FOUND,
+              Outcome.TRANSFER_NOT_FOUND.rejectionReason(ledgerPrefix),
+              () -> new TransferNotFoundException(ledgerPrefix, transferId));
+        }
+
+        // Refuse to reject the transfer if it is already executed...
+        if (transferHolder.getTransferStatus() == TransferStatus.EXECUTED) {
+          return LedgerResult.rejected(Outcome.TRANSFER_ALREADY_FULFILLED,
+              Outcome.TRANSFER_ALREADY_FULFILLED.rejectionReason(ledgerPrefix),
+              () -> new TransferAlreadyFulfilledException(ledgerPrefix, transferId));
+        }
+
+        // The transfer was already rolled back, and its events already published...
+        if (transferHolder.getTransferStatus() == TransferStatus.REJECTED) {
+          return LedgerResult.duplicate();
+        }
+
+        newTransferHolder = ImmutableTransferHolder.copyOf(transferHolder)
+            .withTransferStatus(TransferStatus.REJECTED);
+        // Another thread may have resolved the transfer since it was read, so read it again...
+      } while (!this.transfers.replace(transferId, transferHolder, newTransferHolder));
+      final Transfer transfer = newTransferHolder.getTransfer();
 
       /////////////////////////
       // Publish an Outgoing Event to any connections that match the sender...
       /////////////////////////
-      this.connections.values().stream()
-          .filter(
-              connection -> connection.getConnectorAddress()
-                  .equals(newTransferHolder.getTransfer().getSourceAccount())
-          )
-          .forEach(connection -> connection.getLedgerPluginEventEmitter().emitEvent(
-              ImmutableOutgoingTransferRejectedEvent.builder()
-                  .transfer(newTransferHolder.getTransfer())
-                  .rejectionReason(rejectionReason)
-                  .build()
-          ));
+      final SimulatedLedgerPluginConnection sender = connectionFor(transfer.getSourceAccount());
+      if (sender != null) {
+        sender.getLedgerPluginEventEmitter().emitEvent(
+            ImmutableOutgoingTransferRejectedEvent.builder()
+                .transfer(transfer)
+                .rejectionReason(rejectionReason)
+                .trace(sender.newEventTrace())
+                .build()
+        );
+      }
 
       /////////////////////////
       // Publish an Incoming Event to any connections that match the recipient...
       /////////////////////////
-      this.connections.values().stream()
-          .filter(
-              connection -> connection.getConnectorAddress()
-                  .equals(newTransferHolder.getTransfer().getDestinationAccount())
-          )
-          .forEach(connection -> connection.getLedgerPluginEventEmitter().emitEvent(
-              ImmutableIncomingTransferRejectedEvent.builder()
-                  .transfer(newTransferHolder.getTransfer())
-                  .rejectionReason(rejectionReason)
-                  .build()
-          ));
+      final SimulatedLedgerPluginConnection recipient =
+          connectionFor(transfer.getDestinationAccount());
+      if (recipient != null) {
+        recipient.getLedgerPluginEventEmitter().emitEvent(
+            ImmutableIncomingTransferRejectedEvent.builder()
+                .transfer(transfer)
+                .rejectionReason(rejectionReason)
+                .trace(recipient.newEventTrace())
+                .build()
+        );
+      }
+      return LedgerResult.accepted();
     }
 
 
     public void sendMessage(final Message message) {
+      trySendMessage(message).orElseThrow();
+    }
+
+    /**
+     * Deliver {@code message}, returning any rejection rather than throwing it.
+     */
+    public LedgerResult trySendMessage(final Message message) {
       Objects.requireNonNull(message);
 
+      if (faultInjector.delayAndCheckFailure(LedgerOperation.SEND_MESSAGE)) {
+        final InterledgerAddress ledgerPrefix = this.getLedgerInfo().getLedgerPrefix();
+        final InterledgerProtocolError rejectionReason = InterledgerProtocolError.builder()
+            .triggeredByAddress(ledgerPrefix)
+            .errorCode(ErrorCode.T02_LEDGER_BUSY)
+            .triggeredAt(Instant.now())
+            .build();
+        return LedgerResult.rejected(Outcome.MESSAGE_NOT_ACCEPTED, rejectionReason,
+            () -> new MessageNotAcceptedException("Simulated ledger fault", ledgerPrefix,
+                message.getId()));
+      }
+
+      // Messages aren't stored, so only a confirmed duplicate can be dropped...
+      if (messageWindow.register(message.getId(), message).getStatus() == Status.DUPLICATE) {
+        return LedgerResult.duplicate();
+      }
+
       /////////////////////////
       // Publish an Outgoing Event to any connections that match the sender...
       /////////////////////////
-      this.connections.values().stream()
-          .filter(
-              connection -> connection.getConnectorAddress().equals(message.getFromAddress())
-          )
-          .forEach(connection -> connection.getLedgerPluginEventEmitter().emitEvent(
-              ImmutableOutgoingMessgeRequestEvent.builder()
-                  .message(message)
-                  .build()
-          ));
+      final SimulatedLedgerPluginConnection sender = connectionFor(message.getFromAddress());
+      if (sender != null) {
+        sender.getLedgerPluginEventEmitter().emitEvent(
+            ImmutableOutgoingMessgeRequestEvent.builder()
+                .message(message)
+                .trace(sender.newEventTrace())
+                .build()
+        );
+      }
 
       /////////////////////////
       // Publish an Incoming Event to any connections that match the recipient...
       /////////////////////////
-      this.connections.values().stream()
-          .filter(
-              connection -> connection.getConnectorAddress().equals(message.getToAddress())
-          )
-          .forEach(connection -> connection.getLedgerPluginEventEmitter().emitEvent(
-              ImmutableIncomingMessgeRequestEvent.builder()
-                  .message(message)
-                  .build()
-          ));
+      final SimulatedLedgerPluginConnection recipient = connectionFor(message.getToAddress());
+      if (recipient != null) {
+        recipient.getLedgerPluginEventEmitter().emitEvent(
+            ImmutableIncomingMessgeRequestEvent.builder()
+                .message(message)
+                .trace(recipient.newEventTrace())
+                .build()
+        );
+      }
+      return LedgerResult.accepted();
     }
 
     /**
-     * A helper function to simulate the expiration of a transfer.
+     * A helper function to simulate the expiration of a transfer. A transfer that has already been
+     * fulfilled or rejected is left as it is.
      */
     public void expireTransfer(final TransferId transferId) {
-      Optional.ofNullable(this.transfers.get(transferId)).ifPresent(transferHolder -> {
+      if (faultInjector.delayAndCheckFailure(LedgerOperation.EXPIRE_TRANSFER)) {
+        throw simulatedDisconnect(LedgerOperation.EXPIRE_TRANSFER);
+      }
 
-        /////////////////////////
-        // Remove the transfer...
-        /////////////////////////
-        TransferHolder newTransferHolder = ImmutableTransferHolder.builder().from(transferHolder)
-            .transferStatus(TransferStatus.REJECTED).build();
-        this.transfers.replace(transferId, transferHolder, newTransferHolder);
+      /////////////////////////
+      // Remove the transfer...
+      /////////////////////////
+      TransferHolder transferHolder;
+      TransferHolder newTransferHolder;
+      do {
+        // Only a transfer that is still prepared can expire...
+        transferHolder = this.transfers.get(transferId);
+        if (transferHolder == null
+            || transferHolder.getTransferStatus() != TransferStatus.PREPARED) {
+          return;
+        }
+        newTransferHolder = ImmutableTransferHolder.copyOf(transferHolder)
+            .withTransferStatus(TransferStatus.REJECTED);
+        // Another thread may have resolved the transfer since it was read, so read it again...
+      } while (!this.transfers.replace(transferId, transferHolder, newTransferHolder));
+      final Transfer transfer = newTransferHolder.getTransfer();
+
+      final InterledgerProtocolError cancellationReason = InterledgerProtocolError.builder()
+          .triggeredByAddress(this.getLedgerInfo().getLedgerPrefix())
+          .errorCode(ErrorCode.R00_TRANSFER_TIMED_OUT)
+          .triggeredAt(Instant.now())
+          .build();
 
-        /////////////////////////
-        // Publish an Outgoing Event to any connections that match the sender...
-        /////////////////////////
-        this.connections.values().stream()
-            .filter(
-                connection -> connection.getConnectorAddress()
-                    .equals(newTransferHolder.getTransfer().getSourceAccount())
-            )
-            .forEach(connection -> connection.getLedgerPluginEventEmitter().emitEvent(
-                ImmutableOutgoingTransferCancelledEvent.builder()
-                    .transfer(newTransferHolder.getTransfer())
-                    .build()
-            ));
+      /////////////////////////
+      // Publish an Outgoing Event to any connections that match the sender...
+      /////////////////////////
+      final SimulatedLedgerPluginConnection sender = connectionFor(transfer.getSourceAccount());
+      if (sender != null) {
+        sender.getLedgerPluginEventEmitter().emitEvent(
+            ImmutableOutgoingTransferCancelledEvent.builder()
+                .transfer(transfer)
+                .cancellationReason(cancellationReason)
+                .trace(sender.newEventTrace())
+                .build()
+        );
+      }
 
-        /////////////////////////
-        // Publish an Incoming Event to any connections that match the recipient...
-        /////////////////////////
-        this.connections.values().stream()
-            .filter(
-                connection -> connection.getConnectorAddress()
-                    .equals(newTransferHolder.getTransfer().getDestinationAccount())
-            )
-            .forEach(connection -> connection.getLedgerPluginEventEmitter().emitEvent(
-                ImmutableIncomingTransferCancelledEvent.builder()
-                    .transfer(newTransferHolder.getTransfer())
-                    .build()
-            ));
-      });
+      /////////////////////////
+      // Publish an Incoming Event to any connections that match the recipient...
+      /////////////////////////
+      final SimulatedLedgerPluginConnection recipient =
+          connectionFor(transfer.getDestinationAccount());
+      if (recipient != null) {
+        recipient.getLedgerPluginEventEmitter().emitEvent(
+            ImmutableIncomingTransferCancelledEvent.builder()
+                .transfer(transfer)
+                .cancellationReason(cancellationReason)
+                .trace(recipient.newEventTrace())
+                .build()
+        );
+      }
+    }
+
+    /**
+     * The connection whose connector address is {@code account}, or {@code null} if there is no
+     * such connection or the next event to it should be lost. Events are only built once a
+     * connection will receive them, and share the {@link Transfer} held by this ledger rather than
+     * copying it, so the plugin receives each event as soon as it is built.
+     */
+    private SimulatedLedgerPluginConnection connectionFor(final InterledgerAddress account) {
+      final SimulatedLedgerPluginConnection connection = this.connections.get(account);
+      if (connection == null || !deliverEvent()) {
+        return null;
+      }
+      return connection;
+    }
+
+    /**
+     * Simulate the delivery of a single event, which may be delayed or, if the {@link
+     * SimulationProfile} says so, dropped.
+     *
+     * @return {@code true} if the event should be emitted, {@code false} if it was lost.
+     */
+    private boolean deliverEvent() {
+      return !faultInjector.delayAndCheckFailure(LedgerOperation.EVENT_DELIVERY);
+    }
+
+    private LedgerPluginNotConnectedException simulatedDisconnect(
+        final LedgerOperation ledgerOperation
+    ) {
+      return new LedgerPluginNotConnectedException(
+          "Simulated ledger fault during " + ledgerOperation,
+          this.getLedgerInfo().getLedgerPrefix()
+      );
     }
 
     /**
@@ -601,33 +1038,38 @@ public class MockLedgerPlugin
      */
     public void resetBalances() {
       this.transfers.clear();
+      this.transferWindow.clear();
+      this.messageWindow.clear();
     }
 
     /**
-     * Get the balance for a given account by cycling through all of the transfers and adding up any
-     * totals for the indicated account.
+     * The number of transfers that were ignored because they repeated a transfer that had already
+     * been prepared.
      */
-    public BigInteger getAccountBalance(final InterledgerAddress interledgerAddress) {
-      // Prepared totals...
-      final BigInteger debits = this.transfers.values().stream()
-          // a debit is anything put on hold or executed from the address...
-          .filter(th -> th.getTransferStatus() == TransferStatus.PREPARED
-              || th.getTransferStatus() == TransferStatus.EXECUTED)
-          .map(TransferHolder::getTransfer)
-          .filter(tx -> tx.getSourceAccount().equals(interledgerAddress))
-          .map(Transfer::getAmount)
-          .reduce(BigInteger.ZERO, BigInteger::add);
+    public long getDuplicateTransferCount() {
+      return this.duplicateTransfers.sum();
+    }
 
-      final BigInteger credits = this.transfers.values().stream()
-          // a credit is anything executed to the address...
-          .filter(th -> th.getTransferStatus() == TransferStatus.EXECUTED)
-          .map(TransferHolder::getTransfer)
-          .filter(tx -> tx.getDestinationAccount().equals(interledgerAddress))
-          .map(Transfer::getAmount)
-          .reduce(BigInteger.ZERO, BigInteger::add);
+    /**
+     * The number of messages that were dropped because they repeated a recently sent message.
+     */
+    public long getDuplicateMessageCount() {
+      return this.messageWindow.getDuplicateCount();
+    }
+
+    private static <K, V> IdempotencyWindow<K, V> newIdempotencyWindow() {
+      return new IdempotencyWindow<>(
+          IDEMPOTENCY_WINDOW, IDEMPOTENCY_CAPACITY, Ticker.systemTicker()
+      );
+    }
 
-      // Executed totals...
-      return credits.subtract(debits);
+    /**
+     * Get the balance for a given account: the total of the transfers it has received, less the
+     * transfers it has sent or put on hold. Balances are kept up to date as transfers change, so
+     * this doesn't depend on the number of transfers.
+     */
+    public BigInteger getAccountBalance(final InterledgerAddress interledgerAddress) {
+      return this.transfers.getBalance(interledgerAddress);
     }
 
     // Mock Transfer statuses...
@@ -647,6 +1089,14 @@ public class MockLedgerPlugin
         return TransferStatus.PREPARED;
       }
 
+      /**
+       * The time at which the ledger first accepted the transfer.
+       */
+      @Default
+      default Instant getPreparedAt() {
+        return Instant.now();
+      }
+
       /**
        * Will be present if the transfer is executed.
        */
@@ -667,6 +1117,22 @@ public class MockLedgerPlugin
       String getPassword();
 
       LedgerPluginEventEmitter getLedgerPluginEventEmitter();
+
+      /**
+       * Decides which of the events delivered to this connection are traced.
+       */
+      @Default
+      default EventTraceSampler getEventTraceSampler() {
+        return EventTraceSampler.never();
+      }
+
+      /**
+       * Start a trace for an event that is about to be delivered to this connection, if its
+       * sampler chooses it.
+       */
+      default Optional<EventTrace> newEventTrace() {
+        return EventTrace.sample(getEventTraceSampler());
+      }
     }
   }
 }
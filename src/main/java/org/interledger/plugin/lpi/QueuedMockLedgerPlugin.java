@@ -1,22 +1,34 @@
 package org.interledger.plugin.lpi;
 
+import org.interledger.plugin.lpi.events.EventTrace;
+import org.interledger.plugin.lpi.events.EventTrace.Stage;
+import org.interledger.plugin.lpi.events.EventTraceSink;
 import org.interledger.plugin.lpi.events.IncomingMessgeRequestEvent;
 import org.interledger.plugin.lpi.events.IncomingTransferCancelledEvent;
 import org.interledger.plugin.lpi.events.IncomingTransferFulfilledEvent;
 import org.interledger.plugin.lpi.events.IncomingTransferPreparedEvent;
 import org.interledger.plugin.lpi.events.IncomingTransferRejectedEvent;
+import org.interledger.plugin.lpi.events.LedgerInfoChangedEvent;
 import org.interledger.plugin.lpi.events.LedgerPluginConnectedEvent;
 import org.interledger.plugin.lpi.events.LedgerPluginDisconnectedEvent;
 import org.interledger.plugin.lpi.events.LedgerPluginErrorEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginEvent;
 import org.interledger.plugin.lpi.events.OutgoingMessgeRequestEvent;
 import org.interledger.plugin.lpi.events.OutgoingTransferCancelledEvent;
 import org.interledger.plugin.lpi.events.OutgoingTransferFulfilledEvent;
 import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
 import org.interledger.plugin.lpi.events.OutgoingTransferRejectedEvent;
+import org.interledger.plugin.lpi.handlers.LedgerPluginEventHandler;
+import org.interledger.plugin.lpi.metrics.LedgerPluginEventType;
+import org.interledger.plugin.lpi.metrics.LedgerPluginMetrics;
 
+import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
 
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * A demonstration implementation of {@link LedgerPlugin} that simulates an underlying ledger while
@@ -57,6 +69,8 @@ import java.util.Objects;
  */
 public class QueuedMockLedgerPlugin extends MockLedgerPlugin implements LedgerPlugin {
 
+  private final EventBus eventBus;
+
   /**
    * Required-args Constructor.
    *
@@ -67,10 +81,35 @@ public class QueuedMockLedgerPlugin extends MockLedgerPlugin implements LedgerPl
       final ExtendedLedgerPluginConfig ledgerPluginConfig,
       final SimulatedLedger simulatedLedger,
       final EventBus eventBus
+  ) {
+    this(ledgerPluginConfig, simulatedLedger, eventBus, new LedgerPluginMetrics());
+  }
+
+  private QueuedMockLedgerPlugin(
+      final ExtendedLedgerPluginConfig ledgerPluginConfig,
+      final SimulatedLedger simulatedLedger,
+      final EventBus eventBus,
+      final LedgerPluginMetrics metrics
   ) {
     super(
-        ledgerPluginConfig, simulatedLedger, new AsyncLedgerPluginEventEmitter(eventBus)
+        ledgerPluginConfig, simulatedLedger, new AsyncLedgerPluginEventEmitter(eventBus, metrics),
+        metrics
     );
+    this.eventBus = eventBus;
+  }
+
+  /**
+   * Subscribe {@code handler} to the {@link EventBus} that this plugin posts its events to, through
+   * a {@link TracingSubscriber} that passes the trace of each traced event to this plugin's {@link
+   * #getEventTraceSink()}.
+   *
+   * @return The {@link TracingSubscriber}, which can later be unregistered from the {@link
+   *     EventBus}.
+   */
+  public TracingSubscriber subscribe(final LedgerPluginEventHandler handler) {
+    final TracingSubscriber subscriber = new TracingSubscriber(handler, this::getEventTraceSink);
+    eventBus.register(subscriber);
+    return subscriber;
   }
 
   /**
@@ -78,79 +117,246 @@ public class QueuedMockLedgerPlugin extends MockLedgerPlugin implements LedgerPl
    * into a {@link LedgerPlugin} using an {@link EventBus} as a simulated queueing mechanism.
    *
    * For an synchronous example, consider {@link SyncLedgerPluginEventEmitter} instead.
+   *
+   * Each event, and the lifecycle of each transfer, is recorded in the plugin's {@link
+   * LedgerPluginMetrics} as it is posted, so the counts include events that are still queued.
+   * Traced events are marked with {@link Stage#EMIT} as they are posted. A {@link
+   * TracingSubscriber} marks the remaining stages and passes each trace on.
    */
   public static class AsyncLedgerPluginEventEmitter implements LedgerPluginEventEmitter {
 
     private final EventBus eventBus;
+    private final LedgerPluginMetrics metrics;
 
-    private AsyncLedgerPluginEventEmitter(final EventBus eventBus) {
+    private AsyncLedgerPluginEventEmitter(
+        final EventBus eventBus, final LedgerPluginMetrics metrics
+    ) {
       this.eventBus = Objects.requireNonNull(eventBus);
+      this.metrics = Objects.requireNonNull(metrics);
     }
 
     @Override
-    public void emitEvent(LedgerPluginConnectedEvent event) {
-      eventBus.post(event);
+    public void emitEvent(final LedgerPluginConnectedEvent event) {
+      post(LedgerPluginEventType.CONNECTED, event);
     }
 
     @Override
-    public void emitEvent(LedgerPluginDisconnectedEvent event) {
-      eventBus.post(event);
+    public void emitEvent(final LedgerPluginDisconnectedEvent event) {
+      post(LedgerPluginEventType.DISCONNECTED, event);
     }
 
     @Override
-    public void emitEvent(LedgerPluginErrorEvent event) {
-      eventBus.post(event);
+    public void emitEvent(final LedgerPluginErrorEvent event) {
+      post(LedgerPluginEventType.ERROR, event);
     }
 
     @Override
-    public void emitEvent(OutgoingTransferPreparedEvent event) {
-      eventBus.post(event);
+    public void emitEvent(final OutgoingTransferPreparedEvent event) {
+      metrics.transferPrepared(event.getTransfer().getTransferId());
+      post(LedgerPluginEventType.OUTGOING_TRANSFER_PREPARED, event);
     }
 
     @Override
-    public void emitEvent(OutgoingTransferFulfilledEvent event) {
-      eventBus.post(event);
+    public void emitEvent(final OutgoingTransferFulfilledEvent event) {
+      metrics.transferExecuted(event.getTransfer().getTransferId());
+      post(LedgerPluginEventType.OUTGOING_TRANSFER_FULFILLED, event);
     }
 
     @Override
-    public void emitEvent(OutgoingTransferRejectedEvent event) {
-      eventBus.post(event);
+    public void emitEvent(final OutgoingTransferRejectedEvent event) {
+      metrics.transferRejected(event.getTransfer().getTransferId());
+      post(LedgerPluginEventType.OUTGOING_TRANSFER_REJECTED, event);
     }
 
     @Override
-    public void emitEvent(OutgoingTransferCancelledEvent event) {
-      eventBus.post(event);
+    public void emitEvent(final OutgoingTransferCancelledEvent event) {
+      metrics.transferRejected(event.getTransfer().getTransferId());
+      post(LedgerPluginEventType.OUTGOING_TRANSFER_CANCELLED, event);
     }
 
     @Override
-    public void emitEvent(OutgoingMessgeRequestEvent event) {
-      eventBus.post(event);
+    public void emitEvent(final OutgoingMessgeRequestEvent event) {
+      post(LedgerPluginEventType.OUTGOING_MESSAGE_REQUEST, event);
     }
 
     @Override
-    public void emitEvent(IncomingTransferPreparedEvent event) {
-      eventBus.post(event);
+    public void emitEvent(final IncomingTransferPreparedEvent event) {
+      metrics.transferPrepared(event.getTransfer().getTransferId());
+      post(LedgerPluginEventType.INCOMING_TRANSFER_PREPARED, event);
     }
 
     @Override
-    public void emitEvent(IncomingTransferFulfilledEvent event) {
-      eventBus.post(event);
+    public void emitEvent(final IncomingTransferFulfilledEvent event) {
+      metrics.transferExecuted(event.getTransfer().getTransferId());
+      post(LedgerPluginEventType.INCOMING_TRANSFER_FULFILLED, event);
     }
 
     @Override
-    public void emitEvent(IncomingTransferRejectedEvent event) {
-      eventBus.post(event);
+    public void emitEvent(final IncomingTransferRejectedEvent event) {
+      metrics.transferRejected(event.getTransfer().getTransferId());
+      post(LedgerPluginEventType.INCOMING_TRANSFER_REJECTED, event);
     }
 
     @Override
-    public void emitEvent(IncomingTransferCancelledEvent event) {
-      eventBus.post(event);
+    public void emitEvent(final IncomingTransferCancelledEvent event) {
+      metrics.transferRejected(event.getTransfer().getTransferId());
+      post(LedgerPluginEventType.INCOMING_TRANSFER_CANCELLED, event);
     }
 
     @Override
-    public void emitEvent(IncomingMessgeRequestEvent event) {
+    public void emitEvent(final IncomingMessgeRequestEvent event) {
+      post(LedgerPluginEventType.INCOMING_MESSAGE_REQUEST, event);
+    }
+
+    private void post(final LedgerPluginEventType eventType, final LedgerPluginEvent event) {
+      EventTrace.mark(event, Stage.EMIT);
+      metrics.recordEvent(eventType);
       eventBus.post(event);
     }
   }
 
+  /**
+   * An {@link EventBus} subscriber that passes each event it receives to a {@link
+   * LedgerPluginEventHandler}, completing the trace that {@link AsyncLedgerPluginEventEmitter}
+   * started: {@link Stage#DEQUEUE} is marked as the event is received, {@link Stage#HANDLER_START}
+   * and {@link Stage#HANDLER_END} around the handler, and the trace is then passed to an {@link
+   * EventTraceSink}.
+   *
+   * A trace is marked without synchronization, so only one of these should be subscribed to each
+   * {@link EventBus}.
+   */
+  public static class TracingSubscriber implements LedgerPluginEventHandler {
+
+    private final LedgerPluginEventHandler handler;
+    private final Supplier<EventTraceSink> eventTraceSink;
+
+    /**
+     * Required-args Constructor.
+     *
+     * @param handler        The {@link LedgerPluginEventHandler} to pass each event to.
+     * @param eventTraceSink Supplies the {@link EventTraceSink} that receives each trace once
+     *                       {@code handler} has returned.
+     */
+    public TracingSubscriber(
+        final LedgerPluginEventHandler handler, final Supplier<EventTraceSink> eventTraceSink
+    ) {
+      this.handler = Objects.requireNonNull(handler);
+      this.eventTraceSink = Objects.requireNonNull(eventTraceSink);
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onConnect(final LedgerPluginConnectedEvent event) {
+      dispatch(event, () -> handler.onConnect(event));
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onDisconnect(final LedgerPluginDisconnectedEvent event) {
+      dispatch(event, () -> handler.onDisconnect(event));
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onError(final LedgerPluginErrorEvent event) {
+      dispatch(event, () -> handler.onError(event));
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onLedgerInfoChanged(final LedgerInfoChangedEvent event) {
+      dispatch(event, () -> handler.onLedgerInfoChanged(event));
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onTransferPrepared(final OutgoingTransferPreparedEvent event) {
+      dispatch(event, () -> handler.onTransferPrepared(event));
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onTransferFulfilled(final OutgoingTransferFulfilledEvent event) {
+      dispatch(event, () -> handler.onTransferFulfilled(event));
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onTransferRejected(final OutgoingTransferRejectedEvent event) {
+      dispatch(event, () -> handler.onTransferRejected(event));
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onTransferCancelled(final OutgoingTransferCancelledEvent event) {
+      dispatch(event, () -> handler.onTransferCancelled(event));
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onMessageRequest(final OutgoingMessgeRequestEvent event) {
+      dispatch(event, () -> handler.onMessageRequest(event));
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onTransferPrepared(final IncomingTransferPreparedEvent event) {
+      dispatch(event, () -> handler.onTransferPrepared(event));
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onTransferFulfilled(final IncomingTransferFulfilledEvent event) {
+      dispatch(event, () -> handler.onTransferFulfilled(event));
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onTransferRejected(final IncomingTransferRejectedEvent event) {
+      dispatch(event, () -> handler.onTransferRejected(event));
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onTransferCancelled(final IncomingTransferCancelledEvent event) {
+      dispatch(event, () -> handler.onTransferCancelled(event));
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onMessageRequest(final IncomingMessgeRequestEvent event) {
+      dispatch(event, () -> handler.onMessageRequest(event));
+    }
+
+    private void dispatch(final LedgerPluginEvent event, final Runnable action) {
+      final Optional<EventTrace> trace = event.getTrace();
+      if (!trace.isPresent()) {
+        action.run();
+        return;
+      }
+      trace.get().mark(Stage.DEQUEUE);
+      trace.get().mark(Stage.HANDLER_START);
+      try {
+        action.run();
+      } finally {
+        trace.get().mark(Stage.HANDLER_END);
+        eventTraceSink.get().record(event, trace.get());
+      }
+    }
+  }
+
 }
@@ -0,0 +1,98 @@
+package org.interledger.plugin.lpi;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates time-ordered {@link TransferId}s and {@link MessageId}s, laid out like version 7
+ * {@link UUID}s: a 48-bit millisecond timestamp, then a 42-bit counter that starts at a random
+ * value each millisecond, then 32 random bits, with the version and variant in the usual places.
+ *
+ * Each thread keeps its own timestamp and counter, so generating an id takes no locks and never
+ * touches {@link java.security.SecureRandom}. Ids generated by one thread always increase; ids
+ * generated by different threads are ordered by the millisecond they were generated in.
+ */
+public class TimeOrderedIdGenerator {
+
+  private static final TimeOrderedIdGenerator DEFAULT =
+      new TimeOrderedIdGenerator(System::currentTimeMillis);
+
+  private static final int COUNTER_BITS = 42;
+  private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+  // Leave the top counter bit clear when starting a new millisecond, so it can't overflow...
+  private static final long COUNTER_SEED_BOUND = 1L << (COUNTER_BITS - 1);
+
+  private static final long VERSION = 0x7000L;
+  private static final long VARIANT = 0x8000000000000000L;
+
+  private final LongSupplier clock;
+  private final ThreadLocal<State> state;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param clock Supplies the current time, in milliseconds since the epoch.
+   */
+  public TimeOrderedIdGenerator(final LongSupplier clock) {
+    this.clock = Objects.requireNonNull(clock);
+    this.state = ThreadLocal.withInitial(State::new);
+  }
+
+  /**
+   * The generator used by {@link TransferId#next()} and {@link MessageId#next()}.
+   */
+  public static TimeOrderedIdGenerator getDefault() {
+    return DEFAULT;
+  }
+
+  public TransferId nextTransferId() {
+    final State state = this.state.get();
+    state.advance(clock.getAsLong());
+    return TransferId.of(state.mostSignificantBits(), state.leastSignificantBits());
+  }
+
+  public MessageId nextMessageId() {
+    final State state = this.state.get();
+    state.advance(clock.getAsLong());
+    return MessageId.of(state.mostSignificantBits(), state.leastSignificantBits());
+  }
+
+  /**
+   * The millisecond timestamp that an id generated by this class was created at.
+   */
+  public static long getTimestamp(final UuidIdentifier id) {
+    return id.getMostSignificantBits() >>> 16;
+  }
+
+  /**
+   * The timestamp and counter of the last id generated by a single thread.
+   */
+  private static final class State {
+
+    private long millis;
+    private long counter;
+
+    private void advance(final long now) {
+      if (now > millis) {
+        millis = now;
+        counter = ThreadLocalRandom.current().nextLong(COUNTER_SEED_BOUND);
+      } else if (++counter > COUNTER_MASK) {
+        // The counter is exhausted (or the clock went backwards and it ran out while waiting), so
+        // borrow the next millisecond rather than repeat or reorder an id...
+        millis++;
+        counter = 0;
+      }
+    }
+
+    private long mostSignificantBits() {
+      return (millis << 16) | VERSION | (counter >>> 30);
+    }
+
+    private long leastSignificantBits() {
+      return VARIANT | ((counter & 0x3fffffffL) << 32)
+          | (ThreadLocalRandom.current().nextInt() & 0xffffffffL);
+    }
+  }
+}
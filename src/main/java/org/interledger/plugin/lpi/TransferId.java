@@ -0,0 +1,43 @@
+package org.interledger.plugin.lpi;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Identifier for {@link Transfer}.
+ */
+public final class TransferId extends UuidIdentifier implements Comparable<TransferId> {
+
+  private TransferId(final long mostSignificantBits, final long leastSignificantBits) {
+    super(mostSignificantBits, leastSignificantBits);
+  }
+
+  /**
+   * Construct a {@link TransferId} from a {@link UUID}.
+   */
+  public static TransferId of(final UUID value) {
+    Objects.requireNonNull(value);
+    return new TransferId(value.getMostSignificantBits(), value.getLeastSignificantBits());
+  }
+
+  /**
+   * Construct a {@link TransferId} from the two halves of a {@link UUID}.
+   */
+  public static TransferId of(final long mostSignificantBits, final long leastSignificantBits) {
+    return new TransferId(mostSignificantBits, leastSignificantBits);
+  }
+
+  /**
+   * Generate a new, time-ordered {@link TransferId}.
+   *
+   * @see TimeOrderedIdGenerator
+   */
+  public static TransferId next() {
+    return TimeOrderedIdGenerator.getDefault().nextTransferId();
+  }
+
+  @Override
+  public int compareTo(final TransferId other) {
+    return compareBits(other);
+  }
+}
@@ -0,0 +1,91 @@
+package org.interledger.plugin.lpi;
+
+import java.util.UUID;
+
+/**
+ * A base class for type-safe identifiers, such as {@link TransferId} and {@link MessageId}, that
+ * are 128-bit {@link UUID}s.
+ *
+ * Rather than wrapping a {@link UUID}, the identifier is stored directly as two primitive longs
+ * with a precomputed hash code, so each identifier is a single small object and can be hashed and
+ * compared without allocating or following a reference.
+ */
+public abstract class UuidIdentifier {
+
+  private final long mostSignificantBits;
+  private final long leastSignificantBits;
+  private final int hashCode;
+
+  protected UuidIdentifier(final long mostSignificantBits, final long leastSignificantBits) {
+    this.mostSignificantBits = mostSignificantBits;
+    this.leastSignificantBits = leastSignificantBits;
+    this.hashCode = mix(mostSignificantBits * 31 + leastSignificantBits);
+  }
+
+  /**
+   * The most significant 64 bits of this identifier's {@link UUID}.
+   */
+  public final long getMostSignificantBits() {
+    return mostSignificantBits;
+  }
+
+  /**
+   * The least significant 64 bits of this identifier's {@link UUID}.
+   */
+  public final long getLeastSignificantBits() {
+    return leastSignificantBits;
+  }
+
+  /**
+   * This identifier as a {@link UUID}. A new {@link UUID} is created on each call.
+   */
+  public final UUID value() {
+    return new UUID(mostSignificantBits, leastSignificantBits);
+  }
+
+  /**
+   * Compare the bits of this identifier with those of {@code other}, as unsigned 128-bit numbers,
+   * so that time-ordered identifiers sort by the time they were generated.
+   */
+  protected final int compareBits(final UuidIdentifier other) {
+    final int result = Long.compareUnsigned(mostSignificantBits, other.mostSignificantBits);
+    return result != 0 ? result
+        : Long.compareUnsigned(leastSignificantBits, other.leastSignificantBits);
+  }
+
+  @Override
+  public final boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || obj.getClass() != getClass()) {
+      return false;
+    }
+    final UuidIdentifier other = (UuidIdentifier) obj;
+    return mostSignificantBits == other.mostSignificantBits
+        && leastSignificantBits == other.leastSignificantBits;
+  }
+
+  @Override
+  public final int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(" + value() + ")";
+  }
+
+  /**
+   * The finalization step of MurmurHash3, which spreads every input bit across the hash code, even
+   * for time-ordered identifiers whose high bits rarely change.
+   */
+  private static int mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return (int) value;
+  }
+}
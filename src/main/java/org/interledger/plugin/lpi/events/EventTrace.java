@@ -0,0 +1,127 @@
+package org.interledger.plugin.lpi.events;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The times, as measured by {@link System#nanoTime()}, that a single {@link LedgerPluginEvent}
+ * reached each {@link Stage} of the plugin's event pipeline. Only the events chosen by an {@link
+ * EventTraceSampler} carry a trace, so that the others cost nothing more than an empty {@link
+ * Optional}.
+ *
+ * Each stage is marked by whichever thread is handling the event at that point, and the trace is
+ * handed from one thread to the next along with its event, so marking a stage is no more than a
+ * plain write. A stage that is marked more than once keeps the latest time.
+ */
+public final class EventTrace {
+
+  private static final long UNMARKED = Long.MIN_VALUE;
+  private static final Stage[] STAGES = Stage.values();
+
+  private final long[] nanos;
+
+  private EventTrace() {
+    this.nanos = new long[STAGES.length];
+    Arrays.fill(nanos, UNMARKED);
+  }
+
+  /**
+   * Start a new trace, with {@link Stage#LEDGER_RECEIPT} marked, if {@code sampler} chooses to
+   * trace the event that is about to be built.
+   */
+  public static Optional<EventTrace> sample(final EventTraceSampler sampler) {
+    if (!sampler.shouldTrace()) {
+      return Optional.empty();
+    }
+    final EventTrace trace = new EventTrace();
+    trace.mark(Stage.LEDGER_RECEIPT);
+    return Optional.of(trace);
+  }
+
+  /**
+   * Mark {@code stage} on the trace of {@code event}, if it has one.
+   */
+  public static void mark(final LedgerPluginEvent event, final Stage stage) {
+    final Optional<EventTrace> trace = event.getTrace();
+    if (trace.isPresent()) {
+      trace.get().mark(stage);
+    }
+  }
+
+  /**
+   * Record that the event has just reached {@code stage}.
+   */
+  public void mark(final Stage stage) {
+    nanos[stage.ordinal()] = System.nanoTime();
+  }
+
+  public boolean isMarked(final Stage stage) {
+    return nanos[Objects.requireNonNull(stage).ordinal()] != UNMARKED;
+  }
+
+  /**
+   * The value of {@link System#nanoTime()} when the event reached {@code stage}.
+   *
+   * @throws IllegalStateException if {@code stage} hasn't been marked.
+   */
+  public long getNanos(final Stage stage) {
+    final long stageNanos = nanos[Objects.requireNonNull(stage).ordinal()];
+    if (stageNanos == UNMARKED) {
+      throw new IllegalStateException(stage + " has not been marked");
+    }
+    return stageNanos;
+  }
+
+  @Override
+  public String toString() {
+    // Each marked stage, relative to the first...
+    final StringBuilder builder = new StringBuilder("EventTrace{");
+    long firstNanos = UNMARKED;
+    for (final Stage stage : STAGES) {
+      if (isMarked(stage)) {
+        if (firstNanos == UNMARKED) {
+          firstNanos = nanos[stage.ordinal()];
+        } else {
+          builder.append(", ");
+        }
+        builder.append(stage).append("=+").append(nanos[stage.ordinal()] - firstNanos)
+            .append("ns");
+      }
+    }
+    return builder.append('}').toString();
+  }
+
+  /**
+   * The points in the pipeline that a traced event passes through, in order. A plugin whose emitter
+   * hands events straight to its handlers never marks {@link #DEQUEUE}.
+   */
+  public enum Stage {
+
+    /**
+     * The plugin was notified of the event by its ledger, or raised the event itself.
+     */
+    LEDGER_RECEIPT,
+
+    /**
+     * The event was passed to a {@link org.interledger.plugin.lpi.LedgerPluginEventEmitter}.
+     */
+    EMIT,
+
+    /**
+     * The event was taken off the queue of an asynchronous emitter. This is marked by whatever
+     * consumes the queue, for example an {@link com.google.common.eventbus.EventBus} subscriber.
+     */
+    DEQUEUE,
+
+    /**
+     * The event was passed to the first of the plugin's handlers.
+     */
+    HANDLER_START,
+
+    /**
+     * The last of the plugin's handlers returned.
+     */
+    HANDLER_END
+  }
+}
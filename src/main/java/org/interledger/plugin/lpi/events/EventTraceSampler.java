@@ -0,0 +1,51 @@
+package org.interledger.plugin.lpi.events;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which {@link LedgerPluginEvent}s carry an {@link EventTrace}. It is asked once for each
+ * event, as the event is built, from whichever thread builds it.
+ */
+@FunctionalInterface
+public interface EventTraceSampler {
+
+  /**
+   * A sampler that never traces an event.
+   */
+  static EventTraceSampler never() {
+    return () -> false;
+  }
+
+  /**
+   * A sampler that traces every event.
+   */
+  static EventTraceSampler always() {
+    return () -> true;
+  }
+
+  /**
+   * A sampler that traces one in every {@code n} events, starting with the first.
+   */
+  static EventTraceSampler everyNth(final int n) {
+    Preconditions.checkArgument(n > 0, "n must be positive");
+    final AtomicLong count = new AtomicLong();
+    return () -> count.getAndIncrement() % n == 0;
+  }
+
+  /**
+   * A sampler that traces each event independently with the given probability.
+   */
+  static EventTraceSampler withProbability(final double probability) {
+    Preconditions.checkArgument(probability >= 0 && probability <= 1,
+        "probability must be between 0 and 1");
+    return () -> ThreadLocalRandom.current().nextDouble() < probability;
+  }
+
+  /**
+   * Whether the event that is about to be built should carry a trace.
+   */
+  boolean shouldTrace();
+}
@@ -0,0 +1,23 @@
+package org.interledger.plugin.lpi.events;
+
+/**
+ * Receives each traced {@link LedgerPluginEvent} once every handler has returned, for example to
+ * aggregate the time spent in each stage of the pipeline.
+ */
+@FunctionalInterface
+public interface EventTraceSink {
+
+  /**
+   * A sink that discards every trace.
+   */
+  static EventTraceSink discard() {
+    return (event, trace) -> {
+    };
+  }
+
+  /**
+   * Accept the trace of a single event. This is called by the thread that ran the event's handlers,
+   * so it should be quick, and it must be safe to call from several threads at once.
+   */
+  void record(LedgerPluginEvent event, EventTrace trace);
+}
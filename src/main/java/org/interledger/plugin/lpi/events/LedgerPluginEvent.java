@@ -2,6 +2,10 @@ package org.interledger.plugin.lpi.events;
 
 import org.interledger.InterledgerAddress;
 
+import org.immutables.value.Value;
+
+import java.util.Optional;
+
 /**
  * A parent interface for all ledger plugin events.
  */
@@ -11,4 +15,11 @@ public interface LedgerPluginEvent {
    * The ledger prefix of the ledger that emitted this event.
    */
   InterledgerAddress getLedgerPrefix();
+
+  /**
+   * The times this event reached each stage of the plugin's pipeline, if it was chosen to be
+   * traced. Tracing is diagnostic only, so the trace isn't part of the event's equality.
+   */
+  @Value.Auxiliary
+  Optional<EventTrace> getTrace();
 }
@@ -5,7 +5,7 @@ import org.interledger.InterledgerAddress;
 /**
  * An operation has been rejected because the account does not exist.
  */
-public class AccountNotFoundException extends LedgerPluginException {
+public class AccountNotFoundException extends LedgerRejectionException {
 
   /**
    * The account on the local ledger that was unable to be found.
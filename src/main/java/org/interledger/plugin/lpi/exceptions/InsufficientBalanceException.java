@@ -6,7 +6,7 @@ import org.interledger.plugin.lpi.TransferId;
 /**
  * An operation has been rejected because the source balance isn't high enough.
  */
-public class InsufficientBalanceException extends LedgerPluginException {
+public class InsufficientBalanceException extends LedgerRejectionException {
 
   /**
    * The transferId that triggered this event.
@@ -8,7 +8,7 @@ import org.interledger.cryptoconditions.Fulfillment;
 /**
  * Thrown if a transfer is rejected due to ledger-side business logic.
  */
-public class InvalidFulfillmentException extends LedgerPluginException {
+public class InvalidFulfillmentException extends LedgerRejectionException {
 
   private final TransferId transferId;
   private final Fulfillment fulfillment;
@@ -6,7 +6,7 @@ import org.interledger.plugin.lpi.MessageId;
 /**
  * A transfer was invalid in some manner as to be unacceptable to the underlying ledger.
  */
-public class InvalidMessageException extends LedgerPluginException {
+public class InvalidMessageException extends LedgerRejectionException {
 
   private final MessageId messageId;
 
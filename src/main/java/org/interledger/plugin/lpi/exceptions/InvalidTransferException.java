@@ -9,7 +9,7 @@ import org.interledger.ilp.InterledgerProtocolError;
  * is distinct from {@link TransferNotAcceptedException}, which is used when the Transfer is fine,
  * but some other ledger-specific business logic did not allow the Transfer to be used.
  */
-public class InvalidTransferException extends LedgerPluginException {
+public class InvalidTransferException extends LedgerRejectionException {
 
   private final TransferId transferId;
   private final InterledgerProtocolError rejectionReason;
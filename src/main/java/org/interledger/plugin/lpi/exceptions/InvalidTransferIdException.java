@@ -7,7 +7,7 @@ import org.interledger.plugin.lpi.TransferId;
  * A transfer with the same ID but different data/fields has already been sent and accepted by the
  * underlying ledger.
  */
-public class InvalidTransferIdException extends LedgerPluginException {
+public class InvalidTransferIdException extends LedgerRejectionException {
 
   private final TransferId transferId;
 
@@ -4,9 +4,24 @@ import org.interledger.InterledgerAddress;
 
 /**
  * A root exception for all exceptions relating to Ledger Plugins.
+ *
+ * Ledgers reject operations routinely, and capturing a stack trace usually costs far more than
+ * the rest of the rejection. If the {@value #LIGHTWEIGHT_PROPERTY} system property is {@code true},
+ * or {@link #setLightweight(boolean)} is called with {@code true}, {@link
+ * LedgerRejectionException}s are created without a stack trace. Their messages, causes and other
+ * fields are unaffected. Other ledger plugin exceptions, which report unexpected failures, always
+ * capture a stack trace.
  */
 public class LedgerPluginException extends RuntimeException {
 
+  /**
+   * The system property that sets the initial value of {@link #isLightweight()}.
+   */
+  public static final String LIGHTWEIGHT_PROPERTY =
+      "org.interledger.plugin.lpi.exceptions.lightweight";
+
+  private static volatile boolean lightweight = Boolean.getBoolean(LIGHTWEIGHT_PROPERTY);
+
   /**
    * The ledger-prefix of the ledger plugin that threw this exception.
    */
@@ -86,6 +101,23 @@ public class LedgerPluginException extends RuntimeException {
     this.pluginLedgerPrefix = pluginLedgerPrefix;
   }
 
+  /**
+   * Whether {@link LedgerRejectionException}s are created without a stack trace.
+   */
+  public static boolean isLightweight() {
+    return lightweight;
+  }
+
+  /**
+   * Choose whether {@link LedgerRejectionException}s created from now on capture a stack trace.
+   * This applies to every subclass, so plugins don't need to change how they throw exceptions.
+   *
+   * @param lightweight {@code true} to skip capturing stack traces.
+   */
+  public static void setLightweight(final boolean lightweight) {
+    LedgerPluginException.lightweight = lightweight;
+  }
+
   public InterledgerAddress getPluginLedgerPrefix() {
     return pluginLedgerPrefix;
   }
@@ -0,0 +1,90 @@
+package org.interledger.plugin.lpi.exceptions;
+
+import org.interledger.InterledgerAddress;
+
+/**
+ * The root of the exceptions that a ledger plugin throws when the ledger rejects an operation
+ * as part of its normal behaviour, such as an unknown transfer or an insufficient balance, rather
+ * than because something went wrong.
+ *
+ * Because they are expected, and often frequent, these are the exceptions that are created
+ * without a stack trace when {@link LedgerPluginException#isLightweight()} is {@code true}. Other
+ * ledger plugin exceptions, such as {@link LedgerPluginNotConnectedException}, always capture one.
+ */
+public class LedgerRejectionException extends LedgerPluginException {
+
+  /**
+   * Constructs a new runtime exception with {@code null} as its detail message.  The cause is not
+   * initialized, and may subsequently be initialized by a call to {@link #initCause}.
+   */
+  public LedgerRejectionException(InterledgerAddress pluginLedgerPrefix) {
+    super(pluginLedgerPrefix);
+  }
+
+  /**
+   * Constructs a new runtime exception with the specified detail message. The cause is not
+   * initialized, and may subsequently be initialized by a call to {@link #initCause}.
+   *
+   * @param message the detail message. The detail message is saved for later retrieval by the
+   *                {@link #getMessage()} method.
+   */
+  public LedgerRejectionException(String message, InterledgerAddress pluginLedgerPrefix) {
+    super(message, pluginLedgerPrefix);
+  }
+
+  /**
+   * Constructs a new runtime exception with the specified detail message and cause.  <p>Note that
+   * the detail message associated with {@code cause} is <i>not</i> automatically incorporated in
+   * this runtime exception's detail message.
+   *
+   * @param message the detail message (which is saved for later retrieval by the {@link
+   *                #getMessage()} method).
+   * @param cause   the cause (which is saved for later retrieval by the {@link #getCause()}
+   *                method).  (A <tt>null</tt> value is permitted, and indicates that the cause is
+   *                nonexistent or unknown.)
+   *
+   * @since 1.4
+   */
+  public LedgerRejectionException(String message, Throwable cause,
+      InterledgerAddress pluginLedgerPrefix) {
+    super(message, cause, pluginLedgerPrefix);
+  }
+
+  /**
+   * Constructs a new runtime exception with the specified cause and a detail message of
+   * <tt>(cause==null ? null : cause.toString())</tt> (which typically contains the class and detail
+   * message of <tt>cause</tt>).  This constructor is useful for runtime exceptions that are little
+   * more than wrappers for other throwables.
+   *
+   * @param cause the cause (which is saved for later retrieval by the {@link #getCause()} method).
+   *              (A <tt>null</tt> value is permitted, and indicates that the cause is nonexistent
+   *              or unknown.)
+   *
+   * @since 1.4
+   */
+  public LedgerRejectionException(Throwable cause, InterledgerAddress pluginLedgerPrefix) {
+    super(cause, pluginLedgerPrefix);
+  }
+
+  /**
+   * Constructs a new runtime exception with the specified detail message, cause, suppression
+   * enabled or disabled, and writable stack trace enabled or disabled.
+   *
+   * @param message            the detail message.
+   * @param cause              the cause.  (A {@code null} value is permitted, and indicates that
+   *                           the cause is nonexistent or unknown.)
+   * @param enableSuppression  whether or not suppression is enabled or disabled
+   * @param writableStackTrace whether or not the stack trace should be writable
+   *
+   * @since 1.7
+   */
+  public LedgerRejectionException(String message, Throwable cause, boolean enableSuppression,
+      boolean writableStackTrace, InterledgerAddress pluginLedgerPrefix) {
+    super(message, cause, enableSuppression, writableStackTrace, pluginLedgerPrefix);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return isLightweight() ? this : super.fillInStackTrace();
+  }
+}
@@ -6,7 +6,7 @@ import org.interledger.plugin.lpi.MessageId;
 /**
  * Thrown if a message is rejected due to ledger-side business logic.
  */
-public class MessageNotAcceptedException extends LedgerPluginException {
+public class MessageNotAcceptedException extends LedgerRejectionException {
 
   private final MessageId messageId;
 
@@ -11,7 +11,7 @@ import org.interledger.plugin.lpi.TransferId;
  *     LedgerPlugin#getFulfillment(TransferId)} returns an {@link java.util.Optional} instead.
  */
 @Deprecated
-public class MissingFulfillmentException extends LedgerPluginException {
+public class MissingFulfillmentException extends LedgerRejectionException {
 
   private final TransferId transferId;
 
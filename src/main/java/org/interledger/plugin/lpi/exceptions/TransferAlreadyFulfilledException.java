@@ -6,7 +6,7 @@ import org.interledger.plugin.lpi.TransferId;
 /**
  * Thrown when a transfer has already been fulfilled, and cannot be rejected or otherwise mutated.
  */
-public class TransferAlreadyFulfilledException extends LedgerPluginException {
+public class TransferAlreadyFulfilledException extends LedgerRejectionException {
 
   private final TransferId transferId;
 
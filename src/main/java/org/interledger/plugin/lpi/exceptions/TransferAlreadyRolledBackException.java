@@ -7,7 +7,7 @@ import org.interledger.plugin.lpi.TransferId;
  * Thrown when a transfer has already been rolled back, and cannot be fulfilled or otherwise
  * mutated.
  */
-public class TransferAlreadyRolledBackException extends LedgerPluginException {
+public class TransferAlreadyRolledBackException extends LedgerRejectionException {
 
   private final TransferId transferId;
 
@@ -9,7 +9,7 @@ import org.interledger.ilp.InterledgerProtocolError;
  * TransferNotAcceptedException}, which is meant to indicate that something was invalid about the
  * Transfer itself.
  */
-public class TransferNotAcceptedException extends LedgerPluginException {
+public class TransferNotAcceptedException extends LedgerRejectionException {
 
   private final TransferId transferId;
   private final InterledgerProtocolError rejectionReason;
@@ -6,7 +6,7 @@ import org.interledger.plugin.lpi.TransferId;
 /**
  * A requested transfer does not exist and cannot be fetched.
  */
-public class TransferNotFoundException extends LedgerPluginException {
+public class TransferNotFoundException extends LedgerRejectionException {
 
   private final TransferId transferId;
 
@@ -0,0 +1,265 @@
+package org.interledger.plugin.lpi.handlers;
+
+import org.interledger.plugin.lpi.events.IncomingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferRejectedEvent;
+import org.interledger.plugin.lpi.events.LedgerInfoChangedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginConnectedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginDisconnectedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginErrorEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginEvent;
+import org.interledger.plugin.lpi.events.OutgoingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferRejectedEvent;
+import org.interledger.plugin.lpi.metrics.LedgerPluginEventType;
+
+import java.util.Objects;
+
+/**
+ * A {@link LedgerPluginEventHandler} that forwards every event to another handler, and lets a
+ * subclass observe each call to it without repeating the forwarding for every type of event.
+ *
+ * {@link #beforeEvent} is called before each event is forwarded, and {@link #afterEvent} once the
+ * handler has returned or thrown, with whatever {@link #beforeEvent} returned.
+ *
+ * @param <C> The type of whatever a subclass needs to carry from the start of a call to its end.
+ */
+public abstract class ForwardingLedgerPluginEventHandler<C> implements LedgerPluginEventHandler {
+
+  private final LedgerPluginEventHandler handler;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param handler The {@link LedgerPluginEventHandler} to forward events to.
+   */
+  protected ForwardingLedgerPluginEventHandler(final LedgerPluginEventHandler handler) {
+    this.handler = Objects.requireNonNull(handler);
+  }
+
+  public LedgerPluginEventHandler getHandler() {
+    return handler;
+  }
+
+  /**
+   * Called before an event is forwarded to the wrapped handler.
+   *
+   * @param eventType The {@link LedgerPluginEventType} of {@code event}, or {@code null} for a
+   *                  {@link LedgerInfoChangedEvent}, which an emitter doesn't emit.
+   * @param event     The {@link LedgerPluginEvent} being handled.
+   *
+   * @return Anything that {@link #afterEvent} needs, or {@code null}.
+   */
+  protected abstract C beforeEvent(LedgerPluginEventType eventType, LedgerPluginEvent event);
+
+  /**
+   * Called once the wrapped handler has returned or thrown. This is called from a {@code finally}
+   * block, so it shouldn't throw.
+   *
+   * @param eventType  The {@link LedgerPluginEventType} that was passed to {@link #beforeEvent}.
+   * @param event      The {@link LedgerPluginEvent} that was handled.
+   * @param context    Whatever {@link #beforeEvent} returned.
+   * @param startNanos The value of {@link System#nanoTime()} just before the event was forwarded.
+   * @param failed     Whether the handler threw.
+   */
+  protected abstract void afterEvent(
+      LedgerPluginEventType eventType, LedgerPluginEvent event, C context, long startNanos,
+      boolean failed
+  );
+
+  @Override
+  public void onConnect(final LedgerPluginConnectedEvent event) {
+    final C context = beforeEvent(LedgerPluginEventType.CONNECTED, event);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      handler.onConnect(event);
+      failed = false;
+    } finally {
+      afterEvent(LedgerPluginEventType.CONNECTED, event, context, startNanos, failed);
+    }
+  }
+
+  @Override
+  public void onDisconnect(final LedgerPluginDisconnectedEvent event) {
+    final C context = beforeEvent(LedgerPluginEventType.DISCONNECTED, event);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      handler.onDisconnect(event);
+      failed = false;
+    } finally {
+      afterEvent(LedgerPluginEventType.DISCONNECTED, event, context, startNanos, failed);
+    }
+  }
+
+  @Override
+  public void onError(final LedgerPluginErrorEvent event) {
+    final C context = beforeEvent(LedgerPluginEventType.ERROR, event);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      handler.onError(event);
+      failed = false;
+    } finally {
+      afterEvent(LedgerPluginEventType.ERROR, event, context, startNanos, failed);
+    }
+  }
+
+  @Override
+  public void onLedgerInfoChanged(final LedgerInfoChangedEvent event) {
+    final C context = beforeEvent(null, event);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      handler.onLedgerInfoChanged(event);
+      failed = false;
+    } finally {
+      afterEvent(null, event, context, startNanos, failed);
+    }
+  }
+
+  @Override
+  public void onTransferPrepared(final OutgoingTransferPreparedEvent event) {
+    final C context = beforeEvent(LedgerPluginEventType.OUTGOING_TRANSFER_PREPARED, event);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      handler.onTransferPrepared(event);
+      failed = false;
+    } finally {
+      afterEvent(LedgerPluginEventType.OUTGOING_TRANSFER_PREPARED, event, context, startNanos,
+          failed);
+    }
+  }
+
+  @Override
+  public void onTransferFulfilled(final OutgoingTransferFulfilledEvent event) {
+    final C context = beforeEvent(LedgerPluginEventType.OUTGOING_TRANSFER_FULFILLED, event);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      handler.onTransferFulfilled(event);
+      failed = false;
+    } finally {
+      afterEvent(LedgerPluginEventType.OUTGOING_TRANSFER_FULFILLED, event, context, startNanos,
+          failed);
+    }
+  }
+
+  @Override
+  public void onTransferCancelled(final OutgoingTransferCancelledEvent event) {
+    final C context = beforeEvent(LedgerPluginEventType.OUTGOING_TRANSFER_CANCELLED, event);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      handler.onTransferCancelled(event);
+      failed = false;
+    } finally {
+      afterEvent(LedgerPluginEventType.OUTGOING_TRANSFER_CANCELLED, event, context, startNanos,
+          failed);
+    }
+  }
+
+  @Override
+  public void onTransferRejected(final OutgoingTransferRejectedEvent event) {
+    final C context = beforeEvent(LedgerPluginEventType.OUTGOING_TRANSFER_REJECTED, event);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      handler.onTransferRejected(event);
+      failed = false;
+    } finally {
+      afterEvent(LedgerPluginEventType.OUTGOING_TRANSFER_REJECTED, event, context, startNanos,
+          failed);
+    }
+  }
+
+  @Override
+  public void onMessageRequest(final OutgoingMessgeRequestEvent event) {
+    final C context = beforeEvent(LedgerPluginEventType.OUTGOING_MESSAGE_REQUEST, event);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      handler.onMessageRequest(event);
+      failed = false;
+    } finally {
+      afterEvent(LedgerPluginEventType.OUTGOING_MESSAGE_REQUEST, event, context, startNanos,
+          failed);
+    }
+  }
+
+  @Override
+  public void onTransferPrepared(final IncomingTransferPreparedEvent event) {
+    final C context = beforeEvent(LedgerPluginEventType.INCOMING_TRANSFER_PREPARED, event);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      handler.onTransferPrepared(event);
+      failed = false;
+    } finally {
+      afterEvent(LedgerPluginEventType.INCOMING_TRANSFER_PREPARED, event, context, startNanos,
+          failed);
+    }
+  }
+
+  @Override
+  public void onTransferFulfilled(final IncomingTransferFulfilledEvent event) {
+    final C context = beforeEvent(LedgerPluginEventType.INCOMING_TRANSFER_FULFILLED, event);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      handler.onTransferFulfilled(event);
+      failed = false;
+    } finally {
+      afterEvent(LedgerPluginEventType.INCOMING_TRANSFER_FULFILLED, event, context, startNanos,
+          failed);
+    }
+  }
+
+  @Override
+  public void onTransferCancelled(final IncomingTransferCancelledEvent event) {
+    final C context = beforeEvent(LedgerPluginEventType.INCOMING_TRANSFER_CANCELLED, event);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      handler.onTransferCancelled(event);
+      failed = false;
+    } finally {
+      afterEvent(LedgerPluginEventType.INCOMING_TRANSFER_CANCELLED, event, context, startNanos,
+          failed);
+    }
+  }
+
+  @Override
+  public void onTransferRejected(final IncomingTransferRejectedEvent event) {
+    final C context = beforeEvent(LedgerPluginEventType.INCOMING_TRANSFER_REJECTED, event);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      handler.onTransferRejected(event);
+      failed = false;
+    } finally {
+      afterEvent(LedgerPluginEventType.INCOMING_TRANSFER_REJECTED, event, context, startNanos,
+          failed);
+    }
+  }
+
+  @Override
+  public void onMessageRequest(final IncomingMessgeRequestEvent event) {
+    final C context = beforeEvent(LedgerPluginEventType.INCOMING_MESSAGE_REQUEST, event);
+    final long startNanos = System.nanoTime();
+    boolean failed = true;
+    try {
+      handler.onMessageRequest(event);
+      failed = false;
+    } finally {
+      afterEvent(LedgerPluginEventType.INCOMING_MESSAGE_REQUEST, event, context, startNanos,
+          failed);
+    }
+  }
+}
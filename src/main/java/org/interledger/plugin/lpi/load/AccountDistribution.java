@@ -0,0 +1,94 @@
+package org.interledger.plugin.lpi.load;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Defines how a {@link TrafficGenerator} chooses counterparty accounts, each of which is identified
+ * by an index between {@code 0} (inclusive) and {@link #getAccountCount()} (exclusive).
+ */
+public interface AccountDistribution {
+
+  /**
+   * A distribution where every account is equally likely to be chosen.
+   *
+   * @param accountCount The number of accounts to choose from.
+   */
+  static AccountDistribution uniform(final int accountCount) {
+    Preconditions.checkArgument(accountCount > 0, "accountCount must be positive");
+    return new AccountDistribution() {
+      @Override
+      public int getAccountCount() {
+        return accountCount;
+      }
+
+      @Override
+      public int nextAccount(final Random random) {
+        return random.nextInt(accountCount);
+      }
+
+      @Override
+      public String toString() {
+        return "Uniform(" + accountCount + ")";
+      }
+    };
+  }
+
+  /**
+   * A distribution where a small number of "hot" accounts receive most of the traffic. The account
+   * with index {@code k} is chosen with a probability proportional to {@code 1 / (k + 1)^exponent}.
+   *
+   * @param accountCount The number of accounts to choose from.
+   * @param exponent     The skew of the distribution. Larger values concentrate more traffic on
+   *                     the lowest-numbered accounts; {@code 0} is equivalent to a uniform
+   *                     distribution.
+   */
+  static AccountDistribution zipfian(final int accountCount, final double exponent) {
+    Preconditions.checkArgument(accountCount > 0, "accountCount must be positive");
+    Preconditions.checkArgument(exponent >= 0, "exponent must not be negative");
+
+    // Precompute the cumulative distribution so that each sample is a binary search.
+    final double[] cumulative = new double[accountCount];
+    double total = 0;
+    for (int i = 0; i < accountCount; i++) {
+      total += 1.0d / Math.pow(i + 1, exponent);
+      cumulative[i] = total;
+    }
+    final double sum = total;
+
+    return new AccountDistribution() {
+      @Override
+      public int getAccountCount() {
+        return accountCount;
+      }
+
+      @Override
+      public int nextAccount(final Random random) {
+        final int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+        return Math.min(index >= 0 ? index : -index - 1, accountCount - 1);
+      }
+
+      @Override
+      public String toString() {
+        return "Zipfian(" + accountCount + ", " + exponent + ")";
+      }
+    };
+  }
+
+  /**
+   * The number of accounts in this distribution.
+   */
+  int getAccountCount();
+
+  /**
+   * Choose the index of the next account.
+   *
+   * @param random The {@link Random} to draw from.
+   *
+   * @return An account index between {@code 0} (inclusive) and {@link #getAccountCount()}
+   *     (exclusive).
+   */
+  int nextAccount(Random random);
+}
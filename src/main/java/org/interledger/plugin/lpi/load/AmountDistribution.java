@@ -0,0 +1,38 @@
+package org.interledger.plugin.lpi.load;
+
+import com.google.common.base.Preconditions;
+
+import java.math.BigInteger;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Defines how a {@link TrafficGenerator} chooses the amount of each transfer, in ledger base units.
+ */
+public interface AmountDistribution {
+
+  /**
+   * A distribution that always returns {@code amount}.
+   */
+  static AmountDistribution fixed(final BigInteger amount) {
+    Objects.requireNonNull(amount);
+    return random -> amount;
+  }
+
+  /**
+   * A distribution that returns amounts uniformly between {@code min} and {@code max}, inclusive.
+   */
+  static AmountDistribution uniform(final long min, final long max) {
+    Preconditions.checkArgument(min >= 0, "min must not be negative");
+    Preconditions.checkArgument(max >= min, "max must not be less than min");
+    final long range = max - min + 1;
+    return random -> BigInteger.valueOf(min + (long) (random.nextDouble() * range));
+  }
+
+  /**
+   * Choose the amount of the next transfer.
+   *
+   * @param random The {@link Random} to draw from.
+   */
+  BigInteger nextAmount(Random random);
+}
@@ -0,0 +1,34 @@
+package org.interledger.plugin.lpi.load;
+
+import org.interledger.plugin.lpi.LedgerPlugin;
+
+/**
+ * The types of traffic that a {@link TrafficGenerator} can drive through a {@link LedgerPlugin}.
+ */
+public enum OperationType {
+
+  /**
+   * Prepares a new conditional transfer via {@link LedgerPlugin#sendTransfer}.
+   */
+  PREPARE,
+
+  /**
+   * Fulfills a previously prepared transfer via {@link LedgerPlugin#fulfillCondition}.
+   */
+  FULFILL,
+
+  /**
+   * Rejects a previously prepared transfer via {@link LedgerPlugin#rejectIncomingTransfer}.
+   */
+  REJECT,
+
+  /**
+   * Prepares a short-lived transfer that is never fulfilled, and is left to expire.
+   */
+  EXPIRE,
+
+  /**
+   * Sends a ledger-local message via {@link LedgerPlugin#sendMessage}.
+   */
+  MESSAGE
+}
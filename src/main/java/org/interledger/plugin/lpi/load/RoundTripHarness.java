@@ -0,0 +1,469 @@
+package org.interledger.plugin.lpi.load;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+import org.interledger.ilp.InterledgerPayment;
+import org.interledger.plugin.lpi.ImmutableTransfer;
+import org.interledger.plugin.lpi.LedgerPlugin;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.TransferId;
+import org.interledger.plugin.lpi.events.OutgoingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferRejectedEvent;
+import org.interledger.plugin.lpi.handlers.AbstractOutgoingTransferEventHandler;
+import org.interledger.plugin.lpi.metrics.OperationStats;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Measures the latency of complete round trips through any connected {@link LedgerPlugin}, at each
+ * of a series of constant rates, to find the highest rate that the plugin can sustain and the
+ * latency it delivers on the way there.
+ *
+ * A round trip prepares a transfer from the plugin's connector account, fulfills it, and ends when
+ * the plugin delivers the resulting {@link OutgoingTransferFulfilledEvent}, so it includes any
+ * time that the event spends queued. As with {@link TrafficGenerator}, round trips are scheduled
+ * by a single thread at a fixed rate (i.e., open-loop) and executed by a pool of worker threads,
+ * and each is timed from when it was scheduled to start rather than when a worker picked it up.
+ * A plugin that stalls therefore can't hide the round trips that queued up behind the stall
+ * (coordinated omission): every one of them is recorded with the delay it suffered.
+ *
+ * Each target rate is run as a separate step, with a warmup whose round trips aren't recorded.
+ * A step is saturated if round trips completed at less than {@link
+ * RoundTripProfile#getSaturationThreshold()} of its target rate, measured from the first recorded
+ * round trip's scheduled start to the last completion; the run stops after the first saturated
+ * step, since round trips at any higher rate would only queue up further.
+ *
+ * WARNING: This class is meant for load testing only. Never point it at a plugin connected to a
+ * ledger holding real value.
+ */
+public class RoundTripHarness {
+
+  private static final int SCHEDULE_QUEUE_CAPACITY = 1024;
+  private static final long DRAIN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final LedgerPlugin ledgerPlugin;
+  private final RoundTripProfile roundTripProfile;
+  private final Function<CompletionHandler, Runnable> subscriber;
+
+  /**
+   * Required-args Constructor, for plugins that deliver events to the handlers added to them.
+   *
+   * @param ledgerPlugin     A connected {@link LedgerPlugin} to drive round trips through.
+   * @param roundTripProfile A {@link RoundTripProfile} describing the round trips to drive.
+   */
+  public RoundTripHarness(
+      final LedgerPlugin ledgerPlugin, final RoundTripProfile roundTripProfile
+  ) {
+    this(ledgerPlugin, roundTripProfile, subscribeTo(ledgerPlugin));
+  }
+
+  /**
+   * Required-args Constructor, for plugins that deliver events through an {@link EventBus}, such
+   * as {@link org.interledger.plugin.lpi.QueuedMockLedgerPlugin}.
+   *
+   * @param ledgerPlugin     A connected {@link LedgerPlugin} to drive round trips through.
+   * @param roundTripProfile A {@link RoundTripProfile} describing the round trips to drive.
+   * @param eventBus         The {@link EventBus} that {@code ledgerPlugin} posts its events to.
+   */
+  public RoundTripHarness(
+      final LedgerPlugin ledgerPlugin, final RoundTripProfile roundTripProfile,
+      final EventBus eventBus
+  ) {
+    this(ledgerPlugin, roundTripProfile, subscribeTo(eventBus));
+  }
+
+  private RoundTripHarness(
+      final LedgerPlugin ledgerPlugin, final RoundTripProfile roundTripProfile,
+      final Function<CompletionHandler, Runnable> subscriber
+  ) {
+    this.ledgerPlugin = Objects.requireNonNull(ledgerPlugin);
+    this.roundTripProfile = Objects.requireNonNull(roundTripProfile);
+    this.subscriber = Objects.requireNonNull(subscriber);
+  }
+
+  private static Function<CompletionHandler, Runnable> subscribeTo(
+      final LedgerPlugin ledgerPlugin
+  ) {
+    Objects.requireNonNull(ledgerPlugin);
+    return completionHandler -> {
+      final UUID handlerId = ledgerPlugin.addLedgerPluginEventHandler(completionHandler);
+      return () -> ledgerPlugin.removeLedgerPluginEventHandler(handlerId);
+    };
+  }
+
+  private static Function<CompletionHandler, Runnable> subscribeTo(final EventBus eventBus) {
+    Objects.requireNonNull(eventBus);
+    return completionHandler -> {
+      eventBus.register(completionHandler);
+      return () -> eventBus.unregister(completionHandler);
+    };
+  }
+
+  /**
+   * Run a step at each of the {@link RoundTripProfile}'s target rates in turn, until one
+   * saturates, blocking until every round trip has completed or timed out.
+   *
+   * @return A {@link RoundTripReport} describing the run.
+   */
+  public RoundTripReport run() {
+    final RunContext context = new RunContext(
+        ledgerPlugin.getLedgerInfo().getLedgerPrefix(), ledgerPlugin.getConnectorAccount(),
+        roundTripProfile.getAccountDistribution().getAccountCount()
+    );
+    final Runnable unsubscriber = subscriber.apply(new CompletionHandler(context.pending));
+
+    final BlockingQueue<RoundTrip> scheduled = new ArrayBlockingQueue<>(SCHEDULE_QUEUE_CAPACITY);
+    final ExecutorService workers = Executors.newFixedThreadPool(
+        roundTripProfile.getConcurrency(),
+        new ThreadFactoryBuilder().setNameFormat("round-trip-harness-%d").setDaemon(true).build()
+    );
+    for (int i = 0; i < roundTripProfile.getConcurrency(); i++) {
+      workers.execute(() -> work(scheduled, context));
+    }
+
+    final Random random = new Random(roundTripProfile.getSeed());
+    final ImmutableRoundTripReport.Builder report = ImmutableRoundTripReport.builder()
+        .profile(roundTripProfile);
+    try {
+      for (final double targetRate : roundTripProfile.getTargetRates()) {
+        final RoundTripStep step = runStep(targetRate, random, scheduled, context);
+        logger.info("Round trips at {}", step.getSummary());
+        report.addSteps(step);
+        if (step.isSaturated()) {
+          break;
+        }
+      }
+
+      for (int i = 0; i < roundTripProfile.getConcurrency(); i++) {
+        scheduled.put(RoundTrip.STOP);
+      }
+      workers.shutdown();
+      workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      workers.shutdownNow();
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while driving round trips!", e);
+    } finally {
+      unsubscriber.run();
+    }
+    return report.build();
+  }
+
+  private RoundTripStep runStep(
+      final double targetRate, final Random random, final BlockingQueue<RoundTrip> scheduled,
+      final RunContext context
+  ) throws InterruptedException {
+    final long intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / targetRate));
+    final long warmupCount = roundTripProfile.getWarmupDuration().toNanos() / intervalNanos;
+    final long measuredCount =
+        Math.max(1, roundTripProfile.getStepDuration().toNanos() / intervalNanos);
+    final Step step = new Step();
+
+    final long startNanos = System.nanoTime();
+    final long measuredStartNanos = startNanos + warmupCount * intervalNanos;
+    for (long i = 0; i < warmupCount + measuredCount; i++) {
+      // If the workers fall behind, this falls behind too, but round trips are still timed from
+      // when they should have started...
+      final long intendedStartNanos = startNanos + i * intervalNanos;
+      long remaining;
+      while ((remaining = intendedStartNanos - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(remaining);
+      }
+
+      final byte[] preimage = new byte[32];
+      random.nextBytes(preimage);
+      final RoundTrip roundTrip = new RoundTrip(
+          step,
+          i >= warmupCount,
+          intendedStartNanos,
+          roundTripProfile.getAccountDistribution().nextAccount(random),
+          roundTripProfile.getAmountDistribution().nextAmount(random),
+          preimage
+      );
+      step.unfinished.add(roundTrip);
+      scheduled.put(roundTrip);
+    }
+
+    final long deadlineNanos = System.nanoTime() + roundTripProfile.getDrainTimeout().toNanos();
+    while (!step.unfinished.isEmpty() && System.nanoTime() - deadlineNanos < 0) {
+      LockSupport.parkNanos(DRAIN_POLL_NANOS);
+    }
+    if (!step.unfinished.isEmpty()) {
+      abandon(step, scheduled, context);
+    }
+
+    final Histogram histogram = step.recorder.getIntervalHistogram();
+    final long elapsedNanos = step.lastCompletionNanos.get() - measuredStartNanos;
+    final double achievedRate = elapsedNanos <= 0 ? 0
+        : step.completed.sum() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    return ImmutableRoundTripStep.builder()
+        .targetRate(targetRate)
+        .achievedRate(achievedRate)
+        .latency(OperationStats.from(histogram, step.errors.sum()))
+        .abandoned(step.abandoned.sum())
+        .isSaturated(achievedRate < targetRate * roundTripProfile.getSaturationThreshold())
+        .build();
+  }
+
+  /**
+   * Give up on the round trips of {@code step} that are still waiting for a worker or for their
+   * fulfillment, counting them as errors. These are the slowest round trips of the step, so each
+   * is still recorded, with the time it had waited so far, rather than left out of the latencies.
+   */
+  private void abandon(
+      final Step step, final BlockingQueue<RoundTrip> scheduled, final RunContext context
+  ) {
+    final long abandonedNanos = System.nanoTime();
+    // A round trip may be between the queue and the pending transfers, so abandon every one that
+    // hasn't finished, wherever it is, and then stop the rest from being started...
+    step.unfinished.forEach(roundTrip -> roundTrip.abandon(abandonedNanos));
+    scheduled.removeIf(roundTrip -> roundTrip.step == step);
+    context.pending.values().removeIf(roundTrip -> roundTrip.step == step);
+  }
+
+  private void work(final BlockingQueue<RoundTrip> scheduled, final RunContext context) {
+    try {
+      RoundTrip roundTrip;
+      while ((roundTrip = scheduled.take()) != RoundTrip.STOP) {
+        if (roundTrip.finished.get()) {
+          // Abandoned after this worker took it from the queue...
+          continue;
+        }
+        final Fulfillment fulfillment = new PreimageSha256Fulfillment(roundTrip.preimage);
+        final Transfer transfer = constructTransfer(roundTrip, fulfillment, context);
+        // The fulfilled event may be delivered before fulfillCondition returns...
+        context.pending.put(transfer.getTransferId(), roundTrip);
+        try {
+          ledgerPlugin.sendTransfer(transfer);
+          ledgerPlugin.fulfillCondition(transfer.getTransferId(), fulfillment);
+        } catch (RuntimeException e) {
+          if (context.pending.remove(transfer.getTransferId()) != null) {
+            roundTrip.fail();
+          }
+          if (logger.isDebugEnabled()) {
+            logger.debug("Round trip failed: {}", e.toString());
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private Transfer constructTransfer(
+      final RoundTrip roundTrip, final Fulfillment fulfillment, final RunContext context
+  ) {
+    final InterledgerAddress destination = context.accounts[roundTrip.account];
+    return ImmutableTransfer.builder()
+        .transferId(TransferId.next())
+        .ledgerPrefix(context.ledgerPrefix)
+        .sourceAccount(context.connectorAccount)
+        .destinationAccount(destination)
+        .amount(roundTrip.amount)
+        .executionCondition(fulfillment.getCondition())
+        .expiresAt(Instant.now().plus(roundTripProfile.getTransferTimeout()))
+        .interlederPaymentPacket(InterledgerPayment.builder()
+            .destinationAccount(destination)
+            .destinationAmount(roundTrip.amount)
+            .data(new byte[0])
+            .build())
+        .build();
+  }
+
+  /**
+   * State that is shared by the scheduling, worker and event-handling threads for the duration of
+   * a single run.
+   */
+  private static class RunContext {
+
+    private final InterledgerAddress ledgerPrefix;
+    private final InterledgerAddress connectorAccount;
+    private final InterledgerAddress[] accounts;
+
+    // The round trip of each transfer that has been prepared but whose fulfillment hasn't yet been
+    // delivered...
+    private final Map<TransferId, RoundTrip> pending = new ConcurrentHashMap<>();
+
+    private RunContext(
+        final InterledgerAddress ledgerPrefix, final InterledgerAddress connectorAccount,
+        final int accountCount
+    ) {
+      this.ledgerPrefix = Objects.requireNonNull(ledgerPrefix);
+      this.connectorAccount = Objects.requireNonNull(connectorAccount);
+      this.accounts = new InterledgerAddress[accountCount];
+      for (int i = 0; i < accountCount; i++) {
+        accounts[i] = ledgerPrefix.with("account" + i);
+      }
+    }
+  }
+
+  /**
+   * The round trips of a single step, and their latencies.
+   */
+  private static class Step {
+
+    private final Recorder recorder = new Recorder(3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final AtomicLong lastCompletionNanos = new AtomicLong(Long.MIN_VALUE);
+    // The round trips that have been scheduled but have neither completed nor failed...
+    private final Set<RoundTrip> unfinished = ConcurrentHashMap.newKeySet();
+  }
+
+  /**
+   * A single round trip, as scheduled by the scheduling thread.
+   */
+  private static class RoundTrip {
+
+    private static final RoundTrip STOP = new RoundTrip(null, false, 0, 0, null, null);
+
+    private final Step step;
+    private final boolean measured;
+    private final long intendedStartNanos;
+    private final int account;
+    private final BigInteger amount;
+    private final byte[] preimage;
+
+    // Set by whichever of completion, failure or abandonment happens first...
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private RoundTrip(
+        final Step step, final boolean measured, final long intendedStartNanos, final int account,
+        final BigInteger amount, final byte[] preimage
+    ) {
+      this.step = step;
+      this.measured = measured;
+      this.intendedStartNanos = intendedStartNanos;
+      this.account = account;
+      this.amount = amount;
+      this.preimage = preimage;
+    }
+
+    private void complete(final long completedNanos) {
+      if (!finish()) {
+        return;
+      }
+      if (measured) {
+        step.recorder.recordValue(completedNanos - intendedStartNanos);
+        step.lastCompletionNanos.accumulateAndGet(completedNanos, Math::max);
+        step.completed.increment();
+      }
+    }
+
+    private void abandon(final long abandonedNanos) {
+      if (!finish()) {
+        return;
+      }
+      if (measured) {
+        step.recorder.recordValue(abandonedNanos - intendedStartNanos);
+        step.abandoned.increment();
+        step.errors.increment();
+      }
+    }
+
+    private void fail() {
+      if (!finish()) {
+        return;
+      }
+      if (measured) {
+        step.errors.increment();
+      }
+    }
+
+    private boolean finish() {
+      if (!finished.compareAndSet(false, true)) {
+        return false;
+      }
+      step.unfinished.remove(this);
+      return true;
+    }
+  }
+
+  /**
+   * Completes the round trip of each transfer whose fulfillment is delivered, whether it is added
+   * to the plugin as a handler or subscribed to an {@link EventBus}.
+   */
+  private static class CompletionHandler extends AbstractOutgoingTransferEventHandler {
+
+    private final Map<TransferId, RoundTrip> pending;
+
+    private CompletionHandler(final Map<TransferId, RoundTrip> pending) {
+      this.pending = Objects.requireNonNull(pending);
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onTransferFulfilled(final OutgoingTransferFulfilledEvent event) {
+      final long completedNanos = System.nanoTime();
+      final RoundTrip roundTrip = pending.remove(event.getTransfer().getTransferId());
+      if (roundTrip != null) {
+        roundTrip.complete(completedNanos);
+      }
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onTransferRejected(final OutgoingTransferRejectedEvent event) {
+      fail(event.getTransfer().getTransferId());
+    }
+
+    @Override
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onTransferCancelled(final OutgoingTransferCancelledEvent event) {
+      fail(event.getTransfer().getTransferId());
+    }
+
+    @Override
+    public void onTransferPrepared(final OutgoingTransferPreparedEvent event) {
+
+    }
+
+    @Override
+    public void onMessageRequest(final OutgoingMessgeRequestEvent event) {
+
+    }
+
+    private void fail(final TransferId transferId) {
+      final RoundTrip roundTrip = pending.remove(transferId);
+      if (roundTrip != null) {
+        roundTrip.fail();
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package org.interledger.plugin.lpi.load;
+
+import com.google.common.base.Preconditions;
+import org.immutables.value.Value;
+import org.immutables.value.Value.Default;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Describes the round trips that a {@link RoundTripHarness} should drive through a ledger plugin,
+ * and the rates to drive them at.
+ */
+@Value.Immutable
+public interface RoundTripProfile {
+
+  /**
+   * The number of round trips per second to start in each step of the run, in ascending order.
+   * The run stops after the first rate that the plugin can't keep up with.
+   */
+  List<Double> getTargetRates();
+
+  /**
+   * How long each step starts round trips for, after its warmup.
+   */
+  @Default
+  default Duration getStepDuration() {
+    return Duration.ofSeconds(10);
+  }
+
+  /**
+   * How long each step starts round trips for, at its target rate, before any are recorded.
+   */
+  @Default
+  default Duration getWarmupDuration() {
+    return Duration.ofSeconds(2);
+  }
+
+  /**
+   * How long to wait, after a step has started its last round trip, for the rest to complete.
+   * Any that haven't by then are counted as errors.
+   */
+  @Default
+  default Duration getDrainTimeout() {
+    return Duration.ofSeconds(10);
+  }
+
+  /**
+   * The fraction of its target rate that a step must complete round trips at for the plugin to
+   * be considered to have kept up with it.
+   */
+  @Default
+  default double getSaturationThreshold() {
+    return 0.95;
+  }
+
+  /**
+   * The number of worker threads used to prepare and fulfill transfers.
+   */
+  @Default
+  default int getConcurrency() {
+    return 4;
+  }
+
+  /**
+   * The distribution used to choose the destination account of each transfer.
+   */
+  @Default
+  default AccountDistribution getAccountDistribution() {
+    return AccountDistribution.uniform(100);
+  }
+
+  /**
+   * The distribution used to choose the amount of each transfer.
+   */
+  @Default
+  default AmountDistribution getAmountDistribution() {
+    return AmountDistribution.fixed(BigInteger.TEN);
+  }
+
+  /**
+   * The seed for all random choices made while generating round trips, so that runs are
+   * repeatable.
+   */
+  @Default
+  default long getSeed() {
+    return 0L;
+  }
+
+  /**
+   * How far in the future prepared transfers expire.
+   */
+  @Default
+  default Duration getTransferTimeout() {
+    return Duration.ofSeconds(30);
+  }
+
+  @Value.Check
+  default void check() {
+    Preconditions.checkArgument(!getTargetRates().isEmpty(), "targetRates must not be empty");
+    double previousRate = 0;
+    for (final double targetRate : getTargetRates()) {
+      Preconditions.checkArgument(targetRate > previousRate,
+          "targetRates must be positive and ascending");
+      previousRate = targetRate;
+    }
+    Preconditions.checkArgument(!getStepDuration().isNegative() && !getStepDuration().isZero(),
+        "stepDuration must be positive");
+    Preconditions.checkArgument(!getWarmupDuration().isNegative(),
+        "warmupDuration must not be negative");
+    Preconditions.checkArgument(!getDrainTimeout().isNegative(),
+        "drainTimeout must not be negative");
+    Preconditions.checkArgument(getSaturationThreshold() > 0 && getSaturationThreshold() <= 1,
+        "saturationThreshold must be greater than 0 and at most 1");
+    Preconditions.checkArgument(getConcurrency() > 0, "concurrency must be positive");
+  }
+}
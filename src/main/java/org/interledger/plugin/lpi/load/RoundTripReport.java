@@ -0,0 +1,46 @@
+package org.interledger.plugin.lpi.load;
+
+import org.immutables.value.Value;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The outcome of a {@link RoundTripHarness} run.
+ */
+@Value.Immutable
+public interface RoundTripReport {
+
+  /**
+   * The {@link RoundTripProfile} that generated this report.
+   */
+  RoundTripProfile getProfile();
+
+  /**
+   * One step for each target rate that was run, in ascending order of rate. The last step is the
+   * only one that may be saturated.
+   */
+  List<RoundTripStep> getSteps();
+
+  /**
+   * The lowest target rate that the plugin couldn't keep up with, if any.
+   */
+  @Value.Derived
+  default Optional<Double> getSaturationRate() {
+    return getSteps().stream()
+        .filter(RoundTripStep::isSaturated)
+        .map(RoundTripStep::getTargetRate)
+        .findFirst();
+  }
+
+  /**
+   * The highest target rate that the plugin kept up with, if any.
+   */
+  @Value.Derived
+  default Optional<Double> getMaxSustainedRate() {
+    return getSteps().stream()
+        .filter(step -> !step.isSaturated())
+        .map(RoundTripStep::getTargetRate)
+        .reduce((first, second) -> second);
+  }
+}
@@ -0,0 +1,52 @@
+package org.interledger.plugin.lpi.load;
+
+import org.interledger.plugin.lpi.metrics.OperationStats;
+
+import org.immutables.value.Value;
+
+/**
+ * The outcome of one step of a {@link RoundTripHarness} run, at a single target rate.
+ */
+@Value.Immutable
+public interface RoundTripStep {
+
+  /**
+   * The number of round trips per second that this step started.
+   */
+  double getTargetRate();
+
+  /**
+   * The number of round trips per second that completed, from the first scheduled start after
+   * the warmup to the last completion.
+   */
+  double getAchievedRate();
+
+  /**
+   * The latency of every round trip started after the warmup, measured from the time it was
+   * scheduled to start until the plugin delivered its fulfillment. Round trips that failed, or
+   * didn't complete in time, are counted as errors. Those that didn't complete in time are also
+   * recorded, at the time they had waited when they were abandoned, so that the highest
+   * percentiles are a lower bound rather than leaving out the slowest round trips.
+   */
+  OperationStats getLatency();
+
+  /**
+   * The number of round trips that hadn't completed by the end of {@link
+   * RoundTripProfile#getDrainTimeout()}, which are included in both the errors and the latencies
+   * of {@link #getLatency()}.
+   */
+  long getAbandoned();
+
+  /**
+   * Whether the achieved rate fell short of {@link RoundTripProfile#getSaturationThreshold()} of
+   * the target rate, meaning that the plugin couldn't keep up.
+   */
+  boolean isSaturated();
+
+  @Value.Lazy
+  default String getSummary() {
+    return String.format("target=%.0f/s achieved=%.0f/s%s abandoned=%d %s", getTargetRate(),
+        getAchievedRate(), isSaturated() ? " SATURATED" : "", getAbandoned(),
+        getLatency().getSummary());
+  }
+}
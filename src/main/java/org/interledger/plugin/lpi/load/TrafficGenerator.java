@@ -0,0 +1,387 @@
+package org.interledger.plugin.lpi.load;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+import org.interledger.ilp.InterledgerPayment;
+import org.interledger.ilp.InterledgerProtocolError;
+import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.ImmutableMessage;
+import org.interledger.plugin.lpi.ImmutableTransfer;
+import org.interledger.plugin.lpi.LedgerPlugin;
+import org.interledger.plugin.lpi.MessageId;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.TransferId;
+import org.interledger.plugin.lpi.metrics.OperationStats;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Drives a configurable mix of traffic through any connected {@link LedgerPlugin}, and reports the
+ * achieved throughput and latency percentiles for each {@link OperationType}.
+ *
+ * Operations are scheduled by a single thread at the rate given by {@link
+ * TrafficProfile#getTargetRate()} (i.e., open-loop), and executed by a pool of worker threads. The
+ * latency of each operation is measured from the time it was scheduled to start, so any time spent
+ * waiting for a free worker is included in the reported numbers. All random choices are made on the
+ * scheduling thread from {@link TrafficProfile#getSeed()}, so the sequence of generated operations
+ * is repeatable.
+ *
+ * Every transfer is sent from the plugin's connector account to an account chosen by {@link
+ * TrafficProfile#getAccountDistribution()}. Fulfill and reject operations act on the oldest
+ * transfer prepared during the same run that has not yet been resolved; if there is none, a
+ * transfer is prepared instead. At most {@link TrafficProfile#getMaxPendingTransfers()} transfers
+ * are held for resolution at once. Any others, and any still held when the run ends, are left to
+ * expire.
+ *
+ * WARNING: This class is meant for load testing only. Never point it at a plugin connected to a
+ * ledger holding real value.
+ */
+public class TrafficGenerator {
+
+  private static final int SCHEDULE_QUEUE_CAPACITY = 1024;
+
+  // Marks an operation that should be timed from when a worker picks it up.
+  private static final long UNPACED = Long.MIN_VALUE;
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final LedgerPlugin ledgerPlugin;
+  private final TrafficProfile trafficProfile;
+  private final Consumer<TransferId> transferExpirer;
+
+  private final OperationType[] operationTypes;
+  private final int[] cumulativeWeights;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param ledgerPlugin   A connected {@link LedgerPlugin} to drive traffic through.
+   * @param trafficProfile A {@link TrafficProfile} describing the traffic to generate.
+   */
+  public TrafficGenerator(final LedgerPlugin ledgerPlugin, final TrafficProfile trafficProfile) {
+    this(ledgerPlugin, trafficProfile, transferId -> {
+      // By default, transfers are left to expire on their own.
+    });
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param ledgerPlugin    A connected {@link LedgerPlugin} to drive traffic through.
+   * @param trafficProfile  A {@link TrafficProfile} describing the traffic to generate.
+   * @param transferExpirer A {@link Consumer} that is called with the identifier of every transfer
+   *                        generated by {@link OperationType#EXPIRE}, for ledgers (such as a
+   *                        simulated ledger) that need to be told when to expire a transfer.
+   */
+  public TrafficGenerator(
+      final LedgerPlugin ledgerPlugin,
+      final TrafficProfile trafficProfile,
+      final Consumer<TransferId> transferExpirer
+  ) {
+    this.ledgerPlugin = Objects.requireNonNull(ledgerPlugin);
+    this.trafficProfile = Objects.requireNonNull(trafficProfile);
+    this.transferExpirer = Objects.requireNonNull(transferExpirer);
+
+    this.operationTypes = trafficProfile.getOperationMix().keySet().toArray(new OperationType[0]);
+    this.cumulativeWeights = new int[operationTypes.length];
+    int total = 0;
+    for (int i = 0; i < operationTypes.length; i++) {
+      total += trafficProfile.getOperationMix().get(operationTypes[i]);
+      cumulativeWeights[i] = total;
+    }
+  }
+
+  /**
+   * Generate all of the operations described by the {@link TrafficProfile}, blocking until every
+   * one of them has completed.
+   *
+   * @return A {@link TrafficReport} describing the run.
+   */
+  public TrafficReport run() {
+    final InterledgerAddress ledgerPrefix = ledgerPlugin.getLedgerInfo().getLedgerPrefix();
+    final RunContext context = new RunContext(
+        ledgerPrefix, ledgerPlugin.getConnectorAccount(),
+        trafficProfile.getAccountDistribution().getAccountCount(),
+        trafficProfile.getMaxPendingTransfers()
+    );
+
+    final BlockingQueue<Operation> scheduled = new ArrayBlockingQueue<>(SCHEDULE_QUEUE_CAPACITY);
+    final ExecutorService workers = Executors.newFixedThreadPool(
+        trafficProfile.getConcurrency(),
+        new ThreadFactoryBuilder().setNameFormat("traffic-generator-%d").setDaemon(true).build()
+    );
+    for (int i = 0; i < trafficProfile.getConcurrency(); i++) {
+      workers.execute(() -> work(scheduled, context));
+    }
+
+    final Random random = new Random(trafficProfile.getSeed());
+    final long intervalNanos = trafficProfile.getTargetRate() > 0
+        ? (long) (TimeUnit.SECONDS.toNanos(1) / trafficProfile.getTargetRate()) : 0;
+    final long startNanos = System.nanoTime();
+
+    try {
+      for (long i = 0; i < trafficProfile.getOperationCount(); i++) {
+        long intendedStartNanos = UNPACED;
+        if (intervalNanos > 0) {
+          intendedStartNanos = startNanos + i * intervalNanos;
+          long remaining;
+          while ((remaining = intendedStartNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+          }
+        }
+
+        final byte[] preimage = new byte[32];
+        random.nextBytes(preimage);
+        scheduled.put(new Operation(
+            nextOperationType(random),
+            trafficProfile.getAccountDistribution().nextAccount(random),
+            trafficProfile.getAmountDistribution().nextAmount(random),
+            preimage,
+            intendedStartNanos
+        ));
+      }
+
+      for (int i = 0; i < trafficProfile.getConcurrency(); i++) {
+        scheduled.put(Operation.STOP);
+      }
+      workers.shutdown();
+      workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      workers.shutdownNow();
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while generating traffic!", e);
+    }
+
+    final Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+    final ImmutableTrafficReport.Builder report = ImmutableTrafficReport.builder()
+        .profile(trafficProfile)
+        .elapsed(elapsed);
+    for (OperationType operationType : OperationType.values()) {
+      final Histogram histogram = context.recorders.get(operationType).getIntervalHistogram();
+      if (histogram.getTotalCount() > 0) {
+        report.putOperationStats(operationType,
+            OperationStats.from(histogram, context.errors.get(operationType).sum()));
+      }
+    }
+    return report.build();
+  }
+
+  private OperationType nextOperationType(final Random random) {
+    final int choice = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (choice < cumulativeWeights[i]) {
+        return operationTypes[i];
+      }
+    }
+    throw new IllegalStateException("Unreachable");
+  }
+
+  private void work(final BlockingQueue<Operation> scheduled, final RunContext context) {
+    try {
+      Operation operation;
+      while ((operation = scheduled.take()) != Operation.STOP) {
+        final long startNanos = operation.intendedStartNanos == UNPACED
+            ? System.nanoTime() : operation.intendedStartNanos;
+        OperationType executed = operation.operationType;
+        try {
+          executed = execute(operation, context);
+        } catch (RuntimeException e) {
+          context.errors.get(executed).increment();
+          if (logger.isDebugEnabled()) {
+            logger.debug("{} operation failed: {}", executed, e.toString());
+          }
+        }
+        context.recorders.get(executed).recordValue(System.nanoTime() - startNanos);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Execute a single operation.
+   *
+   * @return The {@link OperationType} that was actually executed, which will be {@link
+   *     OperationType#PREPARE} if a fulfill or reject was requested but there were no pending
+   *     transfers to act upon.
+   */
+  private OperationType execute(final Operation operation, final RunContext context) {
+    switch (operation.operationType) {
+      case FULFILL: {
+        final PendingTransfer pending = context.pendingTransfers.poll();
+        if (pending == null) {
+          return prepare(operation, context);
+        }
+        ledgerPlugin.fulfillCondition(pending.transferId, pending.fulfillment);
+        return OperationType.FULFILL;
+      }
+      case REJECT: {
+        final PendingTransfer pending = context.pendingTransfers.poll();
+        if (pending == null) {
+          return prepare(operation, context);
+        }
+        ledgerPlugin.rejectIncomingTransfer(pending.transferId, context.rejectionReason);
+        return OperationType.REJECT;
+      }
+      case EXPIRE: {
+        final Transfer transfer = constructTransfer(
+            operation, context, trafficProfile.getExpiringTransferTimeout()
+        );
+        ledgerPlugin.sendTransfer(transfer);
+        transferExpirer.accept(transfer.getTransferId());
+        return OperationType.EXPIRE;
+      }
+      case MESSAGE: {
+        final InterledgerAddress destination = context.accounts[operation.account];
+        ledgerPlugin.sendMessage(ImmutableMessage.builder()
+            .id(MessageId.next())
+            .ledgerPrefix(context.ledgerPrefix)
+            .fromAddress(context.connectorAccount)
+            .toAddress(destination)
+            .interlederPaymentPacket(constructIlpPacket(destination, operation.amount))
+            .build());
+        return OperationType.MESSAGE;
+      }
+      case PREPARE:
+      default: {
+        return prepare(operation, context);
+      }
+    }
+  }
+
+  private OperationType prepare(final Operation operation, final RunContext context) {
+    final Transfer transfer = constructTransfer(
+        operation, context, trafficProfile.getTransferTimeout()
+    );
+    ledgerPlugin.sendTransfer(transfer);
+    // If too many transfers are already pending, leave this one to expire...
+    context.pendingTransfers.offer(new PendingTransfer(
+        transfer.getTransferId(), new PreimageSha256Fulfillment(operation.preimage)
+    ));
+    return OperationType.PREPARE;
+  }
+
+  private Transfer constructTransfer(
+      final Operation operation, final RunContext context, final Duration timeout
+  ) {
+    final InterledgerAddress destination = context.accounts[operation.account];
+    return ImmutableTransfer.builder()
+        .transferId(TransferId.next())
+        .ledgerPrefix(context.ledgerPrefix)
+        .sourceAccount(context.connectorAccount)
+        .destinationAccount(destination)
+        .amount(operation.amount)
+        .executionCondition(new PreimageSha256Fulfillment(operation.preimage).getCondition())
+        .expiresAt(Instant.now().plus(timeout))
+        .interlederPaymentPacket(constructIlpPacket(destination, operation.amount))
+        .build();
+  }
+
+  private InterledgerPayment constructIlpPacket(
+      final InterledgerAddress destination, final BigInteger amount
+  ) {
+    return InterledgerPayment.builder()
+        .destinationAccount(destination)
+        .destinationAmount(amount)
+        .data(new byte[0])
+        .build();
+  }
+
+  /**
+   * State that is shared by the scheduling and worker threads for the duration of a single run.
+   */
+  private static class RunContext {
+
+    private final InterledgerAddress ledgerPrefix;
+    private final InterledgerAddress connectorAccount;
+    private final InterledgerAddress[] accounts;
+    private final InterledgerProtocolError rejectionReason;
+    private final Queue<PendingTransfer> pendingTransfers;
+
+    private final Map<OperationType, Recorder> recorders = new EnumMap<>(OperationType.class);
+    private final Map<OperationType, LongAdder> errors = new EnumMap<>(OperationType.class);
+
+    private RunContext(
+        final InterledgerAddress ledgerPrefix, final InterledgerAddress connectorAccount,
+        final int accountCount, final int maxPendingTransfers
+    ) {
+      this.ledgerPrefix = Objects.requireNonNull(ledgerPrefix);
+      this.connectorAccount = Objects.requireNonNull(connectorAccount);
+      this.accounts = new InterledgerAddress[accountCount];
+      for (int i = 0; i < accountCount; i++) {
+        accounts[i] = ledgerPrefix.with("account" + i);
+      }
+      this.rejectionReason = InterledgerProtocolError.builder()
+          .errorCode(ErrorCode.F99_APPLICATION_ERROR)
+          .triggeredByAddress(connectorAccount)
+          .triggeredAt(Instant.now())
+          .build();
+      this.pendingTransfers = new ArrayBlockingQueue<>(maxPendingTransfers);
+      for (OperationType operationType : OperationType.values()) {
+        recorders.put(operationType, new Recorder(3));
+        errors.put(operationType, new LongAdder());
+      }
+    }
+  }
+
+  /**
+   * A single operation, as chosen by the scheduling thread.
+   */
+  private static class Operation {
+
+    private static final Operation STOP = new Operation(null, 0, null, null, UNPACED);
+
+    private final OperationType operationType;
+    private final int account;
+    private final BigInteger amount;
+    private final byte[] preimage;
+    private final long intendedStartNanos;
+
+    private Operation(
+        final OperationType operationType, final int account, final BigInteger amount,
+        final byte[] preimage, final long intendedStartNanos
+    ) {
+      this.operationType = operationType;
+      this.account = account;
+      this.amount = amount;
+      this.preimage = preimage;
+      this.intendedStartNanos = intendedStartNanos;
+    }
+  }
+
+  /**
+   * A transfer prepared during a run that has not yet been fulfilled or rejected.
+   */
+  private static class PendingTransfer {
+
+    private final TransferId transferId;
+    private final Fulfillment fulfillment;
+
+    private PendingTransfer(final TransferId transferId, final Fulfillment fulfillment) {
+      this.transferId = transferId;
+      this.fulfillment = fulfillment;
+    }
+  }
+}
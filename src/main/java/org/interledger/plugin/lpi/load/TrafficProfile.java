@@ -0,0 +1,122 @@
+package org.interledger.plugin.lpi.load;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import org.immutables.value.Value;
+import org.immutables.value.Value.Default;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Describes the traffic that a {@link TrafficGenerator} should drive through a ledger plugin.
+ */
+@Value.Immutable
+public interface TrafficProfile {
+
+  /**
+   * The relative weight of each {@link OperationType}. An operation type that is absent from this
+   * map is never generated. By default, most traffic prepares and fulfills transfers, with a small
+   * amount of rejections, expirations and messages.
+   */
+  @Default
+  default Map<OperationType, Integer> getOperationMix() {
+    return ImmutableMap.of(
+        OperationType.PREPARE, 40,
+        OperationType.FULFILL, 35,
+        OperationType.REJECT, 10,
+        OperationType.EXPIRE, 5,
+        OperationType.MESSAGE, 10
+    );
+  }
+
+  /**
+   * The distribution used to choose the counterparty account of each operation.
+   */
+  @Default
+  default AccountDistribution getAccountDistribution() {
+    return AccountDistribution.uniform(100);
+  }
+
+  /**
+   * The distribution used to choose the amount of each transfer.
+   */
+  @Default
+  default AmountDistribution getAmountDistribution() {
+    return AmountDistribution.fixed(BigInteger.TEN);
+  }
+
+  /**
+   * The total number of operations to generate.
+   */
+  long getOperationCount();
+
+  /**
+   * The number of operations per second that should be started, independent of how long each
+   * operation takes to complete. A value of zero or less disables pacing, in which case operations
+   * are started as fast as the workers can accept them.
+   */
+  @Default
+  default double getTargetRate() {
+    return 0;
+  }
+
+  /**
+   * The number of worker threads used to execute operations.
+   */
+  @Default
+  default int getConcurrency() {
+    return 1;
+  }
+
+  /**
+   * The seed for all random choices made while generating traffic, so that runs are repeatable.
+   */
+  @Default
+  default long getSeed() {
+    return 0L;
+  }
+
+  /**
+   * How far in the future prepared transfers expire.
+   */
+  @Default
+  default Duration getTransferTimeout() {
+    return Duration.ofSeconds(30);
+  }
+
+  /**
+   * How far in the future transfers generated by {@link OperationType#EXPIRE} expire.
+   */
+  @Default
+  default Duration getExpiringTransferTimeout() {
+    return Duration.ofMillis(1);
+  }
+
+  /**
+   * The maximum number of prepared transfers that are held, during a run, for later fulfill and
+   * reject operations to act on. Transfers prepared while this many are held are left to expire.
+   */
+  @Default
+  default int getMaxPendingTransfers() {
+    return 4096;
+  }
+
+  @Value.Check
+  default void check() {
+    Preconditions.checkArgument(getOperationCount() >= 0, "operationCount must not be negative");
+    Preconditions.checkArgument(getConcurrency() > 0, "concurrency must be positive");
+    Preconditions.checkArgument(
+        getMaxPendingTransfers() > 0, "maxPendingTransfers must be positive"
+    );
+    Preconditions.checkArgument(
+        getOperationMix().values().stream().allMatch(weight -> weight >= 0),
+        "operationMix weights must not be negative"
+    );
+    Preconditions.checkArgument(
+        getOperationMix().values().stream().mapToInt(Integer::intValue).sum() > 0,
+        "operationMix must contain at least one positive weight"
+    );
+  }
+}
@@ -0,0 +1,55 @@
+package org.interledger.plugin.lpi.load;
+
+import org.interledger.plugin.lpi.metrics.OperationStats;
+
+import org.immutables.value.Value;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * The outcome of a {@link TrafficGenerator} run.
+ */
+@Value.Immutable
+public interface TrafficReport {
+
+  /**
+   * The {@link TrafficProfile} that generated this report.
+   */
+  TrafficProfile getProfile();
+
+  /**
+   * The wall-clock time between the first operation being scheduled and the last one completing.
+   */
+  Duration getElapsed();
+
+  /**
+   * Statistics for each {@link OperationType} that was executed at least once.
+   */
+  Map<OperationType, OperationStats> getOperationStats();
+
+  /**
+   * The total number of operations that completed, successfully or not.
+   */
+  @Value.Derived
+  default long getTotalCount() {
+    return getOperationStats().values().stream().mapToLong(OperationStats::getCount).sum();
+  }
+
+  /**
+   * The total number of operations that completed by throwing an exception.
+   */
+  @Value.Derived
+  default long getTotalErrors() {
+    return getOperationStats().values().stream().mapToLong(OperationStats::getErrors).sum();
+  }
+
+  /**
+   * The achieved number of completed operations per second.
+   */
+  @Value.Derived
+  default double getThroughput() {
+    final long elapsedNanos = getElapsed().toNanos();
+    return elapsedNanos == 0 ? 0 : getTotalCount() * 1_000_000_000d / elapsedNanos;
+  }
+}
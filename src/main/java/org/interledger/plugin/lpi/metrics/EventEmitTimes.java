@@ -0,0 +1,60 @@
+package org.interledger.plugin.lpi.metrics;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A fixed-size table of the times that recent events were emitted, keyed by the identity of each
+ * event, so that the time until each is delivered can be measured without allocating. An event
+ * whose slot is taken by a newer event before it is delivered is simply not measured.
+ */
+final class EventEmitTimes {
+
+  /**
+   * Returned by {@link #get(Object)} when the event is not in the table.
+   */
+  static final long NOT_FOUND = Long.MIN_VALUE;
+
+  private static final int STRIPES = 64;
+
+  private final int mask;
+  private final Object[] events;
+  private final long[] emittedNanos;
+  private final Object[] locks;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param capacity The number of events that can be tracked at once, which must be a power of
+   *                 two.
+   */
+  EventEmitTimes(final int capacity) {
+    Preconditions.checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1,
+        "capacity must be a power of two");
+    this.mask = capacity - 1;
+    this.events = new Object[capacity];
+    this.emittedNanos = new long[capacity];
+    this.locks = new Object[Math.min(STRIPES, capacity)];
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new Object();
+    }
+  }
+
+  void put(final Object event, final long nanos) {
+    final int slot = System.identityHashCode(event) & mask;
+    synchronized (locks[slot % locks.length]) {
+      events[slot] = event;
+      emittedNanos[slot] = nanos;
+    }
+  }
+
+  /**
+   * The time that {@code event} was emitted at, or {@link #NOT_FOUND} if it isn't tracked. Events
+   * stay in the table until they are displaced, since each may be delivered to several handlers.
+   */
+  long get(final Object event) {
+    final int slot = System.identityHashCode(event) & mask;
+    synchronized (locks[slot % locks.length]) {
+      return events[slot] == event ? emittedNanos[slot] : NOT_FOUND;
+    }
+  }
+}
@@ -0,0 +1,282 @@
+package org.interledger.plugin.lpi.metrics;
+
+import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.UuidIdentifier;
+
+import com.google.common.base.Preconditions;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, in-memory record of the most recent ledger plugin events, for debugging after an
+ * incident. Each event is encoded as a few primitive fields in a preallocated array, rather than
+ * retaining the event itself, so recording one allocates nothing and costs a counter increment
+ * and a handful of ordered writes. Once the buffer is full, each event overwrites the oldest.
+ *
+ * Any number of threads may record at once, and the buffer may be {@link #dump(Path) dumped}
+ * while they do. An event that is overwritten while it is being dumped is left out of the dump,
+ * rather than written half-updated.
+ *
+ * A dump is a binary file that {@link #read(Path)} decodes; it holds the type and time of each
+ * event, and, where the event has them, the id of its transfer or message, the transfer's amount
+ * and the error code it was rejected or cancelled with.
+ */
+public class EventRingBuffer {
+
+  /**
+   * The default number of events that a buffer holds, which is about 64MB.
+   */
+  public static final int DEFAULT_CAPACITY = 1 << 20;
+
+  private static final int FILE_MAGIC = 0x494c5045;
+  private static final int FILE_VERSION = 1;
+
+  // The layout of each event...
+  private static final int WORDS_PER_EVENT = 8;
+  private static final int SEQUENCE = 0;
+  private static final int EPOCH_MILLIS = 1;
+  private static final int NANO_TIME = 2;
+  private static final int TYPE = 3;
+  private static final int ID_MOST_SIGNIFICANT_BITS = 4;
+  private static final int ID_LEAST_SIGNIFICANT_BITS = 5;
+  private static final int AMOUNT = 6;
+  private static final int ERROR_CODE = 7;
+
+  // Marks a slot that is empty, or being written...
+  private static final long NO_SEQUENCE = -1;
+  private static final long NO_AMOUNT = Long.MIN_VALUE;
+  private static final long NO_ERROR_CODE = -1;
+
+  private static final LedgerPluginEventType[] TYPES = LedgerPluginEventType.values();
+  private static final ErrorCode[] ERROR_CODES = ErrorCode.values();
+
+  private final int mask;
+  private final AtomicLongArray words;
+  private final AtomicLong nextSequence;
+
+  public EventRingBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param capacity The number of events that the buffer holds, which must be a power of two.
+   */
+  public EventRingBuffer(final int capacity) {
+    Preconditions.checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1,
+        "capacity must be a power of two");
+    Preconditions.checkArgument(capacity <= Integer.MAX_VALUE / WORDS_PER_EVENT,
+        "capacity is too large");
+    this.mask = capacity - 1;
+    this.words = new AtomicLongArray(capacity * WORDS_PER_EVENT);
+    for (int i = 0; i < capacity; i++) {
+      words.lazySet(i * WORDS_PER_EVENT + SEQUENCE, NO_SEQUENCE);
+    }
+    this.nextSequence = new AtomicLong();
+  }
+
+  public int getCapacity() {
+    return mask + 1;
+  }
+
+  /**
+   * The number of events recorded since this buffer was created, including those that have since
+   * been overwritten.
+   */
+  public long getRecordedCount() {
+    return nextSequence.get();
+  }
+
+  /**
+   * Record an event.
+   *
+   * @param eventType The {@link LedgerPluginEventType} of the event.
+   * @param id        The id of the event's transfer or message, or {@code null} if it has none.
+   * @param amount    The amount of the event's transfer, or {@code null} if it has none. Amounts
+   *                  too large for a {@code long} are recorded as absent.
+   * @param errorCode The {@link ErrorCode} that the event's transfer was rejected or cancelled
+   *                  with, or {@code null} if it has none.
+   */
+  public void record(
+      final LedgerPluginEventType eventType, final UuidIdentifier id, final BigInteger amount,
+      final ErrorCode errorCode
+  ) {
+    final long sequence = nextSequence.getAndIncrement();
+    final int base = (int) (sequence & mask) * WORDS_PER_EVENT;
+
+    // Each write is ordered after the one before it, so a reader that sees the final sequence
+    // sees every field written with it, and a reader that sees any newer field sees the sequence
+    // change...
+    words.lazySet(base + SEQUENCE, NO_SEQUENCE);
+    words.lazySet(base + EPOCH_MILLIS, System.currentTimeMillis());
+    words.lazySet(base + NANO_TIME, System.nanoTime());
+    words.lazySet(base + TYPE, eventType.ordinal());
+    words.lazySet(base + ID_MOST_SIGNIFICANT_BITS, id == null ? 0 : id.getMostSignificantBits());
+    words.lazySet(base + ID_LEAST_SIGNIFICANT_BITS,
+        id == null ? 0 : id.getLeastSignificantBits());
+    words.lazySet(base + AMOUNT,
+        amount == null || amount.bitLength() >= Long.SIZE ? NO_AMOUNT : amount.longValue());
+    words.lazySet(base + ERROR_CODE, errorCode == null ? NO_ERROR_CODE : errorCode.ordinal());
+    words.lazySet(base + SEQUENCE, sequence);
+  }
+
+  /**
+   * Write the events currently in the buffer to {@code file}, oldest first, replacing the file if
+   * it exists.
+   *
+   * @return The number of events written.
+   */
+  public int dump(final Path file) throws IOException {
+    Objects.requireNonNull(file);
+    final long end = nextSequence.get();
+    final long start = Math.max(0, end - getCapacity());
+    final long[] event = new long[WORDS_PER_EVENT];
+    int count = 0;
+    try (DataOutputStream output = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(file)))) {
+      output.writeInt(FILE_MAGIC);
+      output.writeInt(FILE_VERSION);
+      for (long sequence = start; sequence < end; sequence++) {
+        if (copy(sequence, event)) {
+          for (final long word : event) {
+            output.writeLong(word);
+          }
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Copy the event with the given sequence into {@code event}, unless it is still being written or
+   * has been overwritten.
+   */
+  private boolean copy(final long sequence, final long[] event) {
+    final int base = (int) (sequence & mask) * WORDS_PER_EVENT;
+    if (words.get(base + SEQUENCE) != sequence) {
+      return false;
+    }
+    for (int i = 0; i < WORDS_PER_EVENT; i++) {
+      event[i] = words.get(base + i);
+    }
+    return words.get(base + SEQUENCE) == sequence;
+  }
+
+  /**
+   * Decode a file written by {@link #dump(Path)}.
+   */
+  public static List<Entry> read(final Path file) throws IOException {
+    final List<Entry> entries = new ArrayList<>();
+    try (DataInputStream input = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file)))) {
+      if (input.readInt() != FILE_MAGIC || input.readInt() != FILE_VERSION) {
+        throw new IOException("Not a ledger plugin event dump: " + file);
+      }
+      final long[] event = new long[WORDS_PER_EVENT];
+      while (true) {
+        try {
+          event[0] = input.readLong();
+        } catch (EOFException e) {
+          return entries;
+        }
+        for (int i = 1; i < WORDS_PER_EVENT; i++) {
+          event[i] = input.readLong();
+        }
+        entries.add(new Entry(event));
+      }
+    }
+  }
+
+  /**
+   * A single event, decoded from a dump.
+   */
+  public static final class Entry {
+
+    private final long sequence;
+    private final Instant recordedAt;
+    private final long nanoTime;
+    private final LedgerPluginEventType eventType;
+    private final Optional<UUID> id;
+    private final Optional<BigInteger> amount;
+    private final Optional<ErrorCode> errorCode;
+
+    private Entry(final long[] event) {
+      this.sequence = event[SEQUENCE];
+      this.recordedAt = Instant.ofEpochMilli(event[EPOCH_MILLIS]);
+      this.nanoTime = event[NANO_TIME];
+      this.eventType = TYPES[(int) event[TYPE]];
+      final long mostSignificantBits = event[ID_MOST_SIGNIFICANT_BITS];
+      final long leastSignificantBits = event[ID_LEAST_SIGNIFICANT_BITS];
+      this.id = mostSignificantBits == 0 && leastSignificantBits == 0 ? Optional.empty()
+          : Optional.of(new UUID(mostSignificantBits, leastSignificantBits));
+      this.amount = event[AMOUNT] == NO_AMOUNT ? Optional.empty()
+          : Optional.of(BigInteger.valueOf(event[AMOUNT]));
+      this.errorCode = event[ERROR_CODE] == NO_ERROR_CODE ? Optional.empty()
+          : Optional.of(ERROR_CODES[(int) event[ERROR_CODE]]);
+    }
+
+    /**
+     * The position of this event among all of those recorded by its buffer, starting at zero.
+     */
+    public long getSequence() {
+      return sequence;
+    }
+
+    public Instant getRecordedAt() {
+      return recordedAt;
+    }
+
+    /**
+     * The value of {@link System#nanoTime()} when this event was recorded, for measuring the time
+     * between events more precisely than {@link #getRecordedAt()} allows.
+     */
+    public long getNanoTime() {
+      return nanoTime;
+    }
+
+    public LedgerPluginEventType getEventType() {
+      return eventType;
+    }
+
+    /**
+     * The id of this event's transfer or message, if it has one.
+     */
+    public Optional<UUID> getId() {
+      return id;
+    }
+
+    public Optional<BigInteger> getAmount() {
+      return amount;
+    }
+
+    public Optional<ErrorCode> getErrorCode() {
+      return errorCode;
+    }
+
+    @Override
+    public String toString() {
+      return "Entry{" + sequence + ", " + recordedAt + ", " + eventType
+          + id.map(value -> ", id=" + value).orElse("")
+          + amount.map(value -> ", amount=" + value).orElse("")
+          + errorCode.map(value -> ", errorCode=" + value).orElse("") + "}";
+    }
+  }
+}
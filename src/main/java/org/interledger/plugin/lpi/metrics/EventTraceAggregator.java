@@ -0,0 +1,98 @@
+package org.interledger.plugin.lpi.metrics;
+
+import org.interledger.plugin.lpi.events.EventTrace;
+import org.interledger.plugin.lpi.events.EventTrace.Stage;
+import org.interledger.plugin.lpi.events.EventTraceSink;
+import org.interledger.plugin.lpi.events.LedgerPluginEvent;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * An {@link EventTraceSink} that breaks the time each traced event spent in the pipeline down by
+ * {@link Stage}, so that a slow event can be attributed to the ledger, the emitter's queue or the
+ * handlers.
+ *
+ * Each stage is timed from the previous stage that the event's trace marked, so a stage that an
+ * emitter doesn't mark, such as {@link Stage#DEQUEUE} on a synchronous emitter, is folded into the
+ * next one. Like {@link LedgerPluginMetrics}, recording only updates HdrHistogram {@link
+ * Recorder}s, and every snapshot reports everything recorded since this instance was created or
+ * last {@link #reset()}.
+ */
+public class EventTraceAggregator implements EventTraceSink {
+
+  private static final Stage[] STAGES = Stage.values();
+
+  private final Recorder[] stages;
+  private final Recorder total;
+
+  // Accumulate the recorders' intervals, so that every snapshot is cumulative...
+  private final Histogram[] stageTotals;
+  private final Histogram totalTotal;
+
+  public EventTraceAggregator() {
+    this.stages = new Recorder[STAGES.length];
+    this.stageTotals = new Histogram[STAGES.length];
+    for (int i = 0; i < STAGES.length; i++) {
+      stages[i] = new Recorder(3);
+      stageTotals[i] = new Histogram(3);
+    }
+    this.total = new Recorder(3);
+    this.totalTotal = new Histogram(3);
+  }
+
+  @Override
+  public void record(final LedgerPluginEvent event, final EventTrace trace) {
+    long firstNanos = Long.MIN_VALUE;
+    long previousNanos = Long.MIN_VALUE;
+    for (final Stage stage : STAGES) {
+      if (trace.isMarked(stage)) {
+        final long nanos = trace.getNanos(stage);
+        if (previousNanos == Long.MIN_VALUE) {
+          firstNanos = nanos;
+        } else {
+          stages[stage.ordinal()].recordValue(Math.max(0, nanos - previousNanos));
+        }
+        previousNanos = nanos;
+      }
+    }
+    if (previousNanos != Long.MIN_VALUE) {
+      total.recordValue(Math.max(0, previousNanos - firstNanos));
+    }
+  }
+
+  /**
+   * Summarize everything recorded so far.
+   */
+  public synchronized EventTraceSnapshot snapshot() {
+    final Map<Stage, OperationStats> stageStats = new EnumMap<>(Stage.class);
+    for (final Stage stage : STAGES) {
+      final Histogram histogram = stageTotals[stage.ordinal()];
+      histogram.add(stages[stage.ordinal()].getIntervalHistogram());
+      if (histogram.getTotalCount() > 0) {
+        stageStats.put(stage, OperationStats.from(histogram, 0));
+      }
+    }
+    totalTotal.add(total.getIntervalHistogram());
+
+    return ImmutableEventTraceSnapshot.builder()
+        .stages(stageStats)
+        .total(OperationStats.from(totalTotal, 0))
+        .build();
+  }
+
+  /**
+   * Discard everything recorded so far.
+   */
+  public synchronized void reset() {
+    for (int i = 0; i < STAGES.length; i++) {
+      stages[i].reset();
+      stageTotals[i].reset();
+    }
+    total.reset();
+    totalTotal.reset();
+  }
+}
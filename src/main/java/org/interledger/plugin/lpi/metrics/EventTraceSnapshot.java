@@ -0,0 +1,26 @@
+package org.interledger.plugin.lpi.metrics;
+
+import org.interledger.plugin.lpi.events.EventTrace.Stage;
+
+import org.immutables.value.Value;
+
+import java.util.Map;
+
+/**
+ * A point-in-time summary of an {@link EventTraceAggregator}. All latencies are in nanoseconds.
+ */
+@Value.Immutable
+public interface EventTraceSnapshot {
+
+  /**
+   * The time traced events took to reach each stage from the stage before it. A stage that no trace
+   * marked after another is absent, and {@link Stage#LEDGER_RECEIPT} is always absent, since it
+   * starts every trace.
+   */
+  Map<Stage, OperationStats> getStages();
+
+  /**
+   * The time traced events took from the first stage they marked to the last.
+   */
+  OperationStats getTotal();
+}
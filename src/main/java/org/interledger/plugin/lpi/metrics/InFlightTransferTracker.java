@@ -0,0 +1,415 @@
+package org.interledger.plugin.lpi.metrics;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.TransferId;
+import org.interledger.plugin.lpi.events.IncomingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferRejectedEvent;
+import org.interledger.plugin.lpi.events.LedgerInfoChangedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginConnectedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginDisconnectedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginErrorEvent;
+import org.interledger.plugin.lpi.events.OutgoingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferRejectedEvent;
+import org.interledger.plugin.lpi.handlers.LedgerPluginEventHandler;
+
+import com.google.common.base.Preconditions;
+import org.HdrHistogram.Histogram;
+
+import java.math.BigInteger;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the transfers that have been prepared but not yet fulfilled, rejected or cancelled, and
+ * the value held in them. Add it to one or more plugins with {@link
+ * org.interledger.plugin.lpi.LedgerPlugin#addLedgerPluginEventHandler(LedgerPluginEventHandler)};
+ * only transfers prepared after it was added are tracked.
+ *
+ * Exposure is kept separately for incoming and outgoing transfers, in total, per counterparty
+ * (the destination of an outgoing transfer, or the source of an incoming one) and per ledger.
+ * Preparing or resolving a transfer updates each of them in constant time. Every getter can be
+ * called while transfers are being prepared and resolved, and none of them block the handler,
+ * but the totals are updated one after another, so a reader may see a transfer counted in one and
+ * not yet in another.
+ *
+ * A ledger resolves every transfer by the time it expires, but a plugin may fail to report it, for
+ * example if it was disconnected at the time. So that such transfers aren't held forever, a
+ * transfer that is still pending once it has been expired for longer than a grace period is
+ * evicted, as though it had been rejected, and counted by {@link #getEvictedCount()}. Expired
+ * transfers are looked for at most once per grace period, as transfers are prepared and resolved,
+ * so each is evicted within two grace periods of expiring.
+ */
+public class InFlightTransferTracker implements LedgerPluginEventHandler {
+
+  /**
+   * How long after a transfer expires it is evicted, if it is still pending, by default.
+   */
+  public static final Duration DEFAULT_EXPIRY_GRACE = Duration.ofSeconds(30);
+
+  private final Clock clock;
+  private final Duration expiryGrace;
+  private final Map<TransferId, PendingTransfer> pendingTransfers;
+  // The pending transfers in the order they were prepared. Resolved transfers are cleaned from the
+  // head as they're resolved, and from anywhere in the queue when expired transfers are evicted,
+  // so this only holds those prepared since the oldest transfer that hasn't yet been evicted...
+  private final ConcurrentLinkedQueue<PendingTransfer> preparedOrder;
+  private final AtomicBoolean cleaning;
+  private final LongAdder evicted;
+  // Only read and written while cleaning...
+  private Instant nextEviction;
+  private final Exposure incoming;
+  private final Exposure outgoing;
+
+  public InFlightTransferTracker() {
+    this(Clock.systemUTC());
+  }
+
+  public InFlightTransferTracker(final Clock clock) {
+    this(clock, DEFAULT_EXPIRY_GRACE);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param clock       The {@link Clock} used to timestamp prepared transfers and measure the time
+   *                    until they expire.
+   * @param expiryGrace How long after a transfer expires to wait for it to be resolved, before it
+   *                    is evicted.
+   */
+  public InFlightTransferTracker(final Clock clock, final Duration expiryGrace) {
+    this.clock = Objects.requireNonNull(clock);
+    this.expiryGrace = Objects.requireNonNull(expiryGrace);
+    Preconditions.checkArgument(!expiryGrace.isNegative(), "expiryGrace must not be negative");
+    this.pendingTransfers = new ConcurrentHashMap<>();
+    this.preparedOrder = new ConcurrentLinkedQueue<>();
+    this.cleaning = new AtomicBoolean();
+    this.evicted = new LongAdder();
+    this.nextEviction = Instant.MIN;
+    this.incoming = new Exposure();
+    this.outgoing = new Exposure();
+  }
+
+  /**
+   * The number of transfers that have been prepared but not yet resolved.
+   */
+  public int getPendingCount() {
+    return pendingTransfers.size();
+  }
+
+  /**
+   * The number of transfers that were evicted because they were still pending well after they
+   * expired.
+   */
+  public long getEvictedCount() {
+    return evicted.sum();
+  }
+
+  /**
+   * The pending transfer with the given id, if there is one.
+   */
+  public Optional<PendingTransfer> getPendingTransfer(final TransferId transferId) {
+    return Optional.ofNullable(pendingTransfers.get(Objects.requireNonNull(transferId)));
+  }
+
+  /**
+   * The total amount held in pending transfers in the given direction.
+   */
+  public BigInteger getTotalExposure(final Direction direction) {
+    return exposure(direction).total.get();
+  }
+
+  /**
+   * The amount held in pending transfers in the given direction, for each counterparty with at
+   * least one. The returned map is a read-only view that changes as transfers are prepared and
+   * resolved.
+   */
+  public Map<InterledgerAddress, BigInteger> getExposureByCounterparty(final Direction direction) {
+    return Collections.unmodifiableMap(exposure(direction).byCounterparty);
+  }
+
+  /**
+   * The amount held in pending transfers in the given direction, for each ledger with at least
+   * one. The returned map is a read-only view that changes as transfers are prepared and resolved.
+   */
+  public Map<InterledgerAddress, BigInteger> getExposureByLedger(final Direction direction) {
+    return Collections.unmodifiableMap(exposure(direction).byLedger);
+  }
+
+  /**
+   * The pending transfer that was prepared the longest time ago, if there are any.
+   */
+  public Optional<PendingTransfer> getOldestPendingTransfer() {
+    for (final PendingTransfer pendingTransfer : preparedOrder) {
+      if (!pendingTransfer.resolved) {
+        return Optional.of(pendingTransfer);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Build a histogram of the time, in milliseconds, until each pending transfer expires. Transfers
+   * that have already expired, but that the ledger hasn't yet rejected, are recorded as zero.
+   */
+  public Histogram getTimeToExpiry() {
+    final Histogram histogram = new Histogram(3);
+    final Instant now = clock.instant();
+    for (final PendingTransfer pendingTransfer : pendingTransfers.values()) {
+      final Duration timeToExpiry =
+          Duration.between(now, pendingTransfer.getTransfer().getExpiresAt());
+      histogram.recordValue(timeToExpiry.isNegative() ? 0 : timeToExpiry.toMillis());
+    }
+    return histogram;
+  }
+
+  @Override
+  public void onTransferPrepared(final OutgoingTransferPreparedEvent event) {
+    prepared(Direction.OUTGOING, event.getTransfer());
+  }
+
+  @Override
+  public void onTransferFulfilled(final OutgoingTransferFulfilledEvent event) {
+    resolved(event.getTransfer());
+  }
+
+  @Override
+  public void onTransferCancelled(final OutgoingTransferCancelledEvent event) {
+    resolved(event.getTransfer());
+  }
+
+  @Override
+  public void onTransferRejected(final OutgoingTransferRejectedEvent event) {
+    resolved(event.getTransfer());
+  }
+
+  @Override
+  public void onTransferPrepared(final IncomingTransferPreparedEvent event) {
+    prepared(Direction.INCOMING, event.getTransfer());
+  }
+
+  @Override
+  public void onTransferFulfilled(final IncomingTransferFulfilledEvent event) {
+    resolved(event.getTransfer());
+  }
+
+  @Override
+  public void onTransferCancelled(final IncomingTransferCancelledEvent event) {
+    resolved(event.getTransfer());
+  }
+
+  @Override
+  public void onTransferRejected(final IncomingTransferRejectedEvent event) {
+    resolved(event.getTransfer());
+  }
+
+  @Override
+  public void onMessageRequest(final OutgoingMessgeRequestEvent event) {
+    // Messages don't hold any value...
+  }
+
+  @Override
+  public void onMessageRequest(final IncomingMessgeRequestEvent event) {
+    // Messages don't hold any value...
+  }
+
+  @Override
+  public void onConnect(final LedgerPluginConnectedEvent event) {
+    // Pending transfers stay pending while the plugin is disconnected...
+  }
+
+  @Override
+  public void onDisconnect(final LedgerPluginDisconnectedEvent event) {
+    // Pending transfers stay pending while the plugin is disconnected...
+  }
+
+  @Override
+  public void onError(final LedgerPluginErrorEvent event) {
+
+  }
+
+  @Override
+  public void onLedgerInfoChanged(final LedgerInfoChangedEvent event) {
+
+  }
+
+  private void prepared(final Direction direction, final Transfer transfer) {
+    final PendingTransfer pendingTransfer =
+        new PendingTransfer(transfer, direction, clock.instant());
+    // A ledger may notify a plugin of the same transfer more than once...
+    if (pendingTransfers.putIfAbsent(transfer.getTransferId(), pendingTransfer) == null) {
+      exposure(direction).add(pendingTransfer);
+      preparedOrder.add(pendingTransfer);
+    }
+    clean();
+  }
+
+  private void resolved(final Transfer transfer) {
+    final PendingTransfer pendingTransfer = pendingTransfers.remove(transfer.getTransferId());
+    if (pendingTransfer == null) {
+      // Prepared before this tracker was added, or already resolved...
+      return;
+    }
+    pendingTransfer.resolved = true;
+    exposure(pendingTransfer.getDirection()).subtract(pendingTransfer);
+    clean();
+  }
+
+  /**
+   * Drop resolved transfers from the head of {@link #preparedOrder}, so that finding the oldest
+   * pending transfer only has to skip over those resolved since, and at most once per grace period
+   * evict every expired transfer. Only one thread cleans at a time, and any other just leaves it to
+   * that one, so no thread ever waits.
+   */
+  private void clean() {
+    if (cleaning.compareAndSet(false, true)) {
+      try {
+        final Instant now = clock.instant();
+        if (!now.isBefore(nextEviction)) {
+          nextEviction = now.plus(expiryGrace);
+          pendingTransfers.values().forEach(
+              pendingTransfer -> evictIfExpired(pendingTransfer, now)
+          );
+          preparedOrder.removeIf(pendingTransfer -> pendingTransfer.resolved);
+        }
+
+        PendingTransfer head;
+        while ((head = preparedOrder.peek()) != null
+            && (head.resolved || evictIfExpired(head, now))) {
+          preparedOrder.poll();
+        }
+      } finally {
+        cleaning.set(false);
+      }
+    }
+  }
+
+  /**
+   * Evict {@code pendingTransfer} if it expired more than the grace period before {@code now}.
+   *
+   * @return {@code true} if the transfer is no longer pending.
+   */
+  private boolean evictIfExpired(final PendingTransfer pendingTransfer, final Instant now) {
+    if (!now.isAfter(pendingTransfer.getTransfer().getExpiresAt().plus(expiryGrace))) {
+      return false;
+    }
+    // Unless it was resolved in the meantime...
+    if (pendingTransfers.remove(pendingTransfer.getTransfer().getTransferId(), pendingTransfer)) {
+      pendingTransfer.resolved = true;
+      exposure(pendingTransfer.getDirection()).subtract(pendingTransfer);
+      evicted.increment();
+    }
+    return true;
+  }
+
+  private Exposure exposure(final Direction direction) {
+    return Objects.requireNonNull(direction) == Direction.INCOMING ? incoming : outgoing;
+  }
+
+  /**
+   * Whether the connector account is the destination or the source of a transfer.
+   */
+  public enum Direction {
+    INCOMING,
+    OUTGOING
+  }
+
+  /**
+   * A transfer that has been prepared but not yet resolved.
+   */
+  public static final class PendingTransfer {
+
+    private final Transfer transfer;
+    private final Direction direction;
+    private final Instant preparedAt;
+
+    private volatile boolean resolved;
+
+    private PendingTransfer(
+        final Transfer transfer, final Direction direction, final Instant preparedAt
+    ) {
+      this.transfer = transfer;
+      this.direction = direction;
+      this.preparedAt = preparedAt;
+    }
+
+    public Transfer getTransfer() {
+      return transfer;
+    }
+
+    public Direction getDirection() {
+      return direction;
+    }
+
+    /**
+     * The time that the tracker was notified that the transfer was prepared.
+     */
+    public Instant getPreparedAt() {
+      return preparedAt;
+    }
+
+    /**
+     * The account on the other side of the transfer from the connector.
+     */
+    public InterledgerAddress getCounterparty() {
+      return direction == Direction.INCOMING ? transfer.getSourceAccount()
+          : transfer.getDestinationAccount();
+    }
+
+    @Override
+    public String toString() {
+      return "PendingTransfer{" + direction + ", " + transfer.getTransferId() + ", "
+          + transfer.getAmount() + ", preparedAt=" + preparedAt + "}";
+    }
+  }
+
+  /**
+   * The amount held in pending transfers in one direction.
+   */
+  private static final class Exposure {
+
+    private final AtomicReference<BigInteger> total = new AtomicReference<>(BigInteger.ZERO);
+    private final Map<InterledgerAddress, BigInteger> byCounterparty = new ConcurrentHashMap<>();
+    private final Map<InterledgerAddress, BigInteger> byLedger = new ConcurrentHashMap<>();
+
+    private void add(final PendingTransfer pendingTransfer) {
+      update(pendingTransfer, pendingTransfer.getTransfer().getAmount());
+    }
+
+    private void subtract(final PendingTransfer pendingTransfer) {
+      update(pendingTransfer, pendingTransfer.getTransfer().getAmount().negate());
+    }
+
+    private void update(final PendingTransfer pendingTransfer, final BigInteger delta) {
+      total.accumulateAndGet(delta, BigInteger::add);
+      // A transfer resolved while it's still being prepared is briefly held as a negative amount,
+      // which the prepare then brings back to zero...
+      byCounterparty.merge(pendingTransfer.getCounterparty(), delta, Exposure::sum);
+      byLedger.merge(pendingTransfer.getTransfer().getLedgerPrefix(), delta, Exposure::sum);
+    }
+
+    /**
+     * Add two amounts, removing the entry once nothing is held in it.
+     */
+    private static BigInteger sum(final BigInteger held, final BigInteger delta) {
+      final BigInteger sum = held.add(delta);
+      return sum.signum() == 0 ? null : sum;
+    }
+  }
+}
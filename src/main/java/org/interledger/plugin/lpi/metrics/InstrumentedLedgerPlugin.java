@@ -0,0 +1,345 @@
+package org.interledger.plugin.lpi.metrics;
+
+import org.interledger.plugin.lpi.ForwardingLedgerPlugin;
+import org.interledger.plugin.lpi.LedgerPlugin;
+import org.interledger.plugin.lpi.LedgerPluginEventEmitter;
+import org.interledger.plugin.lpi.LedgerResult;
+import org.interledger.plugin.lpi.events.EventTrace;
+import org.interledger.plugin.lpi.events.EventTrace.Stage;
+import org.interledger.plugin.lpi.events.IncomingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferRejectedEvent;
+import org.interledger.plugin.lpi.events.LedgerInfoChangedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginConnectedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginDisconnectedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginErrorEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginEvent;
+import org.interledger.plugin.lpi.events.OutgoingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferRejectedEvent;
+import org.interledger.plugin.lpi.handlers.ForwardingLedgerPluginEventHandler;
+import org.interledger.plugin.lpi.handlers.LedgerPluginEventHandler;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A {@link LedgerPlugin} that records {@link LedgerPluginMetrics} for any other implementation,
+ * including those that don't extend {@code AbstractLedgerPlugin}.
+ *
+ * Every call to the wrapped plugin is timed, and every exception it throws is counted by type.
+ * Every handler added through this plugin is wrapped so that it is timed too. This plugin also
+ * adds a handler of its own to the wrapped plugin, which counts every event that the wrapped plugin
+ * delivers to its handlers and times the lifecycle of each transfer.
+ *
+ * The time from when each event is emitted until it reaches each handler, including any time it
+ * spends queued by an asynchronous emitter, is measured for events emitted through {@link
+ * #getLedgerPluginEventEmitter()}, and for events whose {@link
+ * org.interledger.plugin.lpi.events.EventTrace} has {@link Stage#EMIT} marked. It isn't available
+ * for untraced events that the wrapped plugin emits to its own emitter directly.
+ *
+ * Recording a call adds two reads of {@link System#nanoTime()} and a few uncontended counter
+ * updates, and doesn't allocate.
+ */
+public class InstrumentedLedgerPlugin extends ForwardingLedgerPlugin<Void> {
+
+  private static final int EVENT_CAPACITY = 1024;
+
+  private final LedgerPluginMetrics metrics;
+  private final EventEmitTimes eventEmitTimes;
+
+  private volatile InstrumentedLedgerPluginEventEmitter emitter;
+
+  public InstrumentedLedgerPlugin(final LedgerPlugin delegate) {
+    this(delegate, new LedgerPluginMetrics());
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param delegate The {@link LedgerPlugin} to instrument.
+   * @param metrics  The {@link LedgerPluginMetrics} to record into.
+   */
+  public InstrumentedLedgerPlugin(
+      final LedgerPlugin delegate, final LedgerPluginMetrics metrics
+  ) {
+    super(delegate);
+    this.metrics = Objects.requireNonNull(metrics);
+    this.eventEmitTimes = new EventEmitTimes(EVENT_CAPACITY);
+    delegate.addLedgerPluginEventHandler(new EventRecorder());
+  }
+
+  public LedgerPluginMetrics getMetrics() {
+    return metrics;
+  }
+
+  @Override
+  protected Void beforeCall(final LedgerPluginOperation operation, final Object argument) {
+    return null;
+  }
+
+  @Override
+  protected void afterCall(
+      final LedgerPluginOperation operation, final Object argument, final Void context,
+      final long startNanos, final LedgerResult result, final Throwable thrown
+  ) {
+    if (thrown != null) {
+      metrics.recordException(thrown);
+    }
+    metrics.recordOperation(operation, startNanos,
+        thrown != null || (result != null && !result.isAccepted()));
+  }
+
+  @Override
+  public UUID addLedgerPluginEventHandler(final LedgerPluginEventHandler eventHandler) {
+    final InstrumentedLedgerPluginEventHandler instrumentedHandler =
+        new InstrumentedLedgerPluginEventHandler(Objects.requireNonNull(eventHandler));
+    final UUID handlerId = getDelegate().addLedgerPluginEventHandler(instrumentedHandler);
+    metrics.addHandler(handlerId);
+    instrumentedHandler.handlerId = handlerId;
+    return handlerId;
+  }
+
+  @Override
+  public void removeLedgerPluginEventHandler(final UUID eventHandlerId) {
+    getDelegate().removeLedgerPluginEventHandler(eventHandlerId);
+    metrics.removeHandler(eventHandlerId);
+  }
+
+  @Override
+  public LedgerPluginEventEmitter getLedgerPluginEventEmitter() {
+    final LedgerPluginEventEmitter delegateEmitter = getDelegate().getLedgerPluginEventEmitter();
+    InstrumentedLedgerPluginEventEmitter emitter = this.emitter;
+    if (emitter == null || emitter.delegate != delegateEmitter) {
+      emitter = new InstrumentedLedgerPluginEventEmitter(delegateEmitter);
+      this.emitter = emitter;
+    }
+    return emitter;
+  }
+
+  /**
+   * Notes the time that each event was emitted, before passing it on.
+   */
+  private final class InstrumentedLedgerPluginEventEmitter implements LedgerPluginEventEmitter {
+
+    private final LedgerPluginEventEmitter delegate;
+
+    private InstrumentedLedgerPluginEventEmitter(final LedgerPluginEventEmitter delegate) {
+      this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    @Override
+    public void emitEvent(final LedgerPluginConnectedEvent event) {
+      eventEmitTimes.put(event, System.nanoTime());
+      delegate.emitEvent(event);
+    }
+
+    @Override
+    public void emitEvent(final LedgerPluginDisconnectedEvent event) {
+      eventEmitTimes.put(event, System.nanoTime());
+      delegate.emitEvent(event);
+    }
+
+    @Override
+    public void emitEvent(final LedgerPluginErrorEvent event) {
+      eventEmitTimes.put(event, System.nanoTime());
+      delegate.emitEvent(event);
+    }
+
+    @Override
+    public void emitEvent(final OutgoingTransferPreparedEvent event) {
+      eventEmitTimes.put(event, System.nanoTime());
+      delegate.emitEvent(event);
+    }
+
+    @Override
+    public void emitEvent(final OutgoingTransferFulfilledEvent event) {
+      eventEmitTimes.put(event, System.nanoTime());
+      delegate.emitEvent(event);
+    }
+
+    @Override
+    public void emitEvent(final OutgoingTransferRejectedEvent event) {
+      eventEmitTimes.put(event, System.nanoTime());
+      delegate.emitEvent(event);
+    }
+
+    @Override
+    public void emitEvent(final OutgoingTransferCancelledEvent event) {
+      eventEmitTimes.put(event, System.nanoTime());
+      delegate.emitEvent(event);
+    }
+
+    @Override
+    public void emitEvent(final OutgoingMessgeRequestEvent event) {
+      eventEmitTimes.put(event, System.nanoTime());
+      delegate.emitEvent(event);
+    }
+
+    @Override
+    public void emitEvent(final IncomingTransferPreparedEvent event) {
+      eventEmitTimes.put(event, System.nanoTime());
+      delegate.emitEvent(event);
+    }
+
+    @Override
+    public void emitEvent(final IncomingTransferFulfilledEvent event) {
+      eventEmitTimes.put(event, System.nanoTime());
+      delegate.emitEvent(event);
+    }
+
+    @Override
+    public void emitEvent(final IncomingTransferRejectedEvent event) {
+      eventEmitTimes.put(event, System.nanoTime());
+      delegate.emitEvent(event);
+    }
+
+    @Override
+    public void emitEvent(final IncomingTransferCancelledEvent event) {
+      eventEmitTimes.put(event, System.nanoTime());
+      delegate.emitEvent(event);
+    }
+
+    @Override
+    public void emitEvent(final IncomingMessgeRequestEvent event) {
+      eventEmitTimes.put(event, System.nanoTime());
+      delegate.emitEvent(event);
+    }
+  }
+
+  /**
+   * Times each call to a handler, and how long each event took to reach it.
+   */
+  private final class InstrumentedLedgerPluginEventHandler
+      extends ForwardingLedgerPluginEventHandler<Void> {
+
+    // Assigned as soon as the wrapped plugin has registered this handler...
+    private volatile UUID handlerId;
+
+    private InstrumentedLedgerPluginEventHandler(final LedgerPluginEventHandler handler) {
+      super(handler);
+    }
+
+    /**
+     * Record how long {@code event} took to arrive, if it was emitted through this plugin or its
+     * trace records when it was emitted.
+     */
+    @Override
+    protected Void beforeEvent(
+        final LedgerPluginEventType eventType, final LedgerPluginEvent event
+    ) {
+      long emittedNanos = eventEmitTimes.get(event);
+      if (emittedNanos == EventEmitTimes.NOT_FOUND) {
+        final Optional<EventTrace> trace = event.getTrace();
+        if (trace.isPresent() && trace.get().isMarked(Stage.EMIT)) {
+          emittedNanos = trace.get().getNanos(Stage.EMIT);
+        }
+      }
+      if (emittedNanos != EventEmitTimes.NOT_FOUND) {
+        metrics.recordEventDelivery(emittedNanos);
+      }
+      return null;
+    }
+
+    @Override
+    protected void afterEvent(
+        final LedgerPluginEventType eventType, final LedgerPluginEvent event, final Void context,
+        final long startNanos, final boolean failed
+    ) {
+      final UUID handlerId = this.handlerId;
+      if (handlerId != null) {
+        metrics.recordHandler(handlerId, startNanos, failed);
+      }
+    }
+  }
+
+  /**
+   * Counts every event that the wrapped plugin delivers to its handlers, and times the lifecycle of
+   * each transfer, whichever emitter the event was emitted through.
+   */
+  private final class EventRecorder implements LedgerPluginEventHandler {
+
+    @Override
+    public void onConnect(final LedgerPluginConnectedEvent event) {
+      metrics.recordEvent(LedgerPluginEventType.CONNECTED);
+    }
+
+    @Override
+    public void onDisconnect(final LedgerPluginDisconnectedEvent event) {
+      metrics.recordEvent(LedgerPluginEventType.DISCONNECTED);
+    }
+
+    @Override
+    public void onError(final LedgerPluginErrorEvent event) {
+      metrics.recordEvent(LedgerPluginEventType.ERROR);
+    }
+
+    @Override
+    public void onLedgerInfoChanged(final LedgerInfoChangedEvent event) {
+      // Not one of the events that a LedgerPluginEventEmitter emits...
+    }
+
+    @Override
+    public void onTransferPrepared(final OutgoingTransferPreparedEvent event) {
+      metrics.recordEvent(LedgerPluginEventType.OUTGOING_TRANSFER_PREPARED);
+      metrics.transferPrepared(event.getTransfer().getTransferId());
+    }
+
+    @Override
+    public void onTransferFulfilled(final OutgoingTransferFulfilledEvent event) {
+      metrics.recordEvent(LedgerPluginEventType.OUTGOING_TRANSFER_FULFILLED);
+      metrics.transferExecuted(event.getTransfer().getTransferId());
+    }
+
+    @Override
+    public void onTransferCancelled(final OutgoingTransferCancelledEvent event) {
+      metrics.recordEvent(LedgerPluginEventType.OUTGOING_TRANSFER_CANCELLED);
+      metrics.transferRejected(event.getTransfer().getTransferId());
+    }
+
+    @Override
+    public void onTransferRejected(final OutgoingTransferRejectedEvent event) {
+      metrics.recordEvent(LedgerPluginEventType.OUTGOING_TRANSFER_REJECTED);
+      metrics.transferRejected(event.getTransfer().getTransferId());
+    }
+
+    @Override
+    public void onMessageRequest(final OutgoingMessgeRequestEvent event) {
+      metrics.recordEvent(LedgerPluginEventType.OUTGOING_MESSAGE_REQUEST);
+    }
+
+    @Override
+    public void onTransferPrepared(final IncomingTransferPreparedEvent event) {
+      metrics.recordEvent(LedgerPluginEventType.INCOMING_TRANSFER_PREPARED);
+      metrics.transferPrepared(event.getTransfer().getTransferId());
+    }
+
+    @Override
+    public void onTransferFulfilled(final IncomingTransferFulfilledEvent event) {
+      metrics.recordEvent(LedgerPluginEventType.INCOMING_TRANSFER_FULFILLED);
+      metrics.transferExecuted(event.getTransfer().getTransferId());
+    }
+
+    @Override
+    public void onTransferCancelled(final IncomingTransferCancelledEvent event) {
+      metrics.recordEvent(LedgerPluginEventType.INCOMING_TRANSFER_CANCELLED);
+      metrics.transferRejected(event.getTransfer().getTransferId());
+    }
+
+    @Override
+    public void onTransferRejected(final IncomingTransferRejectedEvent event) {
+      metrics.recordEvent(LedgerPluginEventType.INCOMING_TRANSFER_REJECTED);
+      metrics.transferRejected(event.getTransfer().getTransferId());
+    }
+
+    @Override
+    public void onMessageRequest(final IncomingMessgeRequestEvent event) {
+      metrics.recordEvent(LedgerPluginEventType.INCOMING_MESSAGE_REQUEST);
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package org.interledger.plugin.lpi.metrics;
+
+import org.interledger.plugin.lpi.LedgerPluginEventEmitter;
+
+/**
+ * The types of event that a {@link LedgerPluginEventEmitter} emits, one for each of its {@code
+ * emitEvent} methods.
+ */
+public enum LedgerPluginEventType {
+
+  CONNECTED,
+
+  DISCONNECTED,
+
+  ERROR,
+
+  OUTGOING_TRANSFER_PREPARED,
+
+  OUTGOING_TRANSFER_FULFILLED,
+
+  OUTGOING_TRANSFER_REJECTED,
+
+  OUTGOING_TRANSFER_CANCELLED,
+
+  OUTGOING_MESSAGE_REQUEST,
+
+  INCOMING_TRANSFER_PREPARED,
+
+  INCOMING_TRANSFER_FULFILLED,
+
+  INCOMING_TRANSFER_REJECTED,
+
+  INCOMING_TRANSFER_CANCELLED,
+
+  INCOMING_MESSAGE_REQUEST
+}
@@ -0,0 +1,65 @@
+package org.interledger.plugin.lpi.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX management interface of a single ledger plugin, registered by {@link
+ * LedgerPluginManagement}. Attributes are read live from the plugin and its {@link
+ * LedgerPluginMetrics}, and writable attributes take effect immediately.
+ *
+ * Events and transfer lifecycles are recorded by the plugin's event emitter. The default
+ * synchronous emitter and {@link org.interledger.plugin.lpi.QueuedMockLedgerPlugin}'s asynchronous
+ * one both record them, but an emitter given to a plugin without its metrics can't, and the event
+ * and in-flight transfer counts of such a plugin stay at zero.
+ */
+public interface LedgerPluginMXBean {
+
+  /**
+   * The prefix of the ledger that the plugin is attached to.
+   */
+  String getLedgerPrefix();
+
+  boolean isConnected();
+
+  /**
+   * The number of event handlers currently added to the plugin.
+   */
+  int getHandlerCount();
+
+  /**
+   * The number of events of each type that the plugin has emitted, keyed by type.
+   */
+  Map<String, Long> getEventCounts();
+
+  /**
+   * The total number of events that the plugin has emitted.
+   */
+  long getEventCount();
+
+  /**
+   * The number of events emitted per second since this attribute was last read, or since the bean
+   * was created.
+   */
+  double getEventRate();
+
+  /**
+   * The number of transfers that have been prepared but not yet executed or rejected, as estimated
+   * by {@link LedgerPluginMetrics#getPreparedTransferCount()}.
+   */
+  long getInFlightTransferCount();
+
+  /**
+   * The fraction of events, between 0 and 1, that carry an {@link
+   * org.interledger.plugin.lpi.events.EventTrace}, as last set through this bean. This is zero
+   * until it is set, which matches the plugin's default of tracing nothing.
+   */
+  double getEventTraceSampleRate();
+
+  void setEventTraceSampleRate(double sampleRate);
+
+  /**
+   * Discard the plugin's metrics recorded so far. This doesn't change {@link
+   * #getInFlightTransferCount()}, which counts transfers rather than recording anything.
+   */
+  void resetMetrics();
+}
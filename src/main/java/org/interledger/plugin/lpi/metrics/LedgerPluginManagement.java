@@ -0,0 +1,146 @@
+package org.interledger.plugin.lpi.metrics;
+
+import org.interledger.plugin.lpi.AbstractLedgerPlugin;
+import org.interledger.plugin.lpi.events.EventTraceSampler;
+
+import com.google.common.base.Preconditions;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Exposes an {@link AbstractLedgerPlugin} as a {@link LedgerPluginMXBean}, so that operators can
+ * watch it, and change how many of its events are traced, from any JMX console without restarting
+ * it.
+ *
+ * Each plugin is registered under the name {@code
+ * org.interledger.plugin:type=LedgerPlugin,ledgerPrefix=<prefix>}.
+ */
+public class LedgerPluginManagement implements LedgerPluginMXBean {
+
+  private static final String DOMAIN = "org.interledger.plugin";
+  private static final LedgerPluginEventType[] EVENT_TYPES = LedgerPluginEventType.values();
+
+  private final AbstractLedgerPlugin<?> plugin;
+
+  private volatile double eventTraceSampleRate;
+
+  private long lastEventCount;
+  private long lastEventRateNanos;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param plugin The {@link AbstractLedgerPlugin} to manage.
+   */
+  public LedgerPluginManagement(final AbstractLedgerPlugin<?> plugin) {
+    this.plugin = Objects.requireNonNull(plugin);
+    this.lastEventCount = getEventCount();
+    this.lastEventRateNanos = System.nanoTime();
+  }
+
+  /**
+   * Register a bean for {@code plugin} with the platform {@link MBeanServer}.
+   *
+   * @return The {@link ObjectName} that the bean was registered under, for {@link
+   *     #unregister(ObjectName)}.
+   */
+  public static ObjectName register(final AbstractLedgerPlugin<?> plugin) throws JMException {
+    final LedgerPluginManagement management = new LedgerPluginManagement(plugin);
+    final ObjectName name = new ObjectName(DOMAIN + ":type=LedgerPlugin,ledgerPrefix="
+        + ObjectName.quote(management.getLedgerPrefix()));
+    ManagementFactory.getPlatformMBeanServer().registerMBean(management, name);
+    return name;
+  }
+
+  /**
+   * Remove a bean registered by {@link #register(AbstractLedgerPlugin)}, for example once its
+   * plugin has been disconnected for good.
+   */
+  public static void unregister(final ObjectName name) throws JMException {
+    ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+  }
+
+  @Override
+  public String getLedgerPrefix() {
+    return plugin.getLedgerInfo().getLedgerPrefix().getValue();
+  }
+
+  @Override
+  public boolean isConnected() {
+    return plugin.isConnected();
+  }
+
+  @Override
+  public int getHandlerCount() {
+    return plugin.getLedgerPluginEventHandlerCount();
+  }
+
+  @Override
+  public Map<String, Long> getEventCounts() {
+    final Map<String, Long> eventCounts = new TreeMap<>();
+    for (final LedgerPluginEventType eventType : EVENT_TYPES) {
+      eventCounts.put(eventType.name(), plugin.getMetrics().getEventCount(eventType));
+    }
+    return eventCounts;
+  }
+
+  @Override
+  public long getEventCount() {
+    long eventCount = 0;
+    for (final LedgerPluginEventType eventType : EVENT_TYPES) {
+      eventCount += plugin.getMetrics().getEventCount(eventType);
+    }
+    return eventCount;
+  }
+
+  @Override
+  public synchronized double getEventRate() {
+    final long eventCount = getEventCount();
+    final long nanos = System.nanoTime();
+    final double rate =
+        (eventCount - lastEventCount) * 1e9 / Math.max(1, nanos - lastEventRateNanos);
+    this.lastEventCount = eventCount;
+    this.lastEventRateNanos = nanos;
+    return rate;
+  }
+
+  @Override
+  public long getInFlightTransferCount() {
+    return plugin.getMetrics().getPreparedTransferCount();
+  }
+
+  @Override
+  public double getEventTraceSampleRate() {
+    return eventTraceSampleRate;
+  }
+
+  @Override
+  public void setEventTraceSampleRate(final double sampleRate) {
+    Preconditions.checkArgument(sampleRate >= 0 && sampleRate <= 1,
+        "sampleRate must be between 0 and 1");
+    if (sampleRate == 0) {
+      plugin.setEventTraceSampler(EventTraceSampler.never());
+    } else if (sampleRate == 1) {
+      plugin.setEventTraceSampler(EventTraceSampler.always());
+    } else {
+      plugin.setEventTraceSampler(EventTraceSampler.withProbability(sampleRate));
+    }
+    this.eventTraceSampleRate = sampleRate;
+  }
+
+  @Override
+  public void resetMetrics() {
+    plugin.getMetrics().reset();
+    synchronized (this) {
+      this.lastEventCount = 0;
+      this.lastEventRateNanos = System.nanoTime();
+    }
+  }
+}
@@ -0,0 +1,285 @@
+package org.interledger.plugin.lpi.metrics;
+
+import org.interledger.plugin.lpi.LedgerResult;
+import org.interledger.plugin.lpi.TransferId;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts and times the operations and events of a single ledger plugin.
+ *
+ * Recording a value only updates counters and HdrHistogram {@link Recorder}s, so it doesn't
+ * allocate and is safe to call from any thread. All latencies are in nanoseconds, as measured by
+ * {@link System#nanoTime()}. {@link #snapshot()} can be called at any time, and reports everything
+ * recorded since this instance was created or last {@link #reset()}.
+ */
+public class LedgerPluginMetrics {
+
+  private static final int DEFAULT_TRANSFER_CAPACITY = 4096;
+
+  private final Latencies[] operations;
+  private final LongAdder[] events;
+  private final TransferStartTimes transferStartTimes;
+  // Counts up for every prepared transfer and down for every resolved one, including those whose
+  // lifecycle couldn't be timed...
+  private final LongAdder preparedTransfers;
+  private final Latencies executedTransfers;
+  private final Latencies rejectedTransfers;
+  private final Map<UUID, Latencies> handlers;
+  private final Latencies eventDeliveries;
+  private final Map<Class<?>, LongAdder> exceptions;
+
+  public LedgerPluginMetrics() {
+    this(DEFAULT_TRANSFER_CAPACITY);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param transferCapacity The number of prepared transfers whose lifecycle can be timed at once,
+   *                         which must be a power of two.
+   */
+  public LedgerPluginMetrics(final int transferCapacity) {
+    this.operations = new Latencies[LedgerPluginOperation.values().length];
+    for (int i = 0; i < operations.length; i++) {
+      operations[i] = new Latencies();
+    }
+    this.events = new LongAdder[LedgerPluginEventType.values().length];
+    for (int i = 0; i < events.length; i++) {
+      events[i] = new LongAdder();
+    }
+    this.transferStartTimes = new TransferStartTimes(transferCapacity);
+    this.preparedTransfers = new LongAdder();
+    this.executedTransfers = new Latencies();
+    this.rejectedTransfers = new Latencies();
+    this.handlers = new ConcurrentHashMap<>();
+    this.eventDeliveries = new Latencies();
+    this.exceptions = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Record a call to a plugin operation that started at {@code startNanos} and has just returned.
+   *
+   * @param operation  The {@link LedgerPluginOperation} that was called.
+   * @param startNanos The value of {@link System#nanoTime()} when the call started.
+   * @param failed     Whether the call threw an exception or was rejected by the ledger.
+   */
+  public void recordOperation(
+      final LedgerPluginOperation operation, final long startNanos, final boolean failed
+  ) {
+    operations[operation.ordinal()].record(System.nanoTime() - startNanos, failed);
+  }
+
+  /**
+   * Record a call to a result-returning plugin operation that started at {@code startNanos} and
+   * has just returned.
+   *
+   * @param operation  The {@link LedgerPluginOperation} that was called.
+   * @param startNanos The value of {@link System#nanoTime()} when the call started.
+   * @param result     The {@link LedgerResult} that the call returned, or {@code null} if it threw
+   *                   an exception.
+   */
+  public void recordOperation(
+      final LedgerPluginOperation operation, final long startNanos, final LedgerResult result
+  ) {
+    recordOperation(operation, startNanos, result == null || !result.isAccepted());
+  }
+
+  /**
+   * Record that an event was emitted.
+   */
+  public void recordEvent(final LedgerPluginEventType eventType) {
+    events[eventType.ordinal()].increment();
+  }
+
+  /**
+   * The number of events of {@code eventType} recorded so far.
+   */
+  public long getEventCount(final LedgerPluginEventType eventType) {
+    return events[eventType.ordinal()].sum();
+  }
+
+  /**
+   * Record that an event emitted at {@code emittedNanos} has just been delivered to a handler.
+   *
+   * @param emittedNanos The value of {@link System#nanoTime()} when the event was emitted.
+   */
+  public void recordEventDelivery(final long emittedNanos) {
+    eventDeliveries.record(System.nanoTime() - emittedNanos, false);
+  }
+
+  /**
+   * Record that a plugin operation threw {@code exception}.
+   */
+  public void recordException(final Throwable exception) {
+    final Class<?> type = exception.getClass();
+    LongAdder count = exceptions.get(type);
+    if (count == null) {
+      count = exceptions.computeIfAbsent(type, key -> new LongAdder());
+    }
+    count.increment();
+  }
+
+  /**
+   * Start timing an event handler that has been added to its plugin.
+   *
+   * @param handlerId The identifier that the handler was registered with.
+   */
+  public void addHandler(final UUID handlerId) {
+    handlers.putIfAbsent(Objects.requireNonNull(handlerId), new Latencies());
+  }
+
+  /**
+   * Record a call to an event handler that started at {@code startNanos} and has just returned.
+   * Calls to handlers that haven't been {@link #addHandler(UUID) added} are ignored.
+   *
+   * @param handlerId  The identifier that the handler was registered with.
+   * @param startNanos The value of {@link System#nanoTime()} when the call started.
+   * @param failed     Whether the handler threw an exception.
+   */
+  public void recordHandler(final UUID handlerId, final long startNanos, final boolean failed) {
+    final Latencies latencies = handlers.get(handlerId);
+    if (latencies != null) {
+      latencies.record(System.nanoTime() - startNanos, failed);
+    }
+  }
+
+  /**
+   * Stop timing an event handler that has been removed from its plugin.
+   */
+  public void removeHandler(final UUID handlerId) {
+    handlers.remove(handlerId);
+  }
+
+  /**
+   * Record that a transfer was prepared, starting its lifecycle.
+   */
+  public void transferPrepared(final TransferId transferId) {
+    preparedTransfers.increment();
+    transferStartTimes.put(transferId, System.nanoTime());
+  }
+
+  /**
+   * Record that a transfer was executed, ending its lifecycle.
+   */
+  public void transferExecuted(final TransferId transferId) {
+    preparedTransfers.decrement();
+    final long startNanos = transferStartTimes.remove(transferId);
+    if (startNanos != TransferStartTimes.NOT_FOUND) {
+      executedTransfers.record(System.nanoTime() - startNanos, false);
+    }
+  }
+
+  /**
+   * Record that a transfer was rejected or cancelled, ending its lifecycle.
+   */
+  public void transferRejected(final TransferId transferId) {
+    preparedTransfers.decrement();
+    final long startNanos = transferStartTimes.remove(transferId);
+    if (startNanos != TransferStartTimes.NOT_FOUND) {
+      rejectedTransfers.record(System.nanoTime() - startNanos, false);
+    }
+  }
+
+  /**
+   * The number of transfers that have been prepared but not yet executed or rejected. This is the
+   * current state of the plugin's transfers rather than something recorded, so {@link #reset()}
+   * doesn't change it.
+   *
+   * Transfers are counted rather than remembered, so this is an estimate: a transfer whose
+   * resolution is never reported stays counted, and resolutions of transfers that were prepared
+   * before this instance was created are subtracted too, although never below zero.
+   */
+  public long getPreparedTransferCount() {
+    return Math.max(0, preparedTransfers.sum());
+  }
+
+  /**
+   * Summarize everything recorded so far.
+   */
+  public LedgerPluginMetricsSnapshot snapshot() {
+    final Map<LedgerPluginOperation, OperationStats> operationStats =
+        new EnumMap<>(LedgerPluginOperation.class);
+    for (final LedgerPluginOperation operation : LedgerPluginOperation.values()) {
+      operationStats.put(operation, operations[operation.ordinal()].snapshot());
+    }
+    final Map<LedgerPluginEventType, Long> eventCounts =
+        new EnumMap<>(LedgerPluginEventType.class);
+    for (final LedgerPluginEventType eventType : LedgerPluginEventType.values()) {
+      eventCounts.put(eventType, events[eventType.ordinal()].sum());
+    }
+    final Map<UUID, OperationStats> handlerStats = new HashMap<>();
+    handlers.forEach((handlerId, latencies) -> handlerStats.put(handlerId, latencies.snapshot()));
+    final Map<String, Long> exceptionCounts = new HashMap<>();
+    exceptions.forEach((type, count) -> exceptionCounts.put(type.getName(), count.sum()));
+
+    return ImmutableLedgerPluginMetricsSnapshot.builder()
+        .operations(operationStats)
+        .eventCounts(eventCounts)
+        .executedTransfers(executedTransfers.snapshot())
+        .rejectedTransfers(rejectedTransfers.snapshot())
+        .untrackedTransfers(transferStartTimes.getEvictions())
+        .handlers(handlerStats)
+        .eventDeliveries(eventDeliveries.snapshot())
+        .exceptionCounts(exceptionCounts)
+        .build();
+  }
+
+  /**
+   * Discard everything recorded so far. Transfers that are still prepared continue to be counted
+   * by {@link #getPreparedTransferCount()}, but their lifecycles are no longer timed.
+   */
+  public void reset() {
+    for (final Latencies latencies : operations) {
+      latencies.reset();
+    }
+    for (final LongAdder count : events) {
+      count.reset();
+    }
+    transferStartTimes.clear();
+    executedTransfers.reset();
+    rejectedTransfers.reset();
+    handlers.values().forEach(Latencies::reset);
+    eventDeliveries.reset();
+    exceptions.values().forEach(LongAdder::reset);
+  }
+
+  /**
+   * A {@link Recorder} of latencies, and a count of how many of them failed.
+   */
+  private static final class Latencies {
+
+    private final Recorder recorder = new Recorder(3);
+    private final LongAdder failures = new LongAdder();
+
+    // Accumulates the recorder's intervals, so that every snapshot is cumulative...
+    private final Histogram total = new Histogram(3);
+
+    private void record(final long nanos, final boolean failed) {
+      recorder.recordValue(nanos);
+      if (failed) {
+        failures.increment();
+      }
+    }
+
+    private synchronized OperationStats snapshot() {
+      total.add(recorder.getIntervalHistogram());
+      return OperationStats.from(total, failures.sum());
+    }
+
+    private synchronized void reset() {
+      recorder.reset();
+      total.reset();
+      failures.reset();
+    }
+  }
+}
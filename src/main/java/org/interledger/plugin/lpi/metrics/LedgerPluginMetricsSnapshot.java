@@ -0,0 +1,93 @@
+package org.interledger.plugin.lpi.metrics;
+
+import org.immutables.value.Value;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * A point-in-time summary of a {@link LedgerPluginMetrics}. All latencies are in nanoseconds.
+ */
+@Value.Immutable
+public interface LedgerPluginMetricsSnapshot {
+
+  /**
+   * The calls to each plugin operation, timed from when the call started until it returned. An
+   * operation's errors include calls that the ledger rejected.
+   */
+  Map<LedgerPluginOperation, OperationStats> getOperations();
+
+  /**
+   * The number of events of each type that the plugin emitted.
+   */
+  Map<LedgerPluginEventType, Long> getEventCounts();
+
+  /**
+   * The transfers that were executed, timed from when they were prepared.
+   */
+  OperationStats getExecutedTransfers();
+
+  /**
+   * The transfers that were rejected or cancelled, timed from when they were prepared.
+   */
+  OperationStats getRejectedTransfers();
+
+  /**
+   * The number of prepared transfers whose lifecycle could not be timed, because too many other
+   * transfers were prepared at the same time.
+   */
+  long getUntrackedTransfers();
+
+  /**
+   * The calls to each event handler, keyed by the identifier the handler was registered with.
+   */
+  Map<UUID, OperationStats> getHandlers();
+
+  /**
+   * The events that were delivered to a handler, timed from when they were emitted.
+   */
+  OperationStats getEventDeliveries();
+
+  /**
+   * The number of exceptions of each type thrown by plugin operations, keyed by class name.
+   */
+  Map<String, Long> getExceptionCounts();
+
+  /**
+   * Flatten this snapshot into named values, for example {@code
+   * operations.send_transfer.p99_nanos}, that can be exported to any metrics system.
+   */
+  default SortedMap<String, Long> toMap() {
+    final SortedMap<String, Long> values = new TreeMap<>();
+    getOperations().forEach((operation, stats) ->
+        putStats(values, "operations." + operation.name().toLowerCase(Locale.ROOT), stats));
+    getEventCounts().forEach((eventType, count) ->
+        values.put("events." + eventType.name().toLowerCase(Locale.ROOT), count));
+    putStats(values, "transfers.executed", getExecutedTransfers());
+    putStats(values, "transfers.rejected", getRejectedTransfers());
+    values.put("transfers.untracked", getUntrackedTransfers());
+    for (final Entry<UUID, OperationStats> handler : getHandlers().entrySet()) {
+      putStats(values, "handlers." + handler.getKey(), handler.getValue());
+    }
+    putStats(values, "events.deliveries", getEventDeliveries());
+    getExceptionCounts().forEach((type, count) -> values.put("exceptions." + type, count));
+    return values;
+  }
+
+  static void putStats(
+      final Map<String, Long> values, final String prefix, final OperationStats stats
+  ) {
+    values.put(prefix + ".count", stats.getCount());
+    values.put(prefix + ".errors", stats.getErrors());
+    values.put(prefix + ".mean_nanos", stats.getMeanNanos());
+    values.put(prefix + ".p50_nanos", stats.getP50Nanos());
+    values.put(prefix + ".p90_nanos", stats.getP90Nanos());
+    values.put(prefix + ".p99_nanos", stats.getP99Nanos());
+    values.put(prefix + ".p999_nanos", stats.getP999Nanos());
+    values.put(prefix + ".max_nanos", stats.getMaxNanos());
+  }
+}
@@ -0,0 +1,61 @@
+package org.interledger.plugin.lpi.metrics;
+
+import org.interledger.plugin.lpi.LedgerPlugin;
+
+/**
+ * The {@link LedgerPlugin} operations whose calls are counted and timed by {@link
+ * LedgerPluginMetrics}.
+ */
+public enum LedgerPluginOperation {
+
+  /**
+   * {@link LedgerPlugin#connect()}.
+   */
+  CONNECT,
+
+  /**
+   * {@link LedgerPlugin#disconnect()}.
+   */
+  DISCONNECT,
+
+  /**
+   * {@link LedgerPlugin#sendTransfer} and {@link LedgerPlugin#trySendTransfer}.
+   */
+  SEND_TRANSFER,
+
+  /**
+   * {@link LedgerPlugin#sendMessage} and {@link LedgerPlugin#trySendMessage}.
+   */
+  SEND_MESSAGE,
+
+  /**
+   * {@link LedgerPlugin#fulfillCondition} and {@link LedgerPlugin#tryFulfillCondition}.
+   */
+  FULFILL_CONDITION,
+
+  /**
+   * {@link LedgerPlugin#rejectIncomingTransfer} and {@link
+   * LedgerPlugin#tryRejectIncomingTransfer}.
+   */
+  REJECT_INCOMING_TRANSFER,
+
+  /**
+   * {@link LedgerPlugin#getFulfillment}.
+   */
+  GET_FULFILLMENT,
+
+  /**
+   * {@link LedgerPlugin#getConnectorBalance()}.
+   */
+  GET_CONNECTOR_BALANCE,
+
+  /**
+   * {@link LedgerPlugin#getConnectorAccount()}.
+   */
+  GET_CONNECTOR_ACCOUNT,
+
+  /**
+   * {@link LedgerPlugin#getLedgerInfo()}.
+   */
+  GET_LEDGER_INFO
+}
@@ -0,0 +1,72 @@
+package org.interledger.plugin.lpi.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.immutables.value.Value;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency statistics for a single kind of operation. All latencies are in
+ * nanoseconds, measured from whenever the producer of the statistics considers the operation to
+ * have started.
+ */
+@Value.Immutable
+public interface OperationStats {
+
+  /**
+   * Summarize a {@link Histogram} of latencies, in nanoseconds.
+   *
+   * @param histogram A {@link Histogram} containing one value for every completed operation.
+   * @param errors    The number of operations that completed exceptionally.
+   */
+  static OperationStats from(final Histogram histogram, final long errors) {
+    Objects.requireNonNull(histogram);
+    return ImmutableOperationStats.builder()
+        .count(histogram.getTotalCount())
+        .errors(errors)
+        .meanNanos((long) histogram.getMean())
+        .p50Nanos(histogram.getValueAtPercentile(50))
+        .p90Nanos(histogram.getValueAtPercentile(90))
+        .p99Nanos(histogram.getValueAtPercentile(99))
+        .p999Nanos(histogram.getValueAtPercentile(99.9))
+        .maxNanos(histogram.getMaxValue())
+        .build();
+  }
+
+  /**
+   * The number of operations that completed, successfully or not.
+   */
+  long getCount();
+
+  /**
+   * The number of operations that completed by throwing an exception.
+   */
+  long getErrors();
+
+  long getMeanNanos();
+
+  long getP50Nanos();
+
+  long getP90Nanos();
+
+  long getP99Nanos();
+
+  long getP999Nanos();
+
+  long getMaxNanos();
+
+  @Value.Lazy
+  default String getSummary() {
+    return String.format(
+        "count=%d errors=%d mean=%dus p50=%dus p90=%dus p99=%dus p99.9=%dus max=%dus",
+        getCount(), getErrors(), micros(getMeanNanos()), micros(getP50Nanos()),
+        micros(getP90Nanos()), micros(getP99Nanos()), micros(getP999Nanos()),
+        micros(getMaxNanos())
+    );
+  }
+
+  static long micros(final long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+}
@@ -0,0 +1,237 @@
+package org.interledger.plugin.lpi.metrics;
+
+import org.interledger.plugin.lpi.LedgerPluginEventEmitter;
+import org.interledger.plugin.lpi.Message;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.events.IncomingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferRejectedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginConnectedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginDisconnectedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginErrorEvent;
+import org.interledger.plugin.lpi.events.OutgoingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferRejectedEvent;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link LedgerPluginEventEmitter} that records every event it emits in an {@link
+ * EventRingBuffer} before passing it on to another emitter, such as the one given to a plugin's
+ * constructor.
+ *
+ * If it is given a dump directory, the buffer is also dumped there, to a new file, whenever a
+ * {@link LedgerPluginErrorEvent} is emitted, so that the events leading up to the error are kept.
+ * The dump is written by the thread that emits the error, before the error is passed on, so that
+ * it holds exactly the events that preceded the error. Since a dump can take a while, at most one
+ * is written per dump interval; errors emitted in between are passed on without a dump.
+ */
+public class RecordingLedgerPluginEventEmitter implements LedgerPluginEventEmitter {
+
+  public static final Duration DEFAULT_DUMP_INTERVAL = Duration.ofMinutes(1);
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(RecordingLedgerPluginEventEmitter.class);
+
+  private final LedgerPluginEventEmitter delegate;
+  private final EventRingBuffer eventRingBuffer;
+  private final Optional<Path> dumpDirectory;
+  private final long dumpIntervalNanos;
+
+  // The value of System.nanoTime() when the last dump started...
+  private final AtomicLong lastDumpNanos;
+  private final LongAdder skippedDumps = new LongAdder();
+
+  /**
+   * Required-args Constructor, which dumps at most once per {@link #DEFAULT_DUMP_INTERVAL}.
+   *
+   * @param delegate        The {@link LedgerPluginEventEmitter} that events are passed on to.
+   * @param eventRingBuffer The {@link EventRingBuffer} that events are recorded in.
+   * @param dumpDirectory   The directory that the buffer is dumped to when an error is emitted,
+   *                        if any.
+   */
+  public RecordingLedgerPluginEventEmitter(
+      final LedgerPluginEventEmitter delegate, final EventRingBuffer eventRingBuffer,
+      final Optional<Path> dumpDirectory
+  ) {
+    this(delegate, eventRingBuffer, dumpDirectory, DEFAULT_DUMP_INTERVAL);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param delegate        The {@link LedgerPluginEventEmitter} that events are passed on to.
+   * @param eventRingBuffer The {@link EventRingBuffer} that events are recorded in.
+   * @param dumpDirectory   The directory that the buffer is dumped to when an error is emitted,
+   *                        if any.
+   * @param dumpInterval    The minimum time between the start of one dump and the next.
+   */
+  public RecordingLedgerPluginEventEmitter(
+      final LedgerPluginEventEmitter delegate, final EventRingBuffer eventRingBuffer,
+      final Optional<Path> dumpDirectory, final Duration dumpInterval
+  ) {
+    this.delegate = Objects.requireNonNull(delegate);
+    this.eventRingBuffer = Objects.requireNonNull(eventRingBuffer);
+    this.dumpDirectory = Objects.requireNonNull(dumpDirectory);
+    this.dumpIntervalNanos = Objects.requireNonNull(dumpInterval).toNanos();
+    Preconditions.checkArgument(dumpIntervalNanos >= 0, "dumpInterval must not be negative");
+    // As though a dump had just ended, so that the first error is dumped...
+    this.lastDumpNanos = new AtomicLong(System.nanoTime() - dumpIntervalNanos);
+  }
+
+  public EventRingBuffer getEventRingBuffer() {
+    return eventRingBuffer;
+  }
+
+  /**
+   * The number of errors that weren't dumped because another dump was written too recently.
+   */
+  public long getSkippedDumpCount() {
+    return skippedDumps.sum();
+  }
+
+  @Override
+  public void emitEvent(final LedgerPluginConnectedEvent event) {
+    eventRingBuffer.record(LedgerPluginEventType.CONNECTED, null, null, null);
+    delegate.emitEvent(event);
+  }
+
+  @Override
+  public void emitEvent(final LedgerPluginDisconnectedEvent event) {
+    eventRingBuffer.record(LedgerPluginEventType.DISCONNECTED, null, null, null);
+    delegate.emitEvent(event);
+  }
+
+  @Override
+  public void emitEvent(final LedgerPluginErrorEvent event) {
+    eventRingBuffer.record(LedgerPluginEventType.ERROR, null, null, null);
+    if (dumpDirectory.isPresent()) {
+      if (tryStartDump()) {
+        dump(dumpDirectory.get());
+      } else {
+        skippedDumps.increment();
+      }
+    }
+    delegate.emitEvent(event);
+  }
+
+  @Override
+  public void emitEvent(final OutgoingTransferPreparedEvent event) {
+    record(LedgerPluginEventType.OUTGOING_TRANSFER_PREPARED, event.getTransfer());
+    delegate.emitEvent(event);
+  }
+
+  @Override
+  public void emitEvent(final OutgoingTransferFulfilledEvent event) {
+    record(LedgerPluginEventType.OUTGOING_TRANSFER_FULFILLED, event.getTransfer());
+    delegate.emitEvent(event);
+  }
+
+  @Override
+  public void emitEvent(final OutgoingTransferRejectedEvent event) {
+    final Transfer transfer = event.getTransfer();
+    eventRingBuffer.record(LedgerPluginEventType.OUTGOING_TRANSFER_REJECTED,
+        transfer.getTransferId(), transfer.getAmount(),
+        event.getRejectionReason().getErrorCode());
+    delegate.emitEvent(event);
+  }
+
+  @Override
+  public void emitEvent(final OutgoingTransferCancelledEvent event) {
+    final Transfer transfer = event.getTransfer();
+    eventRingBuffer.record(LedgerPluginEventType.OUTGOING_TRANSFER_CANCELLED,
+        transfer.getTransferId(), transfer.getAmount(),
+        event.getCancellationReason().getErrorCode());
+    delegate.emitEvent(event);
+  }
+
+  @Override
+  public void emitEvent(final OutgoingMessgeRequestEvent event) {
+    record(LedgerPluginEventType.OUTGOING_MESSAGE_REQUEST, event.getMessage());
+    delegate.emitEvent(event);
+  }
+
+  @Override
+  public void emitEvent(final IncomingTransferPreparedEvent event) {
+    record(LedgerPluginEventType.INCOMING_TRANSFER_PREPARED, event.getTransfer());
+    delegate.emitEvent(event);
+  }
+
+  @Override
+  public void emitEvent(final IncomingTransferFulfilledEvent event) {
+    record(LedgerPluginEventType.INCOMING_TRANSFER_FULFILLED, event.getTransfer());
+    delegate.emitEvent(event);
+  }
+
+  @Override
+  public void emitEvent(final IncomingTransferRejectedEvent event) {
+    final Transfer transfer = event.getTransfer();
+    eventRingBuffer.record(LedgerPluginEventType.INCOMING_TRANSFER_REJECTED,
+        transfer.getTransferId(), transfer.getAmount(),
+        event.getRejectionReason().getErrorCode());
+    delegate.emitEvent(event);
+  }
+
+  @Override
+  public void emitEvent(final IncomingTransferCancelledEvent event) {
+    final Transfer transfer = event.getTransfer();
+    eventRingBuffer.record(LedgerPluginEventType.INCOMING_TRANSFER_CANCELLED,
+        transfer.getTransferId(), transfer.getAmount(),
+        event.getCancellationReason().getErrorCode());
+    delegate.emitEvent(event);
+  }
+
+  @Override
+  public void emitEvent(final IncomingMessgeRequestEvent event) {
+    record(LedgerPluginEventType.INCOMING_MESSAGE_REQUEST, event.getMessage());
+    delegate.emitEvent(event);
+  }
+
+  private void record(final LedgerPluginEventType eventType, final Transfer transfer) {
+    eventRingBuffer.record(eventType, transfer.getTransferId(), transfer.getAmount(), null);
+  }
+
+  private void record(final LedgerPluginEventType eventType, final Message message) {
+    eventRingBuffer.record(eventType, message.getId(), null, null);
+  }
+
+  /**
+   * Claim the next dump, unless the last one started less than the dump interval ago or another
+   * thread claimed it first.
+   */
+  private boolean tryStartDump() {
+    final long nowNanos = System.nanoTime();
+    final long lastNanos = lastDumpNanos.get();
+    return nowNanos - lastNanos >= dumpIntervalNanos
+        && lastDumpNanos.compareAndSet(lastNanos, nowNanos);
+  }
+
+  /**
+   * Dump the buffer to a new file in {@code directory}. A failed dump is logged rather than thrown,
+   * so that it doesn't stop the error from being emitted.
+   */
+  private void dump(final Path directory) {
+    final Path file = directory.resolve("ledger-plugin-events-" + System.currentTimeMillis() + "-"
+        + eventRingBuffer.getRecordedCount() + ".bin");
+    try {
+      final int count = eventRingBuffer.dump(file);
+      logger.info("Dumped {} recent ledger plugin events to {}", count, file);
+    } catch (IOException e) {
+      logger.error("Unable to dump recent ledger plugin events to " + file, e);
+    }
+  }
+}
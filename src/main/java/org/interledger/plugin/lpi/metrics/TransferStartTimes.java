@@ -0,0 +1,108 @@
+package org.interledger.plugin.lpi.metrics;
+
+import org.interledger.plugin.lpi.TransferId;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size table of the times that transfers were prepared, so that the time each spends
+ * prepared can be measured without allocating. A transfer whose slot is taken by a newer transfer
+ * before it completes is simply not measured.
+ */
+final class TransferStartTimes {
+
+  /**
+   * Returned by {@link #remove(TransferId)} when the transfer is not in the table.
+   */
+  static final long NOT_FOUND = Long.MIN_VALUE;
+
+  private static final int STRIPES = 64;
+
+  private final int mask;
+  private final long[] mostSignificantBits;
+  private final long[] leastSignificantBits;
+  private final long[] startNanos;
+  private final boolean[] occupied;
+  private final Object[] locks;
+
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param capacity The number of transfers that can be tracked at once, which must be a power of
+   *                 two.
+   */
+  TransferStartTimes(final int capacity) {
+    Preconditions.checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1,
+        "capacity must be a power of two");
+    this.mask = capacity - 1;
+    this.mostSignificantBits = new long[capacity];
+    this.leastSignificantBits = new long[capacity];
+    this.startNanos = new long[capacity];
+    this.occupied = new boolean[capacity];
+    this.locks = new Object[Math.min(STRIPES, capacity)];
+    for (int i = 0; i < locks.length; i++) {
+      locks[i] = new Object();
+    }
+  }
+
+  /**
+   * Record that {@code transferId} was prepared at {@code nanos}, unless it is already tracked.
+   */
+  void put(final TransferId transferId, final long nanos) {
+    final int slot = transferId.hashCode() & mask;
+    synchronized (locks[slot % locks.length]) {
+      if (occupied[slot]) {
+        if (matches(slot, transferId)) {
+          // The same transfer can be reported both as incoming and as outgoing...
+          return;
+        }
+        evictions.increment();
+      }
+      mostSignificantBits[slot] = transferId.getMostSignificantBits();
+      leastSignificantBits[slot] = transferId.getLeastSignificantBits();
+      startNanos[slot] = nanos;
+      occupied[slot] = true;
+    }
+  }
+
+  /**
+   * Stop tracking {@code transferId}.
+   *
+   * @return The time it was prepared at, or {@link #NOT_FOUND} if it isn't tracked.
+   */
+  long remove(final TransferId transferId) {
+    final int slot = transferId.hashCode() & mask;
+    synchronized (locks[slot % locks.length]) {
+      if (occupied[slot] && matches(slot, transferId)) {
+        occupied[slot] = false;
+        return startNanos[slot];
+      }
+      return NOT_FOUND;
+    }
+  }
+
+  /**
+   * The number of transfers that were displaced from the table before they completed.
+   */
+  long getEvictions() {
+    return evictions.sum();
+  }
+
+  void clear() {
+    for (int slot = 0; slot <= mask; slot++) {
+      synchronized (locks[slot % locks.length]) {
+        occupied[slot] = false;
+      }
+    }
+    evictions.reset();
+  }
+
+  private boolean matches(final int slot, final TransferId transferId) {
+    return mostSignificantBits[slot] == transferId.getMostSignificantBits()
+        && leastSignificantBits[slot] == transferId.getLeastSignificantBits();
+  }
+}
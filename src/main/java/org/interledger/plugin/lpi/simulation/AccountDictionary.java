@@ -0,0 +1,56 @@
+package org.interledger.plugin.lpi.simulation;
+
+import org.interledger.InterledgerAddress;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns each account address a dense integer id the first time it is seen, so that per-account
+ * state can be held in arrays indexed by that id instead of in maps keyed by the address.
+ *
+ * Ids are assigned in order, starting at zero, and are never reused.
+ */
+public class AccountDictionary {
+
+  /**
+   * Returned by {@link #find(InterledgerAddress)} for an address that has no id.
+   */
+  public static final int NO_ID = -1;
+
+  private final ConcurrentMap<InterledgerAddress, Integer> ids;
+  private final AtomicInteger nextId;
+
+  public AccountDictionary() {
+    this.ids = new ConcurrentHashMap<>();
+    this.nextId = new AtomicInteger();
+  }
+
+  /**
+   * The id of {@code address}, assigning it the next unused id if it doesn't have one yet.
+   */
+  public int intern(final InterledgerAddress address) {
+    Objects.requireNonNull(address);
+    // Avoid computeIfAbsent for addresses that are already known, since it always locks...
+    final Integer id = ids.get(address);
+    return id != null ? id : ids.computeIfAbsent(address, a -> nextId.getAndIncrement());
+  }
+
+  /**
+   * The id of {@code address}, or {@link #NO_ID} if it has never been interned.
+   */
+  public int find(final InterledgerAddress address) {
+    Objects.requireNonNull(address);
+    final Integer id = ids.get(address);
+    return id != null ? id : NO_ID;
+  }
+
+  /**
+   * The number of addresses that have been interned, which is one more than the largest id.
+   */
+  public int size() {
+    return nextId.get();
+  }
+}
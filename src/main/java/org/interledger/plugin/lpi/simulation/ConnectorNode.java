@@ -0,0 +1,281 @@
+package org.interledger.plugin.lpi.simulation;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.ilp.InterledgerProtocolError;
+import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.ImmutableTransfer;
+import org.interledger.plugin.lpi.MockLedgerPlugin;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.TransferId;
+import org.interledger.plugin.lpi.events.IncomingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferRejectedEvent;
+import org.interledger.plugin.lpi.events.OutgoingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferRejectedEvent;
+import org.interledger.plugin.lpi.exceptions.LedgerPluginException;
+import org.interledger.plugin.lpi.exceptions.TransferNotAcceptedException;
+import org.interledger.plugin.lpi.handlers.AbstractIncomingTransferEventHandler;
+import org.interledger.plugin.lpi.handlers.AbstractOutgoingTransferEventHandler;
+
+import com.google.common.collect.ImmutableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A connector in a {@link SimulatedNetwork} that holds an account on two or more ledgers, and
+ * forwards each incoming transfer to the next ledger on the shortest route to the payment's
+ * destination. Once the outgoing transfer is fulfilled (or rejected), the connector fulfills (or
+ * rejects) the incoming transfer that funded it.
+ */
+public class ConnectorNode {
+
+  // Each hop expires this much sooner than the one before it, so that a connector always has time
+  // to fulfill its incoming transfer...
+  private static final Duration HOP_EXPIRY_MARGIN = Duration.ofSeconds(1);
+
+  protected final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final String name;
+  private final SimulatedNetwork network;
+
+  // The plugin for this connector's account on each ledger, keyed by ledger prefix...
+  private final Map<InterledgerAddress, MockLedgerPlugin> plugins;
+
+  // The incoming transfer that funded each outgoing transfer still in flight...
+  private final Map<TransferId, Transfer> forwardedTransfers;
+
+  ConnectorNode(
+      final String name, final SimulatedNetwork network, final List<SimulatedLedger> ledgers
+  ) {
+    this.name = Objects.requireNonNull(name);
+    this.network = Objects.requireNonNull(network);
+    this.forwardedTransfers = new ConcurrentHashMap<>();
+
+    final ImmutableMap.Builder<InterledgerAddress, MockLedgerPlugin> plugins =
+        ImmutableMap.builder();
+    for (SimulatedLedger ledger : ledgers) {
+      final InterledgerAddress ledgerPrefix = ledger.getLedgerInfo().getLedgerPrefix();
+      final MockLedgerPlugin mockLedgerPlugin =
+          SimulatedNetwork.newPlugin(ledger, ledgerPrefix.with(name));
+      mockLedgerPlugin.addLedgerPluginEventHandler(new ForwardingEventHandler(mockLedgerPlugin));
+      mockLedgerPlugin.addLedgerPluginEventHandler(new SettlingEventHandler());
+      plugins.put(ledgerPrefix, mockLedgerPlugin);
+    }
+    this.plugins = plugins.build();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Set<InterledgerAddress> getLedgerPrefixes() {
+    return plugins.keySet();
+  }
+
+  /**
+   * The account of this connector on the ledger identified by {@code ledgerPrefix}.
+   */
+  public InterledgerAddress getAccount(final InterledgerAddress ledgerPrefix) {
+    return ledgerPrefix.with(name);
+  }
+
+  public Optional<MockLedgerPlugin> getLedgerPlugin(final InterledgerAddress ledgerPrefix) {
+    return Optional.ofNullable(plugins.get(ledgerPrefix));
+  }
+
+  /**
+   * The number of outgoing transfers that have been prepared but not yet fulfilled or rejected.
+   */
+  public int getInFlightCount() {
+    return forwardedTransfers.size();
+  }
+
+  /**
+   * Stop waiting for the outcome of an outgoing transfer, because the payment it forwarded has
+   * ended without it.
+   */
+  void forget(final TransferId outgoingTransferId) {
+    forwardedTransfers.remove(outgoingTransferId);
+  }
+
+  private void forward(final MockLedgerPlugin incomingPlugin, final Transfer incomingTransfer) {
+    final InterledgerAddress destinationAccount =
+        incomingTransfer.getInterlederPaymentPacket().getDestinationAccount();
+
+    final Optional<InterledgerAddress> nextLedgerPrefix = network.ledgerFor(destinationAccount)
+        .flatMap(destinationLedger -> network.nextLedger(this, incomingTransfer.getLedgerPrefix(),
+            destinationLedger.getLedgerInfo().getLedgerPrefix()));
+    final Optional<InterledgerAddress> nextRecipient = nextLedgerPrefix
+        .flatMap(ledgerPrefix -> network.nextRecipient(ledgerPrefix, destinationAccount));
+    if (!nextRecipient.isPresent()) {
+      reject(incomingPlugin, incomingTransfer, ErrorCode.F02_UNREACHABLE);
+      return;
+    }
+
+    final MockLedgerPlugin outgoingPlugin = plugins.get(nextLedgerPrefix.get());
+    final Transfer outgoingTransfer = ImmutableTransfer.builder()
+        .transferId(TransferId.next())
+        .ledgerPrefix(nextLedgerPrefix.get())
+        .sourceAccount(outgoingPlugin.getConnectorAccount())
+        .destinationAccount(nextRecipient.get())
+        .amount(SimulatedNetwork.convert(incomingTransfer.getAmount(),
+            incomingPlugin.getLedgerInfo(), outgoingPlugin.getLedgerInfo()))
+        .executionCondition(incomingTransfer.getExecutionCondition())
+        .expiresAt(incomingTransfer.getExpiresAt().minus(HOP_EXPIRY_MARGIN))
+        .interlederPaymentPacket(incomingTransfer.getInterlederPaymentPacket())
+        .build();
+
+    forwardedTransfers.put(outgoingTransfer.getTransferId(), incomingTransfer);
+    network.hopForwarded(this, outgoingTransfer);
+    try {
+      outgoingPlugin.sendTransfer(outgoingTransfer);
+    } catch (TransferNotAcceptedException e) {
+      forwardedTransfers.remove(outgoingTransfer.getTransferId());
+      network.hopFailed(outgoingTransfer.getTransferId());
+      reject(incomingPlugin, incomingTransfer, e.getRejectionReason());
+    } catch (LedgerPluginException e) {
+      forwardedTransfers.remove(outgoingTransfer.getTransferId());
+      network.hopFailed(outgoingTransfer.getTransferId());
+      reject(incomingPlugin, incomingTransfer, ErrorCode.T01_LEDGER_UNREACHABLE);
+    }
+  }
+
+  private void fulfillIncoming(final Transfer outgoingTransfer, final Fulfillment fulfillment) {
+    final Transfer incomingTransfer = forwardedTransfers.remove(outgoingTransfer.getTransferId());
+    if (incomingTransfer != null) {
+      network.hopFulfilled(outgoingTransfer);
+      try {
+        plugins.get(incomingTransfer.getLedgerPrefix())
+            .fulfillCondition(incomingTransfer.getTransferId(), fulfillment);
+      } catch (LedgerPluginException e) {
+        logger.warn("Unable to fulfill incoming transfer {}: {}",
+            incomingTransfer.getTransferId(), e.getMessage());
+      }
+    }
+  }
+
+  private void rejectIncoming(
+      final Transfer outgoingTransfer, final InterledgerProtocolError rejectionReason
+  ) {
+    final Transfer incomingTransfer = forwardedTransfers.remove(outgoingTransfer.getTransferId());
+    if (incomingTransfer != null) {
+      network.hopFailed(outgoingTransfer.getTransferId());
+      reject(plugins.get(incomingTransfer.getLedgerPrefix()), incomingTransfer, rejectionReason);
+    }
+  }
+
+  private void reject(
+      final MockLedgerPlugin incomingPlugin, final Transfer incomingTransfer,
+      final ErrorCode errorCode
+  ) {
+    reject(incomingPlugin, incomingTransfer, InterledgerProtocolError.builder()
+        .errorCode(errorCode)
+        .triggeredByAddress(incomingPlugin.getConnectorAccount())
+        .triggeredAt(Instant.now())
+        .build());
+  }
+
+  private void reject(
+      final MockLedgerPlugin incomingPlugin, final Transfer incomingTransfer,
+      final InterledgerProtocolError rejectionReason
+  ) {
+    try {
+      incomingPlugin.rejectIncomingTransfer(incomingTransfer.getTransferId(), rejectionReason);
+    } catch (LedgerPluginException e) {
+      logger.warn("Unable to reject incoming transfer {}: {}",
+          incomingTransfer.getTransferId(), e.getMessage());
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ConnectorNode{" +
+        "name='" + name + '\'' +
+        ", ledgerPrefixes=" + plugins.keySet() +
+        '}';
+  }
+
+  /**
+   * Forwards every transfer that this connector receives on a single ledger.
+   */
+  private class ForwardingEventHandler extends AbstractIncomingTransferEventHandler {
+
+    private final MockLedgerPlugin mockLedgerPlugin;
+
+    private ForwardingEventHandler(final MockLedgerPlugin mockLedgerPlugin) {
+      this.mockLedgerPlugin = Objects.requireNonNull(mockLedgerPlugin);
+    }
+
+    @Override
+    public void onTransferPrepared(IncomingTransferPreparedEvent event) {
+      forward(mockLedgerPlugin, event.getTransfer());
+    }
+
+    @Override
+    public void onTransferFulfilled(IncomingTransferFulfilledEvent event) {
+
+    }
+
+    @Override
+    public void onTransferCancelled(IncomingTransferCancelledEvent event) {
+
+    }
+
+    @Override
+    public void onTransferRejected(IncomingTransferRejectedEvent event) {
+
+    }
+
+    @Override
+    public void onMessageRequest(IncomingMessgeRequestEvent event) {
+
+    }
+  }
+
+  /**
+   * Settles the incoming side of every forwarded transfer once its outgoing side completes.
+   */
+  private class SettlingEventHandler extends AbstractOutgoingTransferEventHandler {
+
+    @Override
+    public void onTransferPrepared(OutgoingTransferPreparedEvent event) {
+
+    }
+
+    @Override
+    public void onTransferFulfilled(OutgoingTransferFulfilledEvent event) {
+      fulfillIncoming(event.getTransfer(), event.getFulfillment());
+    }
+
+    @Override
+    public void onTransferCancelled(OutgoingTransferCancelledEvent event) {
+      rejectIncoming(event.getTransfer(), event.getCancellationReason());
+    }
+
+    @Override
+    public void onTransferRejected(OutgoingTransferRejectedEvent event) {
+      rejectIncoming(event.getTransfer(), event.getRejectionReason());
+    }
+
+    @Override
+    public void onMessageRequest(OutgoingMessgeRequestEvent event) {
+
+    }
+  }
+}
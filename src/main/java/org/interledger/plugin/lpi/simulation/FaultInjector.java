@@ -0,0 +1,73 @@
+package org.interledger.plugin.lpi.simulation;
+
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Applies a {@link SimulationProfile} to the operations of a single {@link SimulatedLedger}, by
+ * pausing the calling thread for the duration chosen by each operation's {@link LatencyModel} and
+ * deciding whether the operation should fail.
+ */
+public class FaultInjector {
+
+  private final SimulationProfile simulationProfile;
+
+  // Shared by every operation so that a given seed always produces the same sequence of choices.
+  private final Random random;
+
+  private final Map<LedgerOperation, LatencyModel> latencyModels;
+  private final double[] failureProbabilities;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param simulationProfile The {@link SimulationProfile} to apply.
+   */
+  public FaultInjector(final SimulationProfile simulationProfile) {
+    this.simulationProfile = Objects.requireNonNull(simulationProfile);
+    this.random = new Random(simulationProfile.getSeed());
+    this.latencyModels = new EnumMap<>(LedgerOperation.class);
+    simulationProfile.getLatencyModels().forEach(
+        (operation, latencyModel) -> latencyModels.put(operation, latencyModel.newInstance())
+    );
+    this.failureProbabilities = new double[LedgerOperation.values().length];
+    simulationProfile.getFailureProbabilities().forEach(
+        (operation, probability) -> failureProbabilities[operation.ordinal()] = probability
+    );
+  }
+
+  public SimulationProfile getSimulationProfile() {
+    return simulationProfile;
+  }
+
+  /**
+   * Pause the calling thread for as long as {@code operation} should take, and then decide whether
+   * it should fail.
+   *
+   * @param operation The {@link LedgerOperation} being performed.
+   *
+   * @return {@code true} if the operation should fail, {@code false} if it should proceed.
+   */
+  public boolean delayAndCheckFailure(final LedgerOperation operation) {
+    final LatencyModel latencyModel = latencyModels.get(operation);
+    if (latencyModel != null) {
+      pause(latencyModel.nextLatencyNanos(random));
+    }
+    final double failureProbability = failureProbabilities[operation.ordinal()];
+    return failureProbability > 0 && random.nextDouble() < failureProbability;
+  }
+
+  private static void pause(final long nanos) {
+    final long deadline = System.nanoTime() + nanos;
+    long remaining = nanos;
+    while (remaining > 0) {
+      LockSupport.parkNanos(remaining);
+      remaining = deadline - System.nanoTime();
+    }
+  }
+}
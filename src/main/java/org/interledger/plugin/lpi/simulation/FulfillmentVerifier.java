@@ -0,0 +1,154 @@
+package org.interledger.plugin.lpi.simulation;
+
+import org.interledger.cryptoconditions.Condition;
+import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.cryptoconditions.PreimageSha256Condition;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Verifies fulfillments against the conditions that they are meant to fulfill.
+ *
+ * Preimage fulfillments are verified by hashing their preimage with a SHA-256 digest that is
+ * reused by each thread, and every successful verification is remembered for a while, so that a
+ * fulfillment that is presented more than once (for example, once on each hop of a payment) is only
+ * hashed the first time. Batches of a few hundred fulfillments or more are verified in parallel
+ * when more than one core is available.
+ */
+public class FulfillmentVerifier {
+
+  /**
+   * Fulfillments don't sign a message on a ledger, so they are all verified against this one.
+   */
+  private static final byte[] EMPTY_MESSAGE = new byte[0];
+
+  // Batches smaller than this aren't worth splitting across threads, since hashing a preimage only
+  // takes about a microsecond...
+  private static final int PARALLEL_THRESHOLD = 256;
+
+  private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  });
+
+  private final Cache<VerifiedPair, Boolean> verified;
+
+  public FulfillmentVerifier() {
+    this(10_000);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param cacheSize The maximum number of verified (condition, fulfillment) pairs to remember.
+   */
+  public FulfillmentVerifier(final int cacheSize) {
+    Preconditions.checkArgument(cacheSize >= 0, "cacheSize must not be negative");
+    this.verified = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+  }
+
+  /**
+   * Determine whether {@code fulfillment} fulfills {@code condition}.
+   */
+  public boolean verify(final Condition condition, final Fulfillment fulfillment) {
+    Objects.requireNonNull(condition);
+    Objects.requireNonNull(fulfillment);
+
+    final VerifiedPair pair = new VerifiedPair(condition, fulfillment);
+    if (verified.getIfPresent(pair) != null) {
+      return true;
+    }
+    if (computeVerification(condition, fulfillment)) {
+      verified.put(pair, Boolean.TRUE);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Determine whether each fulfillment fulfills the condition at the same position in {@code
+   * conditions}, verifying large batches in parallel.
+   *
+   * @return An array whose elements correspond to those of {@code fulfillments}.
+   */
+  public boolean[] verifyAll(
+      final List<? extends Condition> conditions, final List<? extends Fulfillment> fulfillments
+  ) {
+    Objects.requireNonNull(conditions);
+    Objects.requireNonNull(fulfillments);
+    Preconditions.checkArgument(conditions.size() == fulfillments.size(),
+        "Expected one condition for each fulfillment");
+
+    final boolean[] results = new boolean[fulfillments.size()];
+    IntStream indices = IntStream.range(0, results.length);
+    if (results.length >= PARALLEL_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1) {
+      indices = indices.parallel();
+    }
+    indices.forEach(i -> results[i] = verify(conditions.get(i), fulfillments.get(i)));
+    return results;
+  }
+
+  /**
+   * Forget every verified pair.
+   */
+  public void clear() {
+    verified.invalidateAll();
+  }
+
+  private static boolean computeVerification(
+      final Condition condition, final Fulfillment fulfillment
+  ) {
+    if (fulfillment instanceof PreimageSha256Fulfillment
+        && condition instanceof PreimageSha256Condition) {
+      final byte[] preimage = ((PreimageSha256Fulfillment) fulfillment).getPreimage();
+      return condition.getCost() == preimage.length
+          && MessageDigest.isEqual(SHA_256.get().digest(preimage), condition.getFingerprint());
+    }
+    return fulfillment.verify(condition, EMPTY_MESSAGE);
+  }
+
+  /**
+   * A (condition, fulfillment) pair that has been verified.
+   */
+  private static final class VerifiedPair {
+
+    private final Condition condition;
+    private final Fulfillment fulfillment;
+    private final int hashCode;
+
+    private VerifiedPair(final Condition condition, final Fulfillment fulfillment) {
+      this.condition = condition;
+      this.fulfillment = fulfillment;
+      this.hashCode = 31 * condition.hashCode() + fulfillment.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof VerifiedPair)) {
+        return false;
+      }
+      final VerifiedPair other = (VerifiedPair) obj;
+      return condition.equals(other.condition) && fulfillment.equals(other.fulfillment);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
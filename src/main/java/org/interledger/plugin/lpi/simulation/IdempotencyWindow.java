@@ -0,0 +1,127 @@
+package org.interledger.plugin.lpi.simulation;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects operations that are repeated within a fixed window of time, such as transfers and
+ * messages that are replayed by a client that retries after reconnecting.
+ *
+ * Each registered key is held, with the value it was registered with, in a set of fixed size that
+ * forgets keys once the window has passed or once the set is full, whichever comes first. A key
+ * that is in the set is a confirmed {@link Status#DUPLICATE}, and its value can be compared with
+ * the repeated one. A key that isn't is reported as {@link Status#NEW}, but it may have been
+ * forgotten, so a caller that must never accept a duplicate should fall back to an authoritative
+ * check if it has one.
+ *
+ * @param <K> The type of key.
+ * @param <V> The type of value registered with each key.
+ */
+public class IdempotencyWindow<K, V> {
+
+  private final Cache<K, V> recentKeys;
+
+  private final LongAdder duplicates = new LongAdder();
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param window   How long each key is remembered for.
+   * @param capacity The maximum number of keys remembered at once.
+   * @param ticker   The {@link Ticker} used to measure the window.
+   */
+  public IdempotencyWindow(final Duration window, final int capacity, final Ticker ticker) {
+    final long windowNanos = Objects.requireNonNull(window).toNanos();
+    Preconditions.checkArgument(windowNanos > 0, "window must be positive");
+    Preconditions.checkArgument(capacity > 0, "capacity must be positive");
+
+    this.recentKeys = CacheBuilder.newBuilder()
+        .maximumSize(capacity)
+        .expireAfterWrite(windowNanos, TimeUnit.NANOSECONDS)
+        .ticker(Objects.requireNonNull(ticker))
+        .build();
+  }
+
+  /**
+   * Record that {@code key} has been seen with {@code value}, unless it was already registered
+   * within the window.
+   *
+   * @return A {@link Registration} describing whether {@code key} is new.
+   */
+  public Registration<V> register(final K key, final V value) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+
+    final V existing = recentKeys.asMap().putIfAbsent(key, value);
+    if (existing != null) {
+      duplicates.increment();
+      return new Registration<>(Status.DUPLICATE, existing);
+    } else {
+      return new Registration<>(Status.NEW, null);
+    }
+  }
+
+  /**
+   * Forget every registered key.
+   */
+  public void clear() {
+    recentKeys.invalidateAll();
+  }
+
+  /**
+   * The number of registrations that were confirmed to be duplicates.
+   */
+  public long getDuplicateCount() {
+    return duplicates.sum();
+  }
+
+  /**
+   * Whether a key is new within the window.
+   */
+  public enum Status {
+    /**
+     * The key isn't remembered, either because it hasn't been registered within the window or
+     * because it has been forgotten to make room for newer keys.
+     */
+    NEW,
+
+    /**
+     * The key was registered within the window, with the value given by {@link
+     * Registration#getPrevious()}.
+     */
+    DUPLICATE
+  }
+
+  /**
+   * The outcome of {@link IdempotencyWindow#register(Object, Object)}.
+   */
+  public static final class Registration<V> {
+
+    private final Status status;
+    private final V previous;
+
+    private Registration(final Status status, final V previous) {
+      this.status = Objects.requireNonNull(status);
+      this.previous = previous;
+    }
+
+    public Status getStatus() {
+      return status;
+    }
+
+    /**
+     * The value that the key was first registered with, if the key is a {@link Status#DUPLICATE}.
+     */
+    public Optional<V> getPrevious() {
+      return Optional.ofNullable(previous);
+    }
+  }
+}
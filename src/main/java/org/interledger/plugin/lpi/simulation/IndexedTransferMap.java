@@ -0,0 +1,518 @@
+package org.interledger.plugin.lpi.simulation;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.Condition;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger.TransferHolder;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger.TransferStatus;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.TransferId;
+
+import com.google.common.collect.ForwardingConcurrentMap;
+import com.google.common.collect.Maps;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * The transfers held by a {@link SimulatedLedger}, keyed by {@link TransferId}, together with two
+ * secondary indices: one from each account to the transfers that it sent or received, ordered by
+ * the time they were prepared, and one from the fingerprint of each execution condition to the
+ * transfers that it locks.
+ *
+ * Accounts are interned into dense ids by an {@link AccountDictionary}. Each account's transfer
+ * history and balance are held in arrays indexed by that id, and each index entry records the ids
+ * of its transfer's source and destination, so that maintaining the index and reading a balance
+ * never compare or hash an address beyond the one lookup of its id.
+ *
+ * The index is maintained by every mutating method of this map, so transfers may be added or
+ * updated through the ordinary {@link Map} API. Each transfer's index entry and balances are
+ * changed atomically with the transfer itself. The key, value and entry views are read-only, since
+ * removing through them would bypass the index.
+ */
+public class IndexedTransferMap extends ForwardingConcurrentMap<TransferId, TransferHolder> {
+
+  // Per-account state is allocated in chunks of this many accounts...
+  private static final int CHUNK_BITS = 10;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+  private static final Comparator<IndexEntry> INDEX_ORDER = Comparator
+      .comparing((IndexEntry entry) -> entry.preparedAt)
+      .thenComparingLong(entry -> entry.sequence);
+
+  private final ConcurrentMap<TransferId, TransferHolder> transfers;
+
+  // The index entry for each transfer, so that it can be found again when the transfer changes...
+  private final ConcurrentMap<TransferId, IndexEntry> indexEntries;
+  private final ConcurrentMap<ByteBuffer, Set<TransferId>> conditionIndex;
+
+  private final AccountDictionary accounts;
+  private volatile AccountChunk[] accountChunks;
+  // Set if any balance no longer fits in a long, in which case balances are computed from history.
+  private volatile boolean balancesOverflowed;
+
+  // Breaks ties between transfers that were prepared at the same instant...
+  private final AtomicLong sequence;
+
+  public IndexedTransferMap() {
+    this.transfers = Maps.newConcurrentMap();
+    this.indexEntries = Maps.newConcurrentMap();
+    this.conditionIndex = Maps.newConcurrentMap();
+    this.accounts = new AccountDictionary();
+    this.accountChunks = new AccountChunk[0];
+    this.sequence = new AtomicLong();
+  }
+
+  @Override
+  protected ConcurrentMap<TransferId, TransferHolder> delegate() {
+    return transfers;
+  }
+
+  @Override
+  public TransferHolder put(final TransferId transferId, final TransferHolder transferHolder) {
+    Objects.requireNonNull(transferHolder);
+    return update(transferId, existing -> transferHolder);
+  }
+
+  @Override
+  public void putAll(final Map<? extends TransferId, ? extends TransferHolder> map) {
+    map.forEach(this::put);
+  }
+
+  @Override
+  public TransferHolder putIfAbsent(
+      final TransferId transferId, final TransferHolder transferHolder
+  ) {
+    Objects.requireNonNull(transferHolder);
+    return update(transferId, existing -> existing == null ? transferHolder : existing);
+  }
+
+  @Override
+  public TransferHolder replace(final TransferId transferId, final TransferHolder transferHolder) {
+    Objects.requireNonNull(transferHolder);
+    return update(transferId, existing -> existing == null ? null : transferHolder);
+  }
+
+  @Override
+  public boolean replace(
+      final TransferId transferId, final TransferHolder oldTransferHolder,
+      final TransferHolder newTransferHolder
+  ) {
+    Objects.requireNonNull(oldTransferHolder);
+    Objects.requireNonNull(newTransferHolder);
+    final TransferHolder previous = update(transferId,
+        existing -> oldTransferHolder.equals(existing) ? newTransferHolder : existing);
+    return oldTransferHolder.equals(previous);
+  }
+
+  @Override
+  public TransferHolder remove(final Object transferId) {
+    if (!(transferId instanceof TransferId)) {
+      return null;
+    }
+    return update((TransferId) transferId, existing -> null);
+  }
+
+  @Override
+  public boolean remove(final Object transferId, final Object transferHolder) {
+    if (!(transferId instanceof TransferId) || transferHolder == null) {
+      return false;
+    }
+    final TransferHolder previous = update((TransferId) transferId,
+        existing -> transferHolder.equals(existing) ? null : existing);
+    return transferHolder.equals(previous);
+  }
+
+  @Override
+  public void clear() {
+    transfers.clear();
+    indexEntries.clear();
+    conditionIndex.clear();
+    synchronized (accounts) {
+      accountChunks = new AccountChunk[0];
+      balancesOverflowed = false;
+    }
+  }
+
+  @Override
+  public Set<TransferId> keySet() {
+    return Collections.unmodifiableSet(transfers.keySet());
+  }
+
+  @Override
+  public Collection<TransferHolder> values() {
+    return Collections.unmodifiableCollection(transfers.values());
+  }
+
+  @Override
+  public Set<Entry<TransferId, TransferHolder>> entrySet() {
+    return Collections.unmodifiableMap(transfers).entrySet();
+  }
+
+  /**
+   * Every transfer that {@code account} sent or received, in the order that they were prepared.
+   */
+  public Stream<TransferHolder> getHistory(final InterledgerAddress account) {
+    Objects.requireNonNull(account);
+    return Optional.ofNullable(findHistory(account))
+        .map(history -> history.stream()
+            .map(entry -> transfers.get(entry.transferId))
+            .filter(Objects::nonNull))
+        .orElseGet(Stream::empty);
+  }
+
+  /**
+   * The balance of {@code account}: the total of every executed transfer that it received, less
+   * the total of every prepared or executed transfer that it sent. This is a single array read,
+   * unless some balance has grown too large for a {@code long}.
+   */
+  public BigInteger getBalance(final InterledgerAddress account) {
+    Objects.requireNonNull(account);
+    if (balancesOverflowed) {
+      return computeBalance(account);
+    }
+    final int accountId = accounts.find(account);
+    if (accountId == AccountDictionary.NO_ID) {
+      return BigInteger.ZERO;
+    }
+    final AccountChunk chunk = chunkFor(accountId);
+    return BigInteger.valueOf(chunk.balances.get(accountId & (CHUNK_SIZE - 1)));
+  }
+
+  /**
+   * Every transfer whose execution condition is {@code executionCondition}, found with a single
+   * hash lookup on the condition's fingerprint.
+   */
+  public List<TransferHolder> getByExecutionCondition(final Condition executionCondition) {
+    Objects.requireNonNull(executionCondition);
+    final Set<TransferId> transferIds = conditionIndex.get(fingerprintOf(executionCondition));
+    if (transferIds == null) {
+      return Collections.emptyList();
+    }
+    final List<TransferHolder> transferHolders = new ArrayList<>(transferIds.size());
+    for (TransferId transferId : transferIds) {
+      final TransferHolder transferHolder = transfers.get(transferId);
+      if (transferHolder != null) {
+        transferHolders.add(transferHolder);
+      }
+    }
+    return transferHolders;
+  }
+
+  /**
+   * Find one page of the transfers that match {@code query}. The cost is proportional to the
+   * number of transfers that the queried account sent or received within the queried time range,
+   * regardless of how many transfers other accounts hold.
+   */
+  public TransferPage query(final TransferQuery query) {
+    Objects.requireNonNull(query);
+
+    final Optional<IndexEntry> cursor = query.getCursor().map(IndexEntry::fromCursor);
+    final NavigableSet<IndexEntry> history = findHistory(query.getAccount());
+    if (history == null) {
+      return ImmutableTransferPage.builder().build();
+    }
+
+    NavigableSet<IndexEntry> range = history;
+    if (cursor.isPresent()) {
+      range = range.tailSet(cursor.get(), false);
+    }
+    if (query.getPreparedAfter().isPresent()) {
+      range = range.tailSet(IndexEntry.bound(query.getPreparedAfter().get()), true);
+    }
+    if (query.getPreparedBefore().isPresent()) {
+      range = range.headSet(IndexEntry.bound(query.getPreparedBefore().get()), false);
+    }
+
+    final List<TransferHolder> page = new ArrayList<>(Math.min(query.getLimit(), 16));
+    IndexEntry last = null;
+    for (IndexEntry entry : range) {
+      final TransferHolder transferHolder = transfers.get(entry.transferId);
+      if (transferHolder == null || (!query.getStatuses().isEmpty()
+          && !query.getStatuses().contains(transferHolder.getTransferStatus()))) {
+        continue;
+      }
+      if (page.size() == query.getLimit()) {
+        // There is at least one more match, so another page is needed...
+        return ImmutableTransferPage.builder()
+            .transfers(page)
+            .nextCursor(last.toCursor())
+            .build();
+      }
+      page.add(transferHolder);
+      last = entry;
+    }
+    return ImmutableTransferPage.builder().transfers(page).build();
+  }
+
+  /**
+   * Replace the transfer held for {@code transferId} with the result of {@code updater}, which is
+   * given the current transfer or null, and removes it by returning null. The index is updated
+   * while the map holds the lock on {@code transferId}, so concurrent updates to the same transfer
+   * can't see, or adjust balances for, a transfer whose index entry doesn't exist yet.
+   *
+   * @return The transfer held before the update, or null.
+   */
+  private TransferHolder update(
+      final TransferId transferId, final UnaryOperator<TransferHolder> updater
+  ) {
+    Objects.requireNonNull(transferId);
+    final TransferHolder[] previous = new TransferHolder[1];
+    transfers.compute(transferId, (id, existing) -> {
+      previous[0] = existing;
+      final TransferHolder updated = updater.apply(existing);
+      if (updated != existing) {
+        reindex(id, existing, updated);
+      }
+      return updated;
+    });
+    return previous[0];
+  }
+
+  private void reindex(
+      final TransferId transferId, final TransferHolder previous, final TransferHolder current
+  ) {
+    if (current == null) {
+      unindex(transferId, previous);
+    } else if (previous == null) {
+      index(transferId, current);
+    } else if (!sameIndexKey(previous, current)) {
+      unindex(transferId, previous);
+      index(transferId, current);
+    } else {
+      // Only the status may have changed, which affects balances but not the index...
+      final IndexEntry entry = indexEntries.get(transferId);
+      if (entry != null) {
+        adjustBalances(entry, previous, -1);
+        adjustBalances(entry, current, 1);
+      }
+    }
+  }
+
+  private void index(final TransferId transferId, final TransferHolder transferHolder) {
+    final Transfer transfer = transferHolder.getTransfer();
+    final IndexEntry entry = new IndexEntry(
+        transferHolder.getPreparedAt(), sequence.incrementAndGet(), transferId,
+        accounts.intern(transfer.getSourceAccount()),
+        accounts.intern(transfer.getDestinationAccount())
+    );
+    indexEntries.put(transferId, entry);
+    historyFor(entry.sourceId).add(entry);
+    historyFor(entry.destinationId).add(entry);
+    adjustBalances(entry, transferHolder, 1);
+    conditionIndex.compute(fingerprintOf(transfer.getExecutionCondition()),
+        (fingerprint, transferIds) -> {
+          final Set<TransferId> result =
+              transferIds == null ? ConcurrentHashMap.newKeySet() : transferIds;
+          result.add(transferId);
+          return result;
+        });
+  }
+
+  private void unindex(final TransferId transferId, final TransferHolder transferHolder) {
+    final IndexEntry entry = indexEntries.remove(transferId);
+    if (entry != null) {
+      historyFor(entry.sourceId).remove(entry);
+      historyFor(entry.destinationId).remove(entry);
+      adjustBalances(entry, transferHolder, -1);
+    }
+    conditionIndex.computeIfPresent(
+        fingerprintOf(transferHolder.getTransfer().getExecutionCondition()),
+        (fingerprint, transferIds) -> {
+          transferIds.remove(transferId);
+          return transferIds.isEmpty() ? null : transferIds;
+        });
+  }
+
+  /**
+   * Add ({@code sign} of 1) or remove ({@code sign} of -1) the effect of {@code transferHolder} on
+   * the balances of its source and destination accounts.
+   */
+  private void adjustBalances(
+      final IndexEntry entry, final TransferHolder transferHolder, final int sign
+  ) {
+    final TransferStatus status = transferHolder.getTransferStatus();
+    if (status != TransferStatus.PREPARED && status != TransferStatus.EXECUTED) {
+      return;
+    }
+    final BigInteger amount = transferHolder.getTransfer().getAmount();
+    if (amount.bitLength() > 63) {
+      balancesOverflowed = true;
+      return;
+    }
+    final long delta = sign * amount.longValue();
+    addToBalance(entry.sourceId, -delta);
+    if (status == TransferStatus.EXECUTED) {
+      addToBalance(entry.destinationId, delta);
+    }
+  }
+
+  private void addToBalance(final int accountId, final long delta) {
+    final AtomicLongArray balances = chunkFor(accountId).balances;
+    final int index = accountId & (CHUNK_SIZE - 1);
+    long balance;
+    do {
+      balance = balances.get(index);
+      if (delta > 0 ? balance > Long.MAX_VALUE - delta : balance < Long.MIN_VALUE - delta) {
+        balancesOverflowed = true;
+        return;
+      }
+    } while (!balances.compareAndSet(index, balance, balance + delta));
+  }
+
+  /**
+   * Compute the balance of {@code account} from its history, for when balances have overflowed.
+   */
+  private BigInteger computeBalance(final InterledgerAddress account) {
+    final BigInteger debits = getHistory(account)
+        // a debit is anything put on hold or executed from the address...
+        .filter(th -> th.getTransferStatus() == TransferStatus.PREPARED
+            || th.getTransferStatus() == TransferStatus.EXECUTED)
+        .map(TransferHolder::getTransfer)
+        .filter(tx -> tx.getSourceAccount().equals(account))
+        .map(Transfer::getAmount)
+        .reduce(BigInteger.ZERO, BigInteger::add);
+
+    final BigInteger credits = getHistory(account)
+        // a credit is anything executed to the address...
+        .filter(th -> th.getTransferStatus() == TransferStatus.EXECUTED)
+        .map(TransferHolder::getTransfer)
+        .filter(tx -> tx.getDestinationAccount().equals(account))
+        .map(Transfer::getAmount)
+        .reduce(BigInteger.ZERO, BigInteger::add);
+
+    return credits.subtract(debits);
+  }
+
+  private NavigableSet<IndexEntry> findHistory(final InterledgerAddress account) {
+    final int accountId = accounts.find(account);
+    return accountId == AccountDictionary.NO_ID ? null : historyFor(accountId);
+  }
+
+  private NavigableSet<IndexEntry> historyFor(final int accountId) {
+    final AtomicReferenceArray<NavigableSet<IndexEntry>> histories = chunkFor(accountId).histories;
+    final int index = accountId & (CHUNK_SIZE - 1);
+    final NavigableSet<IndexEntry> history = histories.get(index);
+    if (history != null) {
+      return history;
+    }
+    histories.compareAndSet(index, null, new ConcurrentSkipListSet<>(INDEX_ORDER));
+    return histories.get(index);
+  }
+
+  private AccountChunk chunkFor(final int accountId) {
+    final int chunkIndex = accountId >>> CHUNK_BITS;
+    final AccountChunk[] chunks = this.accountChunks;
+    if (chunkIndex < chunks.length) {
+      return chunks[chunkIndex];
+    }
+    synchronized (accounts) {
+      // Existing chunks are carried over, so concurrent updates to them are never lost...
+      final AccountChunk[] current = this.accountChunks;
+      if (chunkIndex < current.length) {
+        return current[chunkIndex];
+      }
+      final AccountChunk[] grown = Arrays.copyOf(current, chunkIndex + 1);
+      for (int i = current.length; i < grown.length; i++) {
+        grown[i] = new AccountChunk();
+      }
+      this.accountChunks = grown;
+      return grown[chunkIndex];
+    }
+  }
+
+  private static boolean sameIndexKey(final TransferHolder a, final TransferHolder b) {
+    return a.getPreparedAt().equals(b.getPreparedAt())
+        && a.getTransfer().getSourceAccount().equals(b.getTransfer().getSourceAccount())
+        && a.getTransfer().getDestinationAccount().equals(b.getTransfer().getDestinationAccount())
+        && a.getTransfer().getExecutionCondition().equals(b.getTransfer().getExecutionCondition());
+  }
+
+  private static ByteBuffer fingerprintOf(final Condition condition) {
+    return ByteBuffer.wrap(condition.getFingerprint());
+  }
+
+  /**
+   * The transfer histories and balances of {@link #CHUNK_SIZE} consecutive account ids.
+   */
+  private static final class AccountChunk {
+
+    private final AtomicLongArray balances = new AtomicLongArray(CHUNK_SIZE);
+    private final AtomicReferenceArray<NavigableSet<IndexEntry>> histories =
+        new AtomicReferenceArray<>(CHUNK_SIZE);
+  }
+
+  /**
+   * The position of a single transfer in the account index.
+   */
+  private static class IndexEntry {
+
+    private final Instant preparedAt;
+    private final long sequence;
+    private final TransferId transferId;
+    private final int sourceId;
+    private final int destinationId;
+
+    private IndexEntry(
+        final Instant preparedAt, final long sequence, final TransferId transferId,
+        final int sourceId, final int destinationId
+    ) {
+      this.preparedAt = Objects.requireNonNull(preparedAt);
+      this.sequence = sequence;
+      this.transferId = transferId;
+      this.sourceId = sourceId;
+      this.destinationId = destinationId;
+    }
+
+    /**
+     * An entry that sorts before every transfer prepared at or after {@code preparedAt}.
+     */
+    private static IndexEntry bound(final Instant preparedAt) {
+      return new IndexEntry(
+          preparedAt, Long.MIN_VALUE, null, AccountDictionary.NO_ID, AccountDictionary.NO_ID
+      );
+    }
+
+    private static IndexEntry fromCursor(final String cursor) {
+      final String[] parts = cursor.split(":");
+      try {
+        if (parts.length == 3) {
+          return new IndexEntry(
+              Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])),
+              Long.parseLong(parts[2]),
+              null,
+              AccountDictionary.NO_ID,
+              AccountDictionary.NO_ID
+          );
+        }
+      } catch (NumberFormatException e) {
+        // Fall through to the exception below...
+      }
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+
+    private String toCursor() {
+      return preparedAt.getEpochSecond() + ":" + preparedAt.getNano() + ":" + sequence;
+    }
+  }
+}
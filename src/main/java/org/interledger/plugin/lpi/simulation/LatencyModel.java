@@ -0,0 +1,152 @@
+package org.interledger.plugin.lpi.simulation;
+
+import com.google.common.base.Preconditions;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Determines how long a simulated ledger operation takes. Every random choice is drawn from the
+ * supplied {@link Random}, so a model that is sampled in the same order with the same seed always
+ * produces the same delays.
+ */
+@FunctionalInterface
+public interface LatencyModel {
+
+  /**
+   * A model where every operation completes immediately.
+   */
+  static LatencyModel none() {
+    return random -> 0L;
+  }
+
+  /**
+   * A model where every operation takes exactly {@code latency}.
+   */
+  static LatencyModel fixed(final Duration latency) {
+    final long nanos = requireNonNegative(latency).toNanos();
+    return random -> nanos;
+  }
+
+  /**
+   * A model where operations take a duration that is uniformly distributed between {@code min} and
+   * {@code max}.
+   */
+  static LatencyModel uniform(final Duration min, final Duration max) {
+    final long minNanos = requireNonNegative(min).toNanos();
+    final long maxNanos = requireNonNegative(max).toNanos();
+    Preconditions.checkArgument(maxNanos >= minNanos, "max must not be less than min");
+    return random -> minNanos + (long) (random.nextDouble() * (maxNanos - minNanos));
+  }
+
+  /**
+   * A model where operations take an exponentially distributed duration with the given mean, which
+   * is typical of a ledger that is processing requests from a queue.
+   */
+  static LatencyModel exponential(final Duration mean) {
+    final long meanNanos = requireNonNegative(mean).toNanos();
+    return random -> (long) (-Math.log(1 - random.nextDouble()) * meanNanos);
+  }
+
+  /**
+   * A model where operations take a log-normally distributed duration, which is typical of a ledger
+   * backed by a network service. Most operations take roughly {@code median}, with a long tail
+   * whose length is governed by {@code sigma}.
+   */
+  static LatencyModel logNormal(final Duration median, final double sigma) {
+    final double mu = Math.log(requireNonNegative(median).toNanos());
+    Preconditions.checkArgument(sigma >= 0, "sigma must not be negative");
+    return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+  }
+
+  /**
+   * A model where operations take one of {@code samples}, chosen uniformly at random. This is
+   * useful for replaying latencies observed against a real ledger.
+   */
+  static LatencyModel sampled(final Duration... samples) {
+    Preconditions.checkArgument(samples.length > 0, "At least one sample is required");
+    final long[] nanos = Arrays.stream(samples)
+        .map(LatencyModel::requireNonNegative)
+        .mapToLong(Duration::toNanos)
+        .toArray();
+    return random -> nanos[random.nextInt(nanos.length)];
+  }
+
+  /**
+   * A model that adds occasional stalls to {@code base}. Each operation starts a stall with
+   * probability {@code stallProbability}; once a stall starts, it also slows the following {@code
+   * burstLength - 1} operations, simulating a ledger that pauses (for example, for a garbage
+   * collection or a leader election) while requests pile up.
+   *
+   * @param base             The {@link LatencyModel} for operations outside of a stall.
+   * @param stallProbability The probability that any given operation starts a stall.
+   * @param stallDuration    The additional latency of every operation during a stall.
+   * @param burstLength      The number of consecutive operations affected by each stall.
+   *
+   * @return A model that tracks the current stall, so each {@link FaultInjector} uses its own
+   *     {@link #newInstance()}.
+   */
+  static LatencyModel withStalls(
+      final LatencyModel base, final double stallProbability, final Duration stallDuration,
+      final int burstLength
+  ) {
+    Objects.requireNonNull(base);
+    Preconditions.checkArgument(stallProbability >= 0 && stallProbability <= 1,
+        "stallProbability must be between 0 and 1");
+    Preconditions.checkArgument(burstLength > 0, "burstLength must be positive");
+    final long stallNanos = requireNonNegative(stallDuration).toNanos();
+
+    return new LatencyModel() {
+      private final AtomicInteger remainingInBurst = new AtomicInteger();
+
+      @Override
+      public long nextLatencyNanos(final Random random) {
+        final long baseNanos = base.nextLatencyNanos(random);
+        final int remaining = remainingInBurst.get();
+        if (remaining > 0 && remainingInBurst.compareAndSet(remaining, remaining - 1)) {
+          return baseNanos + stallNanos;
+        } else if (random.nextDouble() < stallProbability) {
+          remainingInBurst.set(burstLength - 1);
+          return baseNanos + stallNanos;
+        } else {
+          return baseNanos;
+        }
+      }
+
+      @Override
+      public LatencyModel newInstance() {
+        return withStalls(base.newInstance(), stallProbability, stallDuration, burstLength);
+      }
+    };
+  }
+
+  static Duration requireNonNegative(final Duration duration) {
+    Objects.requireNonNull(duration);
+    Preconditions.checkArgument(!duration.isNegative(), "Latency must not be negative");
+    return duration;
+  }
+
+  /**
+   * Choose the latency of the next operation.
+   *
+   * @param random The {@link Random} to draw from.
+   *
+   * @return A non-negative number of nanoseconds.
+   */
+  long nextLatencyNanos(Random random);
+
+  /**
+   * A model that behaves like this one, but with its own copy of any state that it keeps between
+   * operations, such as whether a stall is in progress. A {@link FaultInjector} uses a new instance
+   * of each model in its {@link SimulationProfile}, so that ledgers sharing a profile don't affect
+   * each other's latencies.
+   *
+   * @return A new instance, or this model if it keeps no state.
+   */
+  default LatencyModel newInstance() {
+    return this;
+  }
+}
@@ -0,0 +1,28 @@
+package org.interledger.plugin.lpi.simulation;
+
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+
+/**
+ * The operations performed by a {@link SimulatedLedger} that can be slowed down or made to fail by
+ * a {@link SimulationProfile}.
+ */
+public enum LedgerOperation {
+
+  SEND_TRANSFER,
+
+  FULFILL_CONDITION,
+
+  REJECT_INCOMING_TRANSFER,
+
+  EXPIRE_TRANSFER,
+
+  SEND_MESSAGE,
+
+  GET_FULFILLMENT,
+
+  /**
+   * The delivery of a single event from the ledger to a connected plugin's event emitter. A failure
+   * of this operation causes the event to be dropped.
+   */
+  EVENT_DELIVERY
+}
@@ -0,0 +1,54 @@
+package org.interledger.plugin.lpi.simulation;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.plugin.lpi.metrics.OperationStats;
+
+import org.immutables.value.Value;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * The outcome of sending a batch of payments across a {@link SimulatedNetwork}.
+ */
+@Value.Immutable
+public interface NetworkReport {
+
+  /**
+   * The wall-clock time between the first payment being sent and the last one completing.
+   */
+  Duration getElapsed();
+
+  /**
+   * The number of payments that were fulfilled end-to-end.
+   */
+  long getFulfilledPayments();
+
+  /**
+   * The number of payments that were rejected, or that did not complete within the network's
+   * payment timeout.
+   */
+  long getFailedPayments();
+
+  /**
+   * End-to-end latency statistics, measured by the sender from preparing the first transfer until
+   * that transfer is fulfilled.
+   */
+  OperationStats getEndToEndStats();
+
+  /**
+   * Latency statistics for each hop, keyed by the ledger prefix of the hop. The latency of a hop is
+   * measured by the sender of that hop's transfer from preparing the transfer until it is
+   * fulfilled, and so includes the latency of every hop after it.
+   */
+  Map<InterledgerAddress, OperationStats> getHopStats();
+
+  /**
+   * The achieved number of fulfilled payments per second.
+   */
+  @Value.Derived
+  default double getPaymentsPerSecond() {
+    final long elapsedNanos = getElapsed().toNanos();
+    return elapsedNanos == 0 ? 0 : getFulfilledPayments() * 1_000_000_000d / elapsedNanos;
+  }
+}
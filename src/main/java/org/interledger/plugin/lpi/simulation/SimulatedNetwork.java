@@ -0,0 +1,684 @@
+package org.interledger.plugin.lpi.simulation;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.Condition;
+import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+import org.interledger.ilp.InterledgerPayment;
+import org.interledger.ilp.InterledgerProtocolError;
+import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.ImmutableTransfer;
+import org.interledger.plugin.lpi.LedgerInfo;
+import org.interledger.plugin.lpi.MockLedgerPlugin;
+import org.interledger.plugin.lpi.MockLedgerPlugin.ExtendedLedgerPluginConfig;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.TransferId;
+import org.interledger.plugin.lpi.events.IncomingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferRejectedEvent;
+import org.interledger.plugin.lpi.events.OutgoingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferRejectedEvent;
+import org.interledger.plugin.lpi.exceptions.LedgerPluginException;
+import org.interledger.plugin.lpi.exceptions.TransferNotAcceptedException;
+import org.interledger.plugin.lpi.handlers.AbstractIncomingTransferEventHandler;
+import org.interledger.plugin.lpi.handlers.AbstractOutgoingTransferEventHandler;
+import org.interledger.plugin.lpi.metrics.OperationStats;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-process network of {@link SimulatedLedger}s, joined by {@link ConnectorNode}s, that can
+ * route multi-hop Interledger payments end-to-end.
+ *
+ * Each ledger has its own prefix and currency scale. A payment is sent from an account on one
+ * ledger to an account on another; every connector along the way forwards the transfer to the
+ * ledger that is the fewest hops from the destination, converting the amount between the currency
+ * scales of the two ledgers, and the receiver fulfills the final transfer so that the fulfillment
+ * can propagate back to the sender. Every participant talks to its ledger through an ordinary
+ * {@link MockLedgerPlugin}, so a {@link SimulationProfile} on any ledger affects the whole path.
+ *
+ * WARNING: This network is not meant for production usage. It is meant for simulation and testing
+ * purposes only.
+ */
+public class SimulatedNetwork {
+
+  private static final Duration DEFAULT_PAYMENT_TIMEOUT = Duration.ofSeconds(30);
+
+  protected final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final Duration paymentTimeout;
+
+  private final Map<InterledgerAddress, SimulatedLedger> ledgers;
+  private final List<ConnectorNode> connectors;
+
+  // Hop counts from every ledger to a given destination ledger, cleared whenever the topology
+  // changes...
+  private final Map<InterledgerAddress, Map<InterledgerAddress, Integer>> distances;
+
+  // The plugins used by senders and receivers, keyed by account...
+  private final Map<InterledgerAddress, MockLedgerPlugin> endpoints;
+
+  // Every payment in flight, keyed by the condition that all of its hops share. Only the receiver
+  // may use their fulfillments...
+  private final Map<Condition, PendingPayment> paymentsByCondition;
+
+  // Shared by every ledger, so that a fulfillment is only hashed on the first hop that sees it...
+  private final FulfillmentVerifier fulfillmentVerifier;
+
+  private final Map<TransferId, PendingPayment> pendingPayments;
+  private final Map<TransferId, Long> hopStartTimes;
+  private final Map<InterledgerAddress, Recorder> hopRecorders;
+  private final Recorder endToEndRecorder;
+
+  public SimulatedNetwork() {
+    this(DEFAULT_PAYMENT_TIMEOUT);
+  }
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param paymentTimeout How long each payment may take before it expires.
+   */
+  public SimulatedNetwork(final Duration paymentTimeout) {
+    this.paymentTimeout = Objects.requireNonNull(paymentTimeout);
+    this.ledgers = new ConcurrentHashMap<>();
+    this.connectors = new CopyOnWriteArrayList<>();
+    this.distances = new ConcurrentHashMap<>();
+    this.endpoints = new ConcurrentHashMap<>();
+    this.paymentsByCondition = new ConcurrentHashMap<>();
+    this.fulfillmentVerifier = new FulfillmentVerifier();
+    this.pendingPayments = new ConcurrentHashMap<>();
+    this.hopStartTimes = new ConcurrentHashMap<>();
+    this.hopRecorders = new ConcurrentHashMap<>();
+    this.endToEndRecorder = new Recorder(3);
+  }
+
+  /**
+   * Add a ledger that answers every request instantly.
+   */
+  public SimulatedLedger addLedger(final LedgerInfo ledgerInfo) {
+    return addLedger(ledgerInfo, SimulationProfile.none());
+  }
+
+  /**
+   * Add a ledger whose latency and failures are described by {@code simulationProfile}.
+   */
+  public SimulatedLedger addLedger(
+      final LedgerInfo ledgerInfo, final SimulationProfile simulationProfile
+  ) {
+    Objects.requireNonNull(ledgerInfo);
+    Objects.requireNonNull(simulationProfile);
+
+    final SimulatedLedger simulatedLedger =
+        new SimulatedLedger(ledgerInfo, simulationProfile, fulfillmentVerifier);
+    Preconditions.checkArgument(
+        ledgers.putIfAbsent(ledgerInfo.getLedgerPrefix(), simulatedLedger) == null,
+        "A ledger with prefix %s already exists", ledgerInfo.getLedgerPrefix()
+    );
+    hopRecorders.put(ledgerInfo.getLedgerPrefix(), new Recorder(3));
+    distances.clear();
+    return simulatedLedger;
+  }
+
+  /**
+   * Add a connector with an account called {@code name} on each of the ledgers identified by
+   * {@code ledgerPrefixes}, which will forward payments between any two of them.
+   */
+  public ConnectorNode addConnector(final String name, final InterledgerAddress... ledgerPrefixes) {
+    Objects.requireNonNull(name);
+    Preconditions.checkArgument(ledgerPrefixes.length >= 2,
+        "A connector must be connected to at least two ledgers");
+
+    final List<SimulatedLedger> connectedLedgers = Arrays.stream(ledgerPrefixes)
+        .map(ledgerPrefix -> getLedger(ledgerPrefix).orElseThrow(
+            () -> new IllegalArgumentException("Unknown ledger: " + ledgerPrefix)
+        ))
+        .collect(ImmutableList.toImmutableList());
+
+    final ConnectorNode connectorNode = new ConnectorNode(name, this, connectedLedgers);
+    connectors.add(connectorNode);
+    distances.clear();
+    return connectorNode;
+  }
+
+  public Optional<SimulatedLedger> getLedger(final InterledgerAddress ledgerPrefix) {
+    return Optional.ofNullable(ledgers.get(ledgerPrefix));
+  }
+
+  public Collection<SimulatedLedger> getLedgers() {
+    return Collections.unmodifiableCollection(ledgers.values());
+  }
+
+  public List<ConnectorNode> getConnectors() {
+    return Collections.unmodifiableList(connectors);
+  }
+
+  /**
+   * The number of payments that have been sent but not yet fulfilled, rejected or abandoned.
+   */
+  public int getPendingPaymentCount() {
+    return pendingPayments.size();
+  }
+
+  /**
+   * Send a single payment of {@code amount}, denominated in the source ledger's currency scale.
+   *
+   * @param sourceAccount      The sending account, on any ledger in this network.
+   * @param destinationAccount The receiving account, on any ledger in this network.
+   * @param amount             The amount to send.
+   *
+   * @return A {@link CompletableFuture} that completes with the sender's transfer once it has been
+   *     fulfilled, or exceptionally if the payment is rejected. Cancelling it abandons the payment,
+   *     so that the receiver rejects the payment if it arrives later.
+   */
+  public CompletableFuture<Transfer> sendPayment(
+      final InterledgerAddress sourceAccount, final InterledgerAddress destinationAccount,
+      final BigInteger amount
+  ) {
+    Objects.requireNonNull(sourceAccount);
+    Objects.requireNonNull(destinationAccount);
+    Objects.requireNonNull(amount);
+
+    final SimulatedLedger sourceLedger = ledgerFor(sourceAccount).orElseThrow(
+        () -> new IllegalArgumentException("No ledger for source account: " + sourceAccount));
+    final SimulatedLedger destinationLedger = ledgerFor(destinationAccount).orElseThrow(
+        () -> new IllegalArgumentException("No ledger for destination: " + destinationAccount));
+    final InterledgerAddress sourceLedgerPrefix = sourceLedger.getLedgerInfo().getLedgerPrefix();
+    final TransferId transferId = TransferId.next();
+
+    final Optional<InterledgerAddress> firstRecipient =
+        nextRecipient(sourceLedgerPrefix, destinationAccount);
+    if (!firstRecipient.isPresent()) {
+      final CompletableFuture<Transfer> unreachable = new CompletableFuture<>();
+      unreachable.completeExceptionally(new TransferNotAcceptedException(
+          "No route to " + destinationAccount, sourceLedgerPrefix, transferId,
+          InterledgerProtocolError.builder()
+              .errorCode(ErrorCode.F02_UNREACHABLE)
+              .triggeredByAddress(sourceLedgerPrefix)
+              .triggeredAt(Instant.now())
+              .build()
+      ));
+      return unreachable;
+    }
+
+    // Make sure the receiver is listening before anything is sent...
+    endpoint(destinationLedger, destinationAccount);
+    final MockLedgerPlugin sender = endpoint(sourceLedger, sourceAccount);
+
+    final byte[] preimage = new byte[32];
+    ThreadLocalRandom.current().nextBytes(preimage);
+    final Fulfillment fulfillment = new PreimageSha256Fulfillment(preimage);
+
+    final Transfer transfer = ImmutableTransfer.builder()
+        .transferId(transferId)
+        .ledgerPrefix(sourceLedgerPrefix)
+        .sourceAccount(sourceAccount)
+        .destinationAccount(firstRecipient.get())
+        .amount(amount)
+        .executionCondition(fulfillment.getCondition())
+        .expiresAt(Instant.now().plus(paymentTimeout))
+        .interlederPaymentPacket(InterledgerPayment.builder()
+            .destinationAccount(destinationAccount)
+            .destinationAmount(convert(amount, sourceLedger.getLedgerInfo(),
+                destinationLedger.getLedgerInfo()))
+            .data(new byte[0])
+            .build())
+        .build();
+
+    final PendingPayment pendingPayment = new PendingPayment(fulfillment);
+    paymentsByCondition.put(fulfillment.getCondition(), pendingPayment);
+    pendingPayments.put(transfer.getTransferId(), pendingPayment);
+    hopPrepared(transfer.getTransferId());
+    pendingPayment.future.whenComplete((fulfilledTransfer, error) -> {
+      // Forget the payment if it's abandoned before the sender hears how it ended...
+      if (pendingPayments.remove(transfer.getTransferId(), pendingPayment)) {
+        paymentsByCondition.remove(pendingPayment.getCondition());
+        hopFailed(transfer.getTransferId());
+      }
+      // ...and every later hop whose outcome was never reported...
+      forgetHops(pendingPayment);
+    });
+
+    try {
+      sender.sendTransfer(transfer);
+    } catch (LedgerPluginException e) {
+      pendingPayments.remove(transfer.getTransferId());
+      paymentsByCondition.remove(fulfillment.getCondition());
+      hopFailed(transfer.getTransferId());
+      pendingPayment.future.completeExceptionally(e);
+    }
+    return pendingPayment.future;
+  }
+
+  /**
+   * Send {@code paymentCount} payments of {@code amount} from {@code sourceAccount} to {@code
+   * destinationAccount}, with up to {@code concurrency} payments in flight at once, blocking until
+   * every payment has completed or timed out.
+   *
+   * @return A {@link NetworkReport} describing the run.
+   */
+  public NetworkReport run(
+      final InterledgerAddress sourceAccount, final InterledgerAddress destinationAccount,
+      final BigInteger amount, final int paymentCount, final int concurrency
+  ) {
+    Preconditions.checkArgument(paymentCount > 0, "paymentCount must be positive");
+    Preconditions.checkArgument(concurrency > 0, "concurrency must be positive");
+
+    // Discard anything recorded before this run...
+    endToEndRecorder.reset();
+    hopRecorders.values().forEach(Recorder::reset);
+
+    final AtomicLong remaining = new AtomicLong(paymentCount);
+    final LongAdder fulfilled = new LongAdder();
+    final LongAdder failed = new LongAdder();
+    final ExecutorService senders = Executors.newFixedThreadPool(
+        concurrency,
+        new ThreadFactoryBuilder().setNameFormat("simulated-network-%d").setDaemon(true).build()
+    );
+
+    final long startNanos = System.nanoTime();
+    for (int i = 0; i < concurrency; i++) {
+      senders.execute(() -> {
+        while (remaining.getAndDecrement() > 0) {
+          if (awaitPayment(sendPayment(sourceAccount, destinationAccount, amount))) {
+            fulfilled.increment();
+          } else {
+            failed.increment();
+          }
+        }
+      });
+    }
+
+    try {
+      senders.shutdown();
+      senders.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      senders.shutdownNow();
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while sending payments!", e);
+    }
+    final Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+
+    final ImmutableNetworkReport.Builder report = ImmutableNetworkReport.builder()
+        .elapsed(elapsed)
+        .fulfilledPayments(fulfilled.sum())
+        .failedPayments(failed.sum())
+        .endToEndStats(OperationStats.from(endToEndRecorder.getIntervalHistogram(), failed.sum()));
+    hopRecorders.forEach((ledgerPrefix, recorder) -> {
+      final Histogram histogram = recorder.getIntervalHistogram();
+      if (histogram.getTotalCount() > 0) {
+        report.putHopStats(ledgerPrefix, OperationStats.from(histogram, 0));
+      }
+    });
+    return report.build();
+  }
+
+  private boolean awaitPayment(final CompletableFuture<Transfer> payment) {
+    try {
+      payment.get(paymentTimeout.toNanos(), TimeUnit.NANOSECONDS);
+      return true;
+    } catch (ExecutionException e) {
+      logger.debug("Payment failed: {}", e.getMessage());
+      return false;
+    } catch (TimeoutException e) {
+      logger.debug("Payment timed out");
+      payment.cancel(false);
+      return false;
+    } catch (InterruptedException e) {
+      payment.cancel(false);
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Find the ledger that holds {@code account}, using the longest matching ledger prefix.
+   */
+  Optional<SimulatedLedger> ledgerFor(final InterledgerAddress account) {
+    return ledgers.values().stream()
+        .filter(ledger -> account.startsWith(ledger.getLedgerInfo().getLedgerPrefix()))
+        .max((a, b) -> Integer.compare(
+            a.getLedgerInfo().getLedgerPrefix().getValue().length(),
+            b.getLedgerInfo().getLedgerPrefix().getValue().length()
+        ));
+  }
+
+  /**
+   * Determine the account that a transfer on {@code ledgerPrefix} should be paid to in order to
+   * make progress towards {@code destinationAccount}: either the destination itself, or the
+   * account of a connector on {@code ledgerPrefix} that is closest to the destination.
+   */
+  Optional<InterledgerAddress> nextRecipient(
+      final InterledgerAddress ledgerPrefix, final InterledgerAddress destinationAccount
+  ) {
+    final Optional<SimulatedLedger> destinationLedger = ledgerFor(destinationAccount);
+    if (!destinationLedger.isPresent()) {
+      return Optional.empty();
+    }
+    final InterledgerAddress destinationLedgerPrefix =
+        destinationLedger.get().getLedgerInfo().getLedgerPrefix();
+    if (destinationLedgerPrefix.equals(ledgerPrefix)) {
+      return Optional.of(destinationAccount);
+    }
+
+    ConnectorNode bestConnector = null;
+    int bestDistance = Integer.MAX_VALUE;
+    for (ConnectorNode connectorNode : connectors) {
+      if (connectorNode.getLedgerPrefixes().contains(ledgerPrefix)) {
+        final int distance = nextLedger(connectorNode, ledgerPrefix, destinationLedgerPrefix)
+            .map(next -> distancesTo(destinationLedgerPrefix).get(next))
+            .orElse(Integer.MAX_VALUE);
+        if (distance < bestDistance) {
+          bestConnector = connectorNode;
+          bestDistance = distance;
+        }
+      }
+    }
+    return Optional.ofNullable(bestConnector).map(c -> c.getAccount(ledgerPrefix));
+  }
+
+  /**
+   * Choose the ledger that {@code connectorNode} should forward a transfer received on {@code
+   * incomingLedgerPrefix} to, in order to reach {@code destinationLedgerPrefix} in the fewest hops.
+   */
+  Optional<InterledgerAddress> nextLedger(
+      final ConnectorNode connectorNode, final InterledgerAddress incomingLedgerPrefix,
+      final InterledgerAddress destinationLedgerPrefix
+  ) {
+    final Map<InterledgerAddress, Integer> distancesToDestination =
+        distancesTo(destinationLedgerPrefix);
+    return connectorNode.getLedgerPrefixes().stream()
+        .filter(ledgerPrefix -> !ledgerPrefix.equals(incomingLedgerPrefix))
+        .filter(distancesToDestination::containsKey)
+        .min((a, b) -> Integer.compare(distancesToDestination.get(a),
+            distancesToDestination.get(b)));
+  }
+
+  /**
+   * Compute the number of hops from every reachable ledger to {@code destinationLedgerPrefix}, via
+   * a breadth-first search over the connectors.
+   */
+  private Map<InterledgerAddress, Integer> distancesTo(
+      final InterledgerAddress destinationLedgerPrefix
+  ) {
+    return distances.computeIfAbsent(destinationLedgerPrefix, destination -> {
+      final Map<InterledgerAddress, Integer> result = new HashMap<>();
+      final Queue<InterledgerAddress> queue = new ArrayDeque<>();
+      result.put(destination, 0);
+      queue.add(destination);
+      while (!queue.isEmpty()) {
+        final InterledgerAddress ledgerPrefix = queue.remove();
+        final int distance = result.get(ledgerPrefix);
+        for (ConnectorNode connectorNode : connectors) {
+          if (connectorNode.getLedgerPrefixes().contains(ledgerPrefix)) {
+            for (InterledgerAddress neighbor : connectorNode.getLedgerPrefixes()) {
+              if (!result.containsKey(neighbor)) {
+                result.put(neighbor, distance + 1);
+                queue.add(neighbor);
+              }
+            }
+          }
+        }
+      }
+      return ImmutableMap.copyOf(result);
+    });
+  }
+
+  /**
+   * Convert {@code amount} from the currency scale of {@code from} to that of {@code to}, rounding
+   * down.
+   */
+  static BigInteger convert(final BigInteger amount, final LedgerInfo from, final LedgerInfo to) {
+    final int scaleDifference = to.getCurrencyScale() - from.getCurrencyScale();
+    if (scaleDifference >= 0) {
+      return amount.multiply(BigInteger.TEN.pow(scaleDifference));
+    } else {
+      return amount.divide(BigInteger.TEN.pow(-scaleDifference));
+    }
+  }
+
+  /**
+   * Called by the sender of every hop immediately before preparing its transfer.
+   */
+  void hopPrepared(final TransferId transferId) {
+    hopStartTimes.put(transferId, System.nanoTime());
+  }
+
+  /**
+   * Called by {@code connector} immediately before preparing a transfer that forwards a payment, so
+   * that the hop can be forgotten if the payment ends before the hop's outcome is reported.
+   */
+  void hopForwarded(final ConnectorNode connector, final Transfer outgoingTransfer) {
+    hopPrepared(outgoingTransfer.getTransferId());
+    final PendingPayment pendingPayment =
+        paymentsByCondition.get(outgoingTransfer.getExecutionCondition());
+    if (pendingPayment != null) {
+      pendingPayment.hops.put(outgoingTransfer.getTransferId(), connector);
+      // The payment may have ended while this hop was being added...
+      if (pendingPayment.future.isDone()) {
+        forgetHops(pendingPayment);
+      }
+    }
+  }
+
+  /**
+   * Called by the sender of every hop once its transfer has been fulfilled.
+   */
+  void hopFulfilled(final Transfer transfer) {
+    final Long startNanos = hopStartTimes.remove(transfer.getTransferId());
+    final Recorder recorder = hopRecorders.get(transfer.getLedgerPrefix());
+    if (startNanos != null && recorder != null) {
+      recorder.recordValue(System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Called by the sender of every hop if its transfer is rejected or could not be sent.
+   */
+  void hopFailed(final TransferId transferId) {
+    hopStartTimes.remove(transferId);
+  }
+
+  /**
+   * Create and connect a {@link MockLedgerPlugin} for {@code account} on {@code simulatedLedger}.
+   */
+  static MockLedgerPlugin newPlugin(
+      final SimulatedLedger simulatedLedger, final InterledgerAddress account
+  ) {
+    final ExtendedLedgerPluginConfig config =
+        ExtendedLedgerPluginConfig.forSimulatedLedger(simulatedLedger.getLedgerInfo(), account);
+
+    final MockLedgerPlugin mockLedgerPlugin = new MockLedgerPlugin(config, simulatedLedger);
+    mockLedgerPlugin.connect();
+    return mockLedgerPlugin;
+  }
+
+  private MockLedgerPlugin endpoint(
+      final SimulatedLedger simulatedLedger, final InterledgerAddress account
+  ) {
+    return endpoints.computeIfAbsent(account, a -> {
+      final MockLedgerPlugin mockLedgerPlugin = newPlugin(simulatedLedger, a);
+      mockLedgerPlugin.addLedgerPluginEventHandler(new SenderEventHandler());
+      mockLedgerPlugin.addLedgerPluginEventHandler(new ReceiverEventHandler(mockLedgerPlugin));
+      return mockLedgerPlugin;
+    });
+  }
+
+  private void forgetHops(final PendingPayment pendingPayment) {
+    pendingPayment.hops.forEach((transferId, connector) -> {
+      if (pendingPayment.hops.remove(transferId, connector)) {
+        connector.forget(transferId);
+        hopFailed(transferId);
+      }
+    });
+  }
+
+  private void paymentFailed(
+      final Transfer transfer, final InterledgerProtocolError reason
+  ) {
+    final PendingPayment pendingPayment = pendingPayments.remove(transfer.getTransferId());
+    if (pendingPayment != null) {
+      hopFailed(transfer.getTransferId());
+      paymentsByCondition.remove(pendingPayment.getCondition());
+      pendingPayment.future.completeExceptionally(new TransferNotAcceptedException(
+          "Payment was not fulfilled", transfer.getLedgerPrefix(), transfer.getTransferId(), reason
+      ));
+    }
+  }
+
+  /**
+   * Completes payments once the sender's transfer has been fulfilled or rejected.
+   */
+  private class SenderEventHandler extends AbstractOutgoingTransferEventHandler {
+
+    @Override
+    public void onTransferPrepared(OutgoingTransferPreparedEvent event) {
+
+    }
+
+    @Override
+    public void onMessageRequest(OutgoingMessgeRequestEvent event) {
+
+    }
+
+    @Override
+    public void onTransferFulfilled(OutgoingTransferFulfilledEvent event) {
+      final Transfer transfer = event.getTransfer();
+      final PendingPayment pendingPayment = pendingPayments.remove(transfer.getTransferId());
+      if (pendingPayment != null) {
+        hopFulfilled(transfer);
+        endToEndRecorder.recordValue(System.nanoTime() - pendingPayment.startNanos);
+        paymentsByCondition.remove(pendingPayment.getCondition());
+        pendingPayment.future.complete(transfer);
+      }
+    }
+
+    @Override
+    public void onTransferCancelled(OutgoingTransferCancelledEvent event) {
+      paymentFailed(event.getTransfer(), event.getCancellationReason());
+    }
+
+    @Override
+    public void onTransferRejected(OutgoingTransferRejectedEvent event) {
+      paymentFailed(event.getTransfer(), event.getRejectionReason());
+    }
+  }
+
+  /**
+   * Fulfills every transfer that completes a payment to the receiving account.
+   */
+  private class ReceiverEventHandler extends AbstractIncomingTransferEventHandler {
+
+    private final MockLedgerPlugin mockLedgerPlugin;
+
+    private ReceiverEventHandler(final MockLedgerPlugin mockLedgerPlugin) {
+      this.mockLedgerPlugin = Objects.requireNonNull(mockLedgerPlugin);
+    }
+
+    @Override
+    public void onTransferPrepared(IncomingTransferPreparedEvent event) {
+      final Transfer transfer = event.getTransfer();
+      final PendingPayment pendingPayment =
+          paymentsByCondition.get(transfer.getExecutionCondition());
+
+      try {
+        if (pendingPayment == null) {
+          mockLedgerPlugin.rejectIncomingTransfer(transfer.getTransferId(),
+              rejectionReason(ErrorCode.F06_UNEXPECTED_PAYMENT));
+        } else if (transfer.getAmount()
+            .compareTo(transfer.getInterlederPaymentPacket().getDestinationAmount()) < 0) {
+          mockLedgerPlugin.rejectIncomingTransfer(transfer.getTransferId(),
+              rejectionReason(ErrorCode.F04_INSUFFICIENT_DST_AMOUNT));
+        } else {
+          mockLedgerPlugin.fulfillCondition(transfer.getTransferId(), pendingPayment.fulfillment);
+        }
+      } catch (LedgerPluginException e) {
+        logger.warn("Unable to complete payment {}: {}", transfer.getTransferId(), e.getMessage());
+      }
+    }
+
+    @Override
+    public void onTransferFulfilled(IncomingTransferFulfilledEvent event) {
+
+    }
+
+    @Override
+    public void onTransferCancelled(IncomingTransferCancelledEvent event) {
+
+    }
+
+    @Override
+    public void onTransferRejected(IncomingTransferRejectedEvent event) {
+
+    }
+
+    @Override
+    public void onMessageRequest(IncomingMessgeRequestEvent event) {
+
+    }
+
+    private InterledgerProtocolError rejectionReason(final ErrorCode errorCode) {
+      return InterledgerProtocolError.builder()
+          .errorCode(errorCode)
+          .triggeredByAddress(mockLedgerPlugin.getConnectorAccount())
+          .triggeredAt(Instant.now())
+          .build();
+    }
+  }
+
+  private static class PendingPayment {
+
+    private final CompletableFuture<Transfer> future = new CompletableFuture<>();
+    private final long startNanos = System.nanoTime();
+    private final Fulfillment fulfillment;
+
+    // The connector that sent each hop after the first...
+    private final Map<TransferId, ConnectorNode> hops = new ConcurrentHashMap<>();
+
+    private PendingPayment(final Fulfillment fulfillment) {
+      this.fulfillment = Objects.requireNonNull(fulfillment);
+    }
+
+    private Condition getCondition() {
+      return fulfillment.getCondition();
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package org.interledger.plugin.lpi.simulation;
+
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+
+import com.google.common.base.Preconditions;
+import org.immutables.value.Value;
+import org.immutables.value.Value.Default;
+
+import java.util.Map;
+
+/**
+ * Describes how a {@link SimulatedLedger} should deviate from answering instantly and reliably: how
+ * long each {@link LedgerOperation} takes, and how often it fails.
+ *
+ * All random choices are drawn from a single generator seeded with {@link #getSeed()}, so a
+ * single-threaded workload that is replayed against a ledger with the same profile experiences the
+ * same latencies and failures.
+ */
+@Value.Immutable
+public interface SimulationProfile {
+
+  /**
+   * A profile in which every operation completes instantly and never fails.
+   */
+  static SimulationProfile none() {
+    return ImmutableSimulationProfile.builder().build();
+  }
+
+  /**
+   * The {@link LatencyModel} for each operation. Operations that are absent complete instantly.
+   */
+  Map<LedgerOperation, LatencyModel> getLatencyModels();
+
+  /**
+   * The probability, between 0 and 1, that each operation fails. Operations that are absent never
+   * fail.
+   */
+  Map<LedgerOperation, Double> getFailureProbabilities();
+
+  /**
+   * The seed for all random choices made by this profile.
+   */
+  @Default
+  default long getSeed() {
+    return 0L;
+  }
+
+  @Value.Check
+  default void check() {
+    Preconditions.checkArgument(
+        getFailureProbabilities().values().stream().allMatch(p -> p >= 0 && p <= 1),
+        "failureProbabilities must be between 0 and 1"
+    );
+  }
+}
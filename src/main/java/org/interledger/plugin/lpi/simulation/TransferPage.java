@@ -0,0 +1,26 @@
+package org.interledger.plugin.lpi.simulation;
+
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger.TransferHolder;
+
+import org.immutables.value.Value;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * One page of the results of a {@link TransferQuery}.
+ */
+@Value.Immutable
+public interface TransferPage {
+
+  /**
+   * The matching transfers, in the order that they were prepared.
+   */
+  List<TransferHolder> getTransfers();
+
+  /**
+   * An opaque cursor that can be set as {@link TransferQuery#getCursor()} to fetch the next page,
+   * or empty if there are no more matching transfers.
+   */
+  Optional<String> getNextCursor();
+}
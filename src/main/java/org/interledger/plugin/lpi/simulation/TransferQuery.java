@@ -0,0 +1,60 @@
+package org.interledger.plugin.lpi.simulation;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger.TransferStatus;
+
+import com.google.common.base.Preconditions;
+import org.immutables.value.Value;
+import org.immutables.value.Value.Default;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A query for one page of the transfers that an account sent or received on a {@link
+ * SimulatedLedger}, in the order that they were prepared.
+ */
+@Value.Immutable
+public interface TransferQuery {
+
+  /**
+   * The account that is either the source or the destination of every matching transfer.
+   */
+  InterledgerAddress getAccount();
+
+  /**
+   * The statuses of matching transfers. If empty, transfers with any status match.
+   */
+  Set<TransferStatus> getStatuses();
+
+  /**
+   * If present, only transfers prepared at or after this time match.
+   */
+  Optional<Instant> getPreparedAfter();
+
+  /**
+   * If present, only transfers prepared before this time match.
+   */
+  Optional<Instant> getPreparedBefore();
+
+  /**
+   * The maximum number of transfers to return.
+   */
+  @Default
+  default int getLimit() {
+    return 100;
+  }
+
+  /**
+   * The {@link TransferPage#getNextCursor()} of the previous page, or empty to start from the first
+   * matching transfer.
+   */
+  Optional<String> getCursor();
+
+  @Value.Check
+  default void check() {
+    Preconditions.checkArgument(getLimit() > 0, "limit must be positive");
+  }
+}
@@ -0,0 +1,93 @@
+package org.interledger.subprotocols;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * A {@link SubprotocolData} whose payload is a read-only view of a {@link ByteBuffer}, such as a
+ * slice of the (possibly direct) buffer that a BTP packet was read into, so that the payload is
+ * never copied on its way to a handler.
+ *
+ * Because the payload isn't copied, it reflects any later changes to the buffer that it was created
+ * from; callers must not reuse that region of the buffer until the payload has been handled.
+ */
+@SuppressWarnings("deprecation")
+public final class ByteBufferSubprotocolData implements SubprotocolData {
+
+  private final String protocolName;
+  private final String dataContentType;
+  private final ByteBuffer data;
+
+  private ByteBufferSubprotocolData(
+      final String protocolName, final String dataContentType, final ByteBuffer data
+  ) {
+    this.protocolName = Objects.requireNonNull(protocolName);
+    this.dataContentType = Objects.requireNonNull(dataContentType);
+    this.data = data;
+  }
+
+  /**
+   * Construct a {@link ByteBufferSubprotocolData} whose payload is the remaining bytes of {@code
+   * data}, between its position and its limit. Neither the bytes nor the position and limit of
+   * {@code data} are modified.
+   */
+  public static ByteBufferSubprotocolData of(
+      final String protocolName, final String dataContentType, final ByteBuffer data
+  ) {
+    Objects.requireNonNull(data);
+    return new ByteBufferSubprotocolData(
+        protocolName, dataContentType, data.slice().asReadOnlyBuffer()
+    );
+  }
+
+  @Override
+  public String getProtocolName() {
+    return protocolName;
+  }
+
+  @Override
+  public String getDataContentType() {
+    return dataContentType;
+  }
+
+  /**
+   * A copy of the payload. Use {@link #getDataBuffer()} to read it without copying.
+   */
+  @Override
+  public byte[] getData() {
+    final byte[] copy = new byte[data.remaining()];
+    data.duplicate().get(copy);
+    return copy;
+  }
+
+  @Override
+  public ByteBuffer getDataBuffer() {
+    return data.duplicate();
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof ByteBufferSubprotocolData)) {
+      return false;
+    }
+    final ByteBufferSubprotocolData other = (ByteBufferSubprotocolData) obj;
+    return protocolName.equals(other.protocolName)
+        && dataContentType.equals(other.dataContentType)
+        && data.equals(other.data);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(protocolName, dataContentType, data);
+  }
+
+  @Override
+  public String toString() {
+    return "ByteBufferSubprotocolData{protocolName=" + protocolName
+        + ", dataContentType=" + dataContentType
+        + ", data=" + data.remaining() + " bytes}";
+  }
+}
@@ -2,6 +2,8 @@ package org.interledger.subprotocols;
 
 import org.immutables.value.Value;
 
+import java.nio.ByteBuffer;
+
 /**
  * Sub-protocol data that is encapsulated into a Binary Transfer Protocol (BTP) payload.
  *
@@ -25,4 +27,15 @@ public interface SubprotocolData {
    * The data-payload for this particular sub-protocol data.
    */
   byte[] getData();
+
+  /**
+   * The data-payload for this particular sub-protocol data, as a read-only {@link ByteBuffer}
+   * whose position and limit may be changed without affecting this object.
+   *
+   * Prefer this to {@link #getData()} for large payloads: an implementation such as {@link
+   * ByteBufferSubprotocolData} can return its payload without copying it.
+   */
+  default ByteBuffer getDataBuffer() {
+    return ByteBuffer.wrap(getData()).asReadOnlyBuffer();
+  }
 }
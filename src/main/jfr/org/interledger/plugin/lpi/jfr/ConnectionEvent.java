@@ -0,0 +1,31 @@
+package org.interledger.plugin.lpi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for connecting a plugin to its ledger, or disconnecting it.
+ */
+@Name(ConnectionEvent.NAME)
+@Label("Ledger Connection")
+@Category({"Interledger", "Ledger Plugin"})
+@Description("A plugin connected to, or disconnected from, its ledger")
+public final class ConnectionEvent extends Event {
+
+  public static final String NAME = "org.interledger.plugin.Connection";
+
+  @Label("Action")
+  @Description("CONNECT or DISCONNECT")
+  String action;
+
+  @Label("Ledger Prefix")
+  @Description("The prefix of the ledger, once the plugin has connected to it")
+  String ledgerPrefix;
+
+  @Label("Outcome")
+  @Description("ACCEPTED, or the exception that the plugin threw")
+  String outcome;
+}
@@ -0,0 +1,428 @@
+package org.interledger.plugin.lpi.jfr;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.plugin.lpi.ForwardingLedgerPlugin;
+import org.interledger.plugin.lpi.LedgerPlugin;
+import org.interledger.plugin.lpi.LedgerResult;
+import org.interledger.plugin.lpi.Message;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.TransferId;
+import org.interledger.plugin.lpi.events.IncomingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferRejectedEvent;
+import org.interledger.plugin.lpi.events.LedgerInfoChangedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginConnectedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginDisconnectedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginErrorEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginEvent;
+import org.interledger.plugin.lpi.events.OutgoingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferRejectedEvent;
+import org.interledger.plugin.lpi.handlers.ForwardingLedgerPluginEventHandler;
+import org.interledger.plugin.lpi.handlers.LedgerPluginEventHandler;
+import org.interledger.plugin.lpi.metrics.LedgerPluginEventType;
+import org.interledger.plugin.lpi.metrics.LedgerPluginOperation;
+
+import jdk.jfr.Event;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link LedgerPlugin} that emits Java Flight Recorder events for any other implementation, so
+ * that ledger latency can be lined up against garbage collection, lock contention and the rest of
+ * a recording.
+ *
+ * Connecting, disconnecting, sending and resolving transfers and sending messages each emit an
+ * event that lasts as long as the wrapped plugin took. Every transfer and message notification
+ * from the ledger emits an instantaneous event, and every call to a handler added through this
+ * plugin emits a {@link HandlerDispatchEvent}. To see notifications, this plugin adds a handler
+ * of its own to the wrapped plugin when it is created.
+ *
+ * Fulfilling or rejecting a transfer only names it, so the direction and amount of those events
+ * come from the notification that the transfer was prepared, if this plugin saw it while transfer
+ * events were being recorded. A transfer is forgotten once it is resolved through this plugin or
+ * the ledger reports that it was resolved, and at most {@link #MAX_PREPARED_TRANSFERS} transfers
+ * are remembered at a time.
+ *
+ * Every call allocates an event, but its fields are only filled in and committed when the flight
+ * recorder is recording that kind of event. An event that isn't committed never escapes the call,
+ * so once the JIT compiler has inlined it, escape analysis normally removes the allocation and
+ * leaves a check of a flag and the read of the clock that {@link ForwardingLedgerPlugin} makes for
+ * every call. This class is only compiled by JDK 11 and later, and can only be used
+ * on a runtime that includes the {@code jdk.jfr} module.
+ */
+public class FlightRecordingLedgerPlugin extends ForwardingLedgerPlugin<Event> {
+
+  /**
+   * The most transfers whose prepare notification is remembered at a time.
+   */
+  public static final int MAX_PREPARED_TRANSFERS = 4096;
+
+  private static final String ACCEPTED = LedgerResult.Outcome.ACCEPTED.name();
+
+  // Transfers that were prepared while transfer events were being recorded, until resolved...
+  private final ConcurrentMap<TransferId, PreparedTransfer> preparedTransfers;
+
+  /**
+   * Required-args Constructor.
+   *
+   * @param delegate The {@link LedgerPlugin} to record.
+   */
+  public FlightRecordingLedgerPlugin(final LedgerPlugin delegate) {
+    super(delegate);
+    this.preparedTransfers = new ConcurrentHashMap<>();
+    delegate.addLedgerPluginEventHandler(new NotificationRecorder());
+  }
+
+  @Override
+  protected Event beforeCall(final LedgerPluginOperation operation, final Object argument) {
+    final Event event;
+    switch (operation) {
+      case CONNECT:
+      case DISCONNECT:
+        event = new ConnectionEvent();
+        break;
+      case SEND_TRANSFER:
+        event = new TransferEvent();
+        break;
+      case SEND_MESSAGE:
+        event = new MessageEvent();
+        break;
+      case FULFILL_CONDITION:
+      case REJECT_INCOMING_TRANSFER:
+        final TransferEvent transferEvent = new TransferEvent();
+        if (transferEvent.isEnabled()) {
+          // Before the ledger's notification that the transfer was resolved forgets it...
+          describePreparedTransfer(transferEvent, (TransferId) argument);
+        }
+        event = transferEvent;
+        break;
+      default:
+        // Queries of the plugin's state aren't recorded...
+        return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  @Override
+  protected void afterCall(
+      final LedgerPluginOperation operation, final Object argument, final Event event,
+      final long startNanos, final LedgerResult result, final Throwable thrown
+  ) {
+    if (event == null) {
+      return;
+    }
+    event.end();
+    if (!event.shouldCommit()) {
+      return;
+    }
+    final String outcome = outcome(result, thrown);
+    switch (operation) {
+      case CONNECT:
+        commitConnection((ConnectionEvent) event, "CONNECT", outcome);
+        break;
+      case DISCONNECT:
+        commitConnection((ConnectionEvent) event, "DISCONNECT", outcome);
+        break;
+      case SEND_TRANSFER:
+        commitPrepare((TransferEvent) event, (Transfer) argument, outcome);
+        break;
+      case SEND_MESSAGE:
+        commitMessage((MessageEvent) event, "SEND", (Message) argument, outcome);
+        break;
+      case FULFILL_CONDITION:
+        commitResolve((TransferEvent) event, "FULFILL", (TransferId) argument, outcome);
+        break;
+      case REJECT_INCOMING_TRANSFER:
+        commitResolve((TransferEvent) event, "REJECT", (TransferId) argument, outcome);
+        break;
+      default:
+        break;
+    }
+  }
+
+  @Override
+  public UUID addLedgerPluginEventHandler(final LedgerPluginEventHandler eventHandler) {
+    final RecordingLedgerPluginEventHandler recordingHandler =
+        new RecordingLedgerPluginEventHandler(Objects.requireNonNull(eventHandler));
+    final UUID handlerId = getDelegate().addLedgerPluginEventHandler(recordingHandler);
+    recordingHandler.handlerId = handlerId;
+    return handlerId;
+  }
+
+  /**
+   * Describe how a call to the wrapped plugin turned out: {@code ACCEPTED}, the reason that the
+   * ledger rejected it, or the class of the exception that it threw.
+   */
+  private static String outcome(final LedgerResult result, final Throwable thrown) {
+    if (thrown != null) {
+      return thrown.getClass().getName();
+    }
+    return result == null ? ACCEPTED : result.getOutcome().name();
+  }
+
+  /**
+   * The prefix of the wrapped plugin's ledger, or {@code null} if the plugin can't say. This is
+   * only called while committing an event, where an exception would hide the outcome of the call
+   * being recorded.
+   */
+  private String ledgerPrefix() {
+    try {
+      return toString(getDelegate().getLedgerInfo().getLedgerPrefix());
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static String toString(final InterledgerAddress address) {
+    return address == null ? null : address.getValue();
+  }
+
+  private static String toString(final TransferId transferId) {
+    return transferId == null ? null : transferId.value().toString();
+  }
+
+  private static void commitPrepare(
+      final TransferEvent event, final Transfer transfer, final String outcome
+  ) {
+    event.action = "PREPARE";
+    event.direction = "OUTGOING";
+    if (transfer != null) {
+      event.transferId = toString(transfer.getTransferId());
+      event.ledgerPrefix = toString(transfer.getLedgerPrefix());
+      event.amount = Objects.toString(transfer.getAmount(), null);
+    }
+    event.outcome = outcome;
+    event.commit();
+  }
+
+  /**
+   * Fill in what the prepare notification said about a transfer that is about to be resolved, if
+   * this plugin remembers it.
+   */
+  private void describePreparedTransfer(final TransferEvent event, final TransferId transferId) {
+    final PreparedTransfer preparedTransfer =
+        transferId == null ? null : preparedTransfers.get(transferId);
+    if (preparedTransfer != null) {
+      event.direction = preparedTransfer.direction;
+      event.ledgerPrefix = preparedTransfer.ledgerPrefix;
+      event.amount = preparedTransfer.amount;
+    }
+  }
+
+  private void commitConnection(
+      final ConnectionEvent event, final String action, final String outcome
+  ) {
+    event.action = action;
+    event.ledgerPrefix = ledgerPrefix();
+    event.outcome = outcome;
+    event.commit();
+  }
+
+  private void commitResolve(
+      final TransferEvent event, final String action, final TransferId transferId,
+      final String outcome
+  ) {
+    event.action = action;
+    event.transferId = toString(transferId);
+    if (event.direction == null) {
+      // A plugin is only asked to resolve transfers paid to its account...
+      event.direction = "INCOMING";
+      event.ledgerPrefix = ledgerPrefix();
+    }
+    event.outcome = outcome;
+    event.commit();
+    if (transferId != null && ACCEPTED.equals(outcome)) {
+      preparedTransfers.remove(transferId);
+    }
+  }
+
+  private static void commitMessage(
+      final MessageEvent event, final String action, final Message message, final String outcome
+  ) {
+    event.action = action;
+    if (message != null) {
+      event.messageId = message.getId() == null ? null : message.getId().value().toString();
+      event.ledgerPrefix = toString(message.getLedgerPrefix());
+      event.fromAddress = toString(message.getFromAddress());
+      event.toAddress = toString(message.getToAddress());
+    }
+    event.outcome = outcome;
+    event.commit();
+  }
+
+  /**
+   * What a prepare notification said about a transfer that hasn't been resolved yet.
+   */
+  private static final class PreparedTransfer {
+
+    private final String direction;
+    private final String ledgerPrefix;
+    private final String amount;
+
+    private PreparedTransfer(final String direction, final Transfer transfer) {
+      this.direction = direction;
+      this.ledgerPrefix = FlightRecordingLedgerPlugin.toString(transfer.getLedgerPrefix());
+      this.amount = Objects.toString(transfer.getAmount(), null);
+    }
+  }
+
+  /**
+   * Emits an instantaneous event for each notification that the wrapped plugin receives from its
+   * ledger, and remembers prepared transfers until they are resolved.
+   */
+  private final class NotificationRecorder implements LedgerPluginEventHandler {
+
+    @Override
+    public void onConnect(final LedgerPluginConnectedEvent event) {
+      // Already recorded around the call to connect...
+    }
+
+    @Override
+    public void onDisconnect(final LedgerPluginDisconnectedEvent event) {
+      // Already recorded around the call to disconnect...
+    }
+
+    @Override
+    public void onError(final LedgerPluginErrorEvent event) {
+      // Errors are recorded by the flight recorder's own exception events...
+    }
+
+    @Override
+    public void onLedgerInfoChanged(final LedgerInfoChangedEvent event) {
+      // Not part of the life of a transfer or message...
+    }
+
+    @Override
+    public void onTransferPrepared(final OutgoingTransferPreparedEvent event) {
+      notified("PREPARE", "OUTGOING", event.getTransfer());
+    }
+
+    @Override
+    public void onTransferFulfilled(final OutgoingTransferFulfilledEvent event) {
+      notified("FULFILL", "OUTGOING", event.getTransfer());
+    }
+
+    @Override
+    public void onTransferCancelled(final OutgoingTransferCancelledEvent event) {
+      notified("CANCEL", "OUTGOING", event.getTransfer());
+    }
+
+    @Override
+    public void onTransferRejected(final OutgoingTransferRejectedEvent event) {
+      notified("REJECT", "OUTGOING", event.getTransfer());
+    }
+
+    @Override
+    public void onMessageRequest(final OutgoingMessgeRequestEvent event) {
+      // Already recorded when the message was sent through this plugin...
+    }
+
+    @Override
+    public void onTransferPrepared(final IncomingTransferPreparedEvent event) {
+      notified("PREPARE", "INCOMING", event.getTransfer());
+    }
+
+    @Override
+    public void onTransferFulfilled(final IncomingTransferFulfilledEvent event) {
+      notified("FULFILL", "INCOMING", event.getTransfer());
+    }
+
+    @Override
+    public void onTransferCancelled(final IncomingTransferCancelledEvent event) {
+      notified("CANCEL", "INCOMING", event.getTransfer());
+    }
+
+    @Override
+    public void onTransferRejected(final IncomingTransferRejectedEvent event) {
+      notified("REJECT", "INCOMING", event.getTransfer());
+    }
+
+    @Override
+    public void onMessageRequest(final IncomingMessgeRequestEvent event) {
+      final MessageEvent messageEvent = new MessageEvent();
+      if (messageEvent.shouldCommit()) {
+        commitMessage(messageEvent, "RECEIVE", event.getMessage(), null);
+      }
+    }
+
+    private void notified(final String action, final String direction, final Transfer transfer) {
+      final TransferEvent event = new TransferEvent();
+      if (!"PREPARE".equals(action)) {
+        preparedTransfers.remove(transfer.getTransferId());
+      } else if (event.isEnabled() && preparedTransfers.size() < MAX_PREPARED_TRANSFERS) {
+        preparedTransfers.put(transfer.getTransferId(), new PreparedTransfer(direction, transfer));
+      }
+      if (event.shouldCommit()) {
+        event.action = action;
+        event.direction = direction;
+        event.notification = true;
+        event.transferId = FlightRecordingLedgerPlugin.toString(transfer.getTransferId());
+        event.ledgerPrefix = FlightRecordingLedgerPlugin.toString(transfer.getLedgerPrefix());
+        event.amount = Objects.toString(transfer.getAmount(), null);
+        event.commit();
+      }
+    }
+  }
+
+  /**
+   * Emits a {@link HandlerDispatchEvent} for each call to a handler.
+   */
+  private static final class RecordingLedgerPluginEventHandler
+      extends ForwardingLedgerPluginEventHandler<HandlerDispatchEvent> {
+
+    // Assigned as soon as the wrapped plugin has registered this handler...
+    private volatile UUID handlerId;
+
+    private RecordingLedgerPluginEventHandler(final LedgerPluginEventHandler handler) {
+      super(handler);
+    }
+
+    @Override
+    protected HandlerDispatchEvent beforeEvent(
+        final LedgerPluginEventType eventType, final LedgerPluginEvent event
+    ) {
+      final HandlerDispatchEvent dispatch = new HandlerDispatchEvent();
+      dispatch.begin();
+      return dispatch;
+    }
+
+    @Override
+    protected void afterEvent(
+        final LedgerPluginEventType eventType, final LedgerPluginEvent event,
+        final HandlerDispatchEvent dispatch, final long startNanos, final boolean failed
+    ) {
+      dispatch.end();
+      if (dispatch.shouldCommit()) {
+        dispatch.handlerId = Objects.toString(handlerId, null);
+        dispatch.eventType = eventType == null ? "LEDGER_INFO_CHANGED" : eventType.name();
+        dispatch.ledgerPrefix = FlightRecordingLedgerPlugin.toString(event.getLedgerPrefix());
+        final Transfer transfer = transferOf(event);
+        if (transfer != null) {
+          dispatch.transferId = FlightRecordingLedgerPlugin.toString(transfer.getTransferId());
+        }
+        dispatch.failed = failed;
+        dispatch.commit();
+      }
+    }
+
+    private static Transfer transferOf(final LedgerPluginEvent event) {
+      if (event instanceof IncomingTransferEvent) {
+        return ((IncomingTransferEvent) event).getTransfer();
+      } else if (event instanceof OutgoingTransferEvent) {
+        return ((OutgoingTransferEvent) event).getTransfer();
+      }
+      return null;
+    }
+  }
+}
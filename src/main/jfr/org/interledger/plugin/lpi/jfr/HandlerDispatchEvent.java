@@ -0,0 +1,36 @@
+package org.interledger.plugin.lpi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for a single call to a ledger plugin event handler.
+ */
+@Name(HandlerDispatchEvent.NAME)
+@Label("Handler Dispatch")
+@Category({"Interledger", "Ledger Plugin"})
+@Description("A ledger plugin event handler handled an event")
+public final class HandlerDispatchEvent extends Event {
+
+  public static final String NAME = "org.interledger.plugin.HandlerDispatch";
+
+  @Label("Handler Id")
+  String handlerId;
+
+  @Label("Event Type")
+  String eventType;
+
+  @Label("Ledger Prefix")
+  String ledgerPrefix;
+
+  @Label("Transfer Id")
+  @Description("The transfer that the event is about, if any")
+  String transferId;
+
+  @Label("Failed")
+  @Description("Whether the handler threw an exception")
+  boolean failed;
+}
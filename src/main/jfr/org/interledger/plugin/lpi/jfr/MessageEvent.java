@@ -0,0 +1,40 @@
+package org.interledger.plugin.lpi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for a message. Sending a message lasts as long as the plugin took to
+ * send it; receiving one is instantaneous.
+ */
+@Name(MessageEvent.NAME)
+@Label("Message")
+@Category({"Interledger", "Ledger Plugin"})
+@Description("A message was sent or received")
+public final class MessageEvent extends Event {
+
+  public static final String NAME = "org.interledger.plugin.Message";
+
+  @Label("Action")
+  @Description("SEND or RECEIVE")
+  String action;
+
+  @Label("Message Id")
+  String messageId;
+
+  @Label("Ledger Prefix")
+  String ledgerPrefix;
+
+  @Label("From")
+  String fromAddress;
+
+  @Label("To")
+  String toAddress;
+
+  @Label("Outcome")
+  @Description("ACCEPTED, the reason the ledger rejected the message, or the exception it threw")
+  String outcome;
+}
@@ -0,0 +1,48 @@
+package org.interledger.plugin.lpi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event for a step in the life of a transfer. A prepare, fulfill or reject
+ * requested through the plugin lasts as long as the plugin took to carry it out; a notification
+ * from the ledger, including a cancellation, is instantaneous.
+ */
+@Name(TransferEvent.NAME)
+@Label("Transfer")
+@Category({"Interledger", "Ledger Plugin"})
+@Description("A transfer was prepared, fulfilled, rejected or cancelled")
+public final class TransferEvent extends Event {
+
+  public static final String NAME = "org.interledger.plugin.Transfer";
+
+  @Label("Action")
+  @Description("PREPARE, FULFILL, REJECT or CANCEL")
+  String action;
+
+  @Label("Direction")
+  @Description("INCOMING or OUTGOING, from the point of view of the connector account")
+  String direction;
+
+  @Label("Notification")
+  @Description("Whether the ledger notified the plugin of this step, rather than being asked to "
+      + "carry it out")
+  boolean notification;
+
+  @Label("Transfer Id")
+  String transferId;
+
+  @Label("Ledger Prefix")
+  String ledgerPrefix;
+
+  @Label("Amount")
+  @Description("The amount of the transfer, if it is known")
+  String amount;
+
+  @Label("Outcome")
+  @Description("ACCEPTED, the reason the ledger rejected the request, or the exception it threw")
+  String outcome;
+}
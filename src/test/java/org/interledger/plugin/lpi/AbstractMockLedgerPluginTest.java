@@ -38,9 +38,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 
-import javax.money.CurrencyUnit;
-import javax.money.Monetary;
-
 /**
  * An abstract class that provides a common test-harness for the Mock ledger plugins defined in this
  * package.
@@ -300,37 +297,6 @@ public abstract class AbstractMockLedgerPluginTest {
   }
 
   protected ExtendedLedgerPluginConfig getLedgerPluginConfig() {
-    return new ExtendedLedgerPluginConfig() {
-
-      @Override
-      public LedgerPluginTypeId getLedgerPluginTypeId() {
-        return LedgerPluginTypeId.of("ilp-plugin-mock");
-      }
-
-      @Override
-      public InterledgerAddress getLedgerPrefix() {
-        return LEDGER_PREFIX;
-      }
-
-      @Override
-      public InterledgerAddress getConnectorAccount() {
-        return CONNECTOR_ACCOUNT_ON_LEDGER;
-      }
-
-      @Override
-      public CurrencyUnit getExpectedCurrencyUnit() {
-        return Monetary.getCurrency("USD");
-      }
-
-      @Override
-      public Map<String, String> getOptions() {
-        return ImmutableMap.of();
-      }
-
-      @Override
-      public String getPassword() {
-        return "password";
-      }
-    };
+    return ExtendedLedgerPluginConfig.forSimulatedLedger(ledgerInfo, CONNECTOR_ACCOUNT_ON_LEDGER);
   }
-}
\ No newline at end of file
+}
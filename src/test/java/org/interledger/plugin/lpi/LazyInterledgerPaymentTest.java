@@ -0,0 +1,121 @@
+package org.interledger.plugin.lpi;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.ilp.InterledgerPayment;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Unit tests for {@link LazyInterledgerPayment}.
+ */
+public class LazyInterledgerPaymentTest {
+
+  private static final byte[] ENCODED = new byte[]{1, 2, 3, 4};
+  private static final InterledgerAddress DESTINATION = InterledgerAddress.of("test1.foo.bob");
+
+  private final AtomicInteger decodeCount = new AtomicInteger();
+
+  private final Function<byte[], InterledgerPayment> decoder = bytes -> {
+    decodeCount.incrementAndGet();
+    return InterledgerPayment.builder()
+        .destinationAccount(DESTINATION)
+        .destinationAmount(BigInteger.TEN)
+        .data(new byte[0])
+        .build();
+  };
+
+  @BeforeMethod
+  public void setup() {
+    decodeCount.set(0);
+  }
+
+  @Test
+  public void testDecodesOnFirstAccess() {
+    final LazyInterledgerPayment payment = LazyInterledgerPayment.of(ENCODED, decoder);
+    assertThat(payment.isDecoded(), is(false));
+    assertThat(decodeCount.get(), is(0));
+
+    assertThat(payment.getDestinationAccount(), is(DESTINATION));
+    assertThat(payment.getDestinationAmount(), is(BigInteger.TEN));
+    assertThat(payment.isDecoded(), is(true));
+    assertThat(decodeCount.get(), is(1));
+  }
+
+  @Test
+  public void testDecodesOnceAcrossThreads() throws Exception {
+    final LazyInterledgerPayment payment = LazyInterledgerPayment.of(ENCODED, decoder);
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<InterledgerAddress>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          return payment.getDestinationAccount();
+        }));
+      }
+      start.countDown();
+      for (Future<InterledgerAddress> future : futures) {
+        assertThat(future.get(), is(DESTINATION));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(decodeCount.get(), is(1));
+  }
+
+  @Test
+  public void testEncodeReusesOriginalBytes() {
+    final LazyInterledgerPayment payment = LazyInterledgerPayment.of(ENCODED.clone(), decoder);
+
+    final byte[] encoded = LazyInterledgerPayment.encode(payment, p -> {
+      throw new AssertionError("Should not re-encode");
+    });
+
+    assertThat(encoded, is(ENCODED));
+    assertThat(payment.isDecoded(), is(false));
+
+    // The caller gets its own copy, which can't change the payment...
+    encoded[0] = 42;
+    assertThat(LazyInterledgerPayment.encode(payment, p -> null), is(ENCODED));
+    assertThat(payment.getEncodedBuffer().get(0), is(ENCODED[0]));
+  }
+
+  @Test
+  public void testEqualityDoesNotDecode() {
+    final LazyInterledgerPayment payment = LazyInterledgerPayment.of(ENCODED, decoder);
+
+    assertThat(payment.equals(LazyInterledgerPayment.of(ENCODED.clone(), decoder)), is(true));
+    assertThat(payment.equals(LazyInterledgerPayment.of(new byte[]{1, 2}, decoder)), is(false));
+    assertThat(decodeCount.get(), is(0));
+  }
+
+  @Test
+  public void testEqualityWithDecodedPayment() {
+    final LazyInterledgerPayment payment = LazyInterledgerPayment.of(ENCODED, decoder);
+
+    assertThat(payment.equals(decoder.apply(ENCODED)), is(true));
+    assertThat(payment.equals(InterledgerPayment.builder()
+        .destinationAccount(DESTINATION)
+        .destinationAmount(BigInteger.ONE)
+        .data(new byte[0])
+        .build()), is(false));
+    assertThat(payment.hashCode(),
+        is(LazyInterledgerPayment.of(ENCODED.clone(), decoder).hashCode()));
+  }
+}
@@ -0,0 +1,458 @@
+package org.interledger.plugin.lpi;
+
+import static org.mockito.Mockito.mock;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+import org.interledger.ilp.InterledgerPayment;
+import org.interledger.ilp.InterledgerProtocolError;
+import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.AbstractLedgerPlugin.SyncLedgerPluginEventEmitter;
+import org.interledger.plugin.lpi.MockLedgerPlugin.ExtendedLedgerPluginConfig;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+import org.interledger.plugin.lpi.events.EventTraceSink;
+import org.interledger.plugin.lpi.events.ImmutableIncomingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.ImmutableIncomingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.ImmutableIncomingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.ImmutableIncomingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.ImmutableIncomingTransferRejectedEvent;
+import org.interledger.plugin.lpi.events.ImmutableLedgerPluginConnectedEvent;
+import org.interledger.plugin.lpi.events.ImmutableLedgerPluginDisconnectedEvent;
+import org.interledger.plugin.lpi.events.ImmutableLedgerPluginErrorEvent;
+import org.interledger.plugin.lpi.events.ImmutableOutgoingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.ImmutableOutgoingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.ImmutableOutgoingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.ImmutableOutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.ImmutableOutgoingTransferRejectedEvent;
+import org.interledger.plugin.lpi.events.IncomingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.IncomingTransferRejectedEvent;
+import org.interledger.plugin.lpi.events.LedgerInfoChangedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginConnectedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginDisconnectedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginErrorEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginEvent;
+import org.interledger.plugin.lpi.events.OutgoingMessgeRequestEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferRejectedEvent;
+import org.interledger.plugin.lpi.handlers.LedgerPluginEventHandler;
+import org.interledger.plugin.lpi.metrics.LedgerPluginEventType;
+import org.interledger.plugin.lpi.metrics.LedgerPluginMetrics;
+
+import com.google.common.collect.Maps;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.AsyncEventBus;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.money.Monetary;
+
+/**
+ * Measures the throughput and latency of emitting each type of event through each {@link
+ * LedgerPluginEventEmitter} to a number of handlers that only pass what they receive to a {@link
+ * Blackhole}, and how emitting holds up while another thread keeps adding and removing a handler.
+ *
+ * Run with {@code mvn -Pbenchmarks verify -Dbenchmark=LedgerPluginEventEmitterBenchmark}, which
+ * also reports allocation with the GC profiler. Every combination of parameters takes a while, so
+ * select just {@code LedgerPluginEventEmitterBenchmark.emit} or {@code
+ * LedgerPluginEventEmitterBenchmark.churn} to compare a change to one or the other.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LedgerPluginEventEmitterBenchmark {
+
+  private static final byte[] PREIMAGE = "quinquagintaquadringentilliardth".getBytes();
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+
+  @Param({"SYNC", "ASYNC"})
+  private EmitterType emitterType;
+
+  @Param({"0", "1", "10", "100"})
+  private int handlers;
+
+  @Param({"CONNECTED", "DISCONNECTED", "ERROR", "OUTGOING_TRANSFER_PREPARED",
+      "OUTGOING_TRANSFER_FULFILLED", "OUTGOING_TRANSFER_REJECTED", "OUTGOING_TRANSFER_CANCELLED",
+      "OUTGOING_MESSAGE_REQUEST", "INCOMING_TRANSFER_PREPARED", "INCOMING_TRANSFER_FULFILLED",
+      "INCOMING_TRANSFER_REJECTED", "INCOMING_TRANSFER_CANCELLED", "INCOMING_MESSAGE_REQUEST"})
+  private LedgerPluginEventType eventType;
+
+  private Emitter emitter;
+  private Consumer<LedgerPluginEventEmitter> emit;
+  private ConsumingHandler churnHandler;
+
+  @Setup
+  public void setup(final Blackhole blackhole) {
+    this.emitter = emitterType.create();
+    for (int i = 0; i < handlers; i++) {
+      emitter.add(new ConsumingHandler(blackhole));
+    }
+    this.emit = emitFunction(eventType);
+    this.churnHandler = new ConsumingHandler(blackhole);
+  }
+
+  @TearDown
+  public void tearDown() {
+    emitter.close();
+  }
+
+  @Benchmark
+  public void emit() {
+    emit.accept(emitter.getEmitter());
+  }
+
+  @Benchmark
+  @Group("churn")
+  @GroupThreads(3)
+  public void churnEmit() {
+    emit.accept(emitter.getEmitter());
+  }
+
+  @Benchmark
+  @Group("churn")
+  @GroupThreads(1)
+  public void churnRegistration() {
+    emitter.add(churnHandler);
+    emitter.remove(churnHandler);
+  }
+
+  /**
+   * Build an event of {@code eventType} once, and return a function that emits it.
+   */
+  private static Consumer<LedgerPluginEventEmitter> emitFunction(
+      final LedgerPluginEventType eventType
+  ) {
+    final Transfer transfer = ImmutableTransfer.builder()
+        .transferId(TransferId.of(UUID.randomUUID()))
+        .ledgerPrefix(LEDGER_PREFIX)
+        .sourceAccount(LEDGER_PREFIX.with("source"))
+        .destinationAccount(LEDGER_PREFIX.with("destination"))
+        .amount(BigInteger.TEN)
+        .executionCondition(new PreimageSha256Fulfillment(PREIMAGE).getCondition())
+        .expiresAt(Instant.now())
+        .interlederPaymentPacket(InterledgerPayment.builder()
+            .destinationAccount(LEDGER_PREFIX.with("destination"))
+            .destinationAmount(BigInteger.TEN)
+            .data(new byte[0])
+            .build())
+        .build();
+    final Message message = ImmutableMessage.builder()
+        .id(MessageId.of(UUID.randomUUID()))
+        .ledgerPrefix(LEDGER_PREFIX)
+        .fromAddress(LEDGER_PREFIX.with("source"))
+        .toAddress(LEDGER_PREFIX.with("destination"))
+        .interlederPaymentPacket(transfer.getInterlederPaymentPacket())
+        .build();
+    final InterledgerProtocolError reason = InterledgerProtocolError.builder()
+        .errorCode(ErrorCode.R00_TRANSFER_TIMED_OUT)
+        .triggeredAt(Instant.now())
+        .triggeredByAddress(LEDGER_PREFIX)
+        .build();
+    final PreimageSha256Fulfillment fulfillment = new PreimageSha256Fulfillment(PREIMAGE);
+
+    switch (eventType) {
+      case CONNECTED: {
+        final LedgerPluginConnectedEvent event =
+            ImmutableLedgerPluginConnectedEvent.builder().ledgerPrefix(LEDGER_PREFIX).build();
+        return emitter -> emitter.emitEvent(event);
+      }
+      case DISCONNECTED: {
+        final LedgerPluginDisconnectedEvent event =
+            ImmutableLedgerPluginDisconnectedEvent.builder().ledgerPrefix(LEDGER_PREFIX).build();
+        return emitter -> emitter.emitEvent(event);
+      }
+      case ERROR: {
+        final LedgerPluginErrorEvent event = ImmutableLedgerPluginErrorEvent.builder()
+            .ledgerPrefix(LEDGER_PREFIX)
+            .error(new RuntimeException("Benchmark"))
+            .build();
+        return emitter -> emitter.emitEvent(event);
+      }
+      case OUTGOING_TRANSFER_PREPARED: {
+        final OutgoingTransferPreparedEvent event =
+            ImmutableOutgoingTransferPreparedEvent.builder().transfer(transfer).build();
+        return emitter -> emitter.emitEvent(event);
+      }
+      case OUTGOING_TRANSFER_FULFILLED: {
+        final OutgoingTransferFulfilledEvent event = ImmutableOutgoingTransferFulfilledEvent
+            .builder().transfer(transfer).fulfillment(fulfillment).build();
+        return emitter -> emitter.emitEvent(event);
+      }
+      case OUTGOING_TRANSFER_REJECTED: {
+        final OutgoingTransferRejectedEvent event = ImmutableOutgoingTransferRejectedEvent
+            .builder().transfer(transfer).rejectionReason(reason).build();
+        return emitter -> emitter.emitEvent(event);
+      }
+      case OUTGOING_TRANSFER_CANCELLED: {
+        final OutgoingTransferCancelledEvent event = ImmutableOutgoingTransferCancelledEvent
+            .builder().transfer(transfer).cancellationReason(reason).build();
+        return emitter -> emitter.emitEvent(event);
+      }
+      case OUTGOING_MESSAGE_REQUEST: {
+        final OutgoingMessgeRequestEvent event =
+            ImmutableOutgoingMessgeRequestEvent.builder().message(message).build();
+        return emitter -> emitter.emitEvent(event);
+      }
+      case INCOMING_TRANSFER_PREPARED: {
+        final IncomingTransferPreparedEvent event =
+            ImmutableIncomingTransferPreparedEvent.builder().transfer(transfer).build();
+        return emitter -> emitter.emitEvent(event);
+      }
+      case INCOMING_TRANSFER_FULFILLED: {
+        final IncomingTransferFulfilledEvent event = ImmutableIncomingTransferFulfilledEvent
+            .builder().transfer(transfer).fulfillment(fulfillment).build();
+        return emitter -> emitter.emitEvent(event);
+      }
+      case INCOMING_TRANSFER_REJECTED: {
+        final IncomingTransferRejectedEvent event = ImmutableIncomingTransferRejectedEvent
+            .builder().transfer(transfer).rejectionReason(reason).build();
+        return emitter -> emitter.emitEvent(event);
+      }
+      case INCOMING_TRANSFER_CANCELLED: {
+        final IncomingTransferCancelledEvent event = ImmutableIncomingTransferCancelledEvent
+            .builder().transfer(transfer).cancellationReason(reason).build();
+        return emitter -> emitter.emitEvent(event);
+      }
+      case INCOMING_MESSAGE_REQUEST: {
+        final IncomingMessgeRequestEvent event =
+            ImmutableIncomingMessgeRequestEvent.builder().message(message).build();
+        return emitter -> emitter.emitEvent(event);
+      }
+      default:
+        throw new IllegalArgumentException("Unknown event type: " + eventType);
+    }
+  }
+
+  /**
+   * The emitters under test. A new emitter is benchmarked by adding a constant here.
+   */
+  public enum EmitterType {
+
+    /**
+     * The {@link SyncLedgerPluginEventEmitter} that an {@link AbstractLedgerPlugin} uses by
+     * default, which calls each handler in turn.
+     */
+    SYNC {
+      @Override
+      Emitter create() {
+        final Map<UUID, LedgerPluginEventHandler> ledgerEventHandlers = Maps.newConcurrentMap();
+        final Map<LedgerPluginEventHandler, UUID> handlerIds = Maps.newConcurrentMap();
+        final LedgerPluginMetrics metrics = new LedgerPluginMetrics();
+        final LedgerPluginEventEmitter emitter = new SyncLedgerPluginEventEmitter(
+            ledgerEventHandlers, metrics, EventTraceSink::discard);
+        return new Emitter(emitter) {
+          @Override
+          void add(final ConsumingHandler handler) {
+            final UUID handlerId = UUID.randomUUID();
+            handlerIds.put(handler, handlerId);
+            metrics.addHandler(handlerId);
+            ledgerEventHandlers.put(handlerId, handler);
+          }
+
+          @Override
+          void remove(final ConsumingHandler handler) {
+            final UUID handlerId = handlerIds.remove(handler);
+            ledgerEventHandlers.remove(handlerId);
+            metrics.removeHandler(handlerId);
+          }
+        };
+      }
+    },
+
+    /**
+     * The {@link QueuedMockLedgerPlugin.AsyncLedgerPluginEventEmitter}, posting to an {@link
+     * AsyncEventBus} that each handler subscribes to. Handlers are called on a single worker
+     * thread, and emitting blocks while its queue is full, so that the measured rate is the rate at
+     * which events are delivered rather than the rate at which they can be queued.
+     */
+    ASYNC {
+      @Override
+      Emitter create() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1024),
+            (task, pool) -> {
+              try {
+                pool.getQueue().put(task);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException(e);
+              }
+            });
+        final EventBus eventBus = new AsyncEventBus(executor);
+        final SimulatedLedger simulatedLedger = new SimulatedLedger(ImmutableLedgerInfo.builder()
+            .currencyScale(8)
+            .currencyUnit(Monetary.getCurrency("USD"))
+            .ledgerPrefix(LEDGER_PREFIX)
+            .build());
+        final LedgerPlugin plugin = new QueuedMockLedgerPlugin(
+            mock(ExtendedLedgerPluginConfig.class), simulatedLedger, eventBus);
+        return new Emitter(plugin.getLedgerPluginEventEmitter()) {
+          @Override
+          void add(final ConsumingHandler handler) {
+            eventBus.register(handler);
+          }
+
+          @Override
+          void remove(final ConsumingHandler handler) {
+            eventBus.unregister(handler);
+          }
+
+          @Override
+          void close() {
+            executor.shutdownNow();
+          }
+        };
+      }
+    };
+
+    abstract Emitter create();
+  }
+
+  /**
+   * An emitter under test, and how to add handlers to it.
+   */
+  abstract static class Emitter {
+
+    private final LedgerPluginEventEmitter emitter;
+
+    Emitter(final LedgerPluginEventEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    LedgerPluginEventEmitter getEmitter() {
+      return emitter;
+    }
+
+    abstract void add(ConsumingHandler handler);
+
+    abstract void remove(ConsumingHandler handler);
+
+    /**
+     * Release any threads that this emitter delivers events on.
+     */
+    void close() {
+    }
+  }
+
+  /**
+   * A handler that only passes the events it receives to a {@link Blackhole}, both directly and as
+   * an {@link EventBus} subscriber. Unlike a shared counter, this adds no contention between the
+   * threads that call it.
+   */
+  static final class ConsumingHandler implements LedgerPluginEventHandler {
+
+    private final Blackhole blackhole;
+
+    ConsumingHandler(final Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void onEvent(final LedgerPluginEvent event) {
+      blackhole.consume(event);
+    }
+
+    @Override
+    public void onTransferPrepared(final IncomingTransferPreparedEvent event) {
+      blackhole.consume(event);
+    }
+
+    @Override
+    public void onTransferFulfilled(final IncomingTransferFulfilledEvent event) {
+      blackhole.consume(event);
+    }
+
+    @Override
+    public void onTransferCancelled(final IncomingTransferCancelledEvent event) {
+      blackhole.consume(event);
+    }
+
+    @Override
+    public void onTransferRejected(final IncomingTransferRejectedEvent event) {
+      blackhole.consume(event);
+    }
+
+    @Override
+    public void onMessageRequest(final IncomingMessgeRequestEvent event) {
+      blackhole.consume(event);
+    }
+
+    @Override
+    public void onTransferPrepared(final OutgoingTransferPreparedEvent event) {
+      blackhole.consume(event);
+    }
+
+    @Override
+    public void onTransferFulfilled(final OutgoingTransferFulfilledEvent event) {
+      blackhole.consume(event);
+    }
+
+    @Override
+    public void onTransferCancelled(final OutgoingTransferCancelledEvent event) {
+      blackhole.consume(event);
+    }
+
+    @Override
+    public void onTransferRejected(final OutgoingTransferRejectedEvent event) {
+      blackhole.consume(event);
+    }
+
+    @Override
+    public void onMessageRequest(final OutgoingMessgeRequestEvent event) {
+      blackhole.consume(event);
+    }
+
+    @Override
+    public void onConnect(final LedgerPluginConnectedEvent event) {
+      blackhole.consume(event);
+    }
+
+    @Override
+    public void onDisconnect(final LedgerPluginDisconnectedEvent event) {
+      blackhole.consume(event);
+    }
+
+    @Override
+    public void onError(final LedgerPluginErrorEvent event) {
+      blackhole.consume(event);
+    }
+
+    @Override
+    public void onLedgerInfoChanged(final LedgerInfoChangedEvent event) {
+      blackhole.consume(event);
+    }
+  }
+}
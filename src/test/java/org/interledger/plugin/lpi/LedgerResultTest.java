@@ -0,0 +1,65 @@
+package org.interledger.plugin.lpi;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.testng.Assert.fail;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.LedgerResult.Outcome;
+import org.interledger.plugin.lpi.exceptions.LedgerPluginNotConnectedException;
+import org.interledger.plugin.lpi.exceptions.TransferNotFoundException;
+
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+
+/**
+ * Unit tests for {@link LedgerResult}.
+ */
+public class LedgerResultTest {
+
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+
+  @Test
+  public void testAccepted() {
+    final LedgerResult result = LedgerResult.accepted();
+
+    assertThat(result.isAccepted(), is(true));
+    assertThat(result.getOutcome(), is(Outcome.ACCEPTED));
+    assertThat(result.getRejectionReason().isPresent(), is(false));
+    result.orElseThrow();
+  }
+
+  @Test
+  public void testFromException() {
+    final TransferNotFoundException exception =
+        new TransferNotFoundException(LEDGER_PREFIX, TransferId.of(UUID.randomUUID()));
+    final LedgerResult result = LedgerResult.fromException(exception, LEDGER_PREFIX);
+
+    assertThat(result.isAccepted(), is(false));
+    assertThat(result.getOutcome(), is(Outcome.TRANSFER_NOT_FOUND));
+    assertThat(result.getRejectionReason().get().getErrorCode(), is(ErrorCode.F00_BAD_REQUEST));
+    assertThat(result.getRejectionReason().get().getTriggeredByAddress(), is(LEDGER_PREFIX));
+    try {
+      result.orElseThrow();
+      fail("Expected a TransferNotFoundException");
+    } catch (TransferNotFoundException e) {
+      assertThat(e, is(sameInstance(exception)));
+    }
+  }
+
+  @Test(expectedExceptions = LedgerPluginNotConnectedException.class)
+  public void testFromUnexpectedException() {
+    LedgerResult.fromException(new LedgerPluginNotConnectedException(LEDGER_PREFIX),
+        LEDGER_PREFIX);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testRejectedCannotBeAccepted() {
+    LedgerResult.rejected(Outcome.ACCEPTED,
+        Outcome.INVALID_TRANSFER.rejectionReason(LEDGER_PREFIX),
+        () -> new LedgerPluginNotConnectedException(LEDGER_PREFIX));
+  }
+}
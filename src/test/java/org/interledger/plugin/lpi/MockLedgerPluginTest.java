@@ -4,11 +4,24 @@ package org.interledger.plugin.lpi;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.testng.Assert.fail;
 
 import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.LedgerResult.Outcome;
 import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
 import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger.TransferHolder;
 import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger.TransferStatus;
+import org.interledger.plugin.lpi.events.EventTrace.Stage;
+import org.interledger.plugin.lpi.events.EventTraceSampler;
+import org.interledger.plugin.lpi.exceptions.DuplicateTransferIdentifier;
+import org.interledger.plugin.lpi.metrics.EventTraceAggregator;
+import org.interledger.plugin.lpi.metrics.EventTraceSnapshot;
+import org.interledger.plugin.lpi.metrics.LedgerPluginEventType;
+import org.interledger.plugin.lpi.metrics.LedgerPluginMetricsSnapshot;
+import org.interledger.plugin.lpi.metrics.LedgerPluginOperation;
 
 import ch.qos.logback.classic.Level;
 import org.mockito.MockitoAnnotations;
@@ -18,8 +31,16 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.money.Monetary;
 
@@ -102,6 +123,228 @@ public class MockLedgerPluginTest extends AbstractMockLedgerPluginTest {
     assertThat(simulatedLedger.getAccountBalance(destinationAccount), is(BigInteger.valueOf(99)));
   }
 
+  @Test
+  public void testGetTransfersByExecutionCondition() {
+    final Transfer first = constructOutgoingTransferFromConnector(UUID.randomUUID());
+    final Transfer second = constructOutgoingTransferFromConnector(UUID.randomUUID());
+    mockLedgerPlugin.sendTransfer(first);
+    mockLedgerPlugin.sendTransfer(second);
+
+    final List<Transfer> transfers = mockLedgerPlugin.getTransfersByExecutionCondition(
+        new PreimageSha256Fulfillment(PREIMAGE).getCondition()
+    );
+    assertThat(transfers.size(), is(2));
+    assertThat(transfers.contains(first), is(true));
+    assertThat(transfers.contains(second), is(true));
+
+    assertThat(mockLedgerPlugin.getTransfersByExecutionCondition(
+        new PreimageSha256Fulfillment(ALTERNATE_PREIMAGE).getCondition()).isEmpty(), is(true));
+  }
+
+  @Test
+  public void testSendDuplicateTransfer() {
+    final Transfer transfer = constructOutgoingTransferFromConnector(UUID.randomUUID());
+    mockLedgerPlugin.sendTransfer(transfer);
+    mockLedgerPlugin.sendTransfer(transfer);
+
+    final SimulatedLedger simulatedLedger = mockLedgerPlugin.getSimulatedLedger();
+    assertThat(simulatedLedger.getDuplicateTransferCount(), is(1L));
+    assertThat(simulatedLedger.getTransfers().size(), is(1));
+  }
+
+  @Test
+  public void testTrySendDuplicateTransfer() {
+    final Transfer transfer = constructOutgoingTransferFromConnector(UUID.randomUUID());
+    assertThat(mockLedgerPlugin.trySendTransfer(transfer), is(LedgerResult.accepted()));
+
+    final LedgerResult result = mockLedgerPlugin.trySendTransfer(transfer);
+    assertThat(result.getOutcome(), is(Outcome.DUPLICATE));
+    assertThat(result.isAccepted(), is(true));
+    assertThat(result.isDuplicate(), is(true));
+    result.orElseThrow();
+  }
+
+  @Test(expectedExceptions = DuplicateTransferIdentifier.class)
+  public void testSendDuplicateTransferWithDifferentData() {
+    final Transfer transfer = constructOutgoingTransferFromConnector(UUID.randomUUID());
+    mockLedgerPlugin.sendTransfer(transfer);
+    mockLedgerPlugin.sendTransfer(ImmutableTransfer.copyOf(transfer).withAmount(BigInteger.ONE));
+  }
+
+  @Test
+  public void testTryFulfillConditionRejections() {
+    final Transfer transfer = constructOutgoingTransferFromConnector(UUID.randomUUID());
+    final LedgerResult notFound = mockLedgerPlugin.tryFulfillCondition(
+        transfer.getTransferId(), new PreimageSha256Fulfillment(PREIMAGE));
+    assertThat(notFound.isAccepted(), is(false));
+    assertThat(notFound.getOutcome(), is(Outcome.TRANSFER_NOT_FOUND));
+    assertThat(notFound.getRejectionReason().get().getErrorCode(), is(ErrorCode.F00_BAD_REQUEST));
+
+    assertThat(mockLedgerPlugin.trySendTransfer(transfer), is(LedgerResult.accepted()));
+    final LedgerResult wrongFulfillment = mockLedgerPlugin.tryFulfillCondition(
+        transfer.getTransferId(), new PreimageSha256Fulfillment(ALTERNATE_PREIMAGE));
+    assertThat(wrongFulfillment.getOutcome(), is(Outcome.INVALID_FULFILLMENT));
+    assertThat(wrongFulfillment.getRejectionReason().get().getErrorCode(),
+        is(ErrorCode.F05_WRONG_CONDITION));
+
+    assertThat(mockLedgerPlugin.tryRejectIncomingTransfer(transfer.getTransferId(),
+        constructIlpError()).isAccepted(), is(true));
+    assertThat(mockLedgerPlugin.tryFulfillCondition(transfer.getTransferId(),
+        new PreimageSha256Fulfillment(PREIMAGE)).getOutcome(),
+        is(Outcome.TRANSFER_ALREADY_ROLLED_BACK));
+  }
+
+  @Test
+  public void testConcurrentFulfillAndReject() throws Exception {
+    final SimulatedLedger simulatedLedger = mockLedgerPlugin.getSimulatedLedger();
+    final List<Transfer> transfers = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      final Transfer transfer = constructIncomingTransferToConnector(UUID.randomUUID());
+      simulatedLedger.getTransfers().put(transfer.getTransferId(),
+          ImmutableTransferHolder.builder().transfer(transfer).build());
+      transfers.add(transfer);
+    }
+
+    // Fulfill and reject each transfer at the same time...
+    final CyclicBarrier barrier = new CyclicBarrier(2);
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    final List<LedgerResult> fulfillResults;
+    final List<LedgerResult> rejectResults;
+    try {
+      final Future<List<LedgerResult>> fulfills = executor.submit(() -> {
+        final List<LedgerResult> results = new ArrayList<>();
+        for (final Transfer transfer : transfers) {
+          barrier.await();
+          results.add(mockLedgerPlugin.tryFulfillCondition(transfer.getTransferId(),
+              new PreimageSha256Fulfillment(PREIMAGE)));
+        }
+        return results;
+      });
+      final Future<List<LedgerResult>> rejects = executor.submit(() -> {
+        final List<LedgerResult> results = new ArrayList<>();
+        for (final Transfer transfer : transfers) {
+          barrier.await();
+          results.add(mockLedgerPlugin.tryRejectIncomingTransfer(transfer.getTransferId(),
+              constructIlpError()));
+        }
+        return results;
+      });
+      fulfillResults = fulfills.get();
+      rejectResults = rejects.get();
+    } finally {
+      executor.shutdown();
+    }
+
+    // ...and expect exactly one of the two to win, whichever it was.
+    for (int i = 0; i < transfers.size(); i++) {
+      final TransferStatus status = simulatedLedger.getTransfers()
+          .get(transfers.get(i).getTransferId()).getTransferStatus();
+      if (status == TransferStatus.EXECUTED) {
+        assertThat(fulfillResults.get(i).isAccepted(), is(true));
+        assertThat(rejectResults.get(i).getOutcome(), is(Outcome.TRANSFER_ALREADY_FULFILLED));
+      } else {
+        assertThat(status, is(TransferStatus.REJECTED));
+        assertThat(rejectResults.get(i).isAccepted(), is(true));
+        assertThat(fulfillResults.get(i).getOutcome(),
+            is(Outcome.TRANSFER_ALREADY_ROLLED_BACK));
+      }
+    }
+
+    // Only the winner published an event...
+    final Map<LedgerPluginEventType, Long> eventCounts =
+        mockLedgerPlugin.getMetrics().snapshot().getEventCounts();
+    assertThat(eventCounts.getOrDefault(LedgerPluginEventType.INCOMING_TRANSFER_FULFILLED, 0L)
+            + eventCounts.getOrDefault(LedgerPluginEventType.INCOMING_TRANSFER_REJECTED, 0L),
+        is((long) transfers.size()));
+  }
+
+  @Test
+  public void testResolvingAResolvedTransferIsADuplicate() {
+    final Transfer transfer = constructOutgoingTransferFromConnector(UUID.randomUUID());
+    mockLedgerPlugin.sendTransfer(transfer);
+    mockLedgerPlugin.fulfillCondition(transfer.getTransferId(),
+        new PreimageSha256Fulfillment(PREIMAGE));
+    reset(ledgerPluginEventHandlerMock);
+
+    assertThat(mockLedgerPlugin.tryFulfillCondition(transfer.getTransferId(),
+        new PreimageSha256Fulfillment(PREIMAGE)), is(LedgerResult.duplicate()));
+    mockLedgerPlugin.getSimulatedLedger().expireTransfer(transfer.getTransferId());
+    assertThat(mockLedgerPlugin.getSimulatedLedger().getTransfers()
+        .get(transfer.getTransferId()).getTransferStatus(), is(TransferStatus.EXECUTED));
+    verifyZeroInteractions(ledgerPluginEventHandlerMock);
+  }
+
+  @Test
+  public void testTrySendDuplicateTransferWithDifferentData() {
+    final Transfer transfer = constructOutgoingTransferFromConnector(UUID.randomUUID());
+    mockLedgerPlugin.sendTransfer(transfer);
+
+    final LedgerResult result = mockLedgerPlugin.trySendTransfer(
+        ImmutableTransfer.copyOf(transfer).withAmount(BigInteger.ONE));
+    assertThat(result.getOutcome(), is(Outcome.DUPLICATE_TRANSFER_ID));
+    try {
+      result.orElseThrow();
+      fail("Expected a DuplicateTransferIdentifier");
+    } catch (DuplicateTransferIdentifier e) {
+      assertThat(e.getMessage(),
+          is("A different transfer with this identifier has already been prepared"));
+    }
+  }
+
+  @Test
+  public void testMetrics() {
+    final Transfer transfer = constructOutgoingTransferFromConnector(UUID.randomUUID());
+    mockLedgerPlugin.sendTransfer(transfer);
+    mockLedgerPlugin.fulfillCondition(transfer.getTransferId(),
+        new PreimageSha256Fulfillment(PREIMAGE));
+    mockLedgerPlugin.tryFulfillCondition(TransferId.of(UUID.randomUUID()),
+        new PreimageSha256Fulfillment(PREIMAGE));
+    mockLedgerPlugin.getConnectorBalance();
+
+    final LedgerPluginMetricsSnapshot snapshot = mockLedgerPlugin.getMetrics().snapshot();
+    assertThat(snapshot.getOperations().get(LedgerPluginOperation.SEND_TRANSFER).getCount(),
+        is(1L));
+    assertThat(snapshot.getOperations().get(LedgerPluginOperation.FULFILL_CONDITION).getCount(),
+        is(2L));
+    assertThat(snapshot.getOperations().get(LedgerPluginOperation.FULFILL_CONDITION).getErrors(),
+        is(1L));
+    assertThat(
+        snapshot.getOperations().get(LedgerPluginOperation.GET_CONNECTOR_BALANCE).getCount(),
+        is(1L));
+    assertThat(snapshot.getEventCounts().get(LedgerPluginEventType.OUTGOING_TRANSFER_PREPARED),
+        is(1L));
+    assertThat(snapshot.getEventCounts().get(LedgerPluginEventType.OUTGOING_TRANSFER_FULFILLED),
+        is(1L));
+    assertThat(snapshot.getExecutedTransfers().getCount(), is(1L));
+    // The handler also received the event emitted when the plugin connected...
+    assertThat(snapshot.getHandlers().size(), is(1));
+    assertThat(snapshot.getHandlers().values().iterator().next().getCount(), is(3L));
+  }
+
+  @Test
+  public void testEventTracing() {
+    final EventTraceAggregator aggregator = new EventTraceAggregator();
+    mockLedgerPlugin.setEventTracing(EventTraceSampler.everyNth(2), aggregator);
+
+    // Only the first of the two events, the prepare, is traced...
+    final Transfer transfer = constructOutgoingTransferFromConnector(UUID.randomUUID());
+    mockLedgerPlugin.sendTransfer(transfer);
+    mockLedgerPlugin.fulfillCondition(transfer.getTransferId(),
+        new PreimageSha256Fulfillment(PREIMAGE));
+
+    final EventTraceSnapshot snapshot = aggregator.snapshot();
+    assertThat(snapshot.getTotal().getCount(), is(1L));
+    // The synchronous emitter has no queue, so there is nothing to dequeue...
+    assertThat(snapshot.getStages().keySet(),
+        is(EnumSet.of(Stage.EMIT, Stage.HANDLER_START, Stage.HANDLER_END)));
+    assertThat(snapshot.getStages().get(Stage.HANDLER_END).getCount(), is(1L));
+
+    aggregator.reset();
+    mockLedgerPlugin.setEventTracing(EventTraceSampler.never(), aggregator);
+    mockLedgerPlugin.sendTransfer(constructOutgoingTransferFromConnector(UUID.randomUUID()));
+    assertThat(aggregator.snapshot().getTotal().getCount(), is(0L));
+  }
+
   /**
    * Helper method to initiate a specific type of transfer on the simulated ledger of the mock
    * ledger plugin in this test.
@@ -1,8 +1,14 @@
 package org.interledger.plugin.lpi;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
 
 import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+import org.interledger.plugin.lpi.events.EventTrace.Stage;
+import org.interledger.plugin.lpi.events.EventTraceSampler;
 import org.interledger.plugin.lpi.events.IncomingMessgeRequestEvent;
 import org.interledger.plugin.lpi.events.IncomingTransferCancelledEvent;
 import org.interledger.plugin.lpi.events.IncomingTransferFulfilledEvent;
@@ -18,16 +24,22 @@ import org.interledger.plugin.lpi.events.OutgoingTransferFulfilledEvent;
 import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
 import org.interledger.plugin.lpi.events.OutgoingTransferRejectedEvent;
 import org.interledger.plugin.lpi.handlers.LedgerPluginEventHandler;
+import org.interledger.plugin.lpi.metrics.EventTraceAggregator;
+import org.interledger.plugin.lpi.metrics.EventTraceSnapshot;
 
 import ch.qos.logback.classic.Level;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
+import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
 
+import java.util.EnumSet;
 import java.util.Objects;
+import java.util.UUID;
 
 import javax.money.Monetary;
 
@@ -40,6 +52,9 @@ public class MockQueuedLedgerPluginTest extends AbstractMockLedgerPluginTest {
   // This simulates a queueing mechanism that can be used for queued event handling.
   private EventBus eventBus;
 
+  @Mock
+  private LedgerPluginEventHandler tracedLedgerPluginEventHandlerMock;
+
   @BeforeMethod
   public void setup() {
     MockitoAnnotations.initMocks(this);
@@ -71,6 +86,30 @@ public class MockQueuedLedgerPluginTest extends AbstractMockLedgerPluginTest {
     reset(ledgerPluginEventHandlerMock);
   }
 
+  @Test
+  public void testEventTracing() {
+    final QueuedMockLedgerPlugin queuedMockLedgerPlugin = (QueuedMockLedgerPlugin) mockLedgerPlugin;
+    final EventTraceAggregator aggregator = new EventTraceAggregator();
+    queuedMockLedgerPlugin.setEventTracing(EventTraceSampler.always(), aggregator);
+    queuedMockLedgerPlugin.subscribe(tracedLedgerPluginEventHandlerMock);
+
+    final Transfer transfer = constructOutgoingTransferFromConnector(UUID.randomUUID());
+    mockLedgerPlugin.sendTransfer(transfer);
+
+    verify(tracedLedgerPluginEventHandlerMock).onTransferPrepared(
+        any(OutgoingTransferPreparedEvent.class));
+    final EventTraceSnapshot snapshot = aggregator.snapshot();
+    assertThat(snapshot.getTotal().getCount(), is(1L));
+    // Unlike the synchronous emitter, every stage is marked...
+    assertThat(snapshot.getStages().keySet(), is(EnumSet.of(
+        Stage.EMIT, Stage.DEQUEUE, Stage.HANDLER_START, Stage.HANDLER_END)));
+
+    aggregator.reset();
+    queuedMockLedgerPlugin.setEventTracing(EventTraceSampler.never(), aggregator);
+    mockLedgerPlugin.sendTransfer(constructOutgoingTransferFromConnector(UUID.randomUUID()));
+    assertThat(aggregator.snapshot().getTotal().getCount(), is(0L));
+  }
+
   /**
    * Connects the event bus subscriber to a mock for unit testing purposes.
    */
@@ -0,0 +1,239 @@
+package org.interledger.plugin.lpi;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+import org.interledger.ilp.InterledgerPayment;
+import org.interledger.ilp.InterledgerProtocolError;
+import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.AbstractLedgerPlugin.SyncLedgerPluginEventEmitter;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger.TransferStatus;
+import org.interledger.plugin.lpi.events.EventTraceSink;
+import org.interledger.plugin.lpi.metrics.LedgerPluginMetrics;
+
+import com.google.common.collect.Maps;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.money.Monetary;
+
+/**
+ * Measures each {@link SimulatedLedger} operation on a ledger that already holds a given number of
+ * transfers between {@value #ACCOUNTS} accounts, some of which have a connection that receives
+ * the operation's events. The benchmarks are inherited by nested classes that run them on 1, 4 and
+ * 16 threads, since JMH can't vary the thread count as a parameter.
+ *
+ * Half of the stored transfers are executed, and are fulfilled again or have their fulfillment
+ * read; the other half are prepared, and are rejected or expired, repeatedly. Each operation
+ * therefore takes the same path as it does the first time, without the ledger running out of
+ * transfers to operate on. Transfers sent during an iteration are removed after it, so the ledger
+ * stays the same size.
+ *
+ * Run with {@code mvn -Pbenchmarks verify -Dbenchmark=SimulatedLedgerBenchmark}. Filling the
+ * largest ledger takes a while and several gigabytes of heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public abstract class SimulatedLedgerBenchmark {
+
+  private static final int ACCOUNTS = 1000;
+  // Transfers share this many conditions, so that fulfilling one isn't always a cache miss...
+  private static final int CONDITIONS = 1024;
+
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+
+  @Param({"1000", "100000", "1000000", "10000000"})
+  private int transfers;
+
+  @Param({"0", "1", "100"})
+  private int connections;
+
+  private SimulatedLedger simulatedLedger;
+  private InterledgerAddress[] accounts;
+  private Fulfillment[] fulfillments;
+  private InterledgerProtocolError rejectionReason;
+  private Transfer template;
+  // Even indexes hold executed transfers, odd indexes hold prepared ones...
+  private TransferId[] transferIds;
+
+  @Setup
+  public void setup() {
+    this.simulatedLedger = new SimulatedLedger(ImmutableLedgerInfo.builder()
+        .currencyScale(8)
+        .currencyUnit(Monetary.getCurrency("USD"))
+        .ledgerPrefix(LEDGER_PREFIX)
+        .build());
+
+    this.accounts = new InterledgerAddress[ACCOUNTS];
+    for (int i = 0; i < ACCOUNTS; i++) {
+      accounts[i] = LEDGER_PREFIX.with("account" + i);
+    }
+    for (int i = 0; i < connections; i++) {
+      simulatedLedger.connect(ImmutableSimulatedLedgerPluginConnection.builder()
+          .connectorAddress(accounts[i])
+          .password("password")
+          .ledgerPluginEventEmitter(new SyncLedgerPluginEventEmitter(
+              Maps.newConcurrentMap(), new LedgerPluginMetrics(), EventTraceSink::discard))
+          .build());
+    }
+
+    this.fulfillments = new Fulfillment[CONDITIONS];
+    for (int i = 0; i < CONDITIONS; i++) {
+      final byte[] preimage = new byte[32];
+      ThreadLocalRandom.current().nextBytes(preimage);
+      fulfillments[i] = new PreimageSha256Fulfillment(preimage);
+    }
+    this.rejectionReason = InterledgerProtocolError.builder()
+        .errorCode(ErrorCode.R00_TRANSFER_TIMED_OUT)
+        .triggeredAt(Instant.now())
+        .triggeredByAddress(LEDGER_PREFIX)
+        .build();
+    this.template = ImmutableTransfer.builder()
+        .transferId(TransferId.next())
+        .ledgerPrefix(LEDGER_PREFIX)
+        .sourceAccount(accounts[0])
+        .destinationAccount(accounts[1])
+        .amount(BigInteger.TEN)
+        .executionCondition(fulfillments[0].getCondition())
+        .expiresAt(Instant.now().plus(1, ChronoUnit.HOURS))
+        .interlederPaymentPacket(InterledgerPayment.builder()
+            .destinationAccount(accounts[1])
+            .destinationAmount(BigInteger.TEN)
+            .data(new byte[0])
+            .build())
+        .build();
+
+    // Store the transfers directly, rather than sending them, so that filling a large ledger
+    // doesn't emit millions of events...
+    this.transferIds = new TransferId[transfers];
+    for (int i = 0; i < transfers; i++) {
+      final Transfer transfer = newTransfer(i);
+      final ImmutableTransferHolder.Builder transferHolder =
+          ImmutableTransferHolder.builder().transfer(transfer);
+      if (i % 2 == 0) {
+        transferHolder.transferStatus(TransferStatus.EXECUTED)
+            .executionFulfillment(fulfillments[i % CONDITIONS]);
+      }
+      simulatedLedger.getTransfers().put(transfer.getTransferId(), transferHolder.build());
+      transferIds[i] = transfer.getTransferId();
+    }
+  }
+
+  /**
+   * A transfer between two of the benchmark's accounts, with the condition of {@code
+   * fulfillments[index % CONDITIONS]}.
+   */
+  private Transfer newTransfer(final int index) {
+    return ImmutableTransfer.copyOf(template)
+        .withTransferId(TransferId.next())
+        .withSourceAccount(accounts[index % ACCOUNTS])
+        .withDestinationAccount(accounts[(index + 1) % ACCOUNTS])
+        .withExecutionCondition(fulfillments[index % CONDITIONS].getCondition());
+  }
+
+  /**
+   * The index of a random stored transfer that is executed, or prepared.
+   */
+  private int randomIndex(final boolean executed) {
+    final int index = ThreadLocalRandom.current().nextInt(transfers) & ~1;
+    return executed || index + 1 >= transfers ? index : index + 1;
+  }
+
+  @Benchmark
+  public void sendTransfer(final SentTransfers sentTransfers) {
+    final Transfer transfer = newTransfer(ThreadLocalRandom.current().nextInt(ACCOUNTS));
+    simulatedLedger.sendTransfer(transfer);
+    sentTransfers.add(simulatedLedger, transfer.getTransferId());
+  }
+
+  @Benchmark
+  public void fulfillCondition() {
+    final int index = randomIndex(true);
+    simulatedLedger.fulfillCondition(transferIds[index], fulfillments[index % CONDITIONS]);
+  }
+
+  @Benchmark
+  public void rejectIncomingTransfer() {
+    simulatedLedger.rejectIncomingTransfer(transferIds[randomIndex(false)], rejectionReason);
+  }
+
+  @Benchmark
+  public void expireTransfer() {
+    simulatedLedger.expireTransfer(transferIds[randomIndex(false)]);
+  }
+
+  @Benchmark
+  public Optional<Fulfillment> getFulfillment() {
+    return simulatedLedger.getFulfillment(transferIds[randomIndex(true)]);
+  }
+
+  @Benchmark
+  public BigInteger getAccountBalance() {
+    return simulatedLedger.getAccountBalance(
+        accounts[ThreadLocalRandom.current().nextInt(ACCOUNTS)]);
+  }
+
+  /**
+   * The transfers that one thread has sent during an iteration, which are removed after it.
+   */
+  @State(Scope.Thread)
+  public static class SentTransfers {
+
+    private final List<TransferId> transferIds = new ArrayList<>();
+    private SimulatedLedger simulatedLedger;
+
+    void add(final SimulatedLedger simulatedLedger, final TransferId transferId) {
+      this.simulatedLedger = simulatedLedger;
+      transferIds.add(transferId);
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeTransfers() {
+      if (simulatedLedger != null) {
+        transferIds.forEach(simulatedLedger.getTransfers()::remove);
+      }
+      transferIds.clear();
+    }
+  }
+
+  @Threads(1)
+  public static class OneThread extends SimulatedLedgerBenchmark {
+
+  }
+
+  @Threads(4)
+  public static class FourThreads extends SimulatedLedgerBenchmark {
+
+  }
+
+  @Threads(16)
+  public static class SixteenThreads extends SimulatedLedgerBenchmark {
+
+  }
+}
@@ -0,0 +1,43 @@
+package org.interledger.plugin.lpi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares generating a {@link TransferId} from {@link UUID#randomUUID()} with {@link
+ * TransferId#next()}, with several threads generating ids at once.
+ *
+ * The threads only contend for {@link UUID#randomUUID()}'s shared {@link
+ * java.security.SecureRandom} when they actually run at the same time, so results are only
+ * meaningful on a machine with at least as many cores as benchmark threads. With fewer, the
+ * threads take turns, and the comparison mostly reflects the cost of a single thread.
+ *
+ * Run with {@code mvn -Pbenchmarks verify -Dbenchmark=TimeOrderedIdGeneratorBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TimeOrderedIdGeneratorBenchmark {
+
+  @Benchmark
+  public TransferId randomUuid() {
+    return TransferId.of(UUID.randomUUID());
+  }
+
+  @Benchmark
+  public TransferId timeOrdered() {
+    return TransferId.next();
+  }
+}
@@ -0,0 +1,75 @@
+package org.interledger.plugin.lpi;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for {@link TimeOrderedIdGenerator}.
+ */
+public class TimeOrderedIdGeneratorTest {
+
+  private static final long NOW = 1496275200000L;
+
+  @Test
+  public void testLayout() {
+    final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(() -> NOW);
+    final UUID uuid = generator.nextTransferId().value();
+
+    assertThat(uuid.version(), is(7));
+    assertThat(uuid.variant(), is(2));
+    assertThat(TimeOrderedIdGenerator.getTimestamp(TransferId.of(uuid)), is(NOW));
+  }
+
+  @Test
+  public void testIdsIncrease() {
+    final AtomicLong clock = new AtomicLong(NOW);
+    final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(clock::get);
+
+    TransferId previous = generator.nextTransferId();
+    for (int i = 0; i < 10_000; i++) {
+      // Move forward now and then, and backward once...
+      if (i % 1000 == 0) {
+        clock.addAndGet(i == 5000 ? -10 : 1);
+      }
+      final TransferId next = generator.nextTransferId();
+      assertThat(next.compareTo(previous) > 0, is(true));
+      previous = next;
+    }
+  }
+
+  @Test
+  public void testIdsAreUniqueAcrossThreads() throws Exception {
+    final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(() -> NOW);
+    final Set<MessageId> ids = ConcurrentHashMap.newKeySet();
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 25_000; i++) {
+            ids.add(generator.nextMessageId());
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(ids.size(), is(100_000));
+  }
+}
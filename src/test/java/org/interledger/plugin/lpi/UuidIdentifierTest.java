@@ -0,0 +1,42 @@
+package org.interledger.plugin.lpi;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+
+/**
+ * Unit tests for {@link TransferId} and {@link MessageId}.
+ */
+public class UuidIdentifierTest {
+
+  @Test
+  public void testRoundTrip() {
+    final UUID uuid = UUID.randomUUID();
+    final TransferId transferId = TransferId.of(uuid);
+
+    assertThat(transferId.value(), is(uuid));
+    assertThat(TransferId.of(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()),
+        is(transferId));
+    assertThat(transferId.toString(), is("TransferId(" + uuid + ")"));
+  }
+
+  @Test
+  public void testEqualsAndHashCode() {
+    final UUID uuid = UUID.randomUUID();
+
+    assertThat(TransferId.of(uuid), is(TransferId.of(uuid)));
+    assertThat(TransferId.of(uuid).hashCode(), is(TransferId.of(uuid).hashCode()));
+    assertThat(TransferId.of(uuid), is(not(TransferId.of(UUID.randomUUID()))));
+  }
+
+  @Test
+  public void testDifferentTypesAreNotEqual() {
+    final UUID uuid = UUID.randomUUID();
+
+    assertThat(TransferId.of(uuid).equals(MessageId.of(uuid)), is(false));
+  }
+}
@@ -0,0 +1,91 @@
+package org.interledger.plugin.lpi.exceptions;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.plugin.lpi.LedgerResult;
+import org.interledger.plugin.lpi.LedgerResult.Outcome;
+import org.interledger.plugin.lpi.TransferId;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rejecting an operation by throwing a {@link TransferNotFoundException}, with and
+ * without {@link LedgerPluginException#setLightweight(boolean) lightweight} exceptions, against
+ * returning a {@link LedgerResult}. The rejection is made {@code depth} frames below the caller,
+ * since the cost of capturing a stack trace grows with its depth.
+ *
+ * Run with {@code mvn -Pbenchmarks verify -Dbenchmark=LedgerPluginExceptionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LedgerPluginExceptionBenchmark {
+
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+
+  @Param({"false", "true"})
+  private boolean lightweight;
+
+  @Param({"10", "100"})
+  private int depth;
+
+  private TransferId transferId;
+
+  @Setup
+  public void setup() {
+    LedgerPluginException.setLightweight(lightweight);
+    this.transferId = TransferId.of(UUID.randomUUID());
+  }
+
+  @TearDown
+  public void tearDown() {
+    LedgerPluginException.setLightweight(false);
+  }
+
+  @Benchmark
+  public LedgerPluginException throwException() {
+    try {
+      throwAt(depth);
+      return null;
+    } catch (TransferNotFoundException e) {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public LedgerResult returnResult() {
+    return rejectAt(depth);
+  }
+
+  private void throwAt(final int depth) {
+    if (depth == 0) {
+      throw new TransferNotFoundException(LEDGER_PREFIX, transferId);
+    }
+    throwAt(depth - 1);
+  }
+
+  private LedgerResult rejectAt(final int depth) {
+    if (depth == 0) {
+      return LedgerResult.rejected(Outcome.TRANSFER_NOT_FOUND,
+          Outcome.TRANSFER_NOT_FOUND.rejectionReason(LEDGER_PREFIX),
+          () -> new TransferNotFoundException(LEDGER_PREFIX, transferId));
+    }
+    return rejectAt(depth - 1);
+  }
+}
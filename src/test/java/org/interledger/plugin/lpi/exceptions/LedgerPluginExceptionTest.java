@@ -0,0 +1,57 @@
+package org.interledger.plugin.lpi.exceptions;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.plugin.lpi.TransferId;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+
+/**
+ * Unit tests for {@link LedgerPluginException}.
+ */
+public class LedgerPluginExceptionTest {
+
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+
+  @AfterMethod
+  public void tearDown() {
+    LedgerPluginException.setLightweight(false);
+  }
+
+  @Test
+  public void testStackTraceCapturedByDefault() {
+    final TransferNotFoundException exception =
+        new TransferNotFoundException(LEDGER_PREFIX, TransferId.of(UUID.randomUUID()));
+
+    assertThat(exception.getStackTrace().length > 0, is(true));
+  }
+
+  @Test
+  public void testLightweight() {
+    LedgerPluginException.setLightweight(true);
+    final IllegalStateException cause = new IllegalStateException();
+    final InvalidFulfillmentException exception = new InvalidFulfillmentException(
+        "Wrong fulfillment", cause, LEDGER_PREFIX, TransferId.of(UUID.randomUUID()), null);
+
+    assertThat(LedgerPluginException.isLightweight(), is(true));
+    assertThat(exception.getStackTrace().length, is(0));
+    assertThat(exception.getMessage(), is("Wrong fulfillment"));
+    assertThat(exception.getCause() == cause, is(true));
+    assertThat(exception.getPluginLedgerPrefix(), is(LEDGER_PREFIX));
+  }
+
+  @Test
+  public void testLightweightKeepsUnexpectedFailureStackTraces() {
+    LedgerPluginException.setLightweight(true);
+
+    assertThat(new LedgerPluginNotConnectedException(LEDGER_PREFIX).getStackTrace().length > 0,
+        is(true));
+    assertThat(new LedgerPluginException(new IllegalStateException(), LEDGER_PREFIX)
+        .getStackTrace().length > 0, is(true));
+  }
+}
@@ -0,0 +1,176 @@
+package org.interledger.plugin.lpi.load;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.plugin.lpi.ImmutableLedgerInfo;
+import org.interledger.plugin.lpi.LedgerInfo;
+import org.interledger.plugin.lpi.MockLedgerPlugin;
+import org.interledger.plugin.lpi.MockLedgerPlugin.ExtendedLedgerPluginConfig;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+import org.interledger.plugin.lpi.QueuedMockLedgerPlugin;
+import org.interledger.plugin.lpi.metrics.OperationStats;
+import org.interledger.plugin.lpi.simulation.ImmutableSimulationProfile;
+import org.interledger.plugin.lpi.simulation.LatencyModel;
+import org.interledger.plugin.lpi.simulation.LedgerOperation;
+import org.interledger.plugin.lpi.simulation.SimulationProfile;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.eventbus.AsyncEventBus;
+import com.google.common.eventbus.EventBus;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.money.Monetary;
+
+/**
+ * Unit tests for {@link RoundTripHarness}.
+ */
+public class RoundTripHarnessTest {
+
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+  private static final InterledgerAddress CONNECTOR_ACCOUNT = LEDGER_PREFIX.with("connector");
+
+  private LedgerInfo ledgerInfo;
+  private ExecutorService eventExecutor;
+
+  @BeforeMethod
+  public void setup() {
+    this.ledgerInfo = ImmutableLedgerInfo.builder()
+        .currencyScale(8)
+        .currencyUnit(Monetary.getCurrency("USD"))
+        .ledgerPrefix(LEDGER_PREFIX)
+        .build();
+    this.eventExecutor = Executors.newSingleThreadExecutor();
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    eventExecutor.shutdownNow();
+  }
+
+  @Test
+  public void testRunThroughMockLedgerPlugin() {
+    final MockLedgerPlugin mockLedgerPlugin =
+        new MockLedgerPlugin(getLedgerPluginConfig(), new SimulatedLedger(ledgerInfo));
+    mockLedgerPlugin.connect();
+
+    final RoundTripReport report = new RoundTripHarness(mockLedgerPlugin, profile(50, 100)).run();
+
+    assertSteps(report, 50, 100);
+    assertThat(mockLedgerPlugin.getSimulatedLedger().getTransfers().size(), is(45));
+  }
+
+  @Test
+  public void testRunThroughQueuedMockLedgerPlugin() {
+    // Deliver events on another thread, so that round trips include the time they spend queued...
+    final EventBus eventBus = new AsyncEventBus(eventExecutor);
+    final MockLedgerPlugin queuedMockLedgerPlugin = new QueuedMockLedgerPlugin(
+        getLedgerPluginConfig(), new SimulatedLedger(ledgerInfo), eventBus) {
+    };
+    queuedMockLedgerPlugin.connect();
+
+    final RoundTripReport report =
+        new RoundTripHarness(queuedMockLedgerPlugin, profile(50, 100), eventBus).run();
+
+    assertSteps(report, 50, 100);
+  }
+
+  @Test
+  public void testSaturation() {
+    // A single worker, with every transfer taking 20ms to prepare, can't exceed 50 per second...
+    final SimulationProfile simulationProfile = ImmutableSimulationProfile.builder()
+        .putLatencyModels(LedgerOperation.SEND_TRANSFER, LatencyModel.fixed(Duration.ofMillis(20)))
+        .build();
+    final MockLedgerPlugin mockLedgerPlugin = new MockLedgerPlugin(
+        getLedgerPluginConfig(), new SimulatedLedger(ledgerInfo, simulationProfile));
+    mockLedgerPlugin.connect();
+
+    final RoundTripReport report = new RoundTripHarness(mockLedgerPlugin,
+        ImmutableRoundTripProfile.builder()
+            .targetRates(ImmutableList.of(10d, 200d, 400d))
+            .stepDuration(Duration.ofMillis(500))
+            .warmupDuration(Duration.ZERO)
+            .concurrency(1)
+            .build()
+    ).run();
+
+    // The run stops at the first saturated rate...
+    assertThat(report.getSteps().size(), is(2));
+    assertThat(report.getSteps().get(0).isSaturated(), is(false));
+    assertThat(report.getSteps().get(1).isSaturated(), is(true));
+    assertThat(report.getSaturationRate(), is(Optional.of(200d)));
+    assertThat(report.getMaxSustainedRate(), is(Optional.of(10d)));
+
+    // Round trips that queued behind the slow ones are timed from when they should have started,
+    // so their latency grows well beyond the 20ms that each one took...
+    final OperationStats latency = report.getSteps().get(1).getLatency();
+    assertThat(latency.getCount(), is(100L));
+    assertThat(latency.getMaxNanos(), is(greaterThan(Duration.ofSeconds(1).toNanos())));
+  }
+
+  @Test
+  public void testAbandonedRoundTripsAreRecorded() {
+    final SimulationProfile simulationProfile = ImmutableSimulationProfile.builder()
+        .putLatencyModels(LedgerOperation.SEND_TRANSFER, LatencyModel.fixed(Duration.ofMillis(20)))
+        .build();
+    final MockLedgerPlugin mockLedgerPlugin = new MockLedgerPlugin(
+        getLedgerPluginConfig(), new SimulatedLedger(ledgerInfo, simulationProfile));
+    mockLedgerPlugin.connect();
+
+    // 100 round trips need 2 seconds, but only 700ms are allowed...
+    final RoundTripStep step = new RoundTripHarness(mockLedgerPlugin,
+        ImmutableRoundTripProfile.builder()
+            .addTargetRates(200d)
+            .stepDuration(Duration.ofMillis(500))
+            .warmupDuration(Duration.ZERO)
+            .drainTimeout(Duration.ofMillis(200))
+            .concurrency(1)
+            .build()
+    ).run().getSteps().get(0);
+
+    // The abandoned round trips are the slowest, so they're still recorded. Only about 35 complete
+    // in time, so the oldest abandoned one should have started 500ms before it was abandoned...
+    assertThat(step.getAbandoned(), is(greaterThan(0L)));
+    assertThat(step.getLatency().getErrors(), is(step.getAbandoned()));
+    assertThat(step.getLatency().getCount(), is(100L));
+    assertThat(step.getLatency().getMaxNanos(),
+        is(greaterThan(Duration.ofMillis(400).toNanos())));
+  }
+
+  private RoundTripProfile profile(final double... targetRates) {
+    final ImmutableRoundTripProfile.Builder profile = ImmutableRoundTripProfile.builder()
+        .stepDuration(Duration.ofMillis(200))
+        .warmupDuration(Duration.ofMillis(100))
+        .concurrency(2);
+    for (final double targetRate : targetRates) {
+      profile.addTargetRates(targetRate);
+    }
+    return profile.build();
+  }
+
+  private void assertSteps(final RoundTripReport report, final double... targetRates) {
+    assertThat(report.getSteps().size(), is(targetRates.length));
+    for (int i = 0; i < targetRates.length; i++) {
+      final RoundTripStep step = report.getSteps().get(i);
+      assertThat(step.getTargetRate(), is(targetRates[i]));
+      // Only the round trips started after the warmup are recorded...
+      assertThat(step.getLatency().getCount(), is((long) (targetRates[i] / 5)));
+      assertThat(step.getLatency().getErrors(), is(0L));
+      assertThat(step.getLatency().getP50Nanos(), is(greaterThan(0L)));
+      assertThat(step.getAchievedRate(), is(greaterThan(0d)));
+    }
+  }
+
+  private ExtendedLedgerPluginConfig getLedgerPluginConfig() {
+    return ExtendedLedgerPluginConfig.forSimulatedLedger(ledgerInfo, CONNECTOR_ACCOUNT);
+  }
+}
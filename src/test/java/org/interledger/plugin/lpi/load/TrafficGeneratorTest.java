@@ -0,0 +1,148 @@
+package org.interledger.plugin.lpi.load;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.plugin.lpi.ImmutableLedgerInfo;
+import org.interledger.plugin.lpi.LedgerInfo;
+import org.interledger.plugin.lpi.MockLedgerPlugin;
+import org.interledger.plugin.lpi.MockLedgerPlugin.ExtendedLedgerPluginConfig;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+import org.interledger.plugin.lpi.metrics.OperationStats;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import javax.money.Monetary;
+
+/**
+ * Unit tests for {@link TrafficGenerator}.
+ */
+public class TrafficGeneratorTest {
+
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+  private static final InterledgerAddress CONNECTOR_ACCOUNT = LEDGER_PREFIX.with("connector");
+
+  private SimulatedLedger simulatedLedger;
+  private MockLedgerPlugin mockLedgerPlugin;
+
+  @BeforeMethod
+  public void setup() {
+    final LedgerInfo ledgerInfo = ImmutableLedgerInfo.builder()
+        .currencyScale(8)
+        .currencyUnit(Monetary.getCurrency("USD"))
+        .ledgerPrefix(LEDGER_PREFIX)
+        .build();
+    this.simulatedLedger = new SimulatedLedger(ledgerInfo);
+    this.mockLedgerPlugin = new MockLedgerPlugin(
+        ExtendedLedgerPluginConfig.forSimulatedLedger(ledgerInfo, CONNECTOR_ACCOUNT),
+        simulatedLedger
+    );
+    this.mockLedgerPlugin.connect();
+  }
+
+  @Test
+  public void testRunMixedTraffic() {
+    final TrafficProfile trafficProfile = ImmutableTrafficProfile.builder()
+        .operationCount(500)
+        .concurrency(4)
+        .accountDistribution(AccountDistribution.zipfian(50, 1.0))
+        .amountDistribution(AmountDistribution.uniform(1, 100))
+        .build();
+
+    final TrafficReport report = new TrafficGenerator(
+        mockLedgerPlugin, trafficProfile, simulatedLedger::expireTransfer
+    ).run();
+
+    assertThat(report.getTotalCount(), is(500L));
+    assertThat(report.getTotalErrors(), is(0L));
+    assertThat(report.getThroughput(), is(greaterThan(0d)));
+    assertThat(report.getOperationStats().containsKey(OperationType.PREPARE), is(true));
+    assertThat(report.getOperationStats().containsKey(OperationType.MESSAGE), is(true));
+
+    // Every prepared or expiring transfer was recorded by the simulated ledger...
+    final OperationStats prepares = report.getOperationStats().get(OperationType.PREPARE);
+    final OperationStats expires = report.getOperationStats().get(OperationType.EXPIRE);
+    assertThat(simulatedLedger.getTransfers().size(),
+        is((int) (prepares.getCount() + expires.getCount())));
+  }
+
+  @Test
+  public void testRunAtTargetRate() {
+    final TrafficProfile trafficProfile = ImmutableTrafficProfile.builder()
+        .operationCount(100)
+        .targetRate(1000)
+        .operationMix(ImmutableMap.of(OperationType.PREPARE, 1))
+        .build();
+
+    final TrafficReport report = new TrafficGenerator(mockLedgerPlugin, trafficProfile).run();
+
+    assertThat(report.getTotalCount(), is(100L));
+    // 100 operations at 1000/sec can't complete in much less than 99ms.
+    assertThat(report.getElapsed().toMillis() >= 99, is(true));
+  }
+
+  @Test
+  public void testRunsAreIndependent() {
+    final TrafficProfile trafficProfile = ImmutableTrafficProfile.builder()
+        .operationCount(200)
+        .operationMix(ImmutableMap.of(OperationType.PREPARE, 1, OperationType.FULFILL, 1))
+        .build();
+    final TrafficGenerator trafficGenerator =
+        new TrafficGenerator(mockLedgerPlugin, trafficProfile);
+
+    // Transfers left pending by the first run aren't resolved by the second, so with the same seed
+    // both runs fall back to preparing a transfer at the same points...
+    final TrafficReport first = trafficGenerator.run();
+    final TrafficReport second = trafficGenerator.run();
+
+    for (final TrafficReport report : ImmutableList.of(first, second)) {
+      assertThat(report.getTotalErrors(), is(0L));
+      assertThat(report.getOperationStats().get(OperationType.FULFILL).getCount(),
+          is(lessThanOrEqualTo(report.getOperationStats().get(OperationType.PREPARE).getCount())));
+    }
+    assertThat(second.getOperationStats().get(OperationType.FULFILL).getCount(),
+        is(first.getOperationStats().get(OperationType.FULFILL).getCount()));
+  }
+
+  @Test
+  public void testPendingTransfersAreCapped() {
+    final TrafficProfile uncapped = ImmutableTrafficProfile.builder()
+        .operationCount(200)
+        .operationMix(ImmutableMap.of(OperationType.PREPARE, 1, OperationType.FULFILL, 1))
+        .build();
+    final TrafficProfile capped =
+        ImmutableTrafficProfile.copyOf(uncapped).withMaxPendingTransfers(1);
+
+    // With the same seed, the capped run holds fewer transfers, so more of its fulfill operations
+    // find nothing to fulfill and prepare a transfer instead...
+    final TrafficReport uncappedReport = new TrafficGenerator(mockLedgerPlugin, uncapped).run();
+    final TrafficReport cappedReport = new TrafficGenerator(mockLedgerPlugin, capped).run();
+
+    assertThat(cappedReport.getTotalErrors(), is(0L));
+    assertThat(cappedReport.getOperationStats().get(OperationType.FULFILL).getCount(),
+        is(lessThan(uncappedReport.getOperationStats().get(OperationType.FULFILL).getCount())));
+  }
+
+  @Test
+  public void testZipfianDistributionFavorsHotAccounts() {
+    final AccountDistribution distribution = AccountDistribution.zipfian(1000, 1.2);
+    final Random random = new Random(1L);
+    final int[] counts = new int[distribution.getAccountCount()];
+    for (int i = 0; i < 100_000; i++) {
+      counts[distribution.nextAccount(random)]++;
+    }
+
+    assertThat(counts[0], is(greaterThan(counts[1])));
+    assertThat(counts[1], is(greaterThan(counts[10])));
+    assertThat(counts[0], is(greaterThan(counts[999] * 100)));
+  }
+}
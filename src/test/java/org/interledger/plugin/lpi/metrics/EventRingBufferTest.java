@@ -0,0 +1,192 @@
+package org.interledger.plugin.lpi.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.ilp.InterledgerProtocolError;
+import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.LedgerPluginEventEmitter;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.TransferId;
+import org.interledger.plugin.lpi.events.ImmutableLedgerPluginErrorEvent;
+import org.interledger.plugin.lpi.events.ImmutableOutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.ImmutableOutgoingTransferRejectedEvent;
+import org.interledger.plugin.lpi.events.LedgerPluginErrorEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.metrics.EventRingBuffer.Entry;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for {@link EventRingBuffer} and {@link RecordingLedgerPluginEventEmitter}.
+ */
+public class EventRingBufferTest {
+
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+
+  private Path directory;
+  private LedgerPluginEventEmitter delegate;
+  private RecordingLedgerPluginEventEmitter emitter;
+
+  @BeforeMethod
+  public void setup() throws IOException {
+    this.directory = Files.createTempDirectory("ledger-plugin-events");
+    this.delegate = mock(LedgerPluginEventEmitter.class);
+    this.emitter = new RecordingLedgerPluginEventEmitter(
+        delegate, new EventRingBuffer(4), Optional.of(directory));
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (final Path file : files.collect(Collectors.toList())) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  @Test
+  public void testDumpAndRead() throws IOException {
+    final Transfer transfer = transfer(BigInteger.TEN);
+    final OutgoingTransferPreparedEvent prepared =
+        ImmutableOutgoingTransferPreparedEvent.builder().transfer(transfer).build();
+    emitter.emitEvent(prepared);
+    verify(delegate).emitEvent(prepared);
+    emitter.emitEvent(ImmutableOutgoingTransferRejectedEvent.builder()
+        .transfer(transfer)
+        .rejectionReason(InterledgerProtocolError.builder()
+            .errorCode(ErrorCode.R00_TRANSFER_TIMED_OUT)
+            .triggeredAt(Instant.now())
+            .triggeredByAddress(LEDGER_PREFIX)
+            .build())
+        .build());
+    // Too large to record...
+    emitter.emitEvent(ImmutableOutgoingTransferPreparedEvent.builder()
+        .transfer(transfer(BigInteger.ONE.shiftLeft(64)))
+        .build());
+
+    final Path file = directory.resolve("dump.bin");
+    assertThat(emitter.getEventRingBuffer().dump(file), is(3));
+    final List<Entry> entries = EventRingBuffer.read(file);
+    assertThat(entries.size(), is(3));
+
+    final Entry first = entries.get(0);
+    assertThat(first.getSequence(), is(0L));
+    assertThat(first.getEventType(), is(LedgerPluginEventType.OUTGOING_TRANSFER_PREPARED));
+    assertThat(first.getId(), is(Optional.of(transfer.getTransferId().value())));
+    assertThat(first.getAmount(), is(Optional.of(BigInteger.TEN)));
+    assertThat(first.getErrorCode(), is(Optional.empty()));
+
+    final Entry second = entries.get(1);
+    assertThat(second.getEventType(), is(LedgerPluginEventType.OUTGOING_TRANSFER_REJECTED));
+    assertThat(second.getErrorCode(), is(Optional.of(ErrorCode.R00_TRANSFER_TIMED_OUT)));
+    assertThat(second.getNanoTime() >= first.getNanoTime(), is(true));
+
+    assertThat(entries.get(2).getAmount(), is(Optional.empty()));
+  }
+
+  @Test
+  public void testOverwritesOldestEvents() throws IOException {
+    for (int i = 1; i <= 6; i++) {
+      emitter.emitEvent(ImmutableOutgoingTransferPreparedEvent.builder()
+          .transfer(transfer(BigInteger.valueOf(i)))
+          .build());
+    }
+    assertThat(emitter.getEventRingBuffer().getRecordedCount(), is(6L));
+
+    final Path file = directory.resolve("dump.bin");
+    emitter.getEventRingBuffer().dump(file);
+    final List<Entry> entries = EventRingBuffer.read(file);
+    assertThat(entries.stream().map(Entry::getSequence).collect(Collectors.toList()),
+        is(Stream.of(2L, 3L, 4L, 5L).collect(Collectors.toList())));
+    assertThat(entries.get(0).getAmount(), is(Optional.of(BigInteger.valueOf(3))));
+  }
+
+  @Test
+  public void testDumpsOnError() throws IOException {
+    emitter.emitEvent(ImmutableOutgoingTransferPreparedEvent.builder()
+        .transfer(transfer(BigInteger.TEN))
+        .build());
+    final LedgerPluginErrorEvent error = ImmutableLedgerPluginErrorEvent.builder()
+        .ledgerPrefix(LEDGER_PREFIX)
+        .error(new RuntimeException("Connection lost"))
+        .build();
+    emitter.emitEvent(error);
+    verify(delegate).emitEvent(error);
+
+    final List<Path> dumps;
+    try (Stream<Path> files = Files.list(directory)) {
+      dumps = files.collect(Collectors.toList());
+    }
+    assertThat(dumps.size(), is(1));
+    final List<Entry> entries = EventRingBuffer.read(dumps.get(0));
+    assertThat(entries.size(), is(2));
+    assertThat(entries.get(1).getEventType(), is(LedgerPluginEventType.ERROR));
+    assertThat(entries.get(1).getId(), is(Optional.empty()));
+  }
+
+  @Test
+  public void testDumpsAreRateLimited() throws IOException {
+    for (int i = 0; i < 5; i++) {
+      emitter.emitEvent(error());
+    }
+
+    // Only the first error in a storm is dumped, but every one is passed on...
+    assertThat(listDumps().size(), is(1));
+    assertThat(emitter.getSkippedDumpCount(), is(4L));
+    verify(delegate, times(5)).emitEvent(any(LedgerPluginErrorEvent.class));
+  }
+
+  @Test
+  public void testDumpIntervalIsConfigurable() throws IOException {
+    final RecordingLedgerPluginEventEmitter unlimited = new RecordingLedgerPluginEventEmitter(
+        delegate, new EventRingBuffer(4), Optional.of(directory), Duration.ZERO);
+    for (int i = 0; i < 3; i++) {
+      unlimited.emitEvent(error());
+    }
+
+    assertThat(listDumps().size(), is(3));
+    assertThat(unlimited.getSkippedDumpCount(), is(0L));
+  }
+
+  private LedgerPluginErrorEvent error() {
+    return ImmutableLedgerPluginErrorEvent.builder()
+        .ledgerPrefix(LEDGER_PREFIX)
+        .error(new RuntimeException("Connection lost"))
+        .build();
+  }
+
+  private List<Path> listDumps() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.collect(Collectors.toList());
+    }
+  }
+
+  private Transfer transfer(final BigInteger amount) {
+    final Transfer transfer = mock(Transfer.class);
+    when(transfer.getTransferId()).thenReturn(TransferId.of(UUID.randomUUID()));
+    when(transfer.getAmount()).thenReturn(amount);
+    return transfer;
+  }
+}
@@ -0,0 +1,292 @@
+package org.interledger.plugin.lpi.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+import org.interledger.ilp.InterledgerPayment;
+import org.interledger.ilp.InterledgerProtocolError;
+import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.ImmutableTransfer;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.TransferId;
+import org.interledger.plugin.lpi.events.ImmutableIncomingTransferCancelledEvent;
+import org.interledger.plugin.lpi.events.ImmutableIncomingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.ImmutableOutgoingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.ImmutableOutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.events.ImmutableOutgoingTransferRejectedEvent;
+import org.interledger.plugin.lpi.metrics.InFlightTransferTracker.Direction;
+
+import com.google.common.collect.ImmutableMap;
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link InFlightTransferTracker}.
+ */
+public class InFlightTransferTrackerTest {
+
+  private static final byte[] PREIMAGE = "quinquagintaquadringentilliardth".getBytes();
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+  private static final InterledgerAddress OTHER_LEDGER_PREFIX = InterledgerAddress.of("test1.bar.");
+  private static final InterledgerAddress CONNECTOR = LEDGER_PREFIX.with("connector");
+  private static final InterledgerAddress ALICE = LEDGER_PREFIX.with("alice");
+  private static final InterledgerAddress BOB = LEDGER_PREFIX.with("bob");
+  private static final InterledgerAddress CAROL = OTHER_LEDGER_PREFIX.with("carol");
+  private static final Instant START = Instant.parse("2017-06-01T00:00:00Z");
+
+  private InFlightTransferTracker tracker;
+
+  @BeforeMethod
+  public void setup() {
+    this.tracker = new InFlightTransferTracker(Clock.fixed(START, ZoneOffset.UTC));
+  }
+
+  @Test
+  public void testExposure() {
+    final Transfer toBob = outgoing(BOB, 10, Duration.ofMinutes(1));
+    prepare(toBob);
+    prepare(outgoing(BOB, 5, Duration.ofMinutes(1)));
+    final Transfer toCarol = outgoing(CAROL, 7, Duration.ofMinutes(1));
+    prepare(toCarol);
+    final Transfer fromAlice = incoming(ALICE, 3, Duration.ofMinutes(1));
+    tracker.onTransferPrepared(
+        ImmutableIncomingTransferPreparedEvent.builder().transfer(fromAlice).build());
+    // A repeated notification isn't counted twice...
+    prepare(toBob);
+
+    assertThat(tracker.getPendingCount(), is(4));
+    assertThat(tracker.getTotalExposure(Direction.OUTGOING), is(BigInteger.valueOf(22)));
+    assertThat(tracker.getTotalExposure(Direction.INCOMING), is(BigInteger.valueOf(3)));
+    assertThat(tracker.getExposureByCounterparty(Direction.OUTGOING), is(ImmutableMap.of(
+        BOB, BigInteger.valueOf(15), CAROL, BigInteger.valueOf(7))));
+    assertThat(tracker.getExposureByCounterparty(Direction.INCOMING),
+        is(ImmutableMap.of(ALICE, BigInteger.valueOf(3))));
+    assertThat(tracker.getExposureByLedger(Direction.OUTGOING), is(ImmutableMap.of(
+        LEDGER_PREFIX, BigInteger.valueOf(15), OTHER_LEDGER_PREFIX, BigInteger.valueOf(7))));
+
+    tracker.onTransferFulfilled(ImmutableOutgoingTransferFulfilledEvent.builder()
+        .transfer(toBob)
+        .fulfillment(new PreimageSha256Fulfillment(PREIMAGE))
+        .build());
+    tracker.onTransferRejected(ImmutableOutgoingTransferRejectedEvent.builder()
+        .transfer(toCarol)
+        .rejectionReason(rejectionReason())
+        .build());
+    tracker.onTransferCancelled(ImmutableIncomingTransferCancelledEvent.builder()
+        .transfer(fromAlice)
+        .cancellationReason(rejectionReason())
+        .build());
+    // Transfers that aren't pending are ignored...
+    tracker.onTransferFulfilled(ImmutableOutgoingTransferFulfilledEvent.builder()
+        .transfer(toBob)
+        .fulfillment(new PreimageSha256Fulfillment(PREIMAGE))
+        .build());
+
+    assertThat(tracker.getPendingCount(), is(1));
+    assertThat(tracker.getTotalExposure(Direction.OUTGOING), is(BigInteger.valueOf(5)));
+    assertThat(tracker.getTotalExposure(Direction.INCOMING), is(BigInteger.ZERO));
+    assertThat(tracker.getExposureByCounterparty(Direction.OUTGOING),
+        is(ImmutableMap.of(BOB, BigInteger.valueOf(5))));
+    assertThat(tracker.getExposureByCounterparty(Direction.INCOMING).isEmpty(), is(true));
+  }
+
+  @Test
+  public void testOldestPendingTransfer() {
+    assertThat(tracker.getOldestPendingTransfer().isPresent(), is(false));
+
+    final Transfer first = outgoing(BOB, 1, Duration.ofMinutes(1));
+    final Transfer second = outgoing(BOB, 1, Duration.ofMinutes(1));
+    final Transfer third = outgoing(BOB, 1, Duration.ofMinutes(1));
+    prepare(first);
+    prepare(second);
+    prepare(third);
+    assertThat(oldest(), is(first.getTransferId()));
+
+    reject(second);
+    assertThat(oldest(), is(first.getTransferId()));
+    reject(first);
+    assertThat(oldest(), is(third.getTransferId()));
+    assertThat(tracker.getOldestPendingTransfer().get().getPreparedAt(), is(START));
+    assertThat(tracker.getOldestPendingTransfer().get().getCounterparty(), is(BOB));
+    reject(third);
+    assertThat(tracker.getOldestPendingTransfer().isPresent(), is(false));
+  }
+
+  @Test
+  public void testTimeToExpiry() {
+    prepare(outgoing(BOB, 1, Duration.ofMinutes(1)));
+    prepare(outgoing(BOB, 1, Duration.ofHours(1)));
+    // Expired, but not yet rejected by the ledger...
+    prepare(outgoing(BOB, 1, Duration.ofSeconds(-1)));
+
+    final Histogram timeToExpiry = tracker.getTimeToExpiry();
+    assertThat(timeToExpiry.getTotalCount(), is(3L));
+    assertThat(timeToExpiry.getMinValue(), is(0L));
+    assertThat(timeToExpiry.valuesAreEquivalent(timeToExpiry.getMaxValue(),
+        TimeUnit.HOURS.toMillis(1)), is(true));
+  }
+
+  @Test
+  public void testExpiredTransfersAreEvicted() {
+    final FakeClock clock = new FakeClock();
+    this.tracker = new InFlightTransferTracker(clock, Duration.ofSeconds(30));
+
+    // The first transfer outlives the others, so they're never at the head of the queue...
+    final Transfer longLived = outgoing(BOB, 10, Duration.ofHours(1));
+    prepare(longLived);
+    final Transfer unresolved = outgoing(BOB, 1, Duration.ofMinutes(1));
+    prepare(unresolved);
+    prepare(outgoing(CAROL, 2, Duration.ofMinutes(1)));
+
+    // Expired, but still within the grace period...
+    clock.advance(Duration.ofMinutes(1).plusSeconds(20));
+    prepare(outgoing(BOB, 100, Duration.ofHours(1)));
+    assertThat(tracker.getPendingCount(), is(4));
+    assertThat(tracker.getEvictedCount(), is(0L));
+
+    // Expired transfers are looked for at most once per grace period, so by the time a second one
+    // has passed...
+    clock.advance(Duration.ofSeconds(40));
+    prepare(outgoing(BOB, 1000, Duration.ofHours(1)));
+    assertThat(tracker.getPendingCount(), is(3));
+    assertThat(tracker.getEvictedCount(), is(2L));
+    assertThat(tracker.getTotalExposure(Direction.OUTGOING), is(BigInteger.valueOf(1110)));
+    assertThat(tracker.getExposureByCounterparty(Direction.OUTGOING),
+        is(ImmutableMap.of(BOB, BigInteger.valueOf(1110))));
+    assertThat(oldest(), is(longLived.getTransferId()));
+
+    // A late rejection of an evicted transfer is ignored...
+    reject(unresolved);
+    assertThat(tracker.getPendingCount(), is(3));
+    assertThat(tracker.getTotalExposure(Direction.OUTGOING), is(BigInteger.valueOf(1110)));
+  }
+
+  @Test
+  public void testConcurrentPrepareAndResolve() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 1000; j++) {
+            final Transfer transfer = outgoing(j % 2 == 0 ? BOB : CAROL, j + 1,
+                Duration.ofMinutes(1));
+            prepare(transfer);
+            tracker.getOldestPendingTransfer();
+            reject(transfer);
+          }
+        }));
+      }
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(tracker.getPendingCount(), is(0));
+    assertThat(tracker.getTotalExposure(Direction.OUTGOING), is(BigInteger.ZERO));
+    assertThat(tracker.getExposureByCounterparty(Direction.OUTGOING).isEmpty(), is(true));
+    assertThat(tracker.getOldestPendingTransfer().isPresent(), is(false));
+  }
+
+  private TransferId oldest() {
+    return tracker.getOldestPendingTransfer().get().getTransfer().getTransferId();
+  }
+
+  private void prepare(final Transfer transfer) {
+    tracker.onTransferPrepared(
+        ImmutableOutgoingTransferPreparedEvent.builder().transfer(transfer).build());
+  }
+
+  private void reject(final Transfer transfer) {
+    tracker.onTransferRejected(ImmutableOutgoingTransferRejectedEvent.builder()
+        .transfer(transfer)
+        .rejectionReason(rejectionReason())
+        .build());
+  }
+
+  private InterledgerProtocolError rejectionReason() {
+    return InterledgerProtocolError.builder()
+        .errorCode(ErrorCode.R00_TRANSFER_TIMED_OUT)
+        .triggeredAt(START)
+        .triggeredByAddress(LEDGER_PREFIX)
+        .build();
+  }
+
+  private Transfer outgoing(
+      final InterledgerAddress destination, final long amount, final Duration expiresIn
+  ) {
+    return transfer(CONNECTOR, destination, amount, expiresIn);
+  }
+
+  private Transfer incoming(
+      final InterledgerAddress source, final long amount, final Duration expiresIn
+  ) {
+    return transfer(source, CONNECTOR, amount, expiresIn);
+  }
+
+  private Transfer transfer(
+      final InterledgerAddress source, final InterledgerAddress destination, final long amount,
+      final Duration expiresIn
+  ) {
+    return ImmutableTransfer.builder()
+        .transferId(TransferId.of(UUID.randomUUID()))
+        .ledgerPrefix(destination.startsWith(LEDGER_PREFIX) ? LEDGER_PREFIX : OTHER_LEDGER_PREFIX)
+        .sourceAccount(source)
+        .destinationAccount(destination)
+        .amount(BigInteger.valueOf(amount))
+        .executionCondition(new PreimageSha256Fulfillment(PREIMAGE).getCondition())
+        .expiresAt(START.plus(expiresIn))
+        .interlederPaymentPacket(InterledgerPayment.builder()
+            .destinationAccount(destination)
+            .destinationAmount(BigInteger.valueOf(amount))
+            .data(new byte[0])
+            .build())
+        .build();
+  }
+
+  /**
+   * A {@link Clock} that only moves when it's told to.
+   */
+  private static class FakeClock extends Clock {
+
+    private volatile Instant instant = START;
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(final ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+
+    private void advance(final Duration duration) {
+      instant = instant.plus(duration);
+    }
+  }
+}
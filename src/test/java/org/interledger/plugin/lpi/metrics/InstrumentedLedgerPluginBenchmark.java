@@ -0,0 +1,65 @@
+package org.interledger.plugin.lpi.metrics;
+
+import static org.mockito.Mockito.mock;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.plugin.lpi.ImmutableLedgerInfo;
+import org.interledger.plugin.lpi.LedgerPlugin;
+import org.interledger.plugin.lpi.MockLedgerPlugin;
+import org.interledger.plugin.lpi.MockLedgerPlugin.ExtendedLedgerPluginConfig;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import javax.money.Monetary;
+
+/**
+ * Measures the overhead that an {@link InstrumentedLedgerPlugin} adds to each call, by calling an
+ * operation that does almost nothing, both directly and through the decorator.
+ *
+ * Run with {@code mvn -Pbenchmarks verify -Dbenchmark=InstrumentedLedgerPluginBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentedLedgerPluginBenchmark {
+
+  private LedgerPlugin plugin;
+  private LedgerPlugin instrumentedPlugin;
+
+  @Setup
+  public void setup() {
+    final SimulatedLedger simulatedLedger = new SimulatedLedger(ImmutableLedgerInfo.builder()
+        .currencyScale(8)
+        .currencyUnit(Monetary.getCurrency("USD"))
+        .ledgerPrefix(InterledgerAddress.of("test1.foo."))
+        .build());
+    this.plugin = new MockLedgerPlugin(mock(ExtendedLedgerPluginConfig.class), simulatedLedger);
+    this.instrumentedPlugin = new InstrumentedLedgerPlugin(plugin);
+  }
+
+  @Benchmark
+  public BigInteger direct() {
+    return plugin.getConnectorBalance();
+  }
+
+  @Benchmark
+  public BigInteger instrumented() {
+    return instrumentedPlugin.getConnectorBalance();
+  }
+}
@@ -0,0 +1,144 @@
+package org.interledger.plugin.lpi.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.fail;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+import org.interledger.ilp.InterledgerPayment;
+import org.interledger.plugin.lpi.ImmutableLedgerInfo;
+import org.interledger.plugin.lpi.ImmutableTransfer;
+import org.interledger.plugin.lpi.LedgerPlugin;
+import org.interledger.plugin.lpi.LedgerPluginEventEmitter;
+import org.interledger.plugin.lpi.MockLedgerPlugin;
+import org.interledger.plugin.lpi.MockLedgerPlugin.ExtendedLedgerPluginConfig;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.TransferId;
+import org.interledger.plugin.lpi.events.EventTraceSampler;
+import org.interledger.plugin.lpi.events.EventTraceSink;
+import org.interledger.plugin.lpi.events.OutgoingTransferFulfilledEvent;
+import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.exceptions.TransferNotAcceptedException;
+import org.interledger.plugin.lpi.handlers.LedgerPluginEventHandler;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import javax.money.Monetary;
+
+/**
+ * Unit tests for {@link InstrumentedLedgerPlugin}.
+ */
+public class InstrumentedLedgerPluginTest {
+
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+  private static final InterledgerAddress CONNECTOR_ACCOUNT = LEDGER_PREFIX.with("connector");
+  private static final InterledgerAddress RECIPIENT_ACCOUNT = LEDGER_PREFIX.with("recipient");
+  private static final byte[] PREIMAGE = "quinquagintaquadringentilliardth".getBytes();
+
+  private LedgerPlugin delegate;
+  private LedgerPluginEventEmitter delegateEmitter;
+  private InstrumentedLedgerPlugin plugin;
+
+  @BeforeMethod
+  public void setup() {
+    this.delegate = mock(LedgerPlugin.class);
+    this.delegateEmitter = mock(LedgerPluginEventEmitter.class);
+    when(delegate.getLedgerPluginEventEmitter()).thenReturn(delegateEmitter);
+    this.plugin = new InstrumentedLedgerPlugin(delegate);
+  }
+
+  @Test
+  public void testOperationsAndExceptions() {
+    when(delegate.getConnectorBalance()).thenReturn(BigInteger.TEN);
+    final Transfer transfer = mock(Transfer.class);
+    doThrow(new TransferNotAcceptedException(LEDGER_PREFIX, null, null))
+        .when(delegate).sendTransfer(transfer);
+
+    assertThat(plugin.getConnectorBalance(), is(BigInteger.TEN));
+    try {
+      plugin.sendTransfer(transfer);
+      fail("Expected a TransferNotAcceptedException");
+    } catch (TransferNotAcceptedException e) {
+      // Expected...
+    }
+
+    final LedgerPluginMetricsSnapshot snapshot = plugin.getMetrics().snapshot();
+    assertThat(snapshot.getOperations().get(LedgerPluginOperation.GET_CONNECTOR_BALANCE)
+        .getCount(), is(1L));
+    assertThat(snapshot.getOperations().get(LedgerPluginOperation.SEND_TRANSFER).getErrors(),
+        is(1L));
+    assertThat(snapshot.getExceptionCounts().get(TransferNotAcceptedException.class.getName()),
+        is(1L));
+  }
+
+  @Test
+  public void testEventsAndHandlers() {
+    final SimulatedLedger simulatedLedger = new SimulatedLedger(ImmutableLedgerInfo.builder()
+        .currencyScale(8)
+        .currencyUnit(Monetary.getCurrency("USD"))
+        .ledgerPrefix(LEDGER_PREFIX)
+        .build());
+    final MockLedgerPlugin sender = new MockLedgerPlugin(ExtendedLedgerPluginConfig
+        .forSimulatedLedger(simulatedLedger.getLedgerInfo(), CONNECTOR_ACCOUNT), simulatedLedger);
+    // Traced events record when they were emitted, so that their delivery can be timed...
+    sender.setEventTracing(EventTraceSampler.always(), EventTraceSink.discard());
+    final InstrumentedLedgerPlugin plugin = new InstrumentedLedgerPlugin(sender);
+    plugin.connect();
+
+    final LedgerPluginEventHandler handler = mock(LedgerPluginEventHandler.class);
+    final UUID handlerId = plugin.addLedgerPluginEventHandler(handler);
+
+    final MockLedgerPlugin recipient = new MockLedgerPlugin(ExtendedLedgerPluginConfig
+        .forSimulatedLedger(simulatedLedger.getLedgerInfo(), RECIPIENT_ACCOUNT), simulatedLedger);
+    recipient.connect();
+
+    // The simulated ledger emits these events to the wrapped plugin's own emitter, so they don't
+    // pass through the instrumented one...
+    final Transfer transfer = ImmutableTransfer.builder()
+        .transferId(TransferId.of(UUID.randomUUID()))
+        .ledgerPrefix(LEDGER_PREFIX)
+        .sourceAccount(CONNECTOR_ACCOUNT)
+        .destinationAccount(RECIPIENT_ACCOUNT)
+        .amount(BigInteger.TEN)
+        .executionCondition(new PreimageSha256Fulfillment(PREIMAGE).getCondition())
+        .expiresAt(Instant.now().plus(10, ChronoUnit.HOURS))
+        .interlederPaymentPacket(InterledgerPayment.builder()
+            .destinationAccount(RECIPIENT_ACCOUNT)
+            .destinationAmount(BigInteger.TEN)
+            .data(new byte[0])
+            .build())
+        .build();
+    plugin.sendTransfer(transfer);
+    recipient.fulfillCondition(transfer.getTransferId(), new PreimageSha256Fulfillment(PREIMAGE));
+
+    verify(handler).onTransferPrepared(any(OutgoingTransferPreparedEvent.class));
+    verify(handler).onTransferFulfilled(any(OutgoingTransferFulfilledEvent.class));
+
+    final LedgerPluginMetricsSnapshot snapshot = plugin.getMetrics().snapshot();
+    assertThat(snapshot.getEventCounts().get(LedgerPluginEventType.CONNECTED), is(1L));
+    assertThat(snapshot.getEventCounts().get(LedgerPluginEventType.OUTGOING_TRANSFER_PREPARED),
+        is(1L));
+    assertThat(snapshot.getEventCounts().get(LedgerPluginEventType.OUTGOING_TRANSFER_FULFILLED),
+        is(1L));
+    assertThat(snapshot.getExecutedTransfers().getCount(), is(1L));
+    assertThat(snapshot.getUntrackedTransfers(), is(0L));
+    assertThat(snapshot.getEventDeliveries().getCount(), is(2L));
+    assertThat(snapshot.getHandlers().get(handlerId).getCount(), is(2L));
+
+    plugin.removeLedgerPluginEventHandler(handlerId);
+    assertThat(plugin.getMetrics().snapshot().getHandlers().isEmpty(), is(true));
+  }
+}
@@ -0,0 +1,146 @@
+package org.interledger.plugin.lpi.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+import org.interledger.ilp.InterledgerPayment;
+import org.interledger.plugin.lpi.ImmutableLedgerInfo;
+import org.interledger.plugin.lpi.ImmutableTransfer;
+import org.interledger.plugin.lpi.MockLedgerPlugin;
+import org.interledger.plugin.lpi.MockLedgerPlugin.ExtendedLedgerPluginConfig;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+import org.interledger.plugin.lpi.QueuedMockLedgerPlugin;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.TransferId;
+import org.interledger.plugin.lpi.handlers.LedgerPluginEventHandler;
+
+import com.google.common.eventbus.EventBus;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import javax.management.Attribute;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import javax.money.Monetary;
+
+/**
+ * Unit tests for {@link LedgerPluginManagement}.
+ */
+public class LedgerPluginManagementTest {
+
+  private static final byte[] PREIMAGE = "quinquagintaquadringentilliardth".getBytes();
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+  private static final InterledgerAddress CONNECTOR = LEDGER_PREFIX.with("connector");
+
+  private MBeanServer server;
+  private MockLedgerPlugin plugin;
+  private ObjectName name;
+
+  @BeforeMethod
+  public void setup() throws JMException {
+    this.plugin = new MockLedgerPlugin(config(), simulatedLedger());
+    this.server = ManagementFactory.getPlatformMBeanServer();
+    this.name = LedgerPluginManagement.register(plugin);
+  }
+
+  @AfterMethod
+  public void tearDown() throws JMException {
+    LedgerPluginManagement.unregister(name);
+  }
+
+  @Test
+  public void testAttributes() throws JMException {
+    assertThat(name.getKeyProperty("type"), is("LedgerPlugin"));
+    assertThat(server.getAttribute(name, "LedgerPrefix"), is(LEDGER_PREFIX.getValue()));
+    assertThat(server.getAttribute(name, "Connected"), is(false));
+
+    plugin.addLedgerPluginEventHandler(mock(LedgerPluginEventHandler.class));
+    plugin.connect();
+    plugin.sendTransfer(transfer());
+
+    assertThat(server.getAttribute(name, "Connected"), is(true));
+    assertThat(server.getAttribute(name, "HandlerCount"), is(1));
+    assertThat(server.getAttribute(name, "EventCount"), is(2L));
+    assertThat(server.getAttribute(name, "InFlightTransferCount"), is(1L));
+    // Maps are exposed as open types...
+    final TabularData eventCounts = (TabularData) server.getAttribute(name, "EventCounts");
+    assertThat(eventCounts.get(new Object[] {"OUTGOING_TRANSFER_PREPARED"}).get("value"),
+        is(1L));
+
+    server.invoke(name, "resetMetrics", new Object[0], new String[0]);
+    assertThat(server.getAttribute(name, "EventCount"), is(0L));
+    // ...but the transfer is still in flight.
+    assertThat(server.getAttribute(name, "InFlightTransferCount"), is(1L));
+  }
+
+  @Test
+  public void testAttributesOfQueuedPlugin() throws JMException {
+    // Replace the plugin registered for this ledger...
+    LedgerPluginManagement.unregister(name);
+    this.plugin = new QueuedMockLedgerPlugin(config(), simulatedLedger(), new EventBus()) {
+    };
+    this.name = LedgerPluginManagement.register(plugin);
+
+    plugin.connect();
+    plugin.sendTransfer(transfer());
+
+    // Events posted to the queue are counted as they are emitted...
+    assertThat(server.getAttribute(name, "EventCount"), is(2L));
+    assertThat(server.getAttribute(name, "InFlightTransferCount"), is(1L));
+  }
+
+  @Test
+  public void testEventTraceSampleRate() throws JMException {
+    assertThat(server.getAttribute(name, "EventTraceSampleRate"), is(0.0));
+    assertThat(plugin.getEventTraceSampler().shouldTrace(), is(false));
+
+    server.setAttribute(name, new Attribute("EventTraceSampleRate", 1.0));
+    assertThat(server.getAttribute(name, "EventTraceSampleRate"), is(1.0));
+    assertThat(plugin.getEventTraceSampler().shouldTrace(), is(true));
+  }
+
+  private ExtendedLedgerPluginConfig config() {
+    final ExtendedLedgerPluginConfig config = mock(ExtendedLedgerPluginConfig.class);
+    when(config.getConnectorAccount()).thenReturn(CONNECTOR);
+    when(config.getPassword()).thenReturn("password");
+    return config;
+  }
+
+  private SimulatedLedger simulatedLedger() {
+    return new SimulatedLedger(ImmutableLedgerInfo.builder()
+        .currencyScale(8)
+        .currencyUnit(Monetary.getCurrency("USD"))
+        .ledgerPrefix(LEDGER_PREFIX)
+        .build());
+  }
+
+  private Transfer transfer() {
+    return ImmutableTransfer.builder()
+        .transferId(TransferId.of(UUID.randomUUID()))
+        .ledgerPrefix(LEDGER_PREFIX)
+        .sourceAccount(CONNECTOR)
+        .destinationAccount(LEDGER_PREFIX.with("destination"))
+        .amount(BigInteger.TEN)
+        .executionCondition(new PreimageSha256Fulfillment(PREIMAGE).getCondition())
+        .expiresAt(Instant.now().plus(1, ChronoUnit.HOURS))
+        .interlederPaymentPacket(InterledgerPayment.builder()
+            .destinationAccount(LEDGER_PREFIX.with("destination"))
+            .destinationAmount(BigInteger.TEN)
+            .data(new byte[0])
+            .build())
+        .build();
+  }
+}
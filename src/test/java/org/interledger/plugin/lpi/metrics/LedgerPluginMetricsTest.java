@@ -0,0 +1,120 @@
+package org.interledger.plugin.lpi.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import org.interledger.plugin.lpi.LedgerResult;
+import org.interledger.plugin.lpi.TransferId;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.UUID;
+
+/**
+ * Unit tests for {@link LedgerPluginMetrics}.
+ */
+public class LedgerPluginMetricsTest {
+
+  private LedgerPluginMetrics metrics;
+
+  @BeforeMethod
+  public void setup() {
+    this.metrics = new LedgerPluginMetrics();
+  }
+
+  @Test
+  public void testOperations() {
+    final long startNanos = System.nanoTime();
+    metrics.recordOperation(LedgerPluginOperation.SEND_TRANSFER, startNanos, false);
+    metrics.recordOperation(LedgerPluginOperation.SEND_TRANSFER, startNanos, true);
+    metrics.recordOperation(LedgerPluginOperation.FULFILL_CONDITION, startNanos,
+        LedgerResult.accepted());
+
+    final LedgerPluginMetricsSnapshot snapshot = metrics.snapshot();
+    assertThat(snapshot.getOperations().get(LedgerPluginOperation.SEND_TRANSFER).getCount(),
+        is(2L));
+    assertThat(snapshot.getOperations().get(LedgerPluginOperation.SEND_TRANSFER).getErrors(),
+        is(1L));
+    assertThat(snapshot.getOperations().get(LedgerPluginOperation.FULFILL_CONDITION).getErrors(),
+        is(0L));
+    assertThat(snapshot.getOperations().get(LedgerPluginOperation.CONNECT).getCount(), is(0L));
+
+    // Snapshots are cumulative...
+    metrics.recordOperation(LedgerPluginOperation.SEND_TRANSFER, startNanos, false);
+    assertThat(metrics.snapshot().getOperations().get(LedgerPluginOperation.SEND_TRANSFER)
+        .getCount(), is(3L));
+
+    metrics.reset();
+    assertThat(metrics.snapshot().getOperations().get(LedgerPluginOperation.SEND_TRANSFER)
+        .getCount(), is(0L));
+  }
+
+  @Test
+  public void testTransferLifecycle() {
+    // Fixed ids, so that the two transfers never share a slot...
+    final TransferId executed = TransferId.of(new UUID(1, 1));
+    final TransferId rejected = TransferId.of(new UUID(2, 2));
+    metrics.transferPrepared(executed);
+    metrics.transferPrepared(rejected);
+    assertThat(metrics.getPreparedTransferCount(), is(2L));
+    metrics.transferExecuted(executed);
+    metrics.transferRejected(rejected);
+    assertThat(metrics.getPreparedTransferCount(), is(0L));
+
+    // Preparing a transfer again restarts its lifecycle, so it is only timed once, but transfers
+    // are counted rather than remembered, so it is counted twice...
+    metrics.transferPrepared(executed);
+    metrics.transferPrepared(executed);
+    metrics.transferExecuted(executed);
+    assertThat(metrics.getPreparedTransferCount(), is(1L));
+
+    // A transfer that was never seen to be prepared can't be timed, and the count never goes below
+    // zero...
+    metrics.transferExecuted(TransferId.of(UUID.randomUUID()));
+    metrics.transferExecuted(TransferId.of(UUID.randomUUID()));
+
+    final LedgerPluginMetricsSnapshot snapshot = metrics.snapshot();
+    assertThat(snapshot.getExecutedTransfers().getCount(), is(2L));
+    assertThat(snapshot.getRejectedTransfers().getCount(), is(1L));
+    assertThat(metrics.getPreparedTransferCount(), is(0L));
+  }
+
+  @Test
+  public void testUntrackedTransfers() {
+    final LedgerPluginMetrics metrics = new LedgerPluginMetrics(4);
+    for (int i = 0; i < 100; i++) {
+      metrics.transferPrepared(TransferId.of(UUID.randomUUID()));
+    }
+
+    // Only four transfers fit in the table, so at least 96 were displaced, but all are counted...
+    assertThat(metrics.snapshot().getUntrackedTransfers() >= 96, is(true));
+    assertThat(metrics.getPreparedTransferCount(), is(100L));
+
+    // Resetting the metrics doesn't resolve any transfers...
+    metrics.reset();
+    assertThat(metrics.getPreparedTransferCount(), is(100L));
+  }
+
+  @Test
+  public void testHandlersAndEvents() {
+    final UUID handlerId = UUID.randomUUID();
+    final long startNanos = System.nanoTime();
+    metrics.recordHandler(handlerId, startNanos, false);
+    metrics.addHandler(handlerId);
+    metrics.recordHandler(handlerId, startNanos, true);
+    metrics.recordEvent(LedgerPluginEventType.INCOMING_TRANSFER_PREPARED);
+
+    LedgerPluginMetricsSnapshot snapshot = metrics.snapshot();
+    assertThat(snapshot.getHandlers().get(handlerId).getCount(), is(1L));
+    assertThat(snapshot.getHandlers().get(handlerId).getErrors(), is(1L));
+    assertThat(snapshot.getEventCounts().get(LedgerPluginEventType.INCOMING_TRANSFER_PREPARED),
+        is(1L));
+    assertThat(snapshot.toMap().get("events.incoming_transfer_prepared"), is(1L));
+    assertThat(snapshot.toMap().get("handlers." + handlerId + ".errors"), is(1L));
+
+    metrics.removeHandler(handlerId);
+    snapshot = metrics.snapshot();
+    assertThat(snapshot.getHandlers().isEmpty(), is(true));
+  }
+}
@@ -0,0 +1,28 @@
+package org.interledger.plugin.lpi.simulation;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import org.interledger.InterledgerAddress;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for {@link AccountDictionary}.
+ */
+public class AccountDictionaryTest {
+
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+
+  @Test
+  public void testIdsAreDenseAndStable() {
+    final AccountDictionary accountDictionary = new AccountDictionary();
+
+    assertThat(accountDictionary.find(LEDGER_PREFIX.with("alice")), is(AccountDictionary.NO_ID));
+    assertThat(accountDictionary.intern(LEDGER_PREFIX.with("alice")), is(0));
+    assertThat(accountDictionary.intern(LEDGER_PREFIX.with("bob")), is(1));
+    assertThat(accountDictionary.intern(LEDGER_PREFIX.with("alice")), is(0));
+    assertThat(accountDictionary.find(LEDGER_PREFIX.with("bob")), is(1));
+    assertThat(accountDictionary.size(), is(2));
+  }
+}
@@ -0,0 +1,89 @@
+package org.interledger.plugin.lpi.simulation;
+
+import org.interledger.cryptoconditions.Condition;
+import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares verifying a batch of fulfillments one at a time with {@link Fulfillment#verify}, as
+ * {@code SimulatedLedger} used to, against a {@link FulfillmentVerifier}, both when every
+ * fulfillment is new and when each has already been verified (for example, on a previous hop).
+ *
+ * Only the largest batch is big enough for {@link FulfillmentVerifier#verifyAll} to verify in
+ * parallel, and only when more than one core is available, so results from a single-core machine
+ * say nothing about the parallel path. To measure it, run on a machine with several cores, and
+ * compare with a run of {@code org.openjdk.jmh.Main} given {@code -jvmArgsAppend
+ * -XX:ActiveProcessorCount=1}, which verifies every batch on one thread.
+ *
+ * Run with {@code mvn -Pbenchmarks verify -Dbenchmark=FulfillmentVerifierBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FulfillmentVerifierBenchmark {
+
+  @Param({"1", "64", "1024"})
+  private int batchSize;
+
+  private List<Condition> conditions;
+  private List<Fulfillment> fulfillments;
+  private FulfillmentVerifier warmVerifier;
+
+  @Setup
+  public void setup() {
+    final SecureRandom random = new SecureRandom();
+    this.conditions = new ArrayList<>(batchSize);
+    this.fulfillments = new ArrayList<>(batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      final byte[] preimage = new byte[32];
+      random.nextBytes(preimage);
+      final Fulfillment fulfillment = new PreimageSha256Fulfillment(preimage);
+      conditions.add(fulfillment.getCondition());
+      fulfillments.add(fulfillment);
+    }
+
+    // Leave headroom, since the cache may start evicting before it is completely full...
+    this.warmVerifier = new FulfillmentVerifier(batchSize * 4);
+    warmVerifier.verifyAll(conditions, fulfillments);
+  }
+
+  @Benchmark
+  public boolean[] inline() {
+    final boolean[] results = new boolean[batchSize];
+    for (int i = 0; i < batchSize; i++) {
+      results[i] = fulfillments.get(i).verify(conditions.get(i), new byte[0]);
+    }
+    return results;
+  }
+
+  @Benchmark
+  public boolean[] verifierUncached() {
+    // A cache of size zero remembers nothing, so every fulfillment is hashed...
+    return new FulfillmentVerifier(0).verifyAll(conditions, fulfillments);
+  }
+
+  @Benchmark
+  public boolean[] verifierCached() {
+    return warmVerifier.verifyAll(conditions, fulfillments);
+  }
+}
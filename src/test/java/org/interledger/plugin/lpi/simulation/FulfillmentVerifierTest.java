@@ -0,0 +1,88 @@
+package org.interledger.plugin.lpi.simulation;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.interledger.cryptoconditions.Condition;
+import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for {@link FulfillmentVerifier}.
+ */
+public class FulfillmentVerifierTest {
+
+  private static final byte[] PREIMAGE = "quinquagintaquadringentilliardth".getBytes();
+  private static final byte[] ALTERNATE_PREIMAGE = "11inquagintaquadringentilliard11".getBytes();
+
+  private FulfillmentVerifier fulfillmentVerifier;
+
+  @BeforeMethod
+  public void setup() {
+    this.fulfillmentVerifier = new FulfillmentVerifier();
+  }
+
+  @Test
+  public void testVerifyPreimage() {
+    final Fulfillment fulfillment = new PreimageSha256Fulfillment(PREIMAGE);
+    final Fulfillment alternate = new PreimageSha256Fulfillment(ALTERNATE_PREIMAGE);
+
+    assertThat(fulfillmentVerifier.verify(fulfillment.getCondition(), fulfillment), is(true));
+    assertThat(fulfillmentVerifier.verify(fulfillment.getCondition(), alternate), is(false));
+    // A cached success must not leak into a different pair...
+    assertThat(fulfillmentVerifier.verify(fulfillment.getCondition(), fulfillment), is(true));
+    assertThat(fulfillmentVerifier.verify(alternate.getCondition(), fulfillment), is(false));
+  }
+
+  @Test
+  public void testVerifiedPairsAreCached() {
+    final Condition condition = new PreimageSha256Fulfillment(PREIMAGE).getCondition();
+    final Fulfillment fulfillment = mock(Fulfillment.class);
+    when(fulfillment.verify(any(), any())).thenReturn(true);
+
+    assertThat(fulfillmentVerifier.verify(condition, fulfillment), is(true));
+    assertThat(fulfillmentVerifier.verify(condition, fulfillment), is(true));
+    verify(fulfillment, times(1)).verify(any(), any());
+
+    fulfillmentVerifier.clear();
+    assertThat(fulfillmentVerifier.verify(condition, fulfillment), is(true));
+    verify(fulfillment, times(2)).verify(any(), any());
+  }
+
+  @Test
+  public void testVerifyAll() {
+    final Fulfillment fulfillment = new PreimageSha256Fulfillment(PREIMAGE);
+    final Fulfillment alternate = new PreimageSha256Fulfillment(ALTERNATE_PREIMAGE);
+    final List<Condition> conditions = new ArrayList<>();
+    final List<Fulfillment> fulfillments = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      conditions.add(fulfillment.getCondition());
+      fulfillments.add(i % 2 == 0 ? fulfillment : alternate);
+    }
+
+    final boolean[] results = fulfillmentVerifier.verifyAll(conditions, fulfillments);
+
+    for (int i = 0; i < results.length; i++) {
+      assertThat(results[i], is(i % 2 == 0));
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testVerifyAllWithMismatchedLists() {
+    final Fulfillment fulfillment = new PreimageSha256Fulfillment(PREIMAGE);
+    final List<Condition> conditions = new ArrayList<>();
+    conditions.add(fulfillment.getCondition());
+    fulfillmentVerifier.verifyAll(conditions, new ArrayList<>());
+  }
+}
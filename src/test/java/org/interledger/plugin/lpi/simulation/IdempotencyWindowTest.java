@@ -0,0 +1,101 @@
+package org.interledger.plugin.lpi.simulation;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import org.interledger.plugin.lpi.TransferId;
+import org.interledger.plugin.lpi.simulation.IdempotencyWindow.Registration;
+import org.interledger.plugin.lpi.simulation.IdempotencyWindow.Status;
+
+import com.google.common.base.Ticker;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link IdempotencyWindow}.
+ */
+public class IdempotencyWindowTest {
+
+  private static final Duration WINDOW = Duration.ofMinutes(1);
+
+  private FakeTicker ticker;
+
+  @BeforeMethod
+  public void setup() {
+    this.ticker = new FakeTicker();
+  }
+
+  @Test
+  public void testDuplicate() {
+    final IdempotencyWindow<TransferId, String> window = newWindow(100);
+    final TransferId transferId = TransferId.of(UUID.randomUUID());
+
+    assertThat(window.register(transferId, "first").getStatus(), is(Status.NEW));
+
+    final Registration<String> registration = window.register(transferId, "second");
+    assertThat(registration.getStatus(), is(Status.DUPLICATE));
+    assertThat(registration.getPrevious(), is(Optional.of("first")));
+    assertThat(window.getDuplicateCount(), is(1L));
+  }
+
+  @Test
+  public void testEvictedKeyIsNew() {
+    final IdempotencyWindow<TransferId, String> window = newWindow(1);
+    final TransferId first = TransferId.of(UUID.randomUUID());
+    window.register(first, "first");
+    // Pushes the first key out of the set...
+    window.register(TransferId.of(UUID.randomUUID()), "second");
+
+    final Registration<String> registration = window.register(first, "first");
+    assertThat(registration.getStatus(), is(Status.NEW));
+    assertThat(registration.getPrevious().isPresent(), is(false));
+    assertThat(window.getDuplicateCount(), is(0L));
+  }
+
+  @Test
+  public void testKeysExpireAfterWindow() {
+    final IdempotencyWindow<TransferId, String> window = newWindow(100);
+    final TransferId transferId = TransferId.of(UUID.randomUUID());
+    window.register(transferId, "first");
+
+    ticker.advance(WINDOW.minusSeconds(1));
+    assertThat(window.register(transferId, "first").getStatus(), is(Status.DUPLICATE));
+
+    ticker.advance(Duration.ofSeconds(1));
+    assertThat(window.register(transferId, "first").getStatus(), is(Status.NEW));
+  }
+
+  @Test
+  public void testClear() {
+    final IdempotencyWindow<TransferId, String> window = newWindow(100);
+    final TransferId transferId = TransferId.of(UUID.randomUUID());
+    window.register(transferId, "first");
+
+    window.clear();
+
+    assertThat(window.register(transferId, "first").getStatus(), is(Status.NEW));
+  }
+
+  private IdempotencyWindow<TransferId, String> newWindow(final int capacity) {
+    return new IdempotencyWindow<>(WINDOW, capacity, ticker);
+  }
+
+  private static class FakeTicker extends Ticker {
+
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    private void advance(final Duration duration) {
+      nanos += TimeUnit.MILLISECONDS.toNanos(duration.toMillis());
+    }
+  }
+}
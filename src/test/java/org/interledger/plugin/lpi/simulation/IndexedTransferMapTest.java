@@ -0,0 +1,260 @@
+package org.interledger.plugin.lpi.simulation;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.Condition;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+import org.interledger.ilp.InterledgerPayment;
+import org.interledger.plugin.lpi.ImmutableTransfer;
+import org.interledger.plugin.lpi.ImmutableTransferHolder;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger.TransferHolder;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger.TransferStatus;
+import org.interledger.plugin.lpi.TransferId;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for {@link IndexedTransferMap}.
+ */
+public class IndexedTransferMapTest {
+
+  private static final byte[] PREIMAGE = "quinquagintaquadringentilliardth".getBytes();
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+  private static final InterledgerAddress ALICE = LEDGER_PREFIX.with("alice");
+  private static final InterledgerAddress BOB = LEDGER_PREFIX.with("bob");
+  private static final InterledgerAddress CAROL = LEDGER_PREFIX.with("carol");
+  private static final Instant START = Instant.parse("2017-06-01T00:00:00Z");
+
+  private IndexedTransferMap transfers;
+
+  @BeforeMethod
+  public void setup() {
+    this.transfers = new IndexedTransferMap();
+  }
+
+  @Test
+  public void testPagination() {
+    final List<TransferId> expected = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      expected.add(put(ALICE, BOB, START.plusSeconds(i)));
+      put(BOB, CAROL, START.plusSeconds(i));
+    }
+
+    final List<TransferId> actual = new ArrayList<>();
+    TransferQuery query = ImmutableTransferQuery.builder().account(ALICE).limit(10).build();
+    TransferPage page = transfers.query(query);
+    int pages = 1;
+    while (true) {
+      page.getTransfers().forEach(th -> actual.add(th.getTransfer().getTransferId()));
+      if (!page.getNextCursor().isPresent()) {
+        break;
+      }
+      query = ImmutableTransferQuery.copyOf(query).withCursor(page.getNextCursor());
+      page = transfers.query(query);
+      pages++;
+    }
+
+    assertThat(actual, is(expected));
+    assertThat(pages, is(3));
+  }
+
+  @Test
+  public void testQueryByStatusAndTime() {
+    final List<TransferId> transferIds = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      transferIds.add(put(ALICE, BOB, START.plusSeconds(i)));
+    }
+    // Execute the even-numbered transfers...
+    for (int i = 0; i < 10; i += 2) {
+      final TransferHolder transferHolder = transfers.get(transferIds.get(i));
+      transfers.replace(transferIds.get(i), transferHolder, ImmutableTransferHolder.builder()
+          .from(transferHolder)
+          .transferStatus(TransferStatus.EXECUTED)
+          .build());
+    }
+
+    final TransferPage page = transfers.query(ImmutableTransferQuery.builder()
+        .account(BOB)
+        .addStatuses(TransferStatus.EXECUTED)
+        .preparedAfter(START.plusSeconds(3))
+        .preparedBefore(START.plusSeconds(8))
+        .build());
+
+    assertThat(ids(page), is(ImmutableList.of(transferIds.get(4), transferIds.get(6))));
+    assertThat(page.getNextCursor().isPresent(), is(false));
+  }
+
+  @Test
+  public void testRemoveAndReplaceUpdateIndex() {
+    final TransferId first = put(ALICE, BOB, START);
+    final TransferId second = put(ALICE, BOB, START.plusSeconds(1));
+
+    transfers.remove(first);
+    assertThat(ids(transfers.query(ImmutableTransferQuery.builder().account(ALICE).build())),
+        is(ImmutableList.of(second)));
+
+    // Moving the second transfer to a different destination moves it in the index...
+    transfers.put(second, holder(second, ALICE, CAROL, START.plusSeconds(1)));
+    assertThat(transfers.getHistory(BOB).count(), is(0L));
+    assertThat(transfers.getHistory(CAROL).count(), is(1L));
+
+    transfers.clear();
+    assertThat(transfers.getHistory(ALICE).count(), is(0L));
+  }
+
+  @Test
+  public void testConditionIndex() {
+    final TransferId first = put(ALICE, BOB, START);
+    final TransferId second = put(BOB, CAROL, START);
+    final Condition condition = new PreimageSha256Fulfillment(PREIMAGE).getCondition();
+
+    assertThat(transfers.getByExecutionCondition(condition).size(), is(2));
+
+    transfers.remove(first);
+    assertThat(transfers.getByExecutionCondition(condition).get(0).getTransfer().getTransferId(),
+        is(second));
+
+    transfers.remove(second);
+    assertThat(transfers.getByExecutionCondition(condition).isEmpty(), is(true));
+  }
+
+  @Test
+  public void testBalances() {
+    final TransferId first = put(ALICE, BOB, START);
+    put(BOB, CAROL, START);
+
+    // Prepared transfers are debited from the sender, but not yet credited to the recipient...
+    assertThat(transfers.getBalance(ALICE), is(BigInteger.ONE.negate()));
+    assertThat(transfers.getBalance(BOB), is(BigInteger.ONE.negate()));
+    assertThat(transfers.getBalance(CAROL), is(BigInteger.ZERO));
+
+    transfers.replace(first, ImmutableTransferHolder.copyOf(transfers.get(first))
+        .withTransferStatus(TransferStatus.EXECUTED));
+    assertThat(transfers.getBalance(BOB), is(BigInteger.ZERO));
+
+    transfers.remove(first);
+    assertThat(transfers.getBalance(ALICE), is(BigInteger.ZERO));
+    assertThat(transfers.getBalance(BOB), is(BigInteger.ONE.negate()));
+    assertThat(transfers.getBalance(LEDGER_PREFIX.with("dave")), is(BigInteger.ZERO));
+  }
+
+  @Test
+  public void testBalancesTooLargeForLong() {
+    final BigInteger amount = BigInteger.valueOf(Long.MAX_VALUE);
+    for (int i = 0; i < 2; i++) {
+      final TransferId transferId = TransferId.of(UUID.randomUUID());
+      final TransferHolder transferHolder = holder(transferId, ALICE, BOB, START);
+      transfers.put(transferId, ImmutableTransferHolder.builder()
+          .from(transferHolder)
+          .transfer(ImmutableTransfer.copyOf(transferHolder.getTransfer()).withAmount(amount))
+          .transferStatus(TransferStatus.EXECUTED)
+          .build());
+    }
+
+    assertThat(transfers.getBalance(ALICE), is(amount.add(amount).negate()));
+    assertThat(transfers.getBalance(BOB), is(amount.add(amount)));
+  }
+
+  @Test
+  public void testFulfillWhilePreparing() throws Exception {
+    final int count = 10_000;
+    final List<TransferId> transferIds = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      transferIds.add(TransferId.of(UUID.randomUUID()));
+    }
+
+    // Execute each transfer as soon as it appears, which may be before it has been indexed...
+    final Thread fulfiller = new Thread(() -> {
+      for (final TransferId transferId : transferIds) {
+        TransferHolder prepared;
+        while ((prepared = transfers.get(transferId)) == null) {
+          Thread.yield();
+        }
+        transfers.replace(transferId, prepared,
+            ImmutableTransferHolder.copyOf(prepared).withTransferStatus(TransferStatus.EXECUTED));
+      }
+    });
+    fulfiller.start();
+    for (final TransferId transferId : transferIds) {
+      transfers.putIfAbsent(transferId, holder(transferId, ALICE, BOB, START));
+    }
+    fulfiller.join();
+
+    assertThat(transfers.getBalance(ALICE), is(BigInteger.valueOf(-count)));
+    assertThat(transfers.getBalance(BOB), is(BigInteger.valueOf(count)));
+    assertThat(transfers.getHistory(ALICE).count(), is((long) count));
+  }
+
+  @Test
+  public void testUnknownAccount() {
+    put(ALICE, BOB, START);
+
+    final TransferPage page = transfers.query(
+        ImmutableTransferQuery.builder().account(CAROL).build()
+    );
+
+    assertThat(page.getTransfers().isEmpty(), is(true));
+    assertThat(page.getNextCursor().isPresent(), is(false));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidCursor() {
+    transfers.query(ImmutableTransferQuery.builder().account(ALICE).cursor("nonsense").build());
+  }
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void testViewsAreReadOnly() {
+    final TransferId transferId = put(ALICE, BOB, START);
+    transfers.keySet().remove(transferId);
+  }
+
+  private TransferId put(
+      final InterledgerAddress source, final InterledgerAddress destination,
+      final Instant preparedAt
+  ) {
+    final TransferId transferId = TransferId.of(UUID.randomUUID());
+    transfers.put(transferId, holder(transferId, source, destination, preparedAt));
+    return transferId;
+  }
+
+  private TransferHolder holder(
+      final TransferId transferId, final InterledgerAddress source,
+      final InterledgerAddress destination, final Instant preparedAt
+  ) {
+    return ImmutableTransferHolder.builder()
+        .transfer(ImmutableTransfer.builder()
+            .transferId(transferId)
+            .ledgerPrefix(LEDGER_PREFIX)
+            .sourceAccount(source)
+            .destinationAccount(destination)
+            .amount(BigInteger.ONE)
+            .executionCondition(new PreimageSha256Fulfillment(PREIMAGE).getCondition())
+            .expiresAt(preparedAt.plus(1, ChronoUnit.HOURS))
+            .interlederPaymentPacket(InterledgerPayment.builder()
+                .destinationAccount(destination)
+                .destinationAmount(BigInteger.ONE)
+                .data(new byte[0])
+                .build())
+            .build())
+        .preparedAt(preparedAt)
+        .build();
+  }
+
+  private List<TransferId> ids(final TransferPage page) {
+    return page.getTransfers().stream()
+        .map(th -> th.getTransfer().getTransferId())
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,286 @@
+package org.interledger.plugin.lpi.simulation;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.testng.AssertJUnit.fail;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+import org.interledger.ilp.InterledgerPayment;
+import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.ImmutableLedgerInfo;
+import org.interledger.plugin.lpi.ImmutableTransfer;
+import org.interledger.plugin.lpi.LedgerInfo;
+import org.interledger.plugin.lpi.MockLedgerPlugin;
+import org.interledger.plugin.lpi.MockLedgerPlugin.ExtendedLedgerPluginConfig;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.TransferId;
+import org.interledger.plugin.lpi.events.OutgoingTransferPreparedEvent;
+import org.interledger.plugin.lpi.exceptions.LedgerPluginNotConnectedException;
+import org.interledger.plugin.lpi.exceptions.TransferNotAcceptedException;
+import org.interledger.plugin.lpi.handlers.LedgerPluginEventHandler;
+
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.money.Monetary;
+
+/**
+ * Unit tests for {@link SimulatedLedger} when configured with a {@link SimulationProfile}.
+ */
+public class SimulatedLedgerFaultInjectionTest {
+
+  private static final byte[] PREIMAGE = "quinquagintaquadringentilliardth".getBytes();
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+  private static final InterledgerAddress CONNECTOR_ACCOUNT = LEDGER_PREFIX.with("connector");
+
+  @Mock
+  private LedgerPluginEventHandler ledgerPluginEventHandlerMock;
+
+  @BeforeMethod
+  public void setup() {
+    MockitoAnnotations.initMocks(this);
+  }
+
+  @Test
+  public void testSendTransferFailure() {
+    final MockLedgerPlugin mockLedgerPlugin = connectedPlugin(ImmutableSimulationProfile.builder()
+        .putFailureProbabilities(LedgerOperation.SEND_TRANSFER, 1.0)
+        .build());
+    final Transfer transfer = constructTransfer();
+
+    try {
+      mockLedgerPlugin.sendTransfer(transfer);
+      fail("Should have thrown a TransferNotAcceptedException!");
+    } catch (TransferNotAcceptedException e) {
+      assertThat(e.getTransferId(), is(transfer.getTransferId()));
+      assertThat(e.getRejectionReason().getErrorCode(), is(ErrorCode.T02_LEDGER_BUSY));
+      assertThat(mockLedgerPlugin.getSimulatedLedger().getTransfers().isEmpty(), is(true));
+      verifyZeroInteractions(ledgerPluginEventHandlerMock);
+    }
+  }
+
+  @Test(expectedExceptions = LedgerPluginNotConnectedException.class)
+  public void testFulfillConditionFailure() {
+    final MockLedgerPlugin mockLedgerPlugin = connectedPlugin(ImmutableSimulationProfile.builder()
+        .putFailureProbabilities(LedgerOperation.FULFILL_CONDITION, 1.0)
+        .build());
+    final Transfer transfer = constructTransfer();
+    mockLedgerPlugin.sendTransfer(transfer);
+
+    mockLedgerPlugin.fulfillCondition(
+        transfer.getTransferId(), new PreimageSha256Fulfillment(PREIMAGE)
+    );
+  }
+
+  @Test
+  public void testDroppedEvents() {
+    final MockLedgerPlugin mockLedgerPlugin = connectedPlugin(ImmutableSimulationProfile.builder()
+        .putFailureProbabilities(LedgerOperation.EVENT_DELIVERY, 1.0)
+        .build());
+    final Transfer transfer = constructTransfer();
+
+    mockLedgerPlugin.sendTransfer(transfer);
+
+    // The ledger accepted the transfer, but the plugin never heard about it...
+    assertThat(mockLedgerPlugin.getSimulatedLedger().getTransfers().size(), is(1));
+    verifyZeroInteractions(ledgerPluginEventHandlerMock);
+  }
+
+  @Test
+  public void testDeliveredEvents() {
+    final MockLedgerPlugin mockLedgerPlugin = connectedPlugin(SimulationProfile.none());
+
+    mockLedgerPlugin.sendTransfer(constructTransfer());
+
+    verify(ledgerPluginEventHandlerMock)
+        .onTransferPrepared(any(OutgoingTransferPreparedEvent.class));
+  }
+
+  @Test
+  public void testFailuresAreDeterministicForSeed() {
+    // Each operation takes 0, 1 or 2 microseconds, depending on the base latency and on whether
+    // it's part of a stall...
+    final Duration unit = Duration.ofNanos(1_000);
+    final List<RecordingLatencyModel> latencyModels = new ArrayList<>();
+    final SimulationProfile simulationProfile = ImmutableSimulationProfile.builder()
+        .putFailureProbabilities(LedgerOperation.SEND_TRANSFER, 0.5)
+        .putLatencyModels(LedgerOperation.SEND_TRANSFER, new RecordingLatencyModel(
+            LatencyModel.withStalls(LatencyModel.sampled(Duration.ZERO, unit), 0.1, unit, 3),
+            latencyModels
+        ))
+        .seed(42L)
+        .build();
+
+    // Interleave the two runs, so that they'd disturb each other if they shared any state...
+    final MockLedgerPlugin firstPlugin = connectedPlugin(simulationProfile);
+    final MockLedgerPlugin secondPlugin = connectedPlugin(simulationProfile);
+    final StringBuilder firstRun = new StringBuilder();
+    final StringBuilder secondRun = new StringBuilder();
+    for (int i = 0; i < 64; i++) {
+      firstRun.append(recordOutcome(firstPlugin));
+      secondRun.append(recordOutcome(secondPlugin));
+    }
+
+    assertThat(secondRun.toString(), is(firstRun.toString()));
+    assertThat(firstRun.indexOf("F") >= 0, is(true));
+    assertThat(firstRun.indexOf("S") >= 0, is(true));
+
+    // Each ledger used its own instance of the model...
+    assertThat(latencyModels.size(), is(2));
+    final List<Long> firstLatencies = latencyModels.get(0).getLatencies();
+    assertThat(firstLatencies.size(), is(64));
+    assertThat(latencyModels.get(1).getLatencies(), is(firstLatencies));
+    assertThat(firstLatencies.contains(0L), is(true));
+    // Only a stall can add a second unit...
+    assertThat(firstLatencies.contains(2 * unit.toNanos()), is(true));
+  }
+
+  @Test
+  public void testFixedLatency() {
+    final MockLedgerPlugin mockLedgerPlugin = connectedPlugin(ImmutableSimulationProfile.builder()
+        .putLatencyModels(LedgerOperation.SEND_TRANSFER, LatencyModel.fixed(Duration.ofMillis(20)))
+        .build());
+
+    final long start = System.nanoTime();
+    mockLedgerPlugin.sendTransfer(constructTransfer());
+
+    assertThat(System.nanoTime() - start >= Duration.ofMillis(20).toNanos(), is(true));
+  }
+
+  @Test
+  public void testStallsAffectConsecutiveOperations() {
+    final LatencyModel latencyModel = LatencyModel.withStalls(
+        LatencyModel.none(), 1.0, Duration.ofMillis(5), 3
+    );
+    final Random random = new Random(1L);
+
+    // Every operation starts or continues a stall...
+    for (int i = 0; i < 10; i++) {
+      assertThat(latencyModel.nextLatencyNanos(random), is(Duration.ofMillis(5).toNanos()));
+    }
+  }
+
+  @Test
+  public void testExponentialLatencyHasRequestedMean() {
+    final LatencyModel latencyModel = LatencyModel.exponential(Duration.ofMillis(10));
+    final Random random = new Random(1L);
+
+    long total = 0;
+    for (int i = 0; i < 10_000; i++) {
+      total += latencyModel.nextLatencyNanos(random);
+    }
+    final long mean = total / 10_000;
+
+    assertThat(mean, is(greaterThan(Duration.ofMillis(9).toNanos())));
+    assertThat(mean, is(lessThan(Duration.ofMillis(11).toNanos())));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidFailureProbability() {
+    ImmutableSimulationProfile.builder()
+        .putFailureProbabilities(LedgerOperation.SEND_MESSAGE, 1.5)
+        .build();
+  }
+
+  private char recordOutcome(final MockLedgerPlugin mockLedgerPlugin) {
+    try {
+      mockLedgerPlugin.sendTransfer(constructTransfer());
+      return 'S';
+    } catch (TransferNotAcceptedException e) {
+      return 'F';
+    }
+  }
+
+  private MockLedgerPlugin connectedPlugin(final SimulationProfile simulationProfile) {
+    final LedgerInfo ledgerInfo = ImmutableLedgerInfo.builder()
+        .currencyScale(8)
+        .currencyUnit(Monetary.getCurrency("USD"))
+        .ledgerPrefix(LEDGER_PREFIX)
+        .build();
+    final SimulatedLedger simulatedLedger = new SimulatedLedger(ledgerInfo, simulationProfile);
+    final MockLedgerPlugin mockLedgerPlugin = new MockLedgerPlugin(
+        ExtendedLedgerPluginConfig.forSimulatedLedger(ledgerInfo, CONNECTOR_ACCOUNT),
+        simulatedLedger
+    );
+    mockLedgerPlugin.addLedgerPluginEventHandler(ledgerPluginEventHandlerMock);
+    mockLedgerPlugin.connect();
+
+    // Reset the event handler so we don't count the "connect" event...
+    reset(ledgerPluginEventHandlerMock);
+    return mockLedgerPlugin;
+  }
+
+  private Transfer constructTransfer() {
+    final InterledgerAddress destinationAccount = LEDGER_PREFIX.with("destination");
+    return ImmutableTransfer.builder()
+        .transferId(TransferId.of(UUID.randomUUID()))
+        .ledgerPrefix(LEDGER_PREFIX)
+        .sourceAccount(CONNECTOR_ACCOUNT)
+        .destinationAccount(destinationAccount)
+        .amount(BigInteger.TEN)
+        .executionCondition(new PreimageSha256Fulfillment(PREIMAGE).getCondition())
+        .expiresAt(Instant.now().plus(10, ChronoUnit.HOURS))
+        .interlederPaymentPacket(InterledgerPayment.builder()
+            .destinationAccount(destinationAccount)
+            .destinationAmount(BigInteger.TEN)
+            .data(new byte[0])
+            .build())
+        .build();
+  }
+
+  /**
+   * Records the latencies chosen by each instance of a {@link LatencyModel}.
+   */
+  private static final class RecordingLatencyModel implements LatencyModel {
+
+    private final LatencyModel latencyModel;
+    private final List<RecordingLatencyModel> instances;
+    private final List<Long> latencies = new CopyOnWriteArrayList<>();
+
+    private RecordingLatencyModel(
+        final LatencyModel latencyModel, final List<RecordingLatencyModel> instances
+    ) {
+      this.latencyModel = latencyModel;
+      this.instances = instances;
+    }
+
+    @Override
+    public long nextLatencyNanos(final Random random) {
+      final long latencyNanos = latencyModel.nextLatencyNanos(random);
+      latencies.add(latencyNanos);
+      return latencyNanos;
+    }
+
+    @Override
+    public LatencyModel newInstance() {
+      final RecordingLatencyModel instance =
+          new RecordingLatencyModel(latencyModel.newInstance(), instances);
+      instances.add(instance);
+      return instance;
+    }
+
+    List<Long> getLatencies() {
+      return latencies;
+    }
+  }
+}
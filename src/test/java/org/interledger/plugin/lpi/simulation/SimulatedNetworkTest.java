@@ -0,0 +1,158 @@
+package org.interledger.plugin.lpi.simulation;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.testng.AssertJUnit.fail;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.ImmutableLedgerInfo;
+import org.interledger.plugin.lpi.LedgerInfo;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.exceptions.TransferNotAcceptedException;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import javax.money.Monetary;
+
+/**
+ * Unit tests for {@link SimulatedNetwork}.
+ */
+public class SimulatedNetworkTest {
+
+  private static final InterledgerAddress LEDGER_A = InterledgerAddress.of("test1.a.");
+  private static final InterledgerAddress LEDGER_B = InterledgerAddress.of("test1.b.");
+  private static final InterledgerAddress LEDGER_C = InterledgerAddress.of("test1.c.");
+  private static final InterledgerAddress LEDGER_D = InterledgerAddress.of("test1.d.");
+
+  private static final InterledgerAddress ALICE = LEDGER_A.with("alice");
+  private static final InterledgerAddress BOB = LEDGER_C.with("bob");
+
+  private SimulatedNetwork simulatedNetwork;
+
+  @BeforeMethod
+  public void setup() {
+    this.simulatedNetwork = new SimulatedNetwork(Duration.ofSeconds(5));
+    simulatedNetwork.addLedger(ledgerInfo(LEDGER_A, 2));
+    simulatedNetwork.addLedger(ledgerInfo(LEDGER_B, 4));
+    simulatedNetwork.addLedger(ledgerInfo(LEDGER_C, 2));
+    simulatedNetwork.addLedger(ledgerInfo(LEDGER_D, 2));
+    simulatedNetwork.addConnector("mark", LEDGER_A, LEDGER_B);
+    simulatedNetwork.addConnector("mary", LEDGER_B, LEDGER_C);
+  }
+
+  @Test
+  public void testMultiHopPayment() throws Exception {
+    final Transfer transfer = simulatedNetwork.sendPayment(ALICE, BOB, BigInteger.valueOf(100))
+        .get();
+
+    assertThat(transfer.getSourceAccount(), is(ALICE));
+    assertThat(transfer.getDestinationAccount(), is(LEDGER_A.with("mark")));
+
+    // Alice paid 100 on ledger A, Mark paid 10000 (in ledger B's scale) to Mary, and Mary paid 100
+    // to Bob...
+    assertThat(balance(LEDGER_A, ALICE), is(BigInteger.valueOf(-100)));
+    assertThat(balance(LEDGER_B, LEDGER_B.with("mary")), is(BigInteger.valueOf(10_000)));
+    assertThat(balance(LEDGER_C, BOB), is(BigInteger.valueOf(100)));
+
+    simulatedNetwork.getConnectors()
+        .forEach(connectorNode -> assertThat(connectorNode.getInFlightCount(), is(0)));
+  }
+
+  @Test
+  public void testUnreachableDestination() throws Exception {
+    final CompletableFuture<Transfer> payment = simulatedNetwork.sendPayment(
+        ALICE, LEDGER_D.with("dave"), BigInteger.TEN
+    );
+
+    try {
+      payment.get();
+      fail("Should have thrown an ExecutionException!");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), is(instanceOf(TransferNotAcceptedException.class)));
+      assertThat(((TransferNotAcceptedException) e.getCause()).getRejectionReason().getErrorCode(),
+          is(ErrorCode.F02_UNREACHABLE));
+    }
+  }
+
+  @Test
+  public void testRejectedByLedgerFault() throws Exception {
+    simulatedNetwork.addLedger(ledgerInfo(InterledgerAddress.of("test1.e."), 2),
+        ImmutableSimulationProfile.builder()
+            .putFailureProbabilities(LedgerOperation.SEND_TRANSFER, 1.0)
+            .build());
+    simulatedNetwork.addConnector("matt", LEDGER_C, InterledgerAddress.of("test1.e."));
+
+    final CompletableFuture<Transfer> payment = simulatedNetwork.sendPayment(
+        ALICE, InterledgerAddress.of("test1.e.erin"), BigInteger.TEN
+    );
+
+    try {
+      payment.get();
+      fail("Should have thrown an ExecutionException!");
+    } catch (ExecutionException e) {
+      assertThat(((TransferNotAcceptedException) e.getCause()).getRejectionReason().getErrorCode(),
+          is(ErrorCode.T02_LEDGER_BUSY));
+    }
+
+    // Every hop was rolled back...
+    assertThat(balance(LEDGER_A, ALICE), is(BigInteger.ZERO));
+    assertThat(balance(LEDGER_C, LEDGER_C.with("matt")), is(BigInteger.ZERO));
+  }
+
+  @Test
+  public void testRun() {
+    final NetworkReport report = simulatedNetwork.run(ALICE, BOB, BigInteger.ONE, 200, 4);
+
+    assertThat(report.getFulfilledPayments(), is(200L));
+    assertThat(report.getFailedPayments(), is(0L));
+    assertThat(report.getPaymentsPerSecond(), is(greaterThan(0d)));
+    assertThat(report.getEndToEndStats().getCount(), is(200L));
+    assertThat(report.getHopStats().keySet().size(), is(3));
+    assertThat(report.getHopStats().get(LEDGER_B).getCount(), is(200L));
+    assertThat(balance(LEDGER_C, BOB), is(BigInteger.valueOf(200)));
+    assertThat(simulatedNetwork.getPendingPaymentCount(), is(0));
+  }
+
+  @Test
+  public void testTimedOutPaymentsAreForgotten() {
+    final SimulatedNetwork simulatedNetwork = new SimulatedNetwork(Duration.ofMillis(100));
+    simulatedNetwork.addLedger(ledgerInfo(LEDGER_A, 2));
+    simulatedNetwork.addLedger(ledgerInfo(LEDGER_B, 4));
+    // Neither the receiver nor the last connector hears about transfers on the last ledger, so no
+    // hop is ever fulfilled or rejected...
+    simulatedNetwork.addLedger(ledgerInfo(LEDGER_C, 2), ImmutableSimulationProfile.builder()
+        .putFailureProbabilities(LedgerOperation.EVENT_DELIVERY, 1.0)
+        .build());
+    simulatedNetwork.addConnector("mark", LEDGER_A, LEDGER_B);
+    simulatedNetwork.addConnector("mary", LEDGER_B, LEDGER_C);
+
+    final NetworkReport report = simulatedNetwork.run(ALICE, BOB, BigInteger.ONE, 3, 1);
+
+    assertThat(report.getFailedPayments(), is(3L));
+    assertThat(simulatedNetwork.getPendingPaymentCount(), is(0));
+    simulatedNetwork.getConnectors()
+        .forEach(connectorNode -> assertThat(connectorNode.getInFlightCount(), is(0)));
+  }
+
+  private BigInteger balance(final InterledgerAddress ledgerPrefix,
+      final InterledgerAddress account) {
+    return simulatedNetwork.getLedger(ledgerPrefix).get().getAccountBalance(account);
+  }
+
+  private LedgerInfo ledgerInfo(final InterledgerAddress ledgerPrefix, final int currencyScale) {
+    return ImmutableLedgerInfo.builder()
+        .currencyScale(currencyScale)
+        .currencyUnit(Monetary.getCurrency("USD"))
+        .ledgerPrefix(ledgerPrefix)
+        .build();
+  }
+}
@@ -0,0 +1,68 @@
+package org.interledger.subprotocols;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+/**
+ * Unit tests for {@link ByteBufferSubprotocolData}.
+ */
+@SuppressWarnings("deprecation")
+public class ByteBufferSubprotocolDataTest {
+
+  private static final String PROTOCOL_NAME = "ilp";
+  private static final String CONTENT_TYPE = "application/octet-stream";
+
+  @Test
+  public void testSliceOfDirectBufferIsNotCopied() {
+    final ByteBuffer packet = ByteBuffer.allocateDirect(8);
+    packet.put(new byte[]{0, 1, 2, 3, 4, 5, 6, 7}).flip();
+    packet.position(2).limit(6);
+
+    final SubprotocolData subprotocolData =
+        ByteBufferSubprotocolData.of(PROTOCOL_NAME, CONTENT_TYPE, packet);
+    // The source buffer's position and limit are untouched...
+    assertThat(packet.position(), is(2));
+    assertThat(packet.limit(), is(6));
+    assertThat(subprotocolData.getData(), is(new byte[]{2, 3, 4, 5}));
+
+    // ...and the payload is a view of the same memory, not a copy.
+    packet.put(2, (byte) 42);
+    assertThat(subprotocolData.getDataBuffer().get(0), is((byte) 42));
+    assertThat(subprotocolData.getDataBuffer().isDirect(), is(true));
+  }
+
+  @Test(expectedExceptions = ReadOnlyBufferException.class)
+  public void testDataBufferIsReadOnly() {
+    final SubprotocolData subprotocolData = ByteBufferSubprotocolData.of(
+        PROTOCOL_NAME, CONTENT_TYPE, ByteBuffer.wrap(new byte[]{1, 2, 3})
+    );
+    subprotocolData.getDataBuffer().put(0, (byte) 0);
+  }
+
+  @Test
+  public void testEachDataBufferHasItsOwnPosition() {
+    final SubprotocolData subprotocolData = ByteBufferSubprotocolData.of(
+        PROTOCOL_NAME, CONTENT_TYPE, ByteBuffer.wrap(new byte[]{1, 2, 3})
+    );
+    subprotocolData.getDataBuffer().get();
+
+    assertThat(subprotocolData.getDataBuffer().remaining(), is(3));
+  }
+
+  @Test
+  public void testImmutableSubprotocolDataBuffer() {
+    final SubprotocolData subprotocolData = ImmutableSubprotocolData.builder()
+        .protocolName(PROTOCOL_NAME)
+        .dataContentType(CONTENT_TYPE)
+        .data(new byte[]{1, 2, 3})
+        .build();
+
+    assertThat(subprotocolData.getDataBuffer().isReadOnly(), is(true));
+    assertThat(subprotocolData.getDataBuffer(), is(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+  }
+}
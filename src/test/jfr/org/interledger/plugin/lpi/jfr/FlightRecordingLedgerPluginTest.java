@@ -0,0 +1,257 @@
+package org.interledger.plugin.lpi.jfr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+import org.interledger.InterledgerAddress;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+import org.interledger.ilp.InterledgerPayment;
+import org.interledger.ilp.InterledgerProtocolError;
+import org.interledger.ilp.InterledgerProtocolError.ErrorCode;
+import org.interledger.plugin.lpi.ImmutableLedgerInfo;
+import org.interledger.plugin.lpi.ImmutableTransfer;
+import org.interledger.plugin.lpi.ImmutableTransferHolder;
+import org.interledger.plugin.lpi.MockLedgerPlugin;
+import org.interledger.plugin.lpi.MockLedgerPlugin.ExtendedLedgerPluginConfig;
+import org.interledger.plugin.lpi.MockLedgerPlugin.SimulatedLedger;
+import org.interledger.plugin.lpi.Transfer;
+import org.interledger.plugin.lpi.TransferId;
+import org.interledger.plugin.lpi.handlers.LedgerPluginEventHandler;
+
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import javax.money.Monetary;
+
+/**
+ * Unit tests for {@link FlightRecordingLedgerPlugin}.
+ */
+public class FlightRecordingLedgerPluginTest {
+
+  private static final byte[] PREIMAGE = "quinquagintaquadringentilliardth".getBytes();
+  private static final byte[] ALTERNATE_PREIMAGE = "11inquagintaquadringentilliard11".getBytes();
+  private static final InterledgerAddress LEDGER_PREFIX = InterledgerAddress.of("test1.foo.");
+  private static final InterledgerAddress CONNECTOR = LEDGER_PREFIX.with("connector");
+
+  private MockLedgerPlugin mockLedgerPlugin;
+  private FlightRecordingLedgerPlugin plugin;
+  private Recording recording;
+
+  @BeforeMethod
+  public void setup() {
+    final SimulatedLedger simulatedLedger = new SimulatedLedger(ImmutableLedgerInfo.builder()
+        .currencyScale(8)
+        .currencyUnit(Monetary.getCurrency("USD"))
+        .ledgerPrefix(LEDGER_PREFIX)
+        .build());
+    this.mockLedgerPlugin = new MockLedgerPlugin(ExtendedLedgerPluginConfig.forSimulatedLedger(
+        simulatedLedger.getLedgerInfo(), CONNECTOR), simulatedLedger);
+    this.plugin = new FlightRecordingLedgerPlugin(mockLedgerPlugin);
+
+    this.recording = new Recording();
+    recording.enable(TransferEvent.NAME);
+    recording.enable(MessageEvent.NAME);
+    recording.enable(ConnectionEvent.NAME);
+    recording.enable(HandlerDispatchEvent.NAME);
+    recording.start();
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    recording.close();
+  }
+
+  @Test
+  public void testTransferEvents() throws IOException {
+    plugin.connect();
+    final Transfer outgoing = transfer(CONNECTOR, LEDGER_PREFIX.with("destination"));
+    plugin.sendTransfer(outgoing);
+    plugin.fulfillCondition(outgoing.getTransferId(), new PreimageSha256Fulfillment(PREIMAGE));
+
+    final Transfer incoming = transfer(LEDGER_PREFIX.with("source"), CONNECTOR);
+    mockLedgerPlugin.getSimulatedLedger().sendTransfer(incoming);
+    plugin.tryFulfillCondition(incoming.getTransferId(),
+        new PreimageSha256Fulfillment(ALTERNATE_PREIMAGE));
+    plugin.rejectIncomingTransfer(incoming.getTransferId(), rejectionReason());
+
+    final List<RecordedEvent> events = events(TransferEvent.NAME);
+    assertThat(events.size(), is(8));
+
+    // Each request lasts as long as the plugin took, so it starts before its notification...
+    final RecordedEvent prepare = events.get(0);
+    assertThat(prepare.getString("action"), is("PREPARE"));
+    assertThat(prepare.getString("direction"), is("OUTGOING"));
+    assertThat(prepare.getBoolean("notification"), is(false));
+    assertThat(prepare.getString("transferId"), is(id(outgoing)));
+    assertThat(prepare.getString("ledgerPrefix"), is(LEDGER_PREFIX.getValue()));
+    assertThat(prepare.getString("amount"), is("10"));
+    assertThat(prepare.getString("outcome"), is("ACCEPTED"));
+
+    final RecordedEvent prepared = events.get(1);
+    assertThat(prepared.getString("action"), is("PREPARE"));
+    assertThat(prepared.getBoolean("notification"), is(true));
+    assertThat(prepared.getString("transferId"), is(id(outgoing)));
+    assertThat(prepared.getString("outcome"), is(nullValue()));
+
+    // The direction and amount of a resolution come from the prepare notification...
+    final RecordedEvent fulfillOutgoing = events.get(2);
+    assertThat(fulfillOutgoing.getString("action"), is("FULFILL"));
+    assertThat(fulfillOutgoing.getString("direction"), is("OUTGOING"));
+    assertThat(fulfillOutgoing.getString("transferId"), is(id(outgoing)));
+    assertThat(fulfillOutgoing.getString("ledgerPrefix"), is(LEDGER_PREFIX.getValue()));
+    assertThat(fulfillOutgoing.getString("amount"), is("10"));
+    assertThat(fulfillOutgoing.getString("outcome"), is("ACCEPTED"));
+    assertThat(events.get(3).getString("action"), is("FULFILL"));
+    assertThat(events.get(3).getBoolean("notification"), is(true));
+
+    assertThat(events.get(4).getString("action"), is("PREPARE"));
+    assertThat(events.get(4).getString("direction"), is("INCOMING"));
+    assertThat(events.get(4).getBoolean("notification"), is(true));
+
+    final RecordedEvent fulfillIncoming = events.get(5);
+    assertThat(fulfillIncoming.getString("action"), is("FULFILL"));
+    assertThat(fulfillIncoming.getString("direction"), is("INCOMING"));
+    assertThat(fulfillIncoming.getString("transferId"), is(id(incoming)));
+    assertThat(fulfillIncoming.getString("amount"), is("10"));
+    assertThat(fulfillIncoming.getString("outcome"), is("INVALID_FULFILLMENT"));
+
+    // ...which is still remembered after a failed attempt to resolve the transfer.
+    assertThat(events.get(6).getString("action"), is("REJECT"));
+    assertThat(events.get(6).getString("direction"), is("INCOMING"));
+    assertThat(events.get(6).getString("amount"), is("10"));
+    assertThat(events.get(6).getString("outcome"), is("ACCEPTED"));
+    assertThat(events.get(7).getString("action"), is("REJECT"));
+    assertThat(events.get(7).getString("direction"), is("INCOMING"));
+    assertThat(events.get(7).getBoolean("notification"), is(true));
+    assertThat(events.get(7).getString("amount"), is("10"));
+  }
+
+  @Test
+  public void testResolvingAnUnknownTransfer() throws IOException {
+    plugin.connect();
+    final Transfer incoming = transfer(LEDGER_PREFIX.with("source"), CONNECTOR);
+    mockLedgerPlugin.getSimulatedLedger().getTransfers().put(incoming.getTransferId(),
+        ImmutableTransferHolder.builder().transfer(incoming).build());
+    plugin.rejectIncomingTransfer(incoming.getTransferId(), rejectionReason());
+
+    final List<RecordedEvent> events = events(TransferEvent.NAME);
+    assertThat(events.size(), is(2));
+    final RecordedEvent reject = events.get(0);
+    assertThat(reject.getString("action"), is("REJECT"));
+    assertThat(reject.getString("direction"), is("INCOMING"));
+    // The ledger prefix comes from the wrapped plugin, but the amount isn't known...
+    assertThat(reject.getString("ledgerPrefix"), is(LEDGER_PREFIX.getValue()));
+    assertThat(reject.getString("amount"), is(nullValue()));
+    assertThat(reject.getString("outcome"), is("ACCEPTED"));
+  }
+
+  @Test
+  public void testConnectionAndHandlerEvents() throws IOException {
+    final UUID handlerId = plugin.addLedgerPluginEventHandler((LedgerPluginEventHandler)
+        Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] {LedgerPluginEventHandler.class},
+            (proxy, method, args) -> method.getDeclaringClass() == Object.class
+                ? method.invoke(this, args) : null));
+    plugin.connect();
+    final Transfer transfer = transfer(CONNECTOR, LEDGER_PREFIX.with("destination"));
+    plugin.sendTransfer(transfer);
+    plugin.disconnect();
+
+    final List<RecordedEvent> connections = events(ConnectionEvent.NAME);
+    assertThat(connections.size(), is(2));
+    assertThat(connections.get(0).getString("action"), is("CONNECT"));
+    assertThat(connections.get(0).getString("ledgerPrefix"), is(LEDGER_PREFIX.getValue()));
+    assertThat(connections.get(0).getString("outcome"), is("ACCEPTED"));
+    assertThat(connections.get(1).getString("action"), is("DISCONNECT"));
+
+    final List<RecordedEvent> dispatches = events(HandlerDispatchEvent.NAME);
+    assertThat(dispatches.size(), is(3));
+    assertThat(dispatches.get(0).getString("eventType"), is("CONNECTED"));
+    assertThat(dispatches.get(1).getString("handlerId"), is(handlerId.toString()));
+    assertThat(dispatches.get(1).getString("eventType"), is("OUTGOING_TRANSFER_PREPARED"));
+    assertThat(dispatches.get(1).getString("ledgerPrefix"), is(LEDGER_PREFIX.getValue()));
+    assertThat(dispatches.get(1).getString("transferId"), is(id(transfer)));
+    assertThat(dispatches.get(1).getBoolean("failed"), is(false));
+    assertThat(dispatches.get(2).getString("eventType"), is("DISCONNECTED"));
+  }
+
+  @Test
+  public void testNothingIsRecordedWhenDisabled() throws IOException {
+    recording.disable(TransferEvent.NAME);
+
+    plugin.connect();
+    plugin.sendTransfer(transfer(CONNECTOR, LEDGER_PREFIX.with("destination")));
+
+    assertThat(events(TransferEvent.NAME).isEmpty(), is(true));
+    assertThat(events(ConnectionEvent.NAME).size(), is(1));
+  }
+
+  /**
+   * Stop the recording, if it is still running, and read back the events with the given name in
+   * the order that they started.
+   */
+  private List<RecordedEvent> events(final String name) throws IOException {
+    if (recording.getState() == RecordingState.RUNNING) {
+      recording.stop();
+    }
+    final Path file = Files.createTempFile("ledger-plugin", ".jfr");
+    try {
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file).stream()
+          .filter(event -> event.getEventType().getName().equals(name))
+          .sorted(Comparator.comparing(RecordedEvent::getStartTime))
+          .collect(Collectors.toList());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private InterledgerProtocolError rejectionReason() {
+    return InterledgerProtocolError.builder()
+        .errorCode(ErrorCode.T04_INSUFFICIENT_LIQUIDITY)
+        .triggeredAt(Instant.now())
+        .triggeredByAddress(LEDGER_PREFIX)
+        .build();
+  }
+
+  private String id(final Transfer transfer) {
+    return transfer.getTransferId().value().toString();
+  }
+
+  private Transfer transfer(
+      final InterledgerAddress sourceAccount, final InterledgerAddress destinationAccount
+  ) {
+    return ImmutableTransfer.builder()
+        .transferId(TransferId.of(UUID.randomUUID()))
+        .ledgerPrefix(LEDGER_PREFIX)
+        .sourceAccount(sourceAccount)
+        .amount(BigInteger.TEN)
+        .destinationAccount(destinationAccount)
+        .executionCondition(new PreimageSha256Fulfillment(PREIMAGE).getCondition())
+        .expiresAt(Instant.now().plus(10, ChronoUnit.HOURS))
+        .interlederPaymentPacket(InterledgerPayment.builder()
+            .destinationAccount(destinationAccount)
+            .destinationAmount(BigInteger.TEN)
+            .data(new byte[0])
+            .build())
+        .build();
+  }
+}